@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Fast-start build and launch.
+#
+#   ./faststart.sh build   AOT-processed jar, extracted layout and AppCDS archive
+#   ./faststart.sh run     start from target/faststart with the archive
+#
+# The training run in "build" starts the context against the configured database
+# (Flyway needs it) and exits once it is refreshed, recording every class loaded
+# up to that point into logistics.jsa. Rebuild the archive whenever the jar or the
+# JDK changes; a mismatched archive is ignored with a warning, not an error.
+set -euo pipefail
+
+cd "$(dirname "$0")"
+JAR=logistics-0.0.1-SNAPSHOT.jar
+OUT=target/faststart
+FASTSTART_OPTS=(-Dspring.aot.enabled=true -Dspring.profiles.active=faststart)
+
+case "${1:-run}" in
+  build)
+    ./mvnw -B -q -Pfaststart -DskipTests package
+    rm -rf "$OUT"
+    java -Djarmode=tools -jar "target/$JAR" extract --destination "$OUT"
+    (cd "$OUT" && java -XX:ArchiveClassesAtExit=logistics.jsa "${FASTSTART_OPTS[@]}" \
+        -Dspring.context.exit=onRefresh -jar "$JAR")
+    echo "Fast-start image in $OUT"
+    ;;
+  run)
+    cd "$OUT"
+    # shellcheck disable=SC2086
+    exec java -XX:SharedArchiveFile=logistics.jsa "${FASTSTART_OPTS[@]}" ${JAVA_OPTS:-} -jar "$JAR" "${@:2}"
+    ;;
+  *)
+    echo "usage: $0 build|run" >&2
+    exit 1
+    ;;
+esac
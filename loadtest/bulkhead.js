@@ -0,0 +1,84 @@
+// Scan latency under a reporting flood.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e SCAN_TOKENS=t1,t2,t3 -e REPORT_TOKEN=... \
+//          -e SCANS=scans.json loadtest/bulkhead.js
+//
+// scans.json is an array of {"trackingNumber": ..., "barcode": ...} pairs for items
+// that are on an open shipment and not yet scanned, at least one per scan
+// (50/s for 4 minutes, so 12000). Each pair is scanned once, so every request takes
+// the first-scan path rather than the cheap re-scan one.
+//
+// The scanners run at a steady rate for the whole test. Halfway in, the report
+// scenario starts far more concurrent exports and KPI reads than the reporting
+// compartment admits. With bulkheads on, reports queue or get 503 inside their
+// own partition, as do the unpaged shipment and truck listings, and the scan p99
+// threshold holds; run it again with
+// logistics.bulkhead.enabled=false to see the scan p99 climb as reports take the
+// shared threads and connections. Scans are spread over several warehouse staff
+// tokens so the per-user scan rate limit does not shed them first.
+import http from 'k6/http';
+import { check } from 'k6';
+import exec from 'k6/execution';
+import { Trend, Counter } from 'k6/metrics';
+import { SharedArray } from 'k6/data';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const scanLatency = new Trend('scan_latency', true);
+const reportRejected = new Counter('report_rejected');
+const scanTokens = (__ENV.SCAN_TOKENS || '').split(',');
+const scans = new SharedArray('scans', () => JSON.parse(open(__ENV.SCANS || 'scans.json')));
+const SCAN_RATE = 50;
+const SCAN_SECONDS = 240;
+
+export const options = {
+  scenarios: {
+    scans: {
+      executor: 'constant-arrival-rate',
+      exec: 'scan',
+      rate: SCAN_RATE,
+      timeUnit: '1s',
+      duration: `${SCAN_SECONDS}s`,
+      preAllocatedVUs: 50,
+    },
+    reports: {
+      executor: 'constant-vus',
+      exec: 'report',
+      vus: 40,
+      startTime: '2m',
+      duration: '2m',
+    },
+  },
+  thresholds: {
+    'scan_latency{phase:baseline}': ['p(99)<250'],
+    'scan_latency{phase:flood}': ['p(99)<250'],
+  },
+};
+
+export function setup() {
+  if (scans.length < SCAN_RATE * SCAN_SECONDS) {
+    throw new Error(`need ${SCAN_RATE * SCAN_SECONDS} distinct scans, got ${scans.length}`);
+  }
+}
+
+export function scan() {
+  // Reports start halfway through the scan scenario
+  const phase = exec.scenario.progress < 0.5 ? 'baseline' : 'flood';
+  const token = scanTokens[exec.vu.idInTest % scanTokens.length];
+  const pair = scans[exec.scenario.iterationInTest % scans.length];
+  const res = http.post(
+    `${BASE_URL}/api/shipment-processing/scan-item`,
+    JSON.stringify({ trackingNumber: pair.trackingNumber, barcode: pair.barcode }),
+    { headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${token}` } },
+  );
+  scanLatency.add(res.timings.duration, { phase });
+  check(res, { 'scan not shed': (r) => r.status !== 503 });
+}
+
+export function report() {
+  const paths = ['/api/reports/shipments.csv', '/api/kpis/lanes', '/api/inventory/reorder', '/api/shipments', '/api/trucks'];
+  const res = http.get(`${BASE_URL}${paths[__ITER % paths.length]}`,
+    { headers: { Authorization: `Bearer ${__ENV.REPORT_TOKEN}` }, timeout: '120s' });
+  if (res.status === 503) {
+    reportRejected.add(1);
+  }
+}
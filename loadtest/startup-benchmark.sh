@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# Time to first successful request and resident memory at that moment, default
+# mode against fast-start mode, both from the image built by ./faststart.sh build.
+#
+#   loadtest/startup-benchmark.sh [runs]
+#
+# Each run starts the app, polls HEALTH_URL until it answers 200, records the
+# elapsed time and the process RSS, and stops the app. Prints the median per mode.
+# Linux only (RSS is read from /proc).
+set -euo pipefail
+
+cd "$(dirname "$0")/../target/faststart"
+RUNS=${1:-5}
+JAR=logistics-0.0.1-SNAPSHOT.jar
+PORT=${PORT:-8080}
+HEALTH_URL=${HEALTH_URL:-http://localhost:$PORT/api/test/health}
+
+declare -A MODES=(
+  [default]=""
+  [faststart]="-XX:SharedArchiveFile=logistics.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=faststart"
+)
+
+median() {
+  sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+for mode in default faststart; do
+  times=()
+  rss=()
+  for run in $(seq 1 "$RUNS"); do
+    start=$(date +%s%N)
+    # shellcheck disable=SC2086
+    java ${MODES[$mode]} -Dserver.port="$PORT" -jar "$JAR" > "startup-$mode-$run.log" 2>&1 &
+    pid=$!
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "$HEALTH_URL")" = "200" ]; do
+      if ! kill -0 "$pid" 2> /dev/null; then
+        echo "$mode run $run exited before serving, see startup-$mode-$run.log" >&2
+        exit 1
+      fi
+      sleep 0.05
+    done
+    end=$(date +%s%N)
+    times+=($(( (end - start) / 1000000 )))
+    rss+=($(awk '/VmRSS/ { print $2 }' "/proc/$pid/status"))
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "$mode run $run: ${times[-1]} ms, RSS ${rss[-1]} kB"
+  done
+  echo "$mode median: $(printf '%s\n' "${times[@]}" | median) ms to first request," \
+       "RSS $(printf '%s\n' "${rss[@]}" | median) kB"
+done
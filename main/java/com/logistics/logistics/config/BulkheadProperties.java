@@ -0,0 +1,33 @@
+package com.logistics.logistics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoint classes that each get their own bounded share of request threads.
+ * Requests beyond maxConcurrent wait in a queue of at most maxQueue for up to
+ * maxWaitMs, and anything past that is turned away, so one class can never hold
+ * more than maxConcurrent + maxQueue threads.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "logistics.bulkhead")
+public class BulkheadProperties {
+    private boolean enabled = true;
+    private Map<String, Compartment> compartments = new LinkedHashMap<>();
+
+    @Data
+    public static class Compartment {
+        private List<String> paths = new ArrayList<>();
+        private List<String> methods = new ArrayList<>();
+        private int maxConcurrent = 10;
+        private int maxQueue = 20;
+        private long maxWaitMs = 2000;
+    }
+}
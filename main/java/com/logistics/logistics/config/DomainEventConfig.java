@@ -0,0 +1,88 @@
+package com.logistics.logistics.config;
+
+import com.logistics.logistics.dto.InventoryResponse;
+import com.logistics.logistics.model.Shipment;
+import com.logistics.logistics.service.DomainEvent;
+import com.logistics.logistics.service.DomainEventHandler;
+import com.logistics.logistics.service.InventoryKeyLookup;
+import com.logistics.logistics.service.InventorySearchIndex;
+import com.logistics.logistics.service.InventoryService;
+import com.logistics.logistics.service.LaneTransitTimeService;
+import com.logistics.logistics.service.ShipmentEventHub;
+import com.logistics.logistics.service.WarehouseDistanceMatrix;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumSet;
+
+/**
+ * Reactions that used to run inline on the request thread. Each handler gets its
+ * own consumer thread on the DomainEventBus, so a slow one (the distance matrix
+ * update is O(n^2)) never holds up the others or the request that caused it.
+ * The scan item cache and barcode filter are not among them: a scan right after a
+ * status change must see it, so ShipmentScanService.onStatusChange is called on the
+ * request thread before publishing. Neither is freeing a truck when its assignment
+ * closes: a lost event would leave the truck ASSIGNED, so that is saved in the same
+ * transaction as the assignment.
+ */
+@Configuration
+public class DomainEventConfig {
+
+    @Bean
+    public DomainEventHandler liveUpdatesHandler(ShipmentEventHub shipmentEventHub) {
+        return DomainEventHandler.of("live-updates",
+                EnumSet.of(DomainEvent.Type.SHIPMENT_STATUS_CHANGED, DomainEvent.Type.SHIPMENT_SCANNED), event -> {
+                    if (event.getType() == DomainEvent.Type.SHIPMENT_SCANNED) {
+                        shipmentEventHub.publishProcessing(event.getProcessingResponse());
+                    } else {
+                        shipmentEventHub.publishStatus(event.getShipment());
+                    }
+                });
+    }
+
+    @Bean
+    public DomainEventHandler laneTransitHandler(LaneTransitTimeService laneTransitTimeService) {
+        return DomainEventHandler.of("lane-transit", EnumSet.of(DomainEvent.Type.SHIPMENT_STATUS_CHANGED), event -> {
+            // Only a known transition into DELIVERED adds a sample
+            if (event.getPreviousStatus() != null
+                    && event.getPreviousStatus() != Shipment.ShipmentStatus.DELIVERED
+                    && event.getShipment().getStatus() == Shipment.ShipmentStatus.DELIVERED) {
+                laneTransitTimeService.recordDelivery(event.getShipment());
+            }
+        });
+    }
+
+    @Bean
+    public DomainEventHandler searchIndexHandler(InventorySearchIndex inventorySearchIndex,
+                                                 InventoryService inventoryService,
+                                                 InventoryKeyLookup inventoryKeyLookup) {
+        return DomainEventHandler.of("search-index", EnumSet.of(DomainEvent.Type.INVENTORY_SAVED,
+                DomainEvent.Type.INVENTORY_DELETED, DomainEvent.Type.INVENTORY_TRANSFERRED), event -> {
+            switch (event.getType()) {
+                case INVENTORY_SAVED -> inventorySearchIndex.index(event.getInventory());
+                case INVENTORY_DELETED -> inventorySearchIndex.remove(event.getEntityId());
+                case INVENTORY_TRANSFERRED -> {
+                    // Both the source row and the matching row in the destination warehouse changed
+                    InventoryResponse source = inventoryService.getInventoryById(event.getEntityId());
+                    inventorySearchIndex.index(source);
+                    inventoryKeyLookup.find(event.getRelatedId(), source.getSku()).ifPresent(inventorySearchIndex::index);
+                }
+                default -> {
+                }
+            }
+        });
+    }
+
+    @Bean
+    public DomainEventHandler distanceMatrixHandler(WarehouseDistanceMatrix warehouseDistanceMatrix) {
+        return DomainEventHandler.of("distance-matrix",
+                EnumSet.of(DomainEvent.Type.WAREHOUSE_SAVED, DomainEvent.Type.WAREHOUSE_DELETED), event -> {
+                    switch (event.getType()) {
+                        case WAREHOUSE_SAVED -> warehouseDistanceMatrix.onWarehouseSaved(event.getEntityId(), event.getLocation());
+                        case WAREHOUSE_DELETED -> warehouseDistanceMatrix.onWarehouseDeleted(event.getEntityId());
+                        default -> {
+                        }
+                    }
+                });
+    }
+}
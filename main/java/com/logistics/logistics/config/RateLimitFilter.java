@@ -0,0 +1,68 @@
+package com.logistics.logistics.config;
+
+import com.logistics.logistics.service.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the endpoint group token buckets once the caller is known and before any
+ * controller runs. Ordered ahead of the other application filters so shed requests
+ * do no further work.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String group = rateLimiter.findGroup(request.getMethod(), request.getServletPath());
+        if (group == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String caller;
+        List<String> roles;
+        if (authentication != null && authentication.isAuthenticated()) {
+            caller = authentication.getName();
+            roles = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+        } else {
+            caller = request.getRemoteAddr();
+            roles = List.of();
+        }
+
+        long waitNanos = rateLimiter.tryAcquire(group, caller, roles);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Too many requests, retry after " + retryAfterSeconds + " seconds\"}");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
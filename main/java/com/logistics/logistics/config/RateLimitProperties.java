@@ -0,0 +1,43 @@
+package com.logistics.logistics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token bucket limits per endpoint group. A request matching a group must fit in
+ * both the caller's own bucket and the shared bucket of each of the caller's roles
+ * that has a limit. Role keys use bracket notation in properties, for example
+ * {@code logistics.rate-limit.groups.dashboard.roles.[ROLE_warehouse_staff].rate-per-second=5}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "logistics.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    // A bucket that has been full this long is dropped; recreating it later gives the same full bucket
+    private long idleBucketEvictMs = 300000;
+    // Above this many buckets, every full bucket is dropped at once instead of waiting for the sweep
+    private int maxBuckets = 100000;
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    @Data
+    public static class Group {
+        private List<String> paths = new ArrayList<>();
+        private List<String> methods = new ArrayList<>();
+        private Limit user;
+        private Map<String, Limit> roles = new HashMap<>();
+    }
+
+    @Data
+    public static class Limit {
+        private double ratePerSecond;
+        private int burst = 1;
+    }
+}
@@ -0,0 +1,38 @@
+package com.logistics.logistics.controller;
+
+import com.logistics.logistics.service.BulkheadRegistry;
+import com.logistics.logistics.service.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admission")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class AdmissionController {
+
+    private final RateLimiter rateLimiter;
+    private final BulkheadRegistry bulkheadRegistry;
+
+    /**
+     * Admitted and rejected requests per rate-limited endpoint group
+     */
+    @GetMapping("/rate-limits")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimiter.getStats());
+    }
+
+    /**
+     * Active, queued and rejected requests per bulkhead, with the state of each connection pool
+     */
+    @GetMapping("/bulkheads")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getBulkheadStats() {
+        return ResponseEntity.ok(bulkheadRegistry.getStats());
+    }
+}
@@ -0,0 +1,37 @@
+package com.logistics.logistics.controller;
+
+import com.logistics.logistics.service.ShipmentArchiver;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/archive")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class ArchiveController {
+
+    private final ShipmentArchiver shipmentArchiver;
+
+    /**
+     * Rows in the archive tables, rows moved since startup and fallback lookups served from the archive
+     */
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(shipmentArchiver.getStats());
+    }
+
+    /**
+     * Runs an archiving pass now instead of waiting for the next scheduled one
+     */
+    @PostMapping("/run")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> runArchiver() {
+        shipmentArchiver.archiveClosed();
+        return ResponseEntity.ok(shipmentArchiver.getStats());
+    }
+}
@@ -1,7 +1,9 @@
 package com.logistics.logistics.controller;
 
+import com.logistics.logistics.service.ScanJournal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -54,6 +56,19 @@ public class AuthExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
     
+    @ExceptionHandler(value = {ScanJournal.FlushTimeoutException.class})
+    public ResponseEntity<Object> handleFlushTimeoutException(ScanJournal.FlushTimeoutException ex, WebRequest request) {
+        logger.warn("Scan journal flush timed out: {}", ex.getMessage());
+        
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", "Service Unavailable");
+        body.put("message", ex.getMessage());
+        
+        // The scans are durable and still draining, so the same request succeeds shortly
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(body);
+    }
+    
     @ExceptionHandler(value = {Exception.class})
     public ResponseEntity<Object> handleGenericException(Exception ex, WebRequest request) {
         logger.error("Unhandled exception: {}", ex.getMessage(), ex);
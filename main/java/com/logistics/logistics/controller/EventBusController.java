@@ -0,0 +1,27 @@
+package com.logistics.logistics.controller;
+
+import com.logistics.logistics.service.DomainEventBus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/event-bus")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class EventBusController {
+
+    private final DomainEventBus domainEventBus;
+
+    /**
+     * Publish rate since the previous call, and lag, batch size and latency per handler
+     */
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(domainEventBus.getStats());
+    }
+}
@@ -3,15 +3,24 @@ package com.logistics.logistics.controller;
 import com.logistics.logistics.dto.InventoryAssignmentRequest;
 import com.logistics.logistics.dto.InventoryAssignmentResponse;
 import com.logistics.logistics.model.InventoryAssignment;
+import com.logistics.logistics.model.Truck;
 import com.logistics.logistics.model.User;
 import com.logistics.logistics.repository.InventoryAssignmentRepository;
+import com.logistics.logistics.repository.TruckRepository;
+import com.logistics.logistics.service.DomainEventBus;
+import com.logistics.logistics.service.FieldProjection;
 import com.logistics.logistics.service.InventoryAssignmentService;
+import com.logistics.logistics.service.MultiGetService;
+import com.logistics.logistics.service.ShipmentArchiver;
+import com.logistics.logistics.service.SparseFieldsetService;
+import com.logistics.logistics.service.TruckMaintenanceScheduler;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -26,6 +35,13 @@ public class InventoryAssignmentController {
 
     private final InventoryAssignmentService inventoryAssignmentService;
     private final InventoryAssignmentRepository inventoryAssignmentRepository;
+    private final DomainEventBus domainEventBus;
+    private final ShipmentArchiver shipmentArchiver;
+    private final SparseFieldsetService sparseFieldsetService;
+    private final MultiGetService multiGetService;
+    private final TruckRepository truckRepository;
+    private final TruckMaintenanceScheduler truckMaintenanceScheduler;
+    private final TransactionTemplate transactionTemplate;
     private static final Logger logger = LoggerFactory.getLogger(InventoryAssignmentController.class);
 
     @PostMapping
@@ -49,11 +65,20 @@ public class InventoryAssignmentController {
     
     @GetMapping("/truck/{truckId}")
     @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff', 'ROLE_delivery_driver')")
-    public ResponseEntity<?> getAssignmentsByTruck(@PathVariable Integer truckId) {
+    public ResponseEntity<?> getAssignmentsByTruck(@PathVariable Integer truckId,
+                                                   @RequestParam(required = false) String fields) {
         try {
             logger.info("Fetching assignments for truck ID: {}", truckId);
+            if (fields != null) {
+                return ResponseEntity.ok(sparseFieldsetService.find(FieldProjection.ASSIGNMENT, fields,
+                        "a.truck.truckId = :truckId", Map.of("truckId", truckId)));
+            }
             List<InventoryAssignment> assignments = inventoryAssignmentRepository.findByTruckId(truckId);
             return ResponseEntity.ok(assignments);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             logger.error("Error fetching assignments for truck ID: {}", truckId, e);
             Map<String, String> response = new HashMap<>();
@@ -64,17 +89,29 @@ public class InventoryAssignmentController {
     
     @GetMapping("/warehouse/{warehouseId}")
     @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff')")
-    public ResponseEntity<?> getAssignmentsByWarehouse(@PathVariable Integer warehouseId) {
+    public ResponseEntity<?> getAssignmentsByWarehouse(@PathVariable Integer warehouseId,
+                                                       @RequestParam(required = false) String fields) {
         try {
             logger.info("Fetching assignments for warehouse ID: {}", warehouseId);
+            Map<String, Object> response = new HashMap<>();
+            if (fields != null) {
+                response.put("sourceAssignments", sparseFieldsetService.find(FieldProjection.ASSIGNMENT, fields,
+                        "a.sourceWarehouse.warehouseId = :warehouseId", Map.of("warehouseId", warehouseId)));
+                response.put("destinationAssignments", sparseFieldsetService.find(FieldProjection.ASSIGNMENT, fields,
+                        "a.destinationWarehouse.warehouseId = :warehouseId", Map.of("warehouseId", warehouseId)));
+                return ResponseEntity.ok(response);
+            }
             List<InventoryAssignment> sourceAssignments = inventoryAssignmentRepository.findBySourceWarehouseId(warehouseId);
             List<InventoryAssignment> destinationAssignments = inventoryAssignmentRepository.findByDestinationWarehouseId(warehouseId);
             
-            Map<String, Object> response = new HashMap<>();
             response.put("sourceAssignments", sourceAssignments);
             response.put("destinationAssignments", destinationAssignments);
             
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             logger.error("Error fetching assignments for warehouse ID: {}", warehouseId, e);
             Map<String, String> response = new HashMap<>();
@@ -83,12 +120,41 @@ public class InventoryAssignmentController {
         }
     }
     
+    /**
+     * Resolves many assignments at once, e.g. {@code ?ids=1,2,3}. Every requested
+     * id is a key of the results, null when not found.
+     */
+    @GetMapping(params = "ids")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff', 'ROLE_delivery_driver')")
+    public ResponseEntity<?> getAssignmentsByIds(@RequestParam List<Integer> ids) {
+        try {
+            logger.info("Fetching {} assignments by ID", ids.size());
+            return ResponseEntity.ok(multiGetService.getAssignmentsByIds(ids));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            logger.error("Error fetching assignments by ID", e);
+            Map<String, String> response = new HashMap<>();
+            response.put("error", "Failed to fetch assignments: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+    
     @GetMapping("/{assignmentId}")
     @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff', 'ROLE_delivery_driver')")
-    public ResponseEntity<?> getAssignmentById(@PathVariable Integer assignmentId) {
+    public ResponseEntity<?> getAssignmentById(@PathVariable Integer assignmentId,
+                                               @RequestParam(required = false) String fields) {
         try {
             logger.info("Fetching assignment with ID: {}", assignmentId);
+            if (fields != null) {
+                return sparseFieldsetService.findById(FieldProjection.ASSIGNMENT, fields, assignmentId)
+                        .map(ResponseEntity::ok)
+                        .orElse(ResponseEntity.notFound().build());
+            }
             return inventoryAssignmentRepository.findById(assignmentId)
+                .or(() -> shipmentArchiver.findArchivedAssignmentById(assignmentId))
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> {
                     Map<String, String> response = new HashMap<>();
@@ -125,14 +191,22 @@ public class InventoryAssignmentController {
                         InventoryAssignment.AssignmentStatus status = InventoryAssignment.AssignmentStatus.valueOf(newStatus);
                         assignment.setStatus(status);
                         
-                        // If status is DELIVERED or CANCELLED, update related entities
-                        if (status == InventoryAssignment.AssignmentStatus.DELIVERED || 
-                            status == InventoryAssignment.AssignmentStatus.CANCELLED) {
-                            // Update truck status back to AVAILABLE
-                            assignment.getTruck().setStatus(com.logistics.logistics.model.Truck.TruckStatus.AVAILABLE);
+                        // If status is DELIVERED or CANCELLED, the truck is freed in the same transaction
+                        boolean releasesTruck = (status == InventoryAssignment.AssignmentStatus.DELIVERED
+                                || status == InventoryAssignment.AssignmentStatus.CANCELLED)
+                                && assignment.getTruck() != null;
+                        InventoryAssignment updatedAssignment = transactionTemplate.execute(tx -> {
+                            if (releasesTruck) {
+                                assignment.getTruck().setStatus(Truck.TruckStatus.AVAILABLE);
+                                truckRepository.save(assignment.getTruck());
+                            }
+                            return inventoryAssignmentRepository.save(assignment);
+                        });
+                        if (releasesTruck) {
+                            truckMaintenanceScheduler.onTruckStatusChanged(assignment.getTruck().getTruckId(),
+                                    Truck.TruckStatus.AVAILABLE);
                         }
-                        
-                        InventoryAssignment updatedAssignment = inventoryAssignmentRepository.save(assignment);
+                        domainEventBus.publishAssignmentStatusChanged(updatedAssignment);
                         return ResponseEntity.ok(updatedAssignment);
                     } catch (IllegalArgumentException e) {
                         Map<String, String> response = new HashMap<>();
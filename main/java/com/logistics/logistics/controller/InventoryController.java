@@ -1,8 +1,17 @@
 package com.logistics.logistics.controller;
 
+import com.logistics.logistics.dto.InventoryImportResult;
 import com.logistics.logistics.dto.InventoryRequest;
 import com.logistics.logistics.dto.InventoryResponse;
+import com.logistics.logistics.dto.SkuStockTotal;
+import com.logistics.logistics.service.DomainEventBus;
+import com.logistics.logistics.service.FieldProjection;
+import com.logistics.logistics.service.InventoryImportService;
+import com.logistics.logistics.service.InventorySearchIndex;
 import com.logistics.logistics.service.InventoryService;
+import com.logistics.logistics.service.SkuStockTotals;
+import com.logistics.logistics.service.SparseFieldsetService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -11,6 +20,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,26 +32,53 @@ import java.util.Map;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final InventorySearchIndex inventorySearchIndex;
+    private final InventoryImportService inventoryImportService;
+    private final DomainEventBus domainEventBus;
+    private final SparseFieldsetService sparseFieldsetService;
+    private final SkuStockTotals skuStockTotals;
 
     @GetMapping
-    public ResponseEntity<List<InventoryResponse>> getAllInventory() {
+    public ResponseEntity<?> getAllInventory(@RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(sparseFieldsetService.findAll(FieldProjection.INVENTORY, fields));
+        }
         return ResponseEntity.ok(inventoryService.getAllInventory());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<InventoryResponse> getInventoryById(@PathVariable Integer id) {
+    public ResponseEntity<?> getInventoryById(@PathVariable Integer id, @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return sparseFieldsetService.findById(FieldProjection.INVENTORY, fields, id)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        }
         return ResponseEntity.ok(inventoryService.getInventoryById(id));
     }
 
     @GetMapping("/warehouse/{warehouseId}")
-    public ResponseEntity<List<InventoryResponse>> getInventoryByWarehouse(@PathVariable Integer warehouseId) {
+    public ResponseEntity<?> getInventoryByWarehouse(@PathVariable Integer warehouseId,
+                                                     @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(sparseFieldsetService.find(FieldProjection.INVENTORY, fields,
+                    "i.warehouse.warehouseId = :warehouseId", Map.of("warehouseId", warehouseId)));
+        }
         return ResponseEntity.ok(inventoryService.getInventoryByWarehouse(warehouseId));
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<List<InventoryResponse>> searchInventory(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer warehouseId,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(inventorySearchIndex.search(query, warehouseId, Math.min(limit, 100)));
+    }
+
     @PostMapping
     public ResponseEntity<?> createInventory(@RequestBody InventoryRequest inventoryRequest) {
         try {
             InventoryResponse createdInventory = inventoryService.createInventory(inventoryRequest);
+            domainEventBus.publishInventorySaved(createdInventory);
             return new ResponseEntity<>(createdInventory, HttpStatus.CREATED);
         } catch (Exception e) {
             Map<String, String> errorResponse = new HashMap<>();
@@ -49,12 +87,54 @@ public class InventoryController {
         }
     }
 
+    /**
+     * Bulk upsert by (warehouse, sku) from a CSV body with a header row, or from NDJSON
+     * with one InventoryRequest per line. Answers 202 with the running import once the
+     * body is received; GET /import/{importId} reports progress and the outcome.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasAnyRole('ADMIN', 'LOGISTICS_MANAGER')")
+    public ResponseEntity<?> importInventory(
+            HttpServletRequest request,
+            @RequestParam(required = false) Integer chunkSize) {
+        InventoryImportService.Format format = request.getContentType().startsWith("text/csv")
+                ? InventoryImportService.Format.CSV
+                : InventoryImportService.Format.NDJSON;
+        try {
+            // Through the bus like every other inventory change, so the search index and
+            // stock totals see the imported rows in order with concurrent edits
+            InventoryImportResult result = inventoryImportService.startImport(request.getInputStream(), format,
+                    chunkSize, rows -> rows.forEach(domainEventBus::publishInventorySaved));
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/inventory/import/" + result.getImportId()))
+                    .body(result);
+        } catch (IOException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Failed to read import body: " + e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    @GetMapping("/import")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LOGISTICS_MANAGER')")
+    public ResponseEntity<List<InventoryImportResult>> getImports() {
+        return ResponseEntity.ok(inventoryImportService.getImports());
+    }
+
+    @GetMapping("/import/{importId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LOGISTICS_MANAGER')")
+    public ResponseEntity<InventoryImportResult> getImport(@PathVariable String importId) {
+        InventoryImportResult result = inventoryImportService.getImport(importId);
+        return result != null ? ResponseEntity.ok(result) : ResponseEntity.notFound().build();
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateInventory(
             @PathVariable Integer id,
             @RequestBody InventoryRequest inventoryRequest) {
         try {
             InventoryResponse updatedInventory = inventoryService.updateInventory(id, inventoryRequest);
+            domainEventBus.publishInventorySaved(updatedInventory);
             return ResponseEntity.ok(updatedInventory);
         } catch (Exception e) {
             Map<String, String> errorResponse = new HashMap<>();
@@ -67,6 +147,7 @@ public class InventoryController {
     @PreAuthorize("hasAnyRole('ADMIN', 'LOGISTICS_MANAGER')")
     public ResponseEntity<Void> deleteInventory(@PathVariable Integer id) {
         inventoryService.deleteInventory(id);
+        domainEventBus.publishInventoryDeleted(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -79,7 +160,9 @@ public class InventoryController {
         if (quantityChange == null) {
             return ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.ok(inventoryService.updateInventoryQuantity(id, quantityChange));
+        InventoryResponse updatedInventory = inventoryService.updateInventoryQuantity(id, quantityChange);
+        domainEventBus.publishInventorySaved(updatedInventory);
+        return ResponseEntity.ok(updatedInventory);
     }
 
     @GetMapping("/reorder")
@@ -94,6 +177,30 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.getItemsBelowReorderPointByWarehouse(warehouseId));
     }
 
+    /**
+     * Stock of one SKU across all warehouses, with the per-warehouse breakdown
+     */
+    @GetMapping("/sku-totals/{sku}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LOGISTICS_MANAGER', 'WAREHOUSE_STAFF')")
+    public ResponseEntity<?> getSkuTotal(@PathVariable String sku) {
+        SkuStockTotal total = skuStockTotals.getTotal(sku);
+        if (total == null) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", "No inventory found for SKU: " + sku);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+        return ResponseEntity.ok(total);
+    }
+
+    /**
+     * SKUs whose total stock is at or below their summed reorder points, largest shortage first
+     */
+    @GetMapping("/sku-shortages")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LOGISTICS_MANAGER')")
+    public ResponseEntity<List<SkuStockTotal>> getSkuShortages(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(skuStockTotals.getTopShortages(Math.max(limit, 0)));
+    }
+
     @PostMapping("/transfer")
     @PreAuthorize("hasAnyRole('ADMIN', 'LOGISTICS_MANAGER', 'WAREHOUSE_STAFF')")
     public ResponseEntity<Void> transferInventory(@RequestBody Map<String, Integer> request) {
@@ -110,6 +217,7 @@ public class InventoryController {
         }
         
         inventoryService.transferInventory(sourceInventoryId, destinationWarehouseId, quantity, userId);
+        domainEventBus.publishInventoryTransferred(sourceInventoryId, destinationWarehouseId);
         return ResponseEntity.ok().build();
     }
 }
@@ -0,0 +1,27 @@
+package com.logistics.logistics.controller;
+
+import com.logistics.logistics.service.JobLeaseManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class JobLeaseController {
+
+    private final JobLeaseManager jobLeaseManager;
+
+    /**
+     * Owner and fencing token of every job lease, and the leases this instance holds
+     */
+    @GetMapping("/leases")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getLeases() {
+        return ResponseEntity.ok(jobLeaseManager.getStats());
+    }
+}
@@ -0,0 +1,59 @@
+package com.logistics.logistics.controller;
+
+import com.logistics.logistics.dto.LaneKpi;
+import com.logistics.logistics.dto.WarehouseKpi;
+import com.logistics.logistics.service.KpiRollupService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/kpis")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class KpiController {
+    private static final Logger logger = LoggerFactory.getLogger(KpiController.class);
+
+    private final KpiRollupService kpiRollupService;
+
+    /**
+     * Shipments, weight, on-time rate and pickup dwell per origin warehouse per day
+     */
+    @GetMapping("/warehouses")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
+    public ResponseEntity<List<WarehouseKpi>> getWarehouseKpis(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer warehouseId) {
+        logger.info("GET request for warehouse KPIs from {} to {}, warehouse: {}", from, to, warehouseId);
+        return ResponseEntity.ok(kpiRollupService.getWarehouseKpis(from, to, warehouseId));
+    }
+
+    /**
+     * Totals per origin to destination lane over a date range, heaviest lanes first
+     */
+    @GetMapping("/lanes")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
+    public ResponseEntity<List<LaneKpi>> getLaneKpis(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer originWarehouseId) {
+        logger.info("GET request for lane KPIs from {} to {}, origin: {}", from, to, originWarehouseId);
+        return ResponseEntity.ok(kpiRollupService.getLaneKpis(from, to, originWarehouseId));
+    }
+
+    @PostMapping("/refresh")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Void> refreshRollups() {
+        logger.info("POST request to refresh KPI rollups");
+        kpiRollupService.refreshRollups();
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.logistics.logistics.controller;
+
+import com.logistics.logistics.dto.LaneTransitStats;
+import com.logistics.logistics.service.LaneTransitTimeService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/lanes")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class LaneController {
+    private static final Logger logger = LoggerFactory.getLogger(LaneController.class);
+
+    private final LaneTransitTimeService laneTransitTimeService;
+
+    /**
+     * Transit-time percentiles for every lane with delivery history, busiest lanes first
+     */
+    @GetMapping("/transit-times")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
+    public ResponseEntity<List<LaneTransitStats>> getAllTransitTimes() {
+        logger.info("GET request for lane transit times");
+        return ResponseEntity.ok(laneTransitTimeService.getAllLaneStats());
+    }
+
+    @GetMapping("/{originWarehouseId}/{destinationWarehouseId}/transit-time")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff')")
+    public ResponseEntity<LaneTransitStats> getTransitTime(@PathVariable Integer originWarehouseId,
+                                                           @PathVariable Integer destinationWarehouseId) {
+        logger.info("GET request for transit time from warehouse {} to {}", originWarehouseId, destinationWarehouseId);
+        return laneTransitTimeService.getLaneStats(originWarehouseId, destinationWarehouseId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/transit-times/rebuild")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Void> rebuildTransitTimes() {
+        logger.info("POST request to rebuild lane transit times");
+        laneTransitTimeService.rebuild();
+        return ResponseEntity.ok().build();
+    }
+}
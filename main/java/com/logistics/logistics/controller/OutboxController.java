@@ -0,0 +1,37 @@
+package com.logistics.logistics.controller;
+
+import com.logistics.logistics.service.OutboxPublisher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/outbox")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class OutboxController {
+
+    private final OutboxPublisher outboxPublisher;
+
+    /**
+     * Backlog, publish lag and failure counters of the integration event outbox
+     */
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(outboxPublisher.getStats());
+    }
+
+    /**
+     * Publish pending events now instead of waiting for the next poll
+     */
+    @PostMapping("/publish")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> publishNow() {
+        outboxPublisher.publishPending();
+        return ResponseEntity.ok(outboxPublisher.getStats());
+    }
+}
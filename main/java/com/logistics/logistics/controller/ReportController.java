@@ -0,0 +1,66 @@
+package com.logistics.logistics.controller;
+
+import com.logistics.logistics.model.InventoryAssignment;
+import com.logistics.logistics.model.Shipment;
+import com.logistics.logistics.service.ReportExportService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class ReportController {
+    private static final Logger logger = LoggerFactory.getLogger(ReportController.class);
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final ReportExportService reportExportService;
+
+    /**
+     * Stream shipments created in a date range as CSV
+     */
+    @GetMapping("/shipments.csv")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
+    public ResponseEntity<StreamingResponseBody> exportShipments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer warehouseId,
+            @RequestParam(required = false) Shipment.ShipmentStatus status) {
+        logger.info("GET request to export shipments from {} to {}, warehouse: {}, status: {}", from, to, warehouseId, status);
+        StreamingResponseBody body = out -> reportExportService.exportShipments(out, from, to, warehouseId, status);
+        return csv("shipments", body);
+    }
+
+    /**
+     * Stream inventory assignments made in a date range as CSV
+     */
+    @GetMapping("/assignments.csv")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
+    public ResponseEntity<StreamingResponseBody> exportAssignments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer warehouseId,
+            @RequestParam(required = false) InventoryAssignment.AssignmentStatus status) {
+        logger.info("GET request to export assignments from {} to {}, warehouse: {}, status: {}", from, to, warehouseId, status);
+        StreamingResponseBody body = out -> reportExportService.exportAssignments(out, from, to, warehouseId, status);
+        return csv("assignments", body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> csv(String name, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "-" + LocalDate.now() + ".csv\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,77 @@
+package com.logistics.logistics.controller;
+
+import com.logistics.logistics.dto.RoutePlan;
+import com.logistics.logistics.dto.RoutePlanRequest;
+import com.logistics.logistics.model.User;
+import com.logistics.logistics.repository.UserRepository;
+import com.logistics.logistics.service.RoutePlanner;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/route-plans")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class RoutePlanController {
+    private static final Logger logger = LoggerFactory.getLogger(RoutePlanController.class);
+
+    private final RoutePlanner routePlanner;
+    private final UserRepository userRepository;
+
+    /**
+     * Plan multi-stop truck routes for the unassigned pending shipments of the given warehouses
+     */
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
+    public ResponseEntity<?> createPlan(@RequestBody RoutePlanRequest request) {
+        logger.info("POST request to plan routes for warehouses: {}", request.getWarehouseIds());
+        try {
+            return ResponseEntity.ok(routePlanner.plan(request));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    @GetMapping("/{planId}")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
+    public ResponseEntity<RoutePlan> getPlan(@PathVariable String planId) {
+        RoutePlan plan = routePlanner.getPlan(planId);
+        return plan != null ? ResponseEntity.ok(plan) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Assign the planned trucks to the shipments of every route in the plan
+     */
+    @PostMapping("/{planId}/commit")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
+    public ResponseEntity<?> commitPlan(@PathVariable String planId,
+                                        @AuthenticationPrincipal UserDetails userDetails) {
+        logger.info("POST request to commit route plan: {}", planId);
+        Optional<User> userOpt = userRepository.findByUsername(userDetails.getUsername());
+        if (userOpt.isEmpty()) {
+            logger.error("User not found: {}", userDetails.getUsername());
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            RoutePlan plan = routePlanner.commitPlan(planId, userOpt.get());
+            return plan != null ? ResponseEntity.ok(plan) : ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
+    }
+}
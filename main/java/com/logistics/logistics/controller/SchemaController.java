@@ -0,0 +1,51 @@
+package com.logistics.logistics.controller;
+
+import com.logistics.logistics.service.QueryPlanVerifier;
+import lombok.RequiredArgsConstructor;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/schema")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class SchemaController {
+
+    private final Flyway flyway;
+    private final QueryPlanVerifier queryPlanVerifier;
+
+    /**
+     * Applied and pending schema migrations
+     */
+    @GetMapping("/migrations")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<List<Map<String, Object>>> getMigrations() {
+        List<Map<String, Object>> migrations = new ArrayList<>();
+        for (MigrationInfo info : flyway.info().all()) {
+            Map<String, Object> migration = new HashMap<>();
+            migration.put("version", info.getVersion() != null ? info.getVersion().getVersion() : null);
+            migration.put("description", info.getDescription());
+            migration.put("state", info.getState().getDisplayName());
+            migration.put("installedOn", info.getInstalledOn());
+            migrations.add(migration);
+        }
+        return ResponseEntity.ok(migrations);
+    }
+
+    /**
+     * Re-runs EXPLAIN for the hot queries and reports which index each one uses
+     */
+    @GetMapping("/query-plans")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<List<Map<String, Object>>> getQueryPlans() {
+        return ResponseEntity.ok(queryPlanVerifier.verify());
+    }
+}
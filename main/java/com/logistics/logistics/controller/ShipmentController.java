@@ -1,5 +1,6 @@
 package com.logistics.logistics.controller;
 
+import com.logistics.logistics.dto.MultiGetResponse;
 import com.logistics.logistics.dto.ShipmentProcessingRequest;
 import com.logistics.logistics.dto.ShipmentProcessingResponse;
 import com.logistics.logistics.dto.ShipmentProcessingSummary;
@@ -10,8 +11,17 @@ import com.logistics.logistics.model.User;
 import com.logistics.logistics.model.Warehouse;
 import com.logistics.logistics.repository.UserRepository;
 import com.logistics.logistics.repository.WarehouseRepository;
+import com.logistics.logistics.service.DomainEventBus;
+import com.logistics.logistics.service.FieldProjection;
+import com.logistics.logistics.service.LaneTransitTimeService;
+import com.logistics.logistics.service.MultiGetService;
+import com.logistics.logistics.service.ScanBarcodeFilter;
+import com.logistics.logistics.service.ShipmentItemCache;
 import com.logistics.logistics.service.ShipmentProcessingService;
+import com.logistics.logistics.service.ShipmentArchiver;
+import com.logistics.logistics.service.ShipmentScanService;
 import com.logistics.logistics.service.ShipmentService;
+import com.logistics.logistics.service.SparseFieldsetService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,7 +31,10 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @RestController
@@ -33,20 +46,36 @@ public class ShipmentController {
     
     private final ShipmentService shipmentService;
     private final ShipmentProcessingService shipmentProcessingService;
+    private final ShipmentScanService shipmentScanService;
     private final WarehouseRepository warehouseRepository;
     private final UserRepository userRepository;
+    private final ShipmentItemCache shipmentItemCache;
+    private final ScanBarcodeFilter scanBarcodeFilter;
+    private final LaneTransitTimeService laneTransitTimeService;
+    private final DomainEventBus domainEventBus;
+    private final ShipmentArchiver shipmentArchiver;
+    private final SparseFieldsetService sparseFieldsetService;
+    private final MultiGetService multiGetService;
     
     @GetMapping
     @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
-    public ResponseEntity<List<Shipment>> getAllShipments() {
+    public ResponseEntity<?> getAllShipments(@RequestParam(required = false) String fields) {
         logger.info("GET request to fetch all shipments");
+        if (fields != null) {
+            return ResponseEntity.ok(sparseFieldsetService.findAll(FieldProjection.SHIPMENT, fields));
+        }
         return ResponseEntity.ok(shipmentService.getAllShipments());
     }
     
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff', 'ROLE_delivery_driver')")
-    public ResponseEntity<Shipment> getShipmentById(@PathVariable Integer id) {
+    public ResponseEntity<?> getShipmentById(@PathVariable Integer id, @RequestParam(required = false) String fields) {
         logger.info("GET request to fetch shipment by id: {}", id);
+        if (fields != null) {
+            return sparseFieldsetService.findById(FieldProjection.SHIPMENT, fields, id)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        }
         return shipmentService.getShipmentById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -54,18 +83,43 @@ public class ShipmentController {
     
     @GetMapping("/tracking/{trackingNumber}")
     @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff', 'ROLE_delivery_driver')")
-    public ResponseEntity<Shipment> getShipmentByTrackingNumber(@PathVariable String trackingNumber) {
+    public ResponseEntity<?> getShipmentByTrackingNumber(@PathVariable String trackingNumber,
+                                                         @RequestParam(required = false) String fields) {
         logger.info("GET request to fetch shipment by tracking number: {}", trackingNumber);
+        if (fields != null) {
+            // Archived shipments are only served whole
+            return sparseFieldsetService.find(FieldProjection.SHIPMENT, fields, "s.trackingNumber = :trackingNumber",
+                            Map.of("trackingNumber", trackingNumber)).stream()
+                    .findFirst()
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> getShipmentByTrackingNumber(trackingNumber, null));
+        }
         return shipmentService.getShipmentByTrackingNumber(trackingNumber)
+                .or(() -> shipmentArchiver.findArchivedShipmentByTrackingNumber(trackingNumber))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    /**
+     * Resolves many tracking numbers at once, e.g. {@code ?numbers=TRK1,TRK2}.
+     * Every requested number is a key of the results, null when not found.
+     */
+    @GetMapping("/tracking")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff', 'ROLE_delivery_driver')")
+    public ResponseEntity<MultiGetResponse<Shipment>> getShipmentsByTrackingNumbers(@RequestParam List<String> numbers) {
+        logger.info("GET request to fetch {} shipments by tracking number", numbers.size());
+        return ResponseEntity.ok(multiGetService.getShipmentsByTrackingNumbers(numbers));
+    }
+    
     @PostMapping
     @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
     public ResponseEntity<Shipment> createShipment(@RequestBody Shipment shipment) {
         logger.info("POST request to create shipment: {}", shipment);
-        return ResponseEntity.ok(shipmentService.saveShipment(shipment));
+        laneTransitTimeService.applyEstimate(shipment);
+        Shipment savedShipment = shipmentService.saveShipment(shipment);
+        shipmentScanService.onStatusChange(savedShipment);
+        domainEventBus.publishShipmentStatusChanged(savedShipment, null);
+        return ResponseEntity.ok(savedShipment);
     }
     
     @PutMapping("/{id}")
@@ -74,8 +128,13 @@ public class ShipmentController {
         logger.info("PUT request to update shipment with id: {}", id);
         return shipmentService.getShipmentById(id)
                 .map(existingShipment -> {
+                    // existingShipment is the managed instance, so the save below overwrites its status
+                    Shipment.ShipmentStatus previousStatus = existingShipment.getStatus();
                     shipment.setShipmentId(id);
-                    return ResponseEntity.ok(shipmentService.saveShipment(shipment));
+                    Shipment savedShipment = shipmentService.saveShipment(shipment);
+                    shipmentScanService.onStatusChange(savedShipment);
+                    domainEventBus.publishShipmentStatusChanged(savedShipment, previousStatus);
+                    return ResponseEntity.ok(savedShipment);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -87,6 +146,8 @@ public class ShipmentController {
         return shipmentService.getShipmentById(id)
                 .map(shipment -> {
                     shipmentService.deleteShipment(id);
+                    shipmentItemCache.evict(shipment.getTrackingNumber());
+                    scanBarcodeFilter.closeShipment(shipment.getTrackingNumber());
                     return ResponseEntity.ok().<Void>build();
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -94,8 +155,17 @@ public class ShipmentController {
     
     @GetMapping("/warehouse/{warehouseId}/pending")
     @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
-    public ResponseEntity<List<Shipment>> getPendingShipmentsByWarehouse(@PathVariable Integer warehouseId) {
+    public ResponseEntity<?> getPendingShipmentsByWarehouse(@PathVariable Integer warehouseId,
+                                                            @RequestParam(required = false) String fields) {
         logger.info("GET request to fetch pending shipments for warehouse: {}", warehouseId);
+        if (fields != null) {
+            if (!warehouseRepository.existsById(warehouseId)) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(sparseFieldsetService.find(FieldProjection.SHIPMENT, fields,
+                    "s.originWarehouse.warehouseId = :warehouseId AND s.status = :status",
+                    Map.of("warehouseId", warehouseId, "status", Shipment.ShipmentStatus.PENDING)));
+        }
         return warehouseRepository.findById(warehouseId)
                 .map(warehouse -> ResponseEntity.ok(shipmentService.getPendingShipmentsByWarehouse(warehouse)))
                 .orElse(ResponseEntity.notFound().build());
@@ -118,6 +188,11 @@ public class ShipmentController {
         TruckAssignmentResponse response = shipmentService.assignTruckToShipment(request, userOpt.get());
         
         if (response.isSuccess()) {
+            shipmentService.getShipmentById(response.getShipmentId()).map(this::refreshEstimate)
+                    .ifPresent(shipment -> {
+                        shipmentScanService.onStatusChange(shipment);
+                        domainEventBus.publishShipmentStatusChanged(shipment, null);
+                    });
             return ResponseEntity.ok(response);
         } else {
             return ResponseEntity.badRequest().body(response);
@@ -142,9 +217,10 @@ public class ShipmentController {
             return ResponseEntity.badRequest().build();
         }
         
-        ShipmentProcessingResponse response = shipmentProcessingService.processShipmentItem(request, userOpt.get());
+        ShipmentProcessingResponse response = shipmentScanService.processShipmentItem(request, userOpt.get());
         
         if (response.isSuccess()) {
+            domainEventBus.publishShipmentScanned(response);
             return ResponseEntity.ok(response);
         } else {
             return ResponseEntity.badRequest().body(response);
@@ -187,12 +263,25 @@ public class ShipmentController {
             return ResponseEntity.badRequest().build();
         }
         
-        ShipmentProcessingResponse response = shipmentProcessingService.handleMissingItem(trackingNumber, barcode, userOpt.get());
+        ShipmentProcessingResponse response = shipmentScanService.handleMissingItem(trackingNumber, barcode, userOpt.get());
         
         if (response.isSuccess()) {
+            domainEventBus.publishShipmentScanned(response);
             return ResponseEntity.ok(response);
         } else {
             return ResponseEntity.badRequest().body(response);
         }
     }
+    
+    /**
+     * Re-estimate delivery from lane history once a truck is assigned, saving only if it moved
+     */
+    private Shipment refreshEstimate(Shipment shipment) {
+        LocalDateTime previousEstimate = shipment.getEstimatedDeliveryDate();
+        laneTransitTimeService.applyEstimate(shipment);
+        if (Objects.equals(previousEstimate, shipment.getEstimatedDeliveryDate())) {
+            return shipment;
+        }
+        return shipmentService.saveShipment(shipment);
+    }
 }
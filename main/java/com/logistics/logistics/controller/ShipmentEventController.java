@@ -0,0 +1,59 @@
+package com.logistics.logistics.controller;
+
+import com.logistics.logistics.service.ShipmentEventHub;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/shipment-events")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class ShipmentEventController {
+    private static final Logger logger = LoggerFactory.getLogger(ShipmentEventController.class);
+
+    private final ShipmentEventHub shipmentEventHub;
+
+    /**
+     * Stream status and processing updates for a single shipment
+     */
+    @GetMapping(value = "/tracking/{trackingNumber}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff', 'ROLE_delivery_driver')")
+    public SseEmitter subscribeToShipment(@PathVariable String trackingNumber) {
+        logger.info("SSE subscription for shipment: {}", trackingNumber);
+        return shipmentEventHub.subscribeToTrackingNumber(trackingNumber);
+    }
+
+    /**
+     * Stream updates for every shipment leaving or arriving at a warehouse
+     */
+    @GetMapping(value = "/warehouse/{warehouseId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff')")
+    public SseEmitter subscribeToWarehouse(@PathVariable Integer warehouseId) {
+        logger.info("SSE subscription for warehouse: {}", warehouseId);
+        return shipmentEventHub.subscribeToWarehouse(warehouseId);
+    }
+
+    /**
+     * Stream updates for shipments on trucks driven by a driver
+     */
+    @GetMapping(value = "/driver/{driverId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_delivery_driver')")
+    public SseEmitter subscribeToDriver(@PathVariable Integer driverId) {
+        logger.info("SSE subscription for driver: {}", driverId);
+        return shipmentEventHub.subscribeToDriver(driverId);
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(shipmentEventHub.getStats());
+    }
+}
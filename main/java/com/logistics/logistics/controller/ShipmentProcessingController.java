@@ -5,7 +5,13 @@ import com.logistics.logistics.dto.ShipmentProcessingResponse;
 import com.logistics.logistics.dto.ShipmentProcessingSummary;
 import com.logistics.logistics.model.User;
 import com.logistics.logistics.repository.UserRepository;
+import com.logistics.logistics.service.DomainEventBus;
+import com.logistics.logistics.service.IdempotencyStore;
+import com.logistics.logistics.service.ScanBarcodeFilter;
+import com.logistics.logistics.service.ScanJournal;
+import com.logistics.logistics.service.ShipmentItemCache;
 import com.logistics.logistics.service.ShipmentProcessingService;
+import com.logistics.logistics.service.ShipmentScanService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +22,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -26,7 +33,13 @@ public class ShipmentProcessingController {
     private static final Logger logger = LoggerFactory.getLogger(ShipmentProcessingController.class);
     
     private final ShipmentProcessingService shipmentProcessingService;
+    private final ShipmentScanService shipmentScanService;
     private final UserRepository userRepository;
+    private final DomainEventBus domainEventBus;
+    private final ShipmentItemCache shipmentItemCache;
+    private final ScanBarcodeFilter scanBarcodeFilter;
+    private final IdempotencyStore idempotencyStore;
+    private final ScanJournal scanJournal;
     
     /**
      * Process a shipment item by scanning its barcode
@@ -46,9 +59,10 @@ public class ShipmentProcessingController {
             return ResponseEntity.badRequest().build();
         }
         
-        ShipmentProcessingResponse response = shipmentProcessingService.processShipmentItem(request, userOpt.get());
+        ShipmentProcessingResponse response = shipmentScanService.processShipmentItem(request, userOpt.get());
         
         if (response.isSuccess()) {
+            domainEventBus.publishShipmentScanned(response);
             return ResponseEntity.ok(response);
         } else {
             return ResponseEntity.badRequest().body(response);
@@ -91,9 +105,10 @@ public class ShipmentProcessingController {
             return ResponseEntity.badRequest().build();
         }
         
-        ShipmentProcessingResponse response = shipmentProcessingService.handleMissingItem(trackingNumber, barcode, userOpt.get());
+        ShipmentProcessingResponse response = shipmentScanService.handleMissingItem(trackingNumber, barcode, userOpt.get());
         
         if (response.isSuccess()) {
+            domainEventBus.publishShipmentScanned(response);
             return ResponseEntity.ok(response);
         } else {
             return ResponseEntity.badRequest().body(response);
@@ -119,12 +134,49 @@ public class ShipmentProcessingController {
             return ResponseEntity.badRequest().build();
         }
         
-        ShipmentProcessingResponse response = shipmentProcessingService.handleWeightMismatch(trackingNumber, actualWeight, userOpt.get());
+        ShipmentProcessingResponse response = shipmentScanService.handleWeightMismatch(trackingNumber, actualWeight, userOpt.get());
         
         if (response.isSuccess()) {
+            domainEventBus.publishShipmentScanned(response);
             return ResponseEntity.ok(response);
         } else {
             return ResponseEntity.badRequest().body(response);
         }
     }
+    
+    /**
+     * Hit and load counters of the scan item cache
+     */
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(shipmentItemCache.getStats());
+    }
+    
+    /**
+     * Size, memory and rejection counters of the per-warehouse barcode filters
+     */
+    @GetMapping("/filter-stats")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getFilterStats() {
+        return ResponseEntity.ok(scanBarcodeFilter.getStats());
+    }
+
+    /**
+     * Replay hit rate and conflict counters of Idempotency-Key handling
+     */
+    @GetMapping("/idempotency-stats")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getIdempotencyStats() {
+        return ResponseEntity.ok(idempotencyStore.getStats());
+    }
+
+    /**
+     * Sequence numbers, group commit sizes and drain progress of the scan journal
+     */
+    @GetMapping("/journal-stats")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getJournalStats() {
+        return ResponseEntity.ok(scanJournal.getStats());
+    }
 }
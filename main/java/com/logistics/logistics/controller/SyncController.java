@@ -0,0 +1,46 @@
+package com.logistics.logistics.controller;
+
+import com.logistics.logistics.dto.SyncFeed;
+import com.logistics.logistics.service.ChangeFeedService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class SyncController {
+    private static final Logger logger = LoggerFactory.getLogger(SyncController.class);
+
+    private final ChangeFeedService changeFeedService;
+
+    /**
+     * Shipments, shipment items, inventory and assignments of a warehouse that changed
+     * after the given sequence number. Start with since=0, then pass back nextSince.
+     * A DELETE for a shipment also removes its items.
+     */
+    @GetMapping("/warehouse/{warehouseId}")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff', 'ROLE_delivery_driver')")
+    public ResponseEntity<?> getWarehouseChanges(@PathVariable Integer warehouseId,
+                                                 @RequestParam(defaultValue = "0") long since,
+                                                 @RequestParam(required = false) Integer limit) {
+        if (since < 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "since must not be negative"));
+        }
+        SyncFeed feed = changeFeedService.getChanges(warehouseId, since, limit);
+        logger.debug("Sync for warehouse {} since {} returned {} changes", warehouseId, since, feed.getChanges().size());
+        return ResponseEntity.ok(feed);
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(changeFeedService.getStats());
+    }
+}
@@ -1,10 +1,15 @@
 package com.logistics.logistics.controller;
 
+import com.logistics.logistics.dto.MultiGetResponse;
 import com.logistics.logistics.dto.TruckDTO;
 import com.logistics.logistics.model.Truck;
 import com.logistics.logistics.model.Warehouse;
 import com.logistics.logistics.repository.UserRepository;
 import com.logistics.logistics.repository.WarehouseRepository;
+import com.logistics.logistics.service.FieldProjection;
+import com.logistics.logistics.service.MultiGetService;
+import com.logistics.logistics.service.SparseFieldsetService;
+import com.logistics.logistics.service.TruckMaintenanceScheduler;
 import com.logistics.logistics.service.TruckService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -14,7 +19,12 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -27,21 +37,51 @@ public class TruckController {
     private final TruckService truckService;
     private final WarehouseRepository warehouseRepository;
     private final UserRepository userRepository;
+    private final TruckMaintenanceScheduler truckMaintenanceScheduler;
+    private final SparseFieldsetService sparseFieldsetService;
+    private final MultiGetService multiGetService;
     
     @GetMapping
     @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
-    public ResponseEntity<List<TruckDTO>> getAllTrucks() {
+    public ResponseEntity<?> getAllTrucks(@RequestParam(required = false) String fields) {
         logger.info("GET request to fetch all trucks");
+        if (fields != null) {
+            return ResponseEntity.ok(sparseFieldsetService.findAll(FieldProjection.TRUCK, fields));
+        }
         List<TruckDTO> trucks = truckService.getAllTrucks().stream()
                 .map(TruckDTO::fromEntity)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(trucks);
     }
     
+    /**
+     * Resolves many trucks at once, e.g. {@code ?ids=1,2,3}. Every requested id
+     * is a key of the results, null when not found.
+     */
+    @GetMapping(params = "ids")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff', 'ROLE_delivery_driver')")
+    public ResponseEntity<MultiGetResponse<TruckDTO>> getTrucksByIds(@RequestParam List<Integer> ids) {
+        logger.info("GET request to fetch {} trucks by id", ids.size());
+        MultiGetResponse<Truck> trucks = multiGetService.getTrucksByIds(ids);
+        Map<String, TruckDTO> results = new LinkedHashMap<>();
+        trucks.getResults().forEach((id, truck) -> results.put(id, truck == null ? null : TruckDTO.fromEntity(truck)));
+        return ResponseEntity.ok(MultiGetResponse.<TruckDTO>builder()
+                .requested(trucks.getRequested())
+                .found(trucks.getFound())
+                .results(results)
+                .notFound(trucks.getNotFound())
+                .build());
+    }
+    
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff', 'ROLE_delivery_driver')")
-    public ResponseEntity<TruckDTO> getTruckById(@PathVariable Integer id) {
+    public ResponseEntity<?> getTruckById(@PathVariable Integer id, @RequestParam(required = false) String fields) {
         logger.info("GET request to fetch truck by id: {}", id);
+        if (fields != null) {
+            return sparseFieldsetService.findById(FieldProjection.TRUCK, fields, id)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        }
         return truckService.getTruckById(id)
                 .map(TruckDTO::fromEntity)
                 .map(ResponseEntity::ok)
@@ -91,6 +131,7 @@ public class TruckController {
             }
             
             Truck savedTruck = truckService.saveTruck(truck);
+            truckMaintenanceScheduler.onTruckSaved(savedTruck);
             return ResponseEntity.ok(TruckDTO.fromEntity(savedTruck));
         } catch (Exception e) {
             logger.error("Error creating truck: {}", e.getMessage(), e);
@@ -154,6 +195,7 @@ public class TruckController {
                         }
                         
                         Truck updatedTruck = truckService.saveTruck(truck);
+                        truckMaintenanceScheduler.onTruckSaved(updatedTruck);
                         return ResponseEntity.ok(TruckDTO.fromEntity(updatedTruck));
                     })
                     .orElse(ResponseEntity.notFound().build());
@@ -170,6 +212,7 @@ public class TruckController {
         return truckService.getTruckById(id)
                 .map(truck -> {
                     truckService.deleteTruck(id);
+                    truckMaintenanceScheduler.onTruckDeleted(id);
                     return ResponseEntity.ok().<Void>build();
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -181,7 +224,8 @@ public class TruckController {
         logger.info("GET request to fetch available trucks for warehouse: {}", warehouseId);
         return warehouseRepository.findById(warehouseId)
                 .map(warehouse -> {
-                    List<TruckDTO> trucks = truckService.getAvailableTrucksByWarehouse(warehouse).stream()
+                    List<TruckDTO> trucks = truckMaintenanceScheduler.withoutDueTrucks(
+                            truckService.getAvailableTrucksByWarehouse(warehouse)).stream()
                             .map(TruckDTO::fromEntity)
                             .collect(Collectors.toList());
                     return ResponseEntity.ok(trucks);
@@ -199,7 +243,8 @@ public class TruckController {
                 warehouseId, weight, volume);
         return warehouseRepository.findById(warehouseId)
                 .map(warehouse -> {
-                    List<TruckDTO> trucks = truckService.getAvailableTrucksWithCapacity(warehouse, weight, volume).stream()
+                    List<TruckDTO> trucks = truckMaintenanceScheduler.withoutDueTrucks(
+                            truckService.getAvailableTrucksWithCapacity(warehouse, weight, volume)).stream()
                             .map(TruckDTO::fromEntity)
                             .collect(Collectors.toList());
                     return ResponseEntity.ok(trucks);
@@ -213,7 +258,8 @@ public class TruckController {
         logger.info("GET request to fetch available trucks with driver for warehouse: {}", warehouseId);
         return warehouseRepository.findById(warehouseId)
                 .map(warehouse -> {
-                    List<TruckDTO> trucks = truckService.getAvailableTrucksWithDriver(warehouse).stream()
+                    List<TruckDTO> trucks = truckMaintenanceScheduler.withoutDueTrucks(
+                            truckService.getAvailableTrucksWithDriver(warehouse)).stream()
                             .map(TruckDTO::fromEntity)
                             .collect(Collectors.toList());
                     return ResponseEntity.ok(trucks);
@@ -228,6 +274,32 @@ public class TruckController {
             @RequestParam Truck.TruckStatus status) {
         logger.info("PATCH request to update truck status: {} to {}", id, status);
         boolean updated = truckService.updateTruckStatus(id, status);
+        if (updated) {
+            truckMaintenanceScheduler.onTruckStatusChanged(id, status);
+        }
         return updated ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
     }
+    
+    /**
+     * Trucks that are due, or will be due within the given number of days, for maintenance
+     */
+    @GetMapping("/maintenance/due")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
+    public ResponseEntity<List<TruckDTO>> getTrucksDueForMaintenance(@RequestParam(defaultValue = "0") int days) {
+        logger.info("GET request to fetch trucks due for maintenance within {} days", days);
+        Map<Integer, LocalDate> due = truckMaintenanceScheduler.getDueWithin(Math.max(0, days));
+        List<TruckDTO> trucks = due.keySet().stream()
+                .map(truckService::getTruckById)
+                .flatMap(Optional::stream)
+                .map(TruckDTO::fromEntity)
+                .sorted(Comparator.comparing(TruckDTO::getNextMaintenanceDate))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(trucks);
+    }
+    
+    @GetMapping("/maintenance/stats")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getMaintenanceStats() {
+        return ResponseEntity.ok(truckMaintenanceScheduler.getStats());
+    }
 }
@@ -2,6 +2,7 @@ package com.logistics.logistics.controller;
 
 import com.logistics.logistics.dto.WarehouseRequest;
 import com.logistics.logistics.dto.WarehouseResponse;
+import com.logistics.logistics.service.DomainEventBus;
 import com.logistics.logistics.service.WarehouseService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -19,6 +20,7 @@ import java.util.Map;
 public class WarehouseController {
 
     private final WarehouseService warehouseService;
+    private final DomainEventBus domainEventBus;
 
     @GetMapping
     public ResponseEntity<List<WarehouseResponse>> getAllWarehouses() {
@@ -34,6 +36,7 @@ public class WarehouseController {
     public ResponseEntity<?> createWarehouse(@RequestBody WarehouseRequest warehouseRequest) {
         try {
             WarehouseResponse createdWarehouse = warehouseService.createWarehouse(warehouseRequest);
+            domainEventBus.publishWarehouseSaved(createdWarehouse.getWarehouseId(), createdWarehouse.getLocation());
             return new ResponseEntity<>(createdWarehouse, HttpStatus.CREATED);
         } catch (Exception e) {
             Map<String, String> errorResponse = new HashMap<>();
@@ -48,6 +51,7 @@ public class WarehouseController {
             @RequestBody WarehouseRequest warehouseRequest) {
         try {
             WarehouseResponse updatedWarehouse = warehouseService.updateWarehouse(id, warehouseRequest);
+            domainEventBus.publishWarehouseSaved(updatedWarehouse.getWarehouseId(), updatedWarehouse.getLocation());
             return ResponseEntity.ok(updatedWarehouse);
         } catch (Exception e) {
             Map<String, String> errorResponse = new HashMap<>();
@@ -60,6 +64,7 @@ public class WarehouseController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> deleteWarehouse(@PathVariable Integer id) {
         warehouseService.deleteWarehouse(id);
+        domainEventBus.publishWarehouseDeleted(id);
         return ResponseEntity.noContent().build();
     }
 
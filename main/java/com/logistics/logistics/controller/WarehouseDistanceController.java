@@ -0,0 +1,81 @@
+package com.logistics.logistics.controller;
+
+import com.logistics.logistics.dto.WarehouseDistance;
+import com.logistics.logistics.dto.WarehouseLink;
+import com.logistics.logistics.service.WarehouseDistanceMatrix;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/warehouse-distances")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class WarehouseDistanceController {
+    private static final Logger logger = LoggerFactory.getLogger(WarehouseDistanceController.class);
+
+    private final WarehouseDistanceMatrix warehouseDistanceMatrix;
+
+    /**
+     * Road distance and travel time between two warehouses
+     */
+    @GetMapping("/{fromWarehouseId}/{toWarehouseId}")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff')")
+    public ResponseEntity<WarehouseDistance> getDistance(@PathVariable Integer fromWarehouseId,
+                                                         @PathVariable Integer toWarehouseId) {
+        logger.info("GET request for distance from warehouse {} to {}", fromWarehouseId, toWarehouseId);
+        return warehouseDistanceMatrix.getDistance(fromWarehouseId, toWarehouseId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Closest reachable warehouses by road distance
+     */
+    @GetMapping("/{fromWarehouseId}/nearest")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager', 'ROLE_warehouse_staff')")
+    public ResponseEntity<List<WarehouseDistance>> getNearest(@PathVariable Integer fromWarehouseId,
+                                                              @RequestParam(defaultValue = "10") int limit) {
+        logger.info("GET request for {} nearest warehouses to {}", limit, fromWarehouseId);
+        return ResponseEntity.ok(warehouseDistanceMatrix.getNearest(fromWarehouseId, Math.max(1, Math.min(limit, 500))));
+    }
+
+    /**
+     * Import road links between warehouses; a link overrides the coordinate estimate
+     */
+    @PostMapping("/links")
+    @PreAuthorize("hasAnyRole('ROLE_admin', 'ROLE_logistics_manager')")
+    public ResponseEntity<?> importLinks(@RequestBody List<WarehouseLink> links) {
+        logger.info("POST request to import {} warehouse links", links.size());
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("imported", warehouseDistanceMatrix.importLinks(links));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Void> rebuild() {
+        logger.info("POST request to rebuild the distance matrix");
+        warehouseDistanceMatrix.rebuild();
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ROLE_admin')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(warehouseDistanceMatrix.getStats());
+    }
+}
@@ -0,0 +1,22 @@
+package com.logistics.logistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LaneKpi {
+    private Integer originWarehouseId;
+    private Integer destinationWarehouseId;
+    private long shipments;
+    private BigDecimal totalWeight;
+    private long delivered;
+    private Double onTimeRate;
+    private Double averageDwellMinutes;
+}
@@ -0,0 +1,21 @@
+package com.logistics.logistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LaneTransitStats {
+    private Integer originWarehouseId;
+    private Integer destinationWarehouseId;
+    private long samples;
+    private Double p50Hours;
+    private Double p80Hours;
+    private Double p95Hours;
+    private Double minHours;
+    private Double maxHours;
+}
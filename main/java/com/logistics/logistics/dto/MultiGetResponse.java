@@ -0,0 +1,25 @@
+package com.logistics.logistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a batch lookup. Every requested key appears in results, in request
+ * order, mapped to null when nothing was found for it; the same keys are listed
+ * in notFound.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiGetResponse<T> {
+    private int requested;
+    private int found;
+    private Map<String, T> results;
+    private List<String> notFound;
+}
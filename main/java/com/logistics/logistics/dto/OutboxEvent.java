@@ -0,0 +1,24 @@
+package com.logistics.logistics.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    // Increases with every event; consumers deduplicate redeliveries on it
+    private long eventId;
+    private String aggregateType;
+    private Integer aggregateId;
+    private String eventType;
+    @JsonRawValue
+    private String payload;
+    private LocalDateTime createdAt;
+}
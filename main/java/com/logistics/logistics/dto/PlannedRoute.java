@@ -0,0 +1,26 @@
+package com.logistics.logistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlannedRoute {
+    private Integer truckId;
+    private String registrationNumber;
+    private Integer homeWarehouseId;
+    private BigDecimal capacityWeight;
+    private BigDecimal capacityVolume;
+    private Double peakWeight;
+    private Double peakVolume;
+    private Double distanceKm;
+    private Double deadheadKm;
+    private List<RouteStop> stops;
+}
@@ -0,0 +1,33 @@
+package com.logistics.logistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoutePlan {
+    private String planId;
+    private PlanStatus status;
+    private LocalDateTime createdAt;
+    private List<Integer> warehouseIds;
+    private List<PlannedRoute> routes;
+    private List<Integer> unassignedShipmentIds;
+    private Double totalDistanceKm;
+    private Double pointToPointDistanceKm;
+    private int restarts;
+    private long computeMillis;
+    private List<Integer> committedShipmentIds;
+    private List<Integer> skippedShipmentIds;
+
+    public enum PlanStatus {
+        PROPOSED,
+        COMMITTED
+    }
+}
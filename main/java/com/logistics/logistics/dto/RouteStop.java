@@ -0,0 +1,23 @@
+package com.logistics.logistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteStop {
+    private int sequence;
+    private Integer warehouseId;
+    private Action action;
+    private Integer shipmentId;
+    private String trackingNumber;
+
+    public enum Action {
+        PICKUP,
+        DROP_OFF
+    }
+}
@@ -0,0 +1,35 @@
+package com.logistics.logistics.dto;
+
+import com.logistics.logistics.model.Shipment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentEvent {
+    private EventType type;
+    private Integer shipmentId;
+    private String trackingNumber;
+    private Shipment.ShipmentStatus status;
+    private Integer originWarehouseId;
+    private Integer destinationWarehouseId;
+    private Integer driverId;
+    private Integer processedItems;
+    private Integer totalItems;
+    private BigDecimal processedWeight;
+    private BigDecimal expectedWeight;
+    private Boolean readyForLoading;
+    private LocalDateTime occurredAt;
+
+    public enum EventType {
+        STATUS,
+        PROCESSING
+    }
+}
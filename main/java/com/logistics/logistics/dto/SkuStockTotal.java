@@ -0,0 +1,34 @@
+package com.logistics.logistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SkuStockTotal {
+    private String sku;
+    private long totalQuantity;
+    private long totalReorderPoint;
+    private long shortage;
+    private boolean belowReorderPoint;
+    private List<WarehouseStock> warehouses;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class WarehouseStock {
+        private Integer inventoryId;
+        private Integer warehouseId;
+        private String warehouseName;
+        private int quantity;
+        private int reorderPoint;
+        private boolean belowReorderPoint;
+    }
+}
@@ -0,0 +1,33 @@
+package com.logistics.logistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncChange {
+    public enum EntityType {
+        SHIPMENT,
+        SHIPMENT_ITEM,
+        INVENTORY,
+        INVENTORY_ASSIGNMENT
+    }
+
+    public enum Operation {
+        UPSERT,
+        DELETE
+    }
+
+    private long sequence;
+    private EntityType entityType;
+    private Integer entityId;
+    private Operation operation;
+    // Current column values for an UPSERT, null for a DELETE
+    private Map<String, Object> data;
+}
@@ -0,0 +1,24 @@
+package com.logistics.logistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncFeed {
+    private Integer warehouseId;
+    private long since;
+    // Pass as since on the next call
+    private long nextSince;
+    // More changes are waiting; call again straight away
+    private boolean hasMore;
+    // The feed no longer reaches back to since; reload everything, then sync from nextSince
+    private boolean resetRequired;
+    private List<SyncChange> changes;
+}
@@ -0,0 +1,18 @@
+package com.logistics.logistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarehouseDistance {
+    private Integer fromWarehouseId;
+    private Integer toWarehouseId;
+    private boolean reachable;
+    private Double distanceKm;
+    private Double travelMinutes;
+}
@@ -0,0 +1,23 @@
+package com.logistics.logistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarehouseKpi {
+    private Integer warehouseId;
+    private LocalDate day;
+    private long shipments;
+    private BigDecimal totalWeight;
+    private long delivered;
+    private Double onTimeRate;
+    private Double averageDwellMinutes;
+}
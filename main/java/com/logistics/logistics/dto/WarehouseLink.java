@@ -0,0 +1,19 @@
+package com.logistics.logistics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarehouseLink {
+    private Integer fromWarehouseId;
+    private Integer toWarehouseId;
+    private Double distanceKm;
+    private Double travelMinutes;
+    // Also store the reverse direction with the same costs
+    private Boolean twoWay;
+}
@@ -9,7 +9,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "Inventory")
+@Table(name = "Inventory", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_inventory_warehouse_sku", columnNames = {"warehouse_id", "sku"})
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,148 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.config.BulkheadProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One fair semaphore per endpoint class. Queue depth is tracked explicitly so a
+ * full queue rejects immediately instead of parking yet another request thread.
+ */
+@Service
+public class BulkheadRegistry {
+    private final BulkheadProperties properties;
+    private final Map<String, DataSource> dataSources;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Compartment> compartments = new LinkedHashMap<>();
+
+    public BulkheadRegistry(BulkheadProperties properties, Map<String, DataSource> dataSources) {
+        this.properties = properties;
+        this.dataSources = dataSources;
+        properties.getCompartments().forEach((name, config) -> compartments.put(name, new Compartment(name, config)));
+    }
+
+    public Compartment find(String method, String path) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        for (Compartment compartment : compartments.values()) {
+            if (!compartment.config.getMethods().isEmpty() && !compartment.config.getMethods().contains(method)) {
+                continue;
+            }
+            for (String pattern : compartment.config.getPaths()) {
+                if (pathMatcher.match(pattern, path)) {
+                    return compartment;
+                }
+            }
+        }
+        return null;
+    }
+
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> compartmentStats = new ArrayList<>();
+        compartments.values().forEach(compartment -> compartmentStats.add(compartment.getStats()));
+
+        List<Map<String, Object>> poolStats = new ArrayList<>();
+        dataSources.forEach((name, dataSource) -> {
+            if (dataSource instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                Map<String, Object> stats = new HashMap<>();
+                stats.put("pool", name);
+                stats.put("maximumPoolSize", hikari.getMaximumPoolSize());
+                stats.put("active", pool.getActiveConnections());
+                stats.put("idle", pool.getIdleConnections());
+                stats.put("waiting", pool.getThreadsAwaitingConnection());
+                poolStats.add(stats);
+            }
+        });
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("compartments", compartmentStats);
+        stats.put("connectionPools", poolStats);
+        return stats;
+    }
+
+    public static final class Compartment {
+        private final String name;
+        private final BulkheadProperties.Compartment config;
+        private final Semaphore permits;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger peakQueued = new AtomicInteger();
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong rejectedQueueFull = new AtomicLong();
+        private final AtomicLong rejectedTimeout = new AtomicLong();
+
+        private Compartment(String name, BulkheadProperties.Compartment config) {
+            this.name = name;
+            this.config = config;
+            this.permits = new Semaphore(config.getMaxConcurrent(), true);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Wait for a slot within the configured queue depth and time. Returns false
+         * when the request should be turned away.
+         */
+        public boolean acquire() throws InterruptedException {
+            if (permits.tryAcquire()) {
+                admitted.incrementAndGet();
+                return true;
+            }
+            int depth = queued.incrementAndGet();
+            try {
+                if (depth > config.getMaxQueue()) {
+                    rejectedQueueFull.incrementAndGet();
+                    return false;
+                }
+                peakQueued.accumulateAndGet(depth, Math::max);
+                if (!permits.tryAcquire(config.getMaxWaitMs(), TimeUnit.MILLISECONDS)) {
+                    rejectedTimeout.incrementAndGet();
+                    return false;
+                }
+                admitted.incrementAndGet();
+                return true;
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+
+        public void release() {
+            permits.release();
+        }
+
+        public long getMaxWaitMs() {
+            return config.getMaxWaitMs();
+        }
+
+        private Map<String, Object> getStats() {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("compartment", name);
+            stats.put("maxConcurrent", config.getMaxConcurrent());
+            stats.put("maxQueue", config.getMaxQueue());
+            stats.put("active", config.getMaxConcurrent() - permits.availablePermits());
+            stats.put("queued", queued.get());
+            stats.put("peakQueued", peakQueued.get());
+            stats.put("admitted", admitted.get());
+            stats.put("rejectedQueueFull", rejectedQueueFull.get());
+            stats.put("rejectedTimeout", rejectedTimeout.get());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.SyncChange;
+import com.logistics.logistics.dto.SyncFeed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Warehouse-scoped delta sync over the ChangeFeed table, which database triggers
+ * fill on every change to Shipments, ShipmentItems, Inventory and
+ * InventoryAssignments. A sync returns each changed entity once, with its current
+ * column values, or a DELETE tombstone when it was deleted or no longer belongs to
+ * the warehouse. Rows are flat column projections so a reconnect costs bytes in
+ * proportion to what changed.
+ * <p>
+ * The trigger's auto-increment seq is taken when a change is written but becomes
+ * visible only when its transaction commits, so it cannot be a sync position: a long
+ * transaction would commit a seq below one a client already passed. Syncs page by
+ * feed_seq instead, which {@link #assignSequence()} hands out to committed rows in
+ * one serialised step, so every later assignment is above everything visible now.
+ */
+@Service
+public class ChangeFeedService {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    private static final String UPPER_BOUND_SQL = "SELECT last_seq FROM ChangeFeedSequence WHERE id = 1";
+
+    private static final String LOCK_SEQUENCE_SQL = "SELECT last_seq FROM ChangeFeedSequence WHERE id = 1 FOR UPDATE";
+
+    // Rows of transactions still open are locked and skipped; they are sequenced once committed
+    private static final String UNSEQUENCED_SQL =
+            "SELECT seq FROM ChangeFeed WHERE feed_seq IS NULL ORDER BY seq LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String ASSIGN_SQL = "UPDATE ChangeFeed SET feed_seq = ? WHERE seq = ?";
+
+    private static final String ADVANCE_SEQUENCE_SQL = "UPDATE ChangeFeedSequence SET last_seq = ? WHERE id = 1";
+
+    private static final String UNSEQUENCED_COUNT_SQL = "SELECT COUNT(*) FROM ChangeFeed WHERE feed_seq IS NULL";
+
+    private static final String OLDEST_SQL = "SELECT MIN(feed_seq) FROM ChangeFeed";
+
+    private static final String CHANGES_SQL =
+            "SELECT entity_type, entity_id, MAX(feed_seq) AS last_seq FROM ChangeFeed " +
+            "WHERE warehouse_id = ? AND feed_seq > ? AND feed_seq <= ? " +
+            "GROUP BY entity_type, entity_id ORDER BY last_seq LIMIT ?";
+
+    private static final String PURGE_SQL = "DELETE FROM ChangeFeed WHERE changed_at < NOW() - INTERVAL ? DAY LIMIT ?";
+
+    // Each query takes the warehouse id, then the entity ids
+    private static final Map<SyncChange.EntityType, String> ROWS_SQL = new EnumMap<>(Map.of(
+            SyncChange.EntityType.SHIPMENT,
+            "SELECT shipment_id AS id, tracking_number, status, origin_warehouse_id, destination_warehouse_id, " +
+            "assigned_truck_id, total_weight, total_volume, scheduled_pickup_date, actual_pickup_date, " +
+            "estimated_delivery_date, actual_delivery_date, updated_at FROM Shipments " +
+            "WHERE ? IN (origin_warehouse_id, destination_warehouse_id) AND shipment_id IN ",
+            SyncChange.EntityType.SHIPMENT_ITEM,
+            "SELECT si.shipment_item_id AS id, si.shipment_id, si.inventory_id, si.quantity, si.weight, si.volume, " +
+            "si.barcode, si.status, si.verified_by, si.verified_at, si.notes, si.updated_at " +
+            "FROM ShipmentItems si JOIN Shipments s ON s.shipment_id = si.shipment_id " +
+            "WHERE ? IN (s.origin_warehouse_id, s.destination_warehouse_id) AND si.shipment_item_id IN ",
+            SyncChange.EntityType.INVENTORY,
+            "SELECT inventory_id AS id, sku, item_name, quantity, reorder_point, reorder_quantity, unit_price, " +
+            "warehouse_id, updated_at FROM Inventory WHERE warehouse_id = ? AND inventory_id IN ",
+            SyncChange.EntityType.INVENTORY_ASSIGNMENT,
+            "SELECT assignment_id AS id, truck_id, source_warehouse_id, destination_warehouse_id, status, " +
+            "assigned_by, assigned_at, completed_at FROM InventoryAssignments " +
+            "WHERE ? IN (source_warehouse_id, destination_warehouse_id) AND assignment_id IN "));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLeaseManager jobLeaseManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int sequenceBatchSize;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final int retentionDays;
+    private final int purgeChunkSize;
+
+    public ChangeFeedService(JdbcTemplate jdbcTemplate,
+                             JobLeaseManager jobLeaseManager,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${logistics.sync.sequence-batch-size:5000}") int sequenceBatchSize,
+                             @Value("${logistics.sync.default-limit:500}") int defaultLimit,
+                             @Value("${logistics.sync.max-limit:5000}") int maxLimit,
+                             @Value("${logistics.sync.retention-days:7}") int retentionDays,
+                             @Value("${logistics.sync.purge-chunk-size:10000}") int purgeChunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobLeaseManager = jobLeaseManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sequenceBatchSize = sequenceBatchSize;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.retentionDays = retentionDays;
+        this.purgeChunkSize = purgeChunkSize;
+    }
+
+    /**
+     * Changes visible to a warehouse after the given sequence number, one per entity,
+     * oldest first
+     */
+    public SyncFeed getChanges(Integer warehouseId, long since, Integer limit) {
+        int pageSize = Math.min(limit != null && limit > 0 ? limit : defaultLimit, maxLimit);
+        long upperBound = jdbcTemplate.queryForObject(UPPER_BOUND_SQL, Long.class);
+
+        Long oldest = jdbcTemplate.queryForObject(OLDEST_SQL, Long.class);
+        if (oldest != null && since < oldest - 1) {
+            return SyncFeed.builder()
+                    .warehouseId(warehouseId)
+                    .since(since)
+                    .nextSince(upperBound)
+                    .resetRequired(true)
+                    .changes(List.of())
+                    .build();
+        }
+
+        List<SyncChange> changes = jdbcTemplate.query(CHANGES_SQL, (rs, rowNum) -> SyncChange.builder()
+                .entityType(SyncChange.EntityType.valueOf(rs.getString(1)))
+                .entityId(rs.getInt(2))
+                .sequence(rs.getLong(3))
+                .build(), warehouseId, since, upperBound, pageSize + 1);
+
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = new ArrayList<>(changes.subList(0, pageSize));
+        }
+
+        Map<SyncChange.EntityType, List<Integer>> idsByType = changes.stream().collect(Collectors.groupingBy(
+                SyncChange::getEntityType, () -> new EnumMap<>(SyncChange.EntityType.class),
+                Collectors.mapping(SyncChange::getEntityId, Collectors.toList())));
+        Map<SyncChange.EntityType, Map<Integer, Map<String, Object>>> rows = new EnumMap<>(SyncChange.EntityType.class);
+        idsByType.forEach((type, ids) -> rows.put(type, loadRows(type, warehouseId, ids)));
+
+        for (SyncChange change : changes) {
+            Map<String, Object> row = rows.get(change.getEntityType()).get(change.getEntityId());
+            change.setOperation(row != null ? SyncChange.Operation.UPSERT : SyncChange.Operation.DELETE);
+            change.setData(row);
+        }
+
+        return SyncFeed.builder()
+                .warehouseId(warehouseId)
+                .since(since)
+                .nextSince(hasMore ? changes.get(changes.size() - 1).getSequence() : Math.max(since, upperBound))
+                .hasMore(hasMore)
+                .changes(changes)
+                .build();
+    }
+
+    /**
+     * Hands out feed_seq to committed changes in write order. The ChangeFeedSequence
+     * row lock serialises instances, and a batch becomes visible to syncs only when
+     * it commits, after every earlier batch.
+     */
+    @Scheduled(fixedDelayString = "${logistics.sync.sequence-interval-ms:200}")
+    public void assignSequence() {
+        int assigned;
+        do {
+            assigned = transactionTemplate.execute(status -> {
+                long lastSeq = jdbcTemplate.queryForObject(LOCK_SEQUENCE_SQL, Long.class);
+                List<Long> pending = jdbcTemplate.queryForList(UNSEQUENCED_SQL, Long.class, sequenceBatchSize);
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                List<Object[]> assignments = new ArrayList<>(pending.size());
+                for (Long seq : pending) {
+                    assignments.add(new Object[]{++lastSeq, seq});
+                }
+                jdbcTemplate.batchUpdate(ASSIGN_SQL, assignments);
+                jdbcTemplate.update(ADVANCE_SEQUENCE_SQL, lastSeq);
+                return pending.size();
+            });
+        } while (assigned == sequenceBatchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${logistics.sync.purge-interval-ms:3600000}",
+               initialDelayString = "${logistics.sync.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        if (jobLeaseManager.acquire("change-feed-purge").isEmpty()) {
+            return;
+        }
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, retentionDays, purgeChunkSize);
+            purged += deleted;
+        } while (deleted == purgeChunkSize);
+        if (purged > 0) {
+            logger.info("Purged {} change feed entries older than {} days", purged, retentionDays);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("oldestSequence", jdbcTemplate.queryForObject(OLDEST_SQL, Long.class));
+        stats.put("safeSequence", jdbcTemplate.queryForObject(UPPER_BOUND_SQL, Long.class));
+        stats.put("unsequencedChanges", jdbcTemplate.queryForObject(UNSEQUENCED_COUNT_SQL, Long.class));
+        stats.put("retentionDays", retentionDays);
+        return stats;
+    }
+
+    /**
+     * Current rows of the given entities that still belong to the warehouse; ids
+     * missing from the result become tombstones
+     */
+    private Map<Integer, Map<String, Object>> loadRows(SyncChange.EntityType type, Integer warehouseId,
+                                                      List<Integer> ids) {
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", ", "(", ")"));
+        List<Object> parameters = new ArrayList<>(ids.size() + 1);
+        parameters.add(warehouseId);
+        parameters.addAll(ids);
+
+        Map<Integer, Map<String, Object>> rows = new HashMap<>();
+        jdbcTemplate.query(ROWS_SQL.get(type) + placeholders, rs -> {
+            ResultSetMetaData metaData = rs.getMetaData();
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                row.put(metaData.getColumnLabel(column), rs.getObject(column));
+            }
+            rows.put(rs.getInt(1), row);
+        }, parameters.toArray());
+        return rows;
+    }
+}
@@ -0,0 +1,103 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.InventoryResponse;
+import com.logistics.logistics.dto.ShipmentProcessingResponse;
+import com.logistics.logistics.model.InventoryAssignment;
+import com.logistics.logistics.model.Shipment;
+
+/**
+ * One preallocated slot of the DomainEventBus ring. Publishers fill a slot in
+ * place instead of creating an event object; handlers read it during their call
+ * and must not keep a reference, because the slot is reused once every handler
+ * has moved past it. Only the fields of the slot's type are set.
+ */
+public final class DomainEvent {
+
+    public enum Type {
+        // shipment, previousStatus (null when the previous status is not known)
+        SHIPMENT_STATUS_CHANGED,
+        // processingResponse
+        SHIPMENT_SCANNED,
+        // assignment
+        ASSIGNMENT_STATUS_CHANGED,
+        // inventory
+        INVENTORY_SAVED,
+        // entityId
+        INVENTORY_DELETED,
+        // entityId of the source inventory row, relatedId of the destination warehouse
+        INVENTORY_TRANSFERRED,
+        // entityId, location
+        WAREHOUSE_SAVED,
+        // entityId
+        WAREHOUSE_DELETED
+    }
+
+    private Type type;
+    private Shipment shipment;
+    private Shipment.ShipmentStatus previousStatus;
+    private ShipmentProcessingResponse processingResponse;
+    private InventoryAssignment assignment;
+    private InventoryResponse inventory;
+    private int entityId;
+    private int relatedId;
+    private String location;
+    private long publishedNanos;
+
+    DomainEvent() {
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Shipment getShipment() {
+        return shipment;
+    }
+
+    public Shipment.ShipmentStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public ShipmentProcessingResponse getProcessingResponse() {
+        return processingResponse;
+    }
+
+    public InventoryAssignment getAssignment() {
+        return assignment;
+    }
+
+    public InventoryResponse getInventory() {
+        return inventory;
+    }
+
+    public int getEntityId() {
+        return entityId;
+    }
+
+    public int getRelatedId() {
+        return relatedId;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    long getPublishedNanos() {
+        return publishedNanos;
+    }
+
+    void fill(Type type, Shipment shipment, Shipment.ShipmentStatus previousStatus,
+              ShipmentProcessingResponse processingResponse, InventoryAssignment assignment,
+              InventoryResponse inventory, int entityId, int relatedId, String location) {
+        this.type = type;
+        this.shipment = shipment;
+        this.previousStatus = previousStatus;
+        this.processingResponse = processingResponse;
+        this.assignment = assignment;
+        this.inventory = inventory;
+        this.entityId = entityId;
+        this.relatedId = relatedId;
+        this.location = location;
+        this.publishedNanos = System.nanoTime();
+    }
+}
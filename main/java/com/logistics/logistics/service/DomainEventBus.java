@@ -0,0 +1,254 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.InventoryResponse;
+import com.logistics.logistics.dto.ShipmentProcessingResponse;
+import com.logistics.logistics.model.InventoryAssignment;
+import com.logistics.logistics.model.Shipment;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process domain events on a preallocated ring of DomainEvent slots. A publisher
+ * claims the next sequence number with one atomic increment, fills that slot in
+ * place and marks it published, so publishing allocates nothing and each slot has
+ * exactly one writer at a time. Every handler has its own consumer thread and
+ * sequence; it takes all events published since its last pass as one batch, so a
+ * slow handler catches up in large batches instead of one event at a time.
+ * <p>
+ * A publisher only waits when the slowest handler is a full ring behind.
+ */
+@Service
+public class DomainEventBus {
+    private static final Logger logger = LoggerFactory.getLogger(DomainEventBus.class);
+
+    private final DomainEvent[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final long idleParkNanos;
+    private final List<EventConsumer> consumers = new ArrayList<>();
+
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLong producerWaits = new AtomicLong();
+    // Lower bound of the slowest consumer's sequence; stale values only cost a recheck
+    private volatile long cachedMinimum = -1;
+    private volatile boolean running;
+
+    private long lastStatsNanos = System.nanoTime();
+    private long lastStatsPublished;
+
+    public DomainEventBus(List<DomainEventHandler> handlers,
+                          @Value("${logistics.event-bus.buffer-size:8192}") int bufferSize,
+                          @Value("${logistics.event-bus.idle-park-micros:100}") long idleParkMicros) {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        this.slots = new DomainEvent[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        this.idleParkNanos = TimeUnit.MICROSECONDS.toNanos(idleParkMicros);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new DomainEvent();
+            published.set(i, -1);
+        }
+        handlers.forEach(handler -> consumers.add(new EventConsumer(handler)));
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        consumers.forEach(consumer -> consumer.thread.start());
+        logger.info("Domain event bus started with {} slots and {} handlers", slots.length, consumers.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (EventConsumer consumer : consumers) {
+            LockSupport.unpark(consumer.thread);
+            try {
+                consumer.thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * A shipment was saved; previousStatus is null when the caller does not know it
+     */
+    public void publishShipmentStatusChanged(Shipment shipment, Shipment.ShipmentStatus previousStatus) {
+        publish(DomainEvent.Type.SHIPMENT_STATUS_CHANGED, shipment, previousStatus, null, null, null, 0, 0, null);
+    }
+
+    public void publishShipmentScanned(ShipmentProcessingResponse response) {
+        publish(DomainEvent.Type.SHIPMENT_SCANNED, null, null, response, null, null, 0, 0, null);
+    }
+
+    public void publishAssignmentStatusChanged(InventoryAssignment assignment) {
+        publish(DomainEvent.Type.ASSIGNMENT_STATUS_CHANGED, null, null, null, assignment, null, 0, 0, null);
+    }
+
+    public void publishInventorySaved(InventoryResponse inventory) {
+        publish(DomainEvent.Type.INVENTORY_SAVED, null, null, null, null, inventory, 0, 0, null);
+    }
+
+    public void publishInventoryDeleted(int inventoryId) {
+        publish(DomainEvent.Type.INVENTORY_DELETED, null, null, null, null, null, inventoryId, 0, null);
+    }
+
+    public void publishInventoryTransferred(int sourceInventoryId, int destinationWarehouseId) {
+        publish(DomainEvent.Type.INVENTORY_TRANSFERRED, null, null, null, null, null, sourceInventoryId,
+                destinationWarehouseId, null);
+    }
+
+    public void publishWarehouseSaved(int warehouseId, String location) {
+        publish(DomainEvent.Type.WAREHOUSE_SAVED, null, null, null, null, null, warehouseId, 0, location);
+    }
+
+    public void publishWarehouseDeleted(int warehouseId) {
+        publish(DomainEvent.Type.WAREHOUSE_DELETED, null, null, null, null, null, warehouseId, 0, null);
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        long now = System.nanoTime();
+        long publishedCount = claimed.get() + 1;
+        double seconds = (now - lastStatsNanos) / 1e9;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("bufferSize", slots.length);
+        stats.put("published", publishedCount);
+        stats.put("publishedPerSecond", seconds > 0 ? (publishedCount - lastStatsPublished) / seconds : 0.0);
+        stats.put("producerWaits", producerWaits.get());
+        stats.put("handlers", consumers.stream().map(consumer -> consumer.getStats(publishedCount - 1)).toList());
+        lastStatsNanos = now;
+        lastStatsPublished = publishedCount;
+        return stats;
+    }
+
+    private void publish(DomainEvent.Type type, Shipment shipment, Shipment.ShipmentStatus previousStatus,
+                         ShipmentProcessingResponse processingResponse, InventoryAssignment assignment,
+                         InventoryResponse inventory, int entityId, int relatedId, String location) {
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - slots.length;
+        if (wrapPoint > cachedMinimum) {
+            long minimum;
+            boolean waited = false;
+            while (wrapPoint > (minimum = minimumConsumerSequence())) {
+                if (!running) {
+                    logger.warn("Domain event bus is stopped, dropping {} event", type);
+                    return;
+                }
+                waited = true;
+                LockSupport.parkNanos(1000);
+            }
+            if (waited) {
+                producerWaits.incrementAndGet();
+            }
+            cachedMinimum = minimum;
+        }
+        int index = (int) (sequence & mask);
+        slots[index].fill(type, shipment, previousStatus, processingResponse, assignment, inventory, entityId,
+                relatedId, location);
+        published.lazySet(index, sequence);
+    }
+
+    private long minimumConsumerSequence() {
+        long minimum = claimed.get();
+        for (EventConsumer consumer : consumers) {
+            minimum = Math.min(minimum, consumer.sequence.get());
+        }
+        return minimum;
+    }
+
+    private final class EventConsumer implements Runnable {
+        private final DomainEventHandler handler;
+        private final EnumSet<DomainEvent.Type> types;
+        private final Thread thread;
+        // Last sequence this handler is done with
+        private final AtomicLong sequence = new AtomicLong(-1);
+
+        private final AtomicLong handled = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private volatile long lastLatencyNanos;
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+        private EventConsumer(DomainEventHandler handler) {
+            this.handler = handler;
+            this.types = handler.getTypes().isEmpty()
+                    ? EnumSet.noneOf(DomainEvent.Type.class)
+                    : EnumSet.copyOf(handler.getTypes());
+            this.thread = new Thread(this, "domain-events-" + handler.getName());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            while (true) {
+                long available = next - 1;
+                while (published.get((int) ((available + 1) & mask)) == available + 1) {
+                    available++;
+                }
+                if (available < next) {
+                    if (!running) {
+                        return;
+                    }
+                    LockSupport.parkNanos(idleParkNanos);
+                    continue;
+                }
+
+                long handledInBatch = 0;
+                for (long current = next; current <= available; current++) {
+                    DomainEvent event = slots[(int) (current & mask)];
+                    if (!types.contains(event.getType())) {
+                        continue;
+                    }
+                    try {
+                        handler.onEvent(event);
+                    } catch (RuntimeException e) {
+                        errors.incrementAndGet();
+                        logger.warn("Domain event handler {} failed on {}: {}",
+                                handler.getName(), event.getType(), e.getMessage());
+                    }
+                    handledInBatch++;
+                }
+                long latency = System.nanoTime() - slots[(int) (available & mask)].getPublishedNanos();
+                lastLatencyNanos = latency;
+                maxLatencyNanos.accumulateAndGet(latency, Math::max);
+                handled.addAndGet(handledInBatch);
+                batches.incrementAndGet();
+                sequence.lazySet(available);
+                next = available + 1;
+            }
+        }
+
+        private Map<String, Object> getStats(long head) {
+            long done = sequence.get();
+            long batchCount = batches.get();
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("handler", handler.getName());
+            stats.put("types", types);
+            stats.put("sequence", done);
+            stats.put("lag", Math.max(0, head - done));
+            stats.put("handled", handled.get());
+            stats.put("batches", batchCount);
+            stats.put("averageBatchSize", batchCount == 0 ? 0.0 : (double) (done + 1) / batchCount);
+            stats.put("errors", errors.get());
+            stats.put("lastLatencyMicros", lastLatencyNanos / 1000);
+            stats.put("maxLatencyMicros", maxLatencyNanos.get() / 1000);
+            return stats;
+        }
+    }
+}
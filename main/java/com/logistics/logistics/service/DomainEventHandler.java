@@ -0,0 +1,36 @@
+package com.logistics.logistics.service;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reaction to domain events, run on its own DomainEventBus consumer thread. Events
+ * reach a handler in publish order, in batches of whatever was waiting.
+ */
+public interface DomainEventHandler {
+
+    String getName();
+
+    Set<DomainEvent.Type> getTypes();
+
+    void onEvent(DomainEvent event);
+
+    static DomainEventHandler of(String name, Set<DomainEvent.Type> types, Consumer<DomainEvent> onEvent) {
+        return new DomainEventHandler() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Set<DomainEvent.Type> getTypes() {
+                return types;
+            }
+
+            @Override
+            public void onEvent(DomainEvent event) {
+                onEvent.accept(event);
+            }
+        };
+    }
+}
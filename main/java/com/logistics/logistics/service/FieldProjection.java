@@ -0,0 +1,152 @@
+package com.logistics.logistics.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fields a client may ask for with {@code fields=} on an entity's endpoints,
+ * each mapped to the JPQL expression that selects it. A field on an associated
+ * entity names the LEFT JOIN it needs, so a query joins only the associations
+ * its requested fields use. Field names follow the entity's response DTO.
+ */
+public final class FieldProjection {
+
+    public static final FieldProjection SHIPMENT = new FieldProjection("Shipment", "s", "s.shipmentId")
+            .field("shipmentId", "s.shipmentId")
+            .field("trackingNumber", "s.trackingNumber")
+            .field("status", "s.status")
+            .field("inventoryTransferId", "s.inventoryTransfer.transferId")
+            .field("originWarehouseId", "s.originWarehouse.warehouseId")
+            .field("originWarehouseName", "ow.name", "LEFT JOIN s.originWarehouse ow")
+            .field("originLocation", "ow.location", "LEFT JOIN s.originWarehouse ow")
+            .field("destinationWarehouseId", "s.destinationWarehouse.warehouseId")
+            .field("destinationWarehouseName", "dw.name", "LEFT JOIN s.destinationWarehouse dw")
+            .field("destinationLocation", "dw.location", "LEFT JOIN s.destinationWarehouse dw")
+            .field("assignedTruckId", "t.truckId", "LEFT JOIN s.assignedTruck t")
+            .field("assignedTruckRegistrationNumber", "t.registrationNumber", "LEFT JOIN s.assignedTruck t")
+            .field("totalWeight", "s.totalWeight")
+            .field("totalVolume", "s.totalVolume")
+            .field("scheduledPickupDate", "s.scheduledPickupDate")
+            .field("actualPickupDate", "s.actualPickupDate")
+            .field("estimatedDeliveryDate", "s.estimatedDeliveryDate")
+            .field("actualDeliveryDate", "s.actualDeliveryDate")
+            .field("notes", "s.notes")
+            .field("createdById", "cb.userId", "LEFT JOIN s.createdBy cb")
+            .field("createdByUsername", "cb.username", "LEFT JOIN s.createdBy cb")
+            .field("createdAt", "s.createdAt")
+            .field("updatedAt", "s.updatedAt");
+
+    public static final FieldProjection TRUCK = new FieldProjection("Truck", "t", "t.truckId")
+            .field("truckId", "t.truckId")
+            .field("registrationNumber", "t.registrationNumber")
+            .field("model", "t.model")
+            .field("capacityWeight", "t.capacityWeight")
+            .field("capacityVolume", "t.capacityVolume")
+            .field("driverId", "d.userId", "LEFT JOIN t.driver d")
+            .field("driverName", "d.username", "LEFT JOIN t.driver d")
+            .field("homeWarehouseId", "w.warehouseId", "LEFT JOIN t.homeWarehouse w")
+            .field("homeWarehouseName", "w.name", "LEFT JOIN t.homeWarehouse w")
+            .field("status", "t.status")
+            .field("lastMaintenanceDate", "t.lastMaintenanceDate")
+            .field("nextMaintenanceDate", "t.nextMaintenanceDate");
+
+    public static final FieldProjection INVENTORY = new FieldProjection("Inventory", "i", "i.inventoryId")
+            .field("inventoryId", "i.inventoryId")
+            .field("itemName", "i.itemName")
+            .field("description", "i.description")
+            .field("sku", "i.sku")
+            .field("quantity", "i.quantity")
+            .field("reorderPoint", "i.reorderPoint")
+            .field("reorderQuantity", "i.reorderQuantity")
+            .field("unitPrice", "i.unitPrice")
+            .field("warehouseId", "i.warehouse.warehouseId")
+            .field("warehouseName", "w.name", "LEFT JOIN i.warehouse w")
+            .field("updatedAt", "i.updatedAt")
+            .field("needsRestock", "CASE WHEN i.quantity <= i.reorderPoint THEN true ELSE false END");
+
+    public static final FieldProjection ASSIGNMENT = new FieldProjection("InventoryAssignment", "a", "a.assignmentId")
+            .field("assignmentId", "a.assignmentId")
+            .field("truckId", "a.truck.truckId")
+            .field("truckRegistrationNumber", "t.registrationNumber", "LEFT JOIN a.truck t")
+            .field("sourceWarehouseId", "a.sourceWarehouse.warehouseId")
+            .field("sourceWarehouseName", "sw.name", "LEFT JOIN a.sourceWarehouse sw")
+            .field("destinationWarehouseId", "a.destinationWarehouse.warehouseId")
+            .field("destinationWarehouseName", "dw.name", "LEFT JOIN a.destinationWarehouse dw")
+            .field("status", "a.status")
+            .field("assignedById", "a.assignedBy.userId")
+            .field("assignedByUsername", "ab.username", "LEFT JOIN a.assignedBy ab")
+            .field("assignedAt", "a.assignedAt")
+            .field("completedAt", "a.completedAt");
+
+    private final String entity;
+    private final String alias;
+    private final String idPath;
+    private final Map<String, String[]> fields = new LinkedHashMap<>();
+
+    private FieldProjection(String entity, String alias, String idPath) {
+        this.entity = entity;
+        this.alias = alias;
+        this.idPath = idPath;
+    }
+
+    private FieldProjection field(String name, String expression, String... joins) {
+        String[] definition = new String[joins.length + 1];
+        definition[0] = expression;
+        System.arraycopy(joins, 0, definition, 1, joins.length);
+        fields.put(name, definition);
+        return this;
+    }
+
+    /**
+     * Requested field names in request order, without duplicates
+     *
+     * @throws IllegalArgumentException if none is given or one is unknown
+     */
+    public List<String> parse(String requested) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : requested.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!fields.containsKey(trimmed)) {
+                throw new IllegalArgumentException("Unknown field '" + trimmed + "' for " + entity
+                        + "; available fields: " + String.join(", ", fields.keySet()));
+            }
+            names.add(trimmed);
+        }
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("fields must name at least one field of " + entity);
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * JPQL selecting the given fields as aliases f0, f1, ... with an optional
+     * condition on the entity alias
+     */
+    public String toJpql(List<String> names, String condition) {
+        StringBuilder select = new StringBuilder("SELECT ");
+        Set<String> joins = new LinkedHashSet<>();
+        for (int i = 0; i < names.size(); i++) {
+            String[] definition = fields.get(names.get(i));
+            select.append(i == 0 ? "" : ", ").append(definition[0]).append(" AS f").append(i);
+            joins.addAll(Arrays.asList(definition).subList(1, definition.length));
+        }
+        select.append(" FROM ").append(entity).append(' ').append(alias);
+        joins.forEach(join -> select.append(' ').append(join));
+        if (condition != null) {
+            select.append(" WHERE ").append(condition);
+        }
+        return select.append(" ORDER BY ").append(idPath).toString();
+    }
+
+    public String getIdPath() {
+        return idPath;
+    }
+}
@@ -0,0 +1,64 @@
+package com.logistics.logistics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logistics.logistics.dto.OutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * POSTs each batch as a JSON array to a webhook. Any response other than 2xx
+ * fails the batch. Disabled while no URL is configured.
+ */
+@Component
+public class HttpOutboxSink implements OutboxSink {
+    private final ObjectMapper objectMapper;
+    private final String url;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    public HttpOutboxSink(ObjectMapper objectMapper,
+                          @Value("${logistics.outbox.http.url:}") String url,
+                          @Value("${logistics.outbox.http.timeout-ms:10000}") long timeoutMs) {
+        this.objectMapper = objectMapper;
+        this.url = url;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public String getName() {
+        return "http";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return !url.isBlank();
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(events)))
+                .build();
+        HttpResponse<Void> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while publishing outbox events", e);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Webhook answered " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.logistics.logistics.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Responses recorded under client supplied Idempotency-Key values. Recent keys live
+ * in a bounded LRU map; the IdempotencyKeys table backs it so a key survives eviction
+ * and restarts and is shared between instances. A key is claimed before the request
+ * runs, so a retry that arrives while the first attempt is still running is told so
+ * instead of running the request a second time.
+ */
+@Service
+public class IdempotencyStore {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private static final String CLAIM_SQL =
+            "INSERT INTO IdempotencyKeys (key_hash, request_hash, created_at, expires_at) VALUES (?, ?, ?, ?)";
+
+    private static final String FIND_SQL =
+            "SELECT request_hash, status_code, content_type, response_body, expires_at FROM IdempotencyKeys " +
+            "WHERE key_hash = ?";
+
+    private static final String COMPLETE_SQL =
+            "UPDATE IdempotencyKeys SET status_code = ?, content_type = ?, response_body = ?, expires_at = ? " +
+            "WHERE key_hash = ?";
+
+    private static final String RELEASE_SQL = "DELETE FROM IdempotencyKeys WHERE key_hash = ?";
+
+    private static final String RELEASE_EXPIRED_SQL = "DELETE FROM IdempotencyKeys WHERE key_hash = ? AND expires_at < ?";
+
+    private static final String PURGE_SQL = "DELETE FROM IdempotencyKeys WHERE expires_at < ?";
+
+    public enum Outcome {
+        CLAIMED,
+        IN_PROGRESS,
+        COMPLETED,
+        MISMATCH
+    }
+
+    public static final class StoredResponse {
+        private final String requestHash;
+        private final Integer statusCode;
+        private final String contentType;
+        private final byte[] body;
+        private final LocalDateTime expiresAt;
+
+        private StoredResponse(String requestHash, Integer statusCode, String contentType, byte[] body,
+                               LocalDateTime expiresAt) {
+            this.requestHash = requestHash;
+            this.statusCode = statusCode;
+            this.contentType = contentType;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        private boolean isCompleted() {
+            return statusCode != null;
+        }
+
+        private boolean isExpired(LocalDateTime now) {
+            return expiresAt.isBefore(now);
+        }
+    }
+
+    public record Result(Outcome outcome, StoredResponse response) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLeaseManager jobLeaseManager;
+    private final long ttlSeconds;
+    private final long inProgressTimeoutSeconds;
+    private final boolean databaseEnabled;
+    private final Map<String, StoredResponse> recent;
+
+    private final AtomicLong claims = new AtomicLong();
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+    private final AtomicLong inProgressConflicts = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+    private final AtomicLong databaseErrors = new AtomicLong();
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate,
+                            JobLeaseManager jobLeaseManager,
+                            @Value("${logistics.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                            @Value("${logistics.idempotency.in-progress-timeout-seconds:120}") long inProgressTimeoutSeconds,
+                            @Value("${logistics.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${logistics.idempotency.database-enabled:true}") boolean databaseEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobLeaseManager = jobLeaseManager;
+        this.ttlSeconds = ttlSeconds;
+        this.inProgressTimeoutSeconds = inProgressTimeoutSeconds;
+        this.databaseEnabled = databaseEnabled;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Claim a key for a new request, or report what an earlier request with the same
+     * key left behind
+     */
+    public Result begin(String keyHash, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        StoredResponse claim = new StoredResponse(requestHash, null, null, null,
+                now.plusSeconds(inProgressTimeoutSeconds));
+
+        synchronized (recent) {
+            StoredResponse existing = recent.get(keyHash);
+            if (existing != null && !existing.isExpired(now)) {
+                return resolve(existing, requestHash, memoryHits);
+            }
+            recent.put(keyHash, claim);
+        }
+
+        if (!databaseEnabled) {
+            claims.incrementAndGet();
+            return new Result(Outcome.CLAIMED, null);
+        }
+        try {
+            if (claimInDatabase(keyHash, requestHash, now)) {
+                claims.incrementAndGet();
+                return new Result(Outcome.CLAIMED, null);
+            }
+            StoredResponse stored = find(keyHash);
+            if (stored == null) {
+                // The other claim went away between our insert and read; try once more
+                if (claimInDatabase(keyHash, requestHash, now)) {
+                    claims.incrementAndGet();
+                    return new Result(Outcome.CLAIMED, null);
+                }
+                stored = find(keyHash);
+            }
+            if (stored == null) {
+                // Claims keep coming and going under us; let the client retry rather than run unclaimed
+                synchronized (recent) {
+                    recent.remove(keyHash, claim);
+                }
+                inProgressConflicts.incrementAndGet();
+                return new Result(Outcome.IN_PROGRESS, null);
+            }
+            synchronized (recent) {
+                recent.put(keyHash, stored);
+            }
+            return resolve(stored, requestHash, databaseHits);
+        } catch (DataAccessException e) {
+            // The in-memory claim still protects this instance
+            databaseErrors.incrementAndGet();
+            logger.warn("Idempotency table unavailable, using memory only: {}", e.getMessage());
+            claims.incrementAndGet();
+            return new Result(Outcome.CLAIMED, null);
+        }
+    }
+
+    /**
+     * Record the response of a claimed request so retries get it back
+     */
+    public void complete(String keyHash, String requestHash, int statusCode, String contentType, byte[] body) {
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(ttlSeconds);
+        synchronized (recent) {
+            recent.put(keyHash, new StoredResponse(requestHash, statusCode, contentType, body, expiresAt));
+        }
+        if (!databaseEnabled) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(COMPLETE_SQL, statusCode, contentType, body, Timestamp.valueOf(expiresAt), keyHash);
+        } catch (DataAccessException e) {
+            databaseErrors.incrementAndGet();
+            logger.warn("Could not persist idempotent response: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Give up a claim so the request can be retried, used when it failed on the server side
+     */
+    public void release(String keyHash) {
+        synchronized (recent) {
+            recent.remove(keyHash);
+        }
+        if (!databaseEnabled) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(RELEASE_SQL, keyHash);
+        } catch (DataAccessException e) {
+            databaseErrors.incrementAndGet();
+            logger.warn("Could not release idempotency key: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${logistics.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (recent) {
+            recent.values().removeIf(entry -> entry.isExpired(now));
+        }
+        // The in-memory entries are per instance; the table is shared
+        if (!databaseEnabled || jobLeaseManager.acquire("idempotency-purge").isEmpty()) {
+            return;
+        }
+        try {
+            int purged = jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(now));
+            if (purged > 0) {
+                logger.info("Purged {} expired idempotency keys", purged);
+            }
+        } catch (DataAccessException e) {
+            databaseErrors.incrementAndGet();
+            logger.warn("Could not purge idempotency keys: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hits = memoryHits.get() + databaseHits.get();
+        long total = hits + claims.get() + inProgressConflicts.get() + mismatches.get();
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (recent) {
+            stats.put("entriesInMemory", recent.size());
+        }
+        stats.put("claims", claims.get());
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("databaseHits", databaseHits.get());
+        stats.put("inProgressConflicts", inProgressConflicts.get());
+        stats.put("mismatches", mismatches.get());
+        stats.put("databaseErrors", databaseErrors.get());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hits / total);
+        return stats;
+    }
+
+    private boolean claimInDatabase(String keyHash, String requestHash, LocalDateTime now) {
+        // A claim left behind by a crashed or timed out request is taken over
+        jdbcTemplate.update(RELEASE_EXPIRED_SQL, keyHash, Timestamp.valueOf(now));
+        try {
+            jdbcTemplate.update(CLAIM_SQL, keyHash, requestHash, Timestamp.valueOf(now),
+                    Timestamp.valueOf(now.plusSeconds(inProgressTimeoutSeconds)));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private StoredResponse find(String keyHash) {
+        List<StoredResponse> rows = jdbcTemplate.query(FIND_SQL, (rs, rowNum) -> new StoredResponse(
+                rs.getString(1),
+                rs.getObject(2, Integer.class),
+                rs.getString(3),
+                rs.getBytes(4),
+                rs.getTimestamp(5).toLocalDateTime()), keyHash);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private Result resolve(StoredResponse stored, String requestHash, AtomicLong hitCounter) {
+        if (!stored.requestHash.equals(requestHash)) {
+            mismatches.incrementAndGet();
+            return new Result(Outcome.MISMATCH, stored);
+        }
+        if (!stored.isCompleted()) {
+            inProgressConflicts.incrementAndGet();
+            return new Result(Outcome.IN_PROGRESS, stored);
+        }
+        hitCounter.incrementAndGet();
+        return new Result(Outcome.COMPLETED, stored);
+    }
+}
@@ -0,0 +1,416 @@
+package com.logistics.logistics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logistics.logistics.dto.InventoryImportResult;
+import com.logistics.logistics.dto.InventoryRequest;
+import com.logistics.logistics.dto.InventoryResponse;
+import com.logistics.logistics.repository.WarehouseRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Streams CSV or NDJSON inventory rows into the Inventory table.
+ * Rows are validated one at a time and written in chunks with a single JDBC batch
+ * per chunk, upserting on (warehouse_id, sku). Identity keys keep Hibernate from
+ * batching inserts, so the import goes straight through JDBC instead. The body is
+ * spooled to a temporary file and imported on a background thread, so the caller
+ * gets the import id at once and follows progress by it.
+ */
+@Service
+public class InventoryImportService {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryImportService.class);
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO Inventory (item_name, description, sku, quantity, reorder_point, reorder_quantity, " +
+            "unit_price, warehouse_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) AS new " +
+            "ON DUPLICATE KEY UPDATE item_name = new.item_name, description = new.description, " +
+            "quantity = new.quantity, reorder_point = new.reorder_point, " +
+            "reorder_quantity = new.reorder_quantity, unit_price = new.unit_price, " +
+            "updated_at = new.updated_at";
+
+    private static final List<String> CSV_COLUMNS = List.of(
+            "itemName", "description", "sku", "quantity", "reorderPoint", "reorderQuantity", "unitPrice", "warehouseId");
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_RETAINED_IMPORTS = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WarehouseRepository warehouseRepository;
+    private final InventoryKeyLookup inventoryKeyLookup;
+    private final ObjectMapper objectMapper;
+    private final int defaultChunkSize;
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, ImportJob> imports = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+            return size() > MAX_RETAINED_IMPORTS && eldest.getValue().finishedAt != null;
+        }
+    });
+
+    public InventoryImportService(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  WarehouseRepository warehouseRepository,
+                                  InventoryKeyLookup inventoryKeyLookup,
+                                  ObjectMapper objectMapper,
+                                  @Value("${logistics.inventory-import.chunk-size:1000}") int defaultChunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.warehouseRepository = warehouseRepository;
+        this.inventoryKeyLookup = inventoryKeyLookup;
+        this.objectMapper = objectMapper;
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importExecutor.shutdownNow();
+    }
+
+    /**
+     * Spool the stream to a temporary file and import it in the background.
+     * Returns the RUNNING import at once; progress and the final result are read
+     * with getImport. Imports run one at a time, in the order they were started.
+     */
+    public InventoryImportResult startImport(InputStream input, Format format, Integer chunkSize,
+                                             Consumer<List<InventoryResponse>> onRowsWritten) throws IOException {
+        Path spool = Files.createTempFile("inventory-import-", format == Format.CSV ? ".csv" : ".ndjson");
+        try {
+            Files.copy(input, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+        ImportJob job = new ImportJob(UUID.randomUUID().toString());
+        imports.put(job.importId, job);
+        try {
+            importExecutor.execute(() -> {
+                try (InputStream spooled = Files.newInputStream(spool)) {
+                    importInventory(job, spooled, format, chunkSize, onRowsWritten);
+                } catch (IOException | RuntimeException e) {
+                    // Already recorded on the job by importInventory
+                    logger.debug("Inventory import {} failed", job.importId, e);
+                } finally {
+                    try {
+                        Files.deleteIfExists(spool);
+                    } catch (IOException e) {
+                        logger.warn("Could not delete spooled import {}: {}", spool, e.getMessage());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            imports.remove(job.importId);
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+        return job.toResult();
+    }
+
+    /**
+     * Import every row of the stream. Invalid rows are reported and skipped;
+     * valid rows are committed chunk by chunk, so a failure late in the file
+     * keeps the chunks already written. After each chunk commits, the rows it
+     * wrote are read back by (warehouse_id, sku) and handed to onRowsWritten.
+     */
+    private InventoryImportResult importInventory(ImportJob job, InputStream input, Format format, Integer chunkSize,
+                                                  Consumer<List<InventoryResponse>> onRowsWritten) throws IOException {
+        int effectiveChunkSize = chunkSize != null && chunkSize > 0 ? chunkSize : defaultChunkSize;
+        logger.info("Starting {} inventory import {} with chunk size {}", format, job.importId, effectiveChunkSize);
+
+        Map<Integer, Boolean> knownWarehouses = new HashMap<>();
+        List<Object[]> chunk = new ArrayList<>(effectiveChunkSize);
+        List<Long> chunkLines = new ArrayList<>(effectiveChunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> header = null;
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = parseCsvLine(line);
+                    continue;
+                }
+
+                job.rowsRead.incrementAndGet();
+                InventoryRequest request;
+                try {
+                    request = format == Format.CSV ? fromCsv(header, parseCsvLine(line)) : objectMapper.readValue(line, InventoryRequest.class);
+                } catch (Exception e) {
+                    job.fail(lineNumber, null, "Unreadable row: " + e.getMessage());
+                    continue;
+                }
+
+                String error = validate(request, knownWarehouses);
+                if (error != null) {
+                    job.fail(lineNumber, request.getSku(), error);
+                    continue;
+                }
+
+                chunk.add(toParameters(request));
+                chunkLines.add(lineNumber);
+                job.warehouseIds.add(request.getWarehouseId());
+                if (chunk.size() >= effectiveChunkSize) {
+                    writeChunk(job, chunk, chunkLines, onRowsWritten);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(job, chunk, chunkLines, onRowsWritten);
+            }
+            job.status = "COMPLETED";
+        } catch (IOException | RuntimeException e) {
+            job.status = "FAILED";
+            job.fail(-1, null, "Import aborted: " + e.getMessage());
+            throw e;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            InventoryImportResult result = job.toResult();
+            logger.info("Inventory import {} {}: {} read, {} imported, {} failed, {} rows/s",
+                    job.importId, job.status, result.getRowsRead(), result.getRowsImported(),
+                    result.getRowsFailed(), Math.round(result.getRowsPerSecond()));
+        }
+        return job.toResult();
+    }
+
+    public InventoryImportResult getImport(String importId) {
+        ImportJob job = imports.get(importId);
+        return job != null ? job.toResult() : null;
+    }
+
+    public List<InventoryImportResult> getImports() {
+        synchronized (imports) {
+            return imports.values().stream().map(ImportJob::toResult).toList();
+        }
+    }
+
+    private void writeChunk(ImportJob job, List<Object[]> chunk, List<Long> chunkLines,
+                            Consumer<List<InventoryResponse>> onRowsWritten) {
+        List<Object[]> written = new ArrayList<>(chunk.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, chunk));
+            job.rowsImported.addAndGet(chunk.size());
+            written.addAll(chunk);
+        } catch (RuntimeException e) {
+            // Retry row by row so a single bad row does not take the whole chunk down with it
+            logger.warn("Chunk of {} rows failed in import {}, retrying individually: {}", chunk.size(), job.importId, e.getMessage());
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    jdbcTemplate.update(UPSERT_SQL, chunk.get(i));
+                    job.rowsImported.incrementAndGet();
+                    written.add(chunk.get(i));
+                } catch (RuntimeException rowError) {
+                    job.fail(chunkLines.get(i), (String) chunk.get(i)[2], rowError.getMessage());
+                }
+            }
+        }
+        job.chunksWritten.incrementAndGet();
+        readBack(job, written, onRowsWritten);
+        if (job.chunksWritten.get() % 50 == 0) {
+            logger.info("Inventory import {} progress: {} rows imported", job.importId, job.rowsImported.get());
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private void readBack(ImportJob job, List<Object[]> written, Consumer<List<InventoryResponse>> onRowsWritten) {
+        Map<Integer, Set<String>> skusByWarehouse = new LinkedHashMap<>();
+        for (Object[] row : written) {
+            skusByWarehouse.computeIfAbsent((Integer) row[7], warehouseId -> new LinkedHashSet<>()).add((String) row[2]);
+        }
+        try {
+            skusByWarehouse.forEach((warehouseId, skus) ->
+                    onRowsWritten.accept(inventoryKeyLookup.findAll(warehouseId, skus)));
+        } catch (RuntimeException e) {
+            // The rows are committed either way; only their read back for the caller is lost
+            logger.warn("Could not read back {} imported rows in import {}: {}", written.size(), job.importId, e.getMessage());
+        }
+    }
+
+    private String validate(InventoryRequest request, Map<Integer, Boolean> knownWarehouses) {
+        if (request.getItemName() == null || request.getItemName().isBlank()) {
+            return "itemName is required";
+        }
+        if (request.getItemName().length() > 100) {
+            return "itemName must be at most 100 characters";
+        }
+        if (request.getSku() == null || request.getSku().isBlank()) {
+            return "sku is required";
+        }
+        if (request.getDescription() != null && request.getDescription().length() > 255) {
+            return "description must be at most 255 characters";
+        }
+        if (request.getQuantity() == null || request.getQuantity() < 0) {
+            return "quantity must be zero or more";
+        }
+        if (request.getWarehouseId() == null) {
+            return "warehouseId is required";
+        }
+        if (!knownWarehouses.computeIfAbsent(request.getWarehouseId(), warehouseRepository::existsById)) {
+            return "Warehouse not found with ID: " + request.getWarehouseId();
+        }
+        return null;
+    }
+
+    private Object[] toParameters(InventoryRequest request) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return new Object[] {
+                request.getItemName().trim(),
+                request.getDescription(),
+                request.getSku().trim(),
+                request.getQuantity(),
+                request.getReorderPoint(),
+                request.getReorderQuantity(),
+                request.getUnitPrice(),
+                request.getWarehouseId(),
+                now,
+                now
+        };
+    }
+
+    private InventoryRequest fromCsv(List<String> header, List<String> values) {
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < header.size() && i < values.size(); i++) {
+            row.put(header.get(i).trim(), values.get(i).isEmpty() ? null : values.get(i));
+        }
+        for (String column : row.keySet()) {
+            if (!CSV_COLUMNS.contains(column)) {
+                throw new IllegalArgumentException("Unknown column " + column);
+            }
+        }
+        return InventoryRequest.builder()
+                .itemName(row.get("itemName"))
+                .description(row.get("description"))
+                .sku(row.get("sku"))
+                .quantity(parseInteger(row.get("quantity")))
+                .reorderPoint(parseInteger(row.get("reorderPoint")))
+                .reorderQuantity(parseInteger(row.get("reorderQuantity")))
+                .unitPrice(row.get("unitPrice") != null ? new BigDecimal(row.get("unitPrice").trim()) : null)
+                .warehouseId(parseInteger(row.get("warehouseId")))
+                .build();
+    }
+
+    private static Integer parseInteger(String value) {
+        return value != null ? Integer.valueOf(value.trim()) : null;
+    }
+
+    /**
+     * Split one CSV line, honouring double-quoted fields and doubled quotes inside them
+     */
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static final class ImportJob {
+        private final String importId;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong rowsImported = new AtomicLong();
+        private final AtomicLong rowsFailed = new AtomicLong();
+        private final AtomicLong chunksWritten = new AtomicLong();
+        private final Set<Integer> warehouseIds = ConcurrentHashMap.newKeySet();
+        private final List<InventoryImportResult.RowError> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile String status = "RUNNING";
+        private volatile LocalDateTime finishedAt;
+
+        private ImportJob(String importId) {
+            this.importId = importId;
+        }
+
+        private void fail(long line, String sku, String message) {
+            rowsFailed.incrementAndGet();
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(InventoryImportResult.RowError.builder().line(line).sku(sku).message(message).build());
+            }
+        }
+
+        private InventoryImportResult toResult() {
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+            double seconds = Math.max(0.001, Duration.between(startedAt, end).toMillis() / 1000.0);
+            synchronized (errors) {
+                return InventoryImportResult.builder()
+                        .importId(importId)
+                        .status(status)
+                        .rowsRead(rowsRead.get())
+                        .rowsImported(rowsImported.get())
+                        .rowsFailed(rowsFailed.get())
+                        .chunksWritten(chunksWritten.get())
+                        .rowsPerSecond(rowsImported.get() / seconds)
+                        .startedAt(startedAt)
+                        .finishedAt(finishedAt)
+                        .warehouseIds(Set.copyOf(warehouseIds))
+                        .errors(new ArrayList<>(errors))
+                        .build();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.InventoryResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads inventory rows by their natural key (warehouse_id, sku), which is
+ * unique under uk_inventory_warehouse_sku. Used where a change is known by key
+ * rather than by id, so the caller reads the rows it changed instead of the whole
+ * warehouse. Rows named by id, as in the ChangeFeed, are read the same way.
+ */
+@Service
+public class InventoryKeyLookup {
+
+    private static final String SELECT_SQL =
+            "SELECT i.inventory_id, i.item_name, i.description, i.sku, i.quantity, i.reorder_point, " +
+            "i.reorder_quantity, i.unit_price, i.warehouse_id, w.name, i.updated_at " +
+            "FROM Inventory i LEFT JOIN Warehouses w ON w.warehouse_id = i.warehouse_id ";
+
+    private static final String FIND_SQL = SELECT_SQL + "WHERE i.warehouse_id = ? AND i.sku = ?";
+
+    private static final String FIND_ALL_SQL = SELECT_SQL + "WHERE i.warehouse_id = ? AND i.sku IN (%s)";
+
+    private static final String FIND_BY_IDS_SQL = SELECT_SQL + "WHERE i.inventory_id IN (%s)";
+
+    private static final RowMapper<InventoryResponse> ROW_MAPPER = (rs, rowNum) -> {
+        Integer quantity = rs.getObject(5, Integer.class);
+        Integer reorderPoint = rs.getObject(6, Integer.class);
+        Timestamp updatedAt = rs.getTimestamp(11);
+        return InventoryResponse.builder()
+                .inventoryId(rs.getInt(1))
+                .itemName(rs.getString(2))
+                .description(rs.getString(3))
+                .sku(rs.getString(4))
+                .quantity(quantity)
+                .reorderPoint(reorderPoint)
+                .reorderQuantity(rs.getObject(7, Integer.class))
+                .unitPrice(rs.getBigDecimal(8))
+                .warehouseId(rs.getInt(9))
+                .warehouseName(rs.getString(10))
+                .updatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null)
+                .needsRestock(quantity != null && reorderPoint != null && quantity <= reorderPoint)
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InventoryKeyLookup(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<InventoryResponse> find(Integer warehouseId, String sku) {
+        if (warehouseId == null || sku == null) {
+            return Optional.empty();
+        }
+        List<InventoryResponse> rows = jdbcTemplate.query(FIND_SQL, ROW_MAPPER, warehouseId, sku);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    /**
+     * The rows of one warehouse with the given SKUs, in one query; SKUs without a row are left out
+     */
+    public List<InventoryResponse> findAll(Integer warehouseId, Collection<String> skus) {
+        if (warehouseId == null || skus.isEmpty()) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>(skus.size() + 1);
+        args.add(warehouseId);
+        args.addAll(skus);
+        String placeholders = String.join(", ", Collections.nCopies(skus.size(), "?"));
+        return jdbcTemplate.query(String.format(FIND_ALL_SQL, placeholders), ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * The rows with the given ids, in one query; ids without a row are left out
+     */
+    public List<InventoryResponse> findByIds(Collection<Integer> inventoryIds) {
+        if (inventoryIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(inventoryIds.size(), "?"));
+        return jdbcTemplate.query(String.format(FIND_BY_IDS_SQL, placeholders), ROW_MAPPER, inventoryIds.toArray());
+    }
+}
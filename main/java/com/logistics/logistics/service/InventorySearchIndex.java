@@ -0,0 +1,307 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.InventoryResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory search over inventory SKUs and item names.
+ * SKUs live in a sorted prefix index; item names and descriptions are split into
+ * trigrams so partial and slightly misspelled names still match. The index is
+ * loaded at startup and then kept current from inventory writes. A rebuild fills a
+ * new index and swaps it in, replaying the writes made while it read the snapshot,
+ * so queries never see an empty or half-loaded index. A write older than the row
+ * already indexed, by updatedAt, is ignored.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventorySearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(InventorySearchIndex.class);
+
+    private static final int GRAM_SIZE = 3;
+    private static final int MAX_CANDIDATES = 5000;
+    private static final int PROBE_GRAMS = 2;
+
+    private final InventoryService inventoryService;
+
+    private volatile Index current = new Index();
+    // Guards the swap and pendingWrites, so a write lands in the index that ends up current
+    private final Object swapLock = new Object();
+    // Saved rows and removed ids written while a rebuild reads its snapshot; null otherwise
+    private List<Object> pendingWrites;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (swapLock) {
+            pendingWrites = new ArrayList<>();
+        }
+        Index rebuilt = new Index();
+        boolean built = false;
+        try {
+            inventoryService.getAllInventory().forEach(rebuilt::index);
+            built = true;
+        } finally {
+            synchronized (swapLock) {
+                if (built) {
+                    pendingWrites.forEach(rebuilt::apply);
+                    current = rebuilt;
+                }
+                pendingWrites = null;
+            }
+        }
+        logger.info("Inventory search index built with {} items in {} ms", rebuilt.items.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Add or replace an inventory item in the index
+     */
+    public void index(InventoryResponse inventory) {
+        if (inventory == null || inventory.getInventoryId() == null) {
+            return;
+        }
+        write(inventory);
+    }
+
+    public void remove(Integer inventoryId) {
+        write(inventoryId);
+    }
+
+    private void write(Object write) {
+        synchronized (swapLock) {
+            current.apply(write);
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+        }
+    }
+
+    /**
+     * Return the best matches for a query, optionally limited to one warehouse.
+     * Exact and prefix SKU hits rank first, followed by name trigram matches.
+     */
+    public List<InventoryResponse> search(String query, Integer warehouseId, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Index index = current;
+        Map<Integer, Double> scores = new HashMap<>();
+        collectSkuMatches(index, normalized, warehouseId, limit, scores);
+        collectNameMatches(index, normalized, warehouseId, scores);
+
+        PriorityQueue<Map.Entry<Integer, Double>> best = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            best.offer(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(best);
+        ranked.sort(Map.Entry.<Integer, Double>comparingByValue(Comparator.reverseOrder()));
+
+        List<InventoryResponse> results = new ArrayList<>(ranked.size());
+        for (Map.Entry<Integer, Double> entry : ranked) {
+            IndexedItem item = index.items.get(entry.getKey());
+            if (item != null) {
+                results.add(item.inventory);
+            }
+        }
+        return results;
+    }
+
+    public int size() {
+        return current.items.size();
+    }
+
+    private void collectSkuMatches(Index index, String prefix, Integer warehouseId, int limit,
+                                   Map<Integer, Double> scores) {
+        int found = 0;
+        for (Map.Entry<String, Set<Integer>> entry : index.skuIndex.tailMap(prefix, true).entrySet()) {
+            String sku = entry.getKey();
+            if (!sku.startsWith(prefix) || found >= limit) {
+                break;
+            }
+            // Shorter SKUs are closer to the query, so they rank above longer ones sharing the prefix
+            double score = sku.length() == prefix.length() ? 3.0 : 2.0 + (double) prefix.length() / sku.length();
+            for (Integer inventoryId : entry.getValue()) {
+                IndexedItem item = index.items.get(inventoryId);
+                if (item != null && item.inWarehouse(warehouseId)) {
+                    scores.merge(inventoryId, score, Math::max);
+                    found++;
+                }
+            }
+        }
+    }
+
+    private void collectNameMatches(Index index, String query, Integer warehouseId, Map<Integer, Double> scores) {
+        Set<String> queryGrams = grams(query);
+        if (queryGrams.isEmpty()) {
+            return;
+        }
+
+        // Probe with the rarest grams only, then score candidates against the full gram set
+        List<Set<Integer>> postings = new ArrayList<>();
+        for (String gram : queryGrams) {
+            Set<Integer> posting = index.gramIndex.get(gram);
+            if (posting != null) {
+                postings.add(posting);
+            }
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        Set<Integer> candidates = new HashSet<>();
+        for (int i = 0; i < Math.min(PROBE_GRAMS, postings.size()) && candidates.size() < MAX_CANDIDATES; i++) {
+            for (Integer inventoryId : postings.get(i)) {
+                candidates.add(inventoryId);
+                if (candidates.size() >= MAX_CANDIDATES) {
+                    break;
+                }
+            }
+        }
+
+        for (Integer inventoryId : candidates) {
+            IndexedItem item = index.items.get(inventoryId);
+            if (item == null || !item.inWarehouse(warehouseId)) {
+                continue;
+            }
+            int matched = 0;
+            for (String gram : queryGrams) {
+                if (item.grams.contains(gram)) {
+                    matched++;
+                }
+            }
+            double score = (double) matched / queryGrams.size();
+            if (score >= 0.3) {
+                scores.merge(inventoryId, score, Math::max);
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (String word : text.split("[^\\p{Alnum}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            // Pad each word so short words and word boundaries still produce grams
+            String padded = " " + word + " ";
+            for (int i = 0; i + GRAM_SIZE <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + GRAM_SIZE));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * One generation of the index; the current one is replaced whole by a rebuild
+     */
+    private static final class Index {
+        private final Map<Integer, IndexedItem> items = new ConcurrentHashMap<>();
+        private final NavigableMap<String, Set<Integer>> skuIndex = new ConcurrentSkipListMap<>();
+        private final Map<String, Set<Integer>> gramIndex = new ConcurrentHashMap<>();
+
+        private void apply(Object write) {
+            if (write instanceof InventoryResponse inventory) {
+                index(inventory);
+            } else {
+                remove((Integer) write);
+            }
+        }
+
+        private void index(InventoryResponse inventory) {
+            IndexedItem previous = items.get(inventory.getInventoryId());
+            if (previous != null && isOlder(inventory, previous.inventory)) {
+                return;
+            }
+            IndexedItem item = new IndexedItem(inventory);
+            items.put(inventory.getInventoryId(), item);
+            if (previous != null) {
+                unlink(previous);
+            }
+
+            if (!item.sku.isEmpty()) {
+                skuIndex.computeIfAbsent(item.sku, key -> ConcurrentHashMap.newKeySet()).add(item.inventoryId);
+            }
+            for (String gram : item.grams) {
+                gramIndex.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(item.inventoryId);
+            }
+        }
+
+        private void remove(Integer inventoryId) {
+            IndexedItem previous = items.remove(inventoryId);
+            if (previous != null) {
+                unlink(previous);
+            }
+        }
+
+        private void unlink(IndexedItem item) {
+            if (!item.sku.isEmpty()) {
+                skuIndex.computeIfPresent(item.sku, (sku, ids) -> {
+                    ids.remove(item.inventoryId);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+            for (String gram : item.grams) {
+                gramIndex.computeIfPresent(gram, (key, ids) -> {
+                    ids.remove(item.inventoryId);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    /**
+     * Whether a written row is older than the one already held, by updatedAt
+     */
+    private static boolean isOlder(InventoryResponse written, InventoryResponse held) {
+        return written.getUpdatedAt() != null && held.getUpdatedAt() != null
+                && written.getUpdatedAt().isBefore(held.getUpdatedAt());
+    }
+
+    private static final class IndexedItem {
+        private final Integer inventoryId;
+        private final Integer warehouseId;
+        private final String sku;
+        private final Set<String> grams;
+        private final InventoryResponse inventory;
+
+        private IndexedItem(InventoryResponse inventory) {
+            this.inventoryId = inventory.getInventoryId();
+            this.warehouseId = inventory.getWarehouseId();
+            this.sku = normalize(inventory.getSku());
+            this.grams = Set.copyOf(grams(String.join(" ", Arrays.asList(
+                    normalize(inventory.getItemName()), normalize(inventory.getDescription())))));
+            this.inventory = inventory;
+        }
+
+        private boolean inWarehouse(Integer warehouseId) {
+            return warehouseId == null || warehouseId.equals(this.warehouseId);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.logistics.logistics.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Leader election for background jobs over the JobLeases table, so that each job,
+ * or each shard of a sharded job, runs on one instance at a time. A lease is taken
+ * with a conditional UPDATE that only succeeds when the lease is free or expired,
+ * and every takeover increments its fencing token. The holder renews its leases on
+ * a heartbeat; when an instance dies, its leases expire after the TTL and the next
+ * run of the job on another instance takes them over.
+ * <p>
+ * A lease seen as held locally may already have been taken over if this instance
+ * stalled past the TTL. Writes that must not be repeated by two owners go through
+ * {@link #fenced}, which ends the transaction with a renewal conditional on the
+ * token: a stale owner's renewal matches nothing and its write is rolled back, and
+ * once the renewal has locked the row a takeover waits for the commit and then finds
+ * the lease renewed. The row is locked only from that renewal to the commit, so the
+ * heartbeat never waits on a long job transaction.
+ */
+@Service
+public class JobLeaseManager {
+    private static final Logger logger = LoggerFactory.getLogger(JobLeaseManager.class);
+
+    private static final String ENSURE_SQL =
+            "INSERT IGNORE INTO JobLeases (lease_name, expires_at) VALUES (?, NOW(3))";
+
+    private static final String ACQUIRE_SQL =
+            "UPDATE JobLeases SET owner = ?, fencing_token = fencing_token + 1, acquired_at = NOW(3), " +
+            "expires_at = NOW(3) + INTERVAL ? MICROSECOND " +
+            "WHERE lease_name = ? AND (owner IS NULL OR owner = ? OR expires_at < NOW(3))";
+
+    private static final String TOKEN_SQL = "SELECT fencing_token FROM JobLeases WHERE lease_name = ? AND owner = ?";
+
+    private static final String RENEW_SQL =
+            "UPDATE JobLeases SET expires_at = NOW(3) + INTERVAL ? MICROSECOND " +
+            "WHERE lease_name = ? AND owner = ? AND fencing_token = ?";
+
+    private static final String RELEASE_SQL =
+            "UPDATE JobLeases SET owner = NULL, expires_at = NOW(3) " +
+            "WHERE lease_name = ? AND owner = ? AND fencing_token = ?";
+
+    private static final String FENCE_SQL =
+            "SELECT fencing_token FROM JobLeases WHERE lease_name = ? AND owner = ? AND expires_at > NOW(3)";
+
+    private static final String INSTANCE_HEARTBEAT_SQL =
+            "INSERT INTO JobInstances (instance_id, heartbeat_at) VALUES (?, NOW(3)) " +
+            "ON DUPLICATE KEY UPDATE heartbeat_at = NOW(3)";
+
+    private static final String LIVE_INSTANCES_SQL =
+            "SELECT COUNT(*) FROM JobInstances WHERE heartbeat_at > NOW(3) - INTERVAL ? MICROSECOND";
+
+    private static final String REMOVE_INSTANCE_SQL = "DELETE FROM JobInstances WHERE instance_id = ?";
+
+    private static final String PURGE_INSTANCES_SQL =
+            "DELETE FROM JobInstances WHERE heartbeat_at < NOW(3) - INTERVAL 1 DAY";
+
+    private static final String LEASES_SQL =
+            "SELECT lease_name, owner, fencing_token, acquired_at, expires_at, expires_at > NOW(3) " +
+            "FROM JobLeases ORDER BY lease_name";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String instanceId;
+    private final long ttlMicros;
+    // A held lease is trusted locally for this long after its last renewal started
+    private final long localValidityNanos;
+    private final long heartbeatIntervalMs;
+    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-lease-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Lease> held = new ConcurrentHashMap<>();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong losses = new AtomicLong();
+    private final AtomicLong fenceRejections = new AtomicLong();
+
+    public JobLeaseManager(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${logistics.leases.ttl-ms:15000}") long ttlMs,
+                           @Value("${logistics.leases.heartbeat-interval-ms:5000}") long heartbeatIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.instanceId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.ttlMicros = TimeUnit.MILLISECONDS.toMicros(ttlMs);
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.localValidityNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMs - heartbeatIntervalMs, ttlMs / 2));
+    }
+
+    /**
+     * The lease for a job if this instance holds it or can take it over now
+     */
+    public Optional<Lease> acquire(String name) {
+        Lease lease = held.get(name);
+        if (lease != null && lease.isLocallyValid()) {
+            return Optional.of(lease);
+        }
+        try {
+            long start = System.nanoTime();
+            if (jdbcTemplate.update(ACQUIRE_SQL, instanceId, ttlMicros, name, instanceId) == 0
+                    && (jdbcTemplate.update(ENSURE_SQL, name) == 0
+                        || jdbcTemplate.update(ACQUIRE_SQL, instanceId, ttlMicros, name, instanceId) == 0)) {
+                held.remove(name);
+                return Optional.empty();
+            }
+            long token = jdbcTemplate.queryForObject(TOKEN_SQL, Long.class, name, instanceId);
+            lease = new Lease(name, token, start + localValidityNanos);
+            held.put(name, lease);
+            acquisitions.incrementAndGet();
+            logger.info("Acquired lease {} with fencing token {}", name, token);
+            return Optional.of(lease);
+        } catch (DataAccessException e) {
+            logger.warn("Could not acquire lease {}: {}", name, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Shards of a job this instance should work on, each backed by its own lease.
+     * Every live instance aims for an equal share: it gives up shards above its
+     * share, for others to pick up on their next run, and takes free or expired
+     * ones until it has its share.
+     */
+    public List<Lease> acquireShards(String job, int shardCount) {
+        int liveInstances;
+        try {
+            liveInstances = Math.max(1, jdbcTemplate.queryForObject(LIVE_INSTANCES_SQL, Integer.class, ttlMicros));
+        } catch (DataAccessException e) {
+            logger.warn("Could not count live instances: {}", e.getMessage());
+            return List.of();
+        }
+        int share = (shardCount + liveInstances - 1) / liveInstances;
+
+        List<Lease> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            Lease lease = held.get(shardName(job, shard));
+            if (lease != null && lease.isLocallyValid()) {
+                shards.add(lease);
+            }
+        }
+        while (shards.size() > share) {
+            release(shards.remove(shards.size() - 1));
+        }
+        for (int shard = 0; shard < shardCount && shards.size() < share; shard++) {
+            String name = shardName(job, shard);
+            Lease lease = held.get(name);
+            if (lease == null || !lease.isLocallyValid()) {
+                acquire(name).ifPresent(shards::add);
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Shard of a key, e.g. a warehouse id, for a job split into shardCount shards
+     */
+    public static int shardOf(int key, int shardCount) {
+        return Math.floorMod(key, shardCount);
+    }
+
+    /**
+     * Runs work in a transaction that only commits while the lease is still ours.
+     * Joins the caller's transaction if there is one, in which case the lease row
+     * stays locked from the closing renewal until that transaction ends.
+     *
+     * @throws IllegalStateException if the lease was lost; the transaction is rolled back
+     */
+    public <T> T fenced(Lease lease, Supplier<T> work) {
+        return transactionTemplate.execute(status -> {
+            // Plain read, no lock: skips the work when the lease is already gone
+            List<Long> tokens = jdbcTemplate.queryForList(FENCE_SQL, Long.class, lease.getName(), instanceId);
+            if (tokens.isEmpty() || tokens.get(0) != lease.getToken()) {
+                throw rejected(lease);
+            }
+            T result = work.get();
+            // The fence itself: only matches while nobody has taken the lease over since
+            long start = System.nanoTime();
+            if (jdbcTemplate.update(RENEW_SQL, ttlMicros, lease.getName(), instanceId, lease.getToken()) == 0) {
+                throw rejected(lease);
+            }
+            lease.validUntilNanos = start + localValidityNanos;
+            return result;
+        });
+    }
+
+    public void runFenced(Lease lease, Runnable work) {
+        fenced(lease, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Renews held leases. Runs on its own thread so a long job on the shared
+     * scheduler can never starve the renewals and cost its own lease.
+     */
+    void heartbeat() {
+        try {
+            jdbcTemplate.update(INSTANCE_HEARTBEAT_SQL, instanceId);
+        } catch (DataAccessException e) {
+            logger.warn("Could not record instance heartbeat: {}", e.getMessage());
+        }
+        for (Lease lease : held.values()) {
+            long start = System.nanoTime();
+            try {
+                if (jdbcTemplate.update(RENEW_SQL, ttlMicros, lease.getName(), instanceId, lease.getToken()) == 1) {
+                    lease.validUntilNanos = start + localValidityNanos;
+                } else {
+                    held.remove(lease.getName(), lease);
+                    losses.incrementAndGet();
+                    logger.warn("Lost lease {} with fencing token {}", lease.getName(), lease.getToken());
+                }
+            } catch (DataAccessException e) {
+                // Keep it; it stays usable until its local validity runs out
+                logger.warn("Could not renew lease {}: {}", lease.getName(), e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${logistics.leases.instance-purge-interval-ms:3600000}")
+    public void purgeInstances() {
+        jdbcTemplate.update(PURGE_INSTANCES_SQL);
+    }
+
+    /**
+     * Hands every lease back so other instances take over without waiting for the TTL
+     */
+    @PreDestroy
+    public void releaseAll() {
+        heartbeatExecutor.shutdownNow();
+        held.values().forEach(this::release);
+        try {
+            jdbcTemplate.update(REMOVE_INSTANCE_SQL, instanceId);
+        } catch (DataAccessException e) {
+            logger.warn("Could not remove instance {}: {}", instanceId, e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("instanceId", instanceId);
+        stats.put("heldLeases", new TreeSet<>(held.keySet()));
+        stats.put("acquisitions", acquisitions.get());
+        stats.put("losses", losses.get());
+        stats.put("fenceRejections", fenceRejections.get());
+        List<Map<String, Object>> leases = new ArrayList<>();
+        jdbcTemplate.query(LEASES_SQL, rs -> {
+            Map<String, Object> lease = new HashMap<>();
+            lease.put("name", rs.getString(1));
+            lease.put("owner", rs.getString(2));
+            lease.put("fencingToken", rs.getLong(3));
+            lease.put("acquiredAt", rs.getTimestamp(4));
+            lease.put("expiresAt", rs.getTimestamp(5));
+            lease.put("active", rs.getBoolean(6));
+            leases.add(lease);
+        });
+        stats.put("leases", leases);
+        return stats;
+    }
+
+    private void release(Lease lease) {
+        held.remove(lease.getName(), lease);
+        try {
+            jdbcTemplate.update(RELEASE_SQL, lease.getName(), instanceId, lease.getToken());
+            logger.info("Released lease {}", lease.getName());
+        } catch (DataAccessException e) {
+            logger.warn("Could not release lease {}: {}", lease.getName(), e.getMessage());
+        }
+    }
+
+    private IllegalStateException rejected(Lease lease) {
+        fenceRejections.incrementAndGet();
+        held.remove(lease.getName(), lease);
+        return new IllegalStateException("Lease " + lease.getName() + " with fencing token "
+                + lease.getToken() + " is no longer held");
+    }
+
+    private static String shardName(String job, int shard) {
+        return job + "#" + shard;
+    }
+
+    public static final class Lease {
+        private final String name;
+        private final long token;
+        private volatile long validUntilNanos;
+
+        private Lease(String name, long token, long validUntilNanos) {
+            this.name = name;
+            this.token = token;
+            this.validUntilNanos = validUntilNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getToken() {
+            return token;
+        }
+
+        /**
+         * Shard number of a lease taken through acquireShards
+         */
+        public int getShard() {
+            return Integer.parseInt(name.substring(name.lastIndexOf('#') + 1));
+        }
+
+        private boolean isLocallyValid() {
+            return System.nanoTime() - validUntilNanos < 0;
+        }
+    }
+}
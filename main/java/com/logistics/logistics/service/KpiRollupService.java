@@ -0,0 +1,215 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.LaneKpi;
+import com.logistics.logistics.dto.WarehouseKpi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Maintains ShipmentLaneDailyRollups incrementally. Each run reads the shipment
+ * rows of the change feed past the job's feed position, recomputes the days those
+ * shipments belong to, and advances the position. Feed rows get their feed_seq
+ * only once committed, so a long transaction is picked up whenever it commits
+ * rather than skipped for having stamped an early updated_at. KPI queries then
+ * read the rollups alone and never touch Shipments.
+ */
+@Service
+public class KpiRollupService {
+    private static final Logger logger = LoggerFactory.getLogger(KpiRollupService.class);
+
+    private static final String JOB_NAME = "shipment-lane-daily";
+
+    private static final int MAX_IN_LIST = 1000;
+
+    private static final String READ_WATERMARK_SQL =
+            "SELECT last_feed_seq FROM RollupWatermarks WHERE job_name = ? AND last_feed_seq IS NOT NULL";
+
+    // Never moves the position backwards, whichever run writes last
+    private static final String WRITE_WATERMARK_SQL =
+            "INSERT INTO RollupWatermarks (job_name, last_processed_at, last_feed_seq) VALUES (?, NOW(), ?) AS new " +
+            "ON DUPLICATE KEY UPDATE last_processed_at = new.last_processed_at, " +
+            "last_feed_seq = GREATEST(COALESCE(RollupWatermarks.last_feed_seq, 0), new.last_feed_seq)";
+
+    // Only rows below this bound have their feed_seq, and all of them are committed
+    private static final String FEED_POSITION_SQL = "SELECT last_seq FROM ChangeFeedSequence WHERE id = 1";
+
+    private static final String CHANGED_SHIPMENTS_SQL =
+            "SELECT DISTINCT entity_id FROM ChangeFeed WHERE entity_type = 'SHIPMENT' " +
+            "AND feed_seq > ? AND feed_seq <= ?";
+
+    // Archived shipments left Shipments, but their day still counts them
+    private static final String CHANGED_DAYS_SQL =
+            "SELECT DATE(created_at) FROM Shipments WHERE shipment_id IN (%1$s) " +
+            "UNION SELECT DATE(created_at) FROM ShipmentsArchive WHERE shipment_id IN (%1$s)";
+
+    // First run without a feed position: every day that has shipments
+    private static final String ALL_DAYS_SQL =
+            "SELECT DISTINCT DATE(created_at) FROM Shipments UNION SELECT DISTINCT DATE(created_at) FROM ShipmentsArchive";
+
+    private static final String DELETE_DAY_SQL =
+            "DELETE FROM ShipmentLaneDailyRollups WHERE rollup_day = ?";
+
+    // A day is recomputed from both tables so archiving its shipments does not drop them from the rollup
+    private static final String ROLLUP_COLUMNS =
+            "origin_warehouse_id, destination_warehouse_id, total_weight, actual_delivery_date, " +
+            "estimated_delivery_date, actual_pickup_date, scheduled_pickup_date";
+
+    private static final String ROLLUP_DAY_SQL =
+            "INSERT INTO ShipmentLaneDailyRollups (rollup_day, origin_warehouse_id, destination_warehouse_id, " +
+            "shipment_count, total_weight, delivered_count, on_time_count, dwell_seconds_total, dwell_count, refreshed_at) " +
+            "SELECT ?, origin_warehouse_id, destination_warehouse_id, COUNT(*), COALESCE(SUM(total_weight), 0), " +
+            "SUM(CASE WHEN actual_delivery_date IS NOT NULL THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN actual_delivery_date IS NOT NULL AND estimated_delivery_date IS NOT NULL " +
+            "AND actual_delivery_date <= estimated_delivery_date THEN 1 ELSE 0 END), " +
+            "COALESCE(SUM(CASE WHEN actual_pickup_date IS NOT NULL AND scheduled_pickup_date IS NOT NULL " +
+            "THEN TIMESTAMPDIFF(SECOND, scheduled_pickup_date, actual_pickup_date) END), 0), " +
+            "SUM(CASE WHEN actual_pickup_date IS NOT NULL AND scheduled_pickup_date IS NOT NULL THEN 1 ELSE 0 END), " +
+            "NOW() FROM (SELECT " + ROLLUP_COLUMNS + " FROM Shipments WHERE created_at >= ? AND created_at < ? " +
+            "UNION ALL SELECT " + ROLLUP_COLUMNS + " FROM ShipmentsArchive WHERE created_at >= ? AND created_at < ?) s " +
+            "GROUP BY origin_warehouse_id, destination_warehouse_id";
+
+    private static final String WAREHOUSE_KPI_SQL =
+            "SELECT origin_warehouse_id, rollup_day, SUM(shipment_count), SUM(total_weight), SUM(delivered_count), " +
+            "SUM(on_time_count), SUM(dwell_seconds_total), SUM(dwell_count) FROM ShipmentLaneDailyRollups " +
+            "WHERE rollup_day >= ? AND rollup_day <= ?";
+
+    private static final String LANE_KPI_SQL =
+            "SELECT origin_warehouse_id, destination_warehouse_id, SUM(shipment_count), SUM(total_weight), " +
+            "SUM(delivered_count), SUM(on_time_count), SUM(dwell_seconds_total), SUM(dwell_count) " +
+            "FROM ShipmentLaneDailyRollups WHERE rollup_day >= ? AND rollup_day <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    // KPI reads go through the reporting pool; the rollup job writes through the primary one
+    private final JdbcTemplate reportingJdbcTemplate;
+    private final JobLeaseManager jobLeaseManager;
+
+    public KpiRollupService(JdbcTemplate jdbcTemplate,
+                            @Qualifier("reportingJdbcTemplate") JdbcTemplate reportingJdbcTemplate,
+                            JobLeaseManager jobLeaseManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reportingJdbcTemplate = reportingJdbcTemplate;
+        this.jobLeaseManager = jobLeaseManager;
+    }
+
+    /**
+     * Fold every shipment changed since the last run into the rollups. Synchronized
+     * so a refresh requested through the API waits for a scheduled run in progress
+     * instead of recomputing the same days alongside it.
+     */
+    @Scheduled(fixedDelayString = "${logistics.kpi.rollup-interval-ms:60000}",
+               initialDelayString = "${logistics.kpi.rollup-initial-delay-ms:30000}")
+    public synchronized void refreshRollups() {
+        Optional<JobLeaseManager.Lease> lease = jobLeaseManager.acquire("kpi-rollups");
+        if (lease.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Long upperBound = jdbcTemplate.queryForObject(FEED_POSITION_SQL, Long.class);
+        if (upperBound == null) {
+            return;
+        }
+        Optional<Long> position = readWatermark();
+        if (position.isPresent() && position.get() >= upperBound) {
+            return;
+        }
+
+        Set<LocalDate> days = new TreeSet<>();
+        if (position.isEmpty()) {
+            jdbcTemplate.queryForList(ALL_DAYS_SQL, Date.class).forEach(day -> days.add(day.toLocalDate()));
+        } else {
+            List<Integer> shipmentIds = jdbcTemplate.queryForList(CHANGED_SHIPMENTS_SQL, Integer.class,
+                    position.get(), upperBound);
+            for (int from = 0; from < shipmentIds.size(); from += MAX_IN_LIST) {
+                List<Integer> chunk = shipmentIds.subList(from, Math.min(from + MAX_IN_LIST, shipmentIds.size()));
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                List<Object> args = new ArrayList<>(chunk);
+                args.addAll(chunk);
+                jdbcTemplate.queryForList(String.format(CHANGED_DAYS_SQL, placeholders), Date.class, args.toArray())
+                        .forEach(day -> days.add(day.toLocalDate()));
+            }
+        }
+
+        // A day and the watermark are only written while this instance still owns the job
+        for (LocalDate day : days) {
+            jobLeaseManager.runFenced(lease.get(), () -> {
+                jdbcTemplate.update(DELETE_DAY_SQL, Date.valueOf(day));
+                Timestamp dayStart = Timestamp.valueOf(day.atStartOfDay());
+                Timestamp dayEnd = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+                jdbcTemplate.update(ROLLUP_DAY_SQL, Date.valueOf(day), dayStart, dayEnd, dayStart, dayEnd);
+            });
+        }
+        jobLeaseManager.runFenced(lease.get(), () -> jdbcTemplate.update(WRITE_WATERMARK_SQL, JOB_NAME, upperBound));
+
+        if (!days.isEmpty()) {
+            logger.info("Refreshed KPI rollups for {} days in {} ms", days.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    public List<WarehouseKpi> getWarehouseKpis(LocalDate from, LocalDate to, Integer warehouseId) {
+        StringBuilder sql = new StringBuilder(WAREHOUSE_KPI_SQL);
+        List<Object> parameters = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        if (warehouseId != null) {
+            sql.append(" AND origin_warehouse_id = ?");
+            parameters.add(warehouseId);
+        }
+        sql.append(" GROUP BY origin_warehouse_id, rollup_day ORDER BY origin_warehouse_id, rollup_day");
+
+        return reportingJdbcTemplate.query(sql.toString(), (rs, rowNum) -> WarehouseKpi.builder()
+                .warehouseId(rs.getInt(1))
+                .day(rs.getDate(2).toLocalDate())
+                .shipments(rs.getLong(3))
+                .totalWeight(rs.getBigDecimal(4))
+                .delivered(rs.getLong(5))
+                .onTimeRate(ratio(rs.getLong(6), rs.getLong(5)))
+                .averageDwellMinutes(averageMinutes(rs.getLong(7), rs.getLong(8)))
+                .build(), parameters.toArray());
+    }
+
+    public List<LaneKpi> getLaneKpis(LocalDate from, LocalDate to, Integer originWarehouseId) {
+        StringBuilder sql = new StringBuilder(LANE_KPI_SQL);
+        List<Object> parameters = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        if (originWarehouseId != null) {
+            sql.append(" AND origin_warehouse_id = ?");
+            parameters.add(originWarehouseId);
+        }
+        sql.append(" GROUP BY origin_warehouse_id, destination_warehouse_id ORDER BY SUM(total_weight) DESC");
+
+        return reportingJdbcTemplate.query(sql.toString(), (rs, rowNum) -> LaneKpi.builder()
+                .originWarehouseId(rs.getInt(1))
+                .destinationWarehouseId(rs.getInt(2))
+                .shipments(rs.getLong(3))
+                .totalWeight(rs.getBigDecimal(4) != null ? rs.getBigDecimal(4) : BigDecimal.ZERO)
+                .delivered(rs.getLong(5))
+                .onTimeRate(ratio(rs.getLong(6), rs.getLong(5)))
+                .averageDwellMinutes(averageMinutes(rs.getLong(7), rs.getLong(8)))
+                .build(), parameters.toArray());
+    }
+
+    private Optional<Long> readWatermark() {
+        List<Long> watermark = jdbcTemplate.queryForList(READ_WATERMARK_SQL, Long.class, JOB_NAME);
+        return watermark.isEmpty() ? Optional.empty() : Optional.of(watermark.get(0));
+    }
+
+    private static Double ratio(long numerator, long denominator) {
+        return denominator == 0 ? null : (double) numerator / denominator;
+    }
+
+    private static Double averageMinutes(long totalSeconds, long count) {
+        return count == 0 ? null : totalSeconds / 60.0 / count;
+    }
+}
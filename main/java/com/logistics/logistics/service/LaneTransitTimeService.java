@@ -0,0 +1,246 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.LaneTransitStats;
+import com.logistics.logistics.model.Shipment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pickup to delivery durations per (origin, destination) lane, kept as fixed-size
+ * log-bucketed quantile sketches. Each delivered shipment costs one bucket increment
+ * plus a refresh of the handful of cached percentiles, so an ETA lookup is a plain
+ * field read and never a query over delivery history.
+ * <p>
+ * Sketches are per instance and only see the deliveries this instance handles, so
+ * they are rebuilt from the database periodically to take in deliveries recorded
+ * elsewhere. A rebuild fills a new map and swaps it in, so ETAs stay available
+ * throughout.
+ */
+@Service
+public class LaneTransitTimeService {
+    private static final Logger logger = LoggerFactory.getLogger(LaneTransitTimeService.class);
+
+    private static final String HISTORY_COLUMNS =
+            "SELECT origin_warehouse_id, destination_warehouse_id, " +
+            "TIMESTAMPDIFF(MINUTE, actual_pickup_date, actual_delivery_date), shipment_id, actual_delivery_date FROM ";
+    private static final String DELIVERED =
+            " WHERE status = 'DELIVERED' AND actual_pickup_date IS NOT NULL AND actual_delivery_date IS NOT NULL";
+
+    // Deliveries older than the archive age live in ShipmentsArchive
+    private static final String HISTORY_SQL =
+            HISTORY_COLUMNS + "Shipments" + DELIVERED + " UNION ALL " + HISTORY_COLUMNS + "ShipmentsArchive" + DELIVERED;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double etaPercentile;
+    private final long minimumSamples;
+    private volatile Map<Long, TransitSketch> lanes = new ConcurrentHashMap<>();
+    // Guards the swap and recordedDuringRebuild, so a live delivery lands in exactly one map
+    private final Object swapLock = new Object();
+    // Deliveries recorded while a rebuild runs, by shipment id; null when no rebuild is running
+    private Map<Integer, long[]> recordedDuringRebuild;
+
+    public LaneTransitTimeService(JdbcTemplate jdbcTemplate,
+                                  @Value("${logistics.eta.percentile:0.8}") double etaPercentile,
+                                  @Value("${logistics.eta.minimum-samples:5}") long minimumSamples) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.etaPercentile = etaPercentile;
+        this.minimumSamples = minimumSamples;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${logistics.eta.rebuild-interval-ms:3600000}",
+               initialDelayString = "${logistics.eta.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (swapLock) {
+            recordedDuringRebuild = new HashMap<>();
+        }
+        // Deliveries this recent may also be recorded live while the query runs; their ids tell the two apart
+        LocalDateTime recentSince = LocalDateTime.now().minusHours(1);
+        Set<Integer> recentInSnapshot = new HashSet<>();
+        Map<Long, TransitSketch> rebuilt = new ConcurrentHashMap<>();
+        boolean built = false;
+        try {
+            jdbcTemplate.query(HISTORY_SQL, rs -> {
+                record(rebuilt, rs.getInt(1), rs.getInt(2), rs.getLong(3));
+                if (rs.getTimestamp(5).toLocalDateTime().isAfter(recentSince)) {
+                    recentInSnapshot.add(rs.getInt(4));
+                }
+            });
+            built = true;
+        } finally {
+            synchronized (swapLock) {
+                if (built) {
+                    recordedDuringRebuild.forEach((shipmentId, sample) -> {
+                        if (!recentInSnapshot.contains(shipmentId)) {
+                            record(rebuilt, (int) sample[0], (int) sample[1], sample[2]);
+                        }
+                    });
+                    lanes = rebuilt;
+                }
+                recordedDuringRebuild = null;
+            }
+        }
+        logger.info("Lane transit sketches built for {} lanes in {} ms", lanes.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Record the transit time of a shipment that has just been delivered
+     */
+    public void recordDelivery(Shipment shipment) {
+        if (shipment == null || shipment.getActualPickupDate() == null || shipment.getActualDeliveryDate() == null
+                || shipment.getOriginWarehouse() == null || shipment.getDestinationWarehouse() == null) {
+            return;
+        }
+        int originWarehouseId = shipment.getOriginWarehouse().getWarehouseId();
+        int destinationWarehouseId = shipment.getDestinationWarehouse().getWarehouseId();
+        long minutes = Duration.between(shipment.getActualPickupDate(), shipment.getActualDeliveryDate()).toMinutes();
+        synchronized (swapLock) {
+            record(lanes, originWarehouseId, destinationWarehouseId, minutes);
+            if (recordedDuringRebuild != null && shipment.getShipmentId() != null) {
+                recordedDuringRebuild.put(shipment.getShipmentId(),
+                        new long[]{originWarehouseId, destinationWarehouseId, minutes});
+            }
+        }
+    }
+
+    /**
+     * Estimated delivery time for a shipment picked up at the given time, or empty
+     * when the lane does not have enough history yet
+     */
+    public Optional<LocalDateTime> estimateDelivery(Integer originWarehouseId, Integer destinationWarehouseId,
+                                                    LocalDateTime pickupTime) {
+        if (originWarehouseId == null || destinationWarehouseId == null || pickupTime == null) {
+            return Optional.empty();
+        }
+        TransitSketch sketch = lanes.get(laneKey(originWarehouseId, destinationWarehouseId));
+        if (sketch == null || sketch.count < minimumSamples) {
+            return Optional.empty();
+        }
+        return Optional.of(pickupTime.plusMinutes(Math.round(sketch.etaMinutes)));
+    }
+
+    /**
+     * Fill in the estimated delivery date from lane history, keeping the existing value
+     * when the lane has too little history
+     */
+    public void applyEstimate(Shipment shipment) {
+        if (shipment.getOriginWarehouse() == null || shipment.getDestinationWarehouse() == null) {
+            return;
+        }
+        LocalDateTime pickupTime = shipment.getScheduledPickupDate() != null
+                ? shipment.getScheduledPickupDate()
+                : LocalDateTime.now();
+        estimateDelivery(shipment.getOriginWarehouse().getWarehouseId(),
+                shipment.getDestinationWarehouse().getWarehouseId(), pickupTime)
+                .ifPresent(shipment::setEstimatedDeliveryDate);
+    }
+
+    public Optional<LaneTransitStats> getLaneStats(Integer originWarehouseId, Integer destinationWarehouseId) {
+        TransitSketch sketch = lanes.get(laneKey(originWarehouseId, destinationWarehouseId));
+        return Optional.ofNullable(sketch).map(value -> value.toStats(originWarehouseId, destinationWarehouseId));
+    }
+
+    public List<LaneTransitStats> getAllLaneStats() {
+        return lanes.entrySet().stream()
+                .map(entry -> entry.getValue().toStats((int) (entry.getKey() >>> 32), (int) (long) entry.getKey()))
+                .sorted(Comparator.comparingLong(LaneTransitStats::getSamples).reversed())
+                .toList();
+    }
+
+    private void record(Map<Long, TransitSketch> target, int originWarehouseId, int destinationWarehouseId,
+                        long minutes) {
+        if (minutes < 0) {
+            return;
+        }
+        target.computeIfAbsent(laneKey(originWarehouseId, destinationWarehouseId), key -> new TransitSketch(etaPercentile))
+                .add(minutes);
+    }
+
+    private static long laneKey(int originWarehouseId, int destinationWarehouseId) {
+        return ((long) originWarehouseId << 32) | (destinationWarehouseId & 0xffffffffL);
+    }
+
+    /**
+     * Log-bucketed histogram with about 2% relative error. Buckets cover one minute
+     * up to several years, so the array never grows.
+     */
+    private static final class TransitSketch {
+        private static final double GAMMA = 1.04;
+        private static final double LOG_GAMMA = Math.log(GAMMA);
+        private static final int BUCKETS = 420;
+
+        private final long[] counts = new long[BUCKETS];
+        private final double etaPercentile;
+        private volatile long count;
+        private volatile long minMinutes = Long.MAX_VALUE;
+        private volatile long maxMinutes;
+        private volatile double p50Minutes;
+        private volatile double p80Minutes;
+        private volatile double p95Minutes;
+        private volatile double etaMinutes;
+
+        private TransitSketch(double etaPercentile) {
+            this.etaPercentile = etaPercentile;
+        }
+
+        private synchronized void add(long minutes) {
+            int bucket = minutes <= 1 ? 0 : (int) Math.min(BUCKETS - 1, Math.ceil(Math.log(minutes) / LOG_GAMMA));
+            counts[bucket]++;
+            count++;
+            minMinutes = Math.min(minMinutes, minutes);
+            maxMinutes = Math.max(maxMinutes, minutes);
+            p50Minutes = quantile(0.5);
+            p80Minutes = quantile(0.8);
+            p95Minutes = quantile(0.95);
+            etaMinutes = quantile(etaPercentile);
+        }
+
+        private double quantile(double q) {
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank && counts[bucket] > 0) {
+                    if (bucket == 0) {
+                        return 1;
+                    }
+                    // Midpoint of the bucket in log space keeps the relative error symmetric
+                    double value = 2 * Math.pow(GAMMA, bucket) / (GAMMA + 1);
+                    return Math.max(minMinutes, Math.min(maxMinutes, value));
+                }
+            }
+            return maxMinutes;
+        }
+
+        private LaneTransitStats toStats(Integer originWarehouseId, Integer destinationWarehouseId) {
+            return LaneTransitStats.builder()
+                    .originWarehouseId(originWarehouseId)
+                    .destinationWarehouseId(destinationWarehouseId)
+                    .samples(count)
+                    .p50Hours(p50Minutes / 60.0)
+                    .p80Hours(p80Minutes / 60.0)
+                    .p95Hours(p95Minutes / 60.0)
+                    .minHours(count == 0 ? null : minMinutes / 60.0)
+                    .maxHours(count == 0 ? null : maxMinutes / 60.0)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.MultiGetResponse;
+import com.logistics.logistics.model.InventoryAssignment;
+import com.logistics.logistics.model.Shipment;
+import com.logistics.logistics.model.Truck;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Resolves lists of shipments, trucks and assignments by key in a handful of
+ * queries instead of one request per key. Keys are looked up in chunks of
+ * chunk-size with an IN list, and each chunk fetch-joins the associations the
+ * response serializes, so a chunk is one query rather than one per row.
+ * Shipments and assignments missing from the hot tables are looked up in the
+ * archive the same way.
+ */
+@Service
+public class MultiGetService {
+
+    private static final String SHIPMENTS_BY_TRACKING_NUMBER_JPQL =
+            "SELECT s FROM Shipment s " +
+            "JOIN FETCH s.inventoryTransfer it " +
+            "LEFT JOIN FETCH it.sourceWarehouse LEFT JOIN FETCH it.destinationWarehouse " +
+            "LEFT JOIN FETCH it.inventory LEFT JOIN FETCH it.initiatedBy " +
+            "LEFT JOIN FETCH s.originWarehouse LEFT JOIN FETCH s.destinationWarehouse " +
+            "LEFT JOIN FETCH s.assignedTruck LEFT JOIN FETCH s.createdBy " +
+            "WHERE s.trackingNumber IN :keys";
+
+    private static final String TRUCKS_BY_ID_JPQL =
+            "SELECT t FROM Truck t LEFT JOIN FETCH t.driver LEFT JOIN FETCH t.homeWarehouse " +
+            "WHERE t.truckId IN :keys";
+
+    // Items are a collection, so each assignment comes back once per item; Hibernate de-duplicates the roots
+    private static final String ASSIGNMENTS_BY_ID_JPQL =
+            "SELECT a FROM InventoryAssignment a " +
+            "LEFT JOIN FETCH a.truck LEFT JOIN FETCH a.sourceWarehouse LEFT JOIN FETCH a.destinationWarehouse " +
+            "LEFT JOIN FETCH a.assignedBy LEFT JOIN FETCH a.assignmentItems ai LEFT JOIN FETCH ai.inventory " +
+            "WHERE a.assignmentId IN :keys";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ShipmentArchiver shipmentArchiver;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final int maxKeys;
+    private final int chunkSize;
+
+    public MultiGetService(ShipmentArchiver shipmentArchiver,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${logistics.multi-get.max-keys:5000}") int maxKeys,
+                           @Value("${logistics.multi-get.chunk-size:500}") int chunkSize) {
+        this.shipmentArchiver = shipmentArchiver;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.maxKeys = maxKeys;
+        this.chunkSize = chunkSize;
+    }
+
+    public MultiGetResponse<Shipment> getShipmentsByTrackingNumbers(Collection<String> trackingNumbers) {
+        List<String> keys = distinct(trackingNumbers);
+        Map<String, Shipment> found = load(SHIPMENTS_BY_TRACKING_NUMBER_JPQL, Shipment.class, keys,
+                Shipment::getTrackingNumber);
+        List<String> missing = keys.stream().filter(key -> !found.containsKey(key)).toList();
+        for (List<String> chunk : chunks(missing)) {
+            shipmentArchiver.findArchivedShipmentsByTrackingNumbers(chunk)
+                    .forEach(shipment -> found.put(shipment.getTrackingNumber(), shipment));
+        }
+        return response(keys, found, Function.identity());
+    }
+
+    public MultiGetResponse<Truck> getTrucksByIds(Collection<Integer> ids) {
+        List<Integer> keys = distinct(ids);
+        return response(keys, load(TRUCKS_BY_ID_JPQL, Truck.class, keys, Truck::getTruckId), String::valueOf);
+    }
+
+    public MultiGetResponse<InventoryAssignment> getAssignmentsByIds(Collection<Integer> ids) {
+        List<Integer> keys = distinct(ids);
+        Map<Integer, InventoryAssignment> found = load(ASSIGNMENTS_BY_ID_JPQL, InventoryAssignment.class, keys,
+                InventoryAssignment::getAssignmentId);
+        List<Integer> missing = keys.stream().filter(key -> !found.containsKey(key)).toList();
+        for (List<Integer> chunk : chunks(missing)) {
+            shipmentArchiver.findArchivedAssignmentsByIds(chunk)
+                    .forEach(assignment -> found.put(assignment.getAssignmentId(), assignment));
+        }
+        return response(keys, found, String::valueOf);
+    }
+
+    /**
+     * Requested keys without blanks or duplicates, in request order
+     *
+     * @throws IllegalArgumentException if there are none or more than max-keys
+     */
+    private <K> List<K> distinct(Collection<K> requested) {
+        Set<K> keys = new LinkedHashSet<>();
+        for (K key : requested) {
+            if (key instanceof String text) {
+                String trimmed = text.trim();
+                if (!trimmed.isEmpty()) {
+                    @SuppressWarnings("unchecked")
+                    K trimmedKey = (K) trimmed;
+                    keys.add(trimmedKey);
+                }
+            } else if (key != null) {
+                keys.add(key);
+            }
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one key is required");
+        }
+        if (keys.size() > maxKeys) {
+            throw new IllegalArgumentException("At most " + maxKeys + " keys may be requested at once, got "
+                    + keys.size());
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private <K, T> Map<K, T> load(String jpql, Class<T> type, List<K> keys, Function<T, K> keyOf) {
+        Map<K, T> found = new HashMap<>();
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            for (List<K> chunk : chunks(keys)) {
+                entityManager.createQuery(jpql, type)
+                        .setParameter("keys", chunk)
+                        .getResultList()
+                        .forEach(entity -> found.put(keyOf.apply(entity), entity));
+                // Keep the persistence context to one chunk's worth of entities
+                entityManager.clear();
+            }
+        });
+        return found;
+    }
+
+    private <K> List<List<K>> chunks(List<K> keys) {
+        List<List<K>> chunks = new ArrayList<>();
+        for (int start = 0; start < keys.size(); start += chunkSize) {
+            chunks.add(keys.subList(start, Math.min(start + chunkSize, keys.size())));
+        }
+        return chunks;
+    }
+
+    private static <K, T> MultiGetResponse<T> response(List<K> keys, Map<K, T> found, Function<K, String> label) {
+        Map<String, T> results = new LinkedHashMap<>();
+        List<String> notFound = new ArrayList<>();
+        for (K key : keys) {
+            T entity = found.get(key);
+            results.put(label.apply(key), entity);
+            if (entity == null) {
+                notFound.add(label.apply(key));
+            }
+        }
+        return MultiGetResponse.<T>builder()
+                .requested(keys.size())
+                .found(keys.size() - notFound.size())
+                .results(results)
+                .notFound(notFound)
+                .build();
+    }
+}
@@ -0,0 +1,213 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Drains OutboxEvents to every enabled sink, oldest event_id first. A batch is
+ * marked published only after all sinks accepted it, so delivery is at least once;
+ * when a sink fails, the same batch is retried with exponential backoff and nothing
+ * behind it is delivered in the meantime.
+ * <p>
+ * Order is only guaranteed per aggregate. event_id is assigned at insert, so a long
+ * transaction can commit a lower id after a higher one has already gone out; two
+ * events of the same aggregate cannot cross like that, since the row lock on the
+ * aggregate makes the second insert wait for the first to commit.
+ */
+@Service
+public class OutboxPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxPublisher.class);
+
+    private static final String PENDING_SQL =
+            "SELECT event_id, aggregate_type, aggregate_id, event_type, payload, created_at FROM OutboxEvents " +
+            "WHERE published_at IS NULL ORDER BY event_id LIMIT ?";
+
+    private static final String MARK_PUBLISHED_SQL = "UPDATE OutboxEvents SET published_at = NOW(3) WHERE event_id IN ";
+
+    private static final String BACKLOG_SQL =
+            "SELECT COUNT(*), TIMESTAMPDIFF(MICROSECOND, MIN(created_at), NOW(3)) DIV 1000 FROM OutboxEvents " +
+            "WHERE published_at IS NULL";
+
+    private static final int PURGE_CHUNK_SIZE = 10000;
+
+    private static final String PURGE_SQL =
+            "DELETE FROM OutboxEvents WHERE published_at < NOW() - INTERVAL ? DAY LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<OutboxSink> sinks;
+    private final JobLeaseManager jobLeaseManager;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final int retentionDays;
+
+    // Written only inside publishPending, which runs one batch loop at a time
+    private volatile int consecutiveFailures;
+    private volatile long retryAtMillis;
+
+    private final AtomicLong publishedEvents = new AtomicLong();
+    private final AtomicLong publishedBatches = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong lagTotalMs = new AtomicLong();
+    private final AtomicLong maxLagMs = new AtomicLong();
+    private volatile long lastEventId;
+    private volatile String lastError;
+
+    public OutboxPublisher(JdbcTemplate jdbcTemplate,
+                           List<OutboxSink> sinks,
+                           JobLeaseManager jobLeaseManager,
+                           @Value("${logistics.outbox.batch-size:200}") int batchSize,
+                           @Value("${logistics.outbox.max-batches-per-run:50}") int maxBatchesPerRun,
+                           @Value("${logistics.outbox.initial-backoff-ms:1000}") long initialBackoffMs,
+                           @Value("${logistics.outbox.max-backoff-ms:300000}") long maxBackoffMs,
+                           @Value("${logistics.outbox.retention-days:7}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sinks = sinks;
+        this.jobLeaseManager = jobLeaseManager;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(fixedDelayString = "${logistics.outbox.poll-interval-ms:500}")
+    public synchronized void publishPending() {
+        if (System.currentTimeMillis() < retryAtMillis) {
+            return;
+        }
+        List<OutboxSink> enabledSinks = sinks.stream().filter(OutboxSink::isEnabled).toList();
+        if (enabledSinks.isEmpty()) {
+            return;
+        }
+        // One publisher across all instances keeps each aggregate's events in order
+        Optional<JobLeaseManager.Lease> lease = jobLeaseManager.acquire("outbox-publisher");
+        if (lease.isEmpty()) {
+            return;
+        }
+
+        for (int run = 0; run < maxBatchesPerRun; run++) {
+            List<OutboxEvent> batch;
+            try {
+                batch = jdbcTemplate.query(PENDING_SQL, (rs, rowNum) -> OutboxEvent.builder()
+                        .eventId(rs.getLong(1))
+                        .aggregateType(rs.getString(2))
+                        .aggregateId(rs.getInt(3))
+                        .eventType(rs.getString(4))
+                        .payload(rs.getString(5))
+                        .createdAt(rs.getTimestamp(6).toLocalDateTime())
+                        .build(), batchSize);
+            } catch (DataAccessException e) {
+                fail("outbox query", e);
+                return;
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            for (OutboxSink sink : enabledSinks) {
+                try {
+                    sink.publish(batch);
+                } catch (Exception e) {
+                    fail(sink.getName() + " sink", e);
+                    return;
+                }
+            }
+
+            try {
+                String ids = batch.stream().map(event -> String.valueOf(event.getEventId()))
+                        .collect(Collectors.joining(", ", "(", ")"));
+                jobLeaseManager.runFenced(lease.get(), () -> jdbcTemplate.update(MARK_PUBLISHED_SQL + ids));
+            } catch (IllegalStateException e) {
+                // Another instance took over and delivers the batch again
+                logger.warn("Stopped publishing: {}", e.getMessage());
+                return;
+            } catch (DataAccessException e) {
+                // The sinks have the batch; it goes out again once the database is back
+                fail("marking events published", e);
+                return;
+            }
+
+            consecutiveFailures = 0;
+            recordDelivered(batch);
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${logistics.outbox.purge-interval-ms:3600000}",
+               initialDelayString = "${logistics.outbox.purge-interval-ms:3600000}")
+    public void purgePublished() {
+        if (jobLeaseManager.acquire("outbox-purge").isEmpty()) {
+            return;
+        }
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, retentionDays, PURGE_CHUNK_SIZE);
+            purged += deleted;
+        } while (deleted == PURGE_CHUNK_SIZE);
+        if (purged > 0) {
+            logger.info("Purged {} published outbox events older than {} days", purged, retentionDays);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        jdbcTemplate.query(BACKLOG_SQL, rs -> {
+            stats.put("pendingEvents", rs.getLong(1));
+            stats.put("oldestPendingAgeMs", rs.getLong(2));
+        });
+        long published = publishedEvents.get();
+        stats.put("sinks", sinks.stream().filter(OutboxSink::isEnabled).map(OutboxSink::getName).toList());
+        stats.put("publishedEvents", published);
+        stats.put("publishedBatches", publishedBatches.get());
+        stats.put("averageLagMs", published == 0 ? 0 : lagTotalMs.get() / published);
+        stats.put("maxLagMs", maxLagMs.get());
+        stats.put("lastEventId", lastEventId);
+        stats.put("failedAttempts", failedAttempts.get());
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("retryInMs", Math.max(0, retryAtMillis - System.currentTimeMillis()));
+        stats.put("lastError", lastError);
+        return stats;
+    }
+
+    private void recordDelivered(List<OutboxEvent> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxEvent event : batch) {
+            long lag = Math.max(0, Duration.between(event.getCreatedAt(), now).toMillis());
+            lagTotalMs.addAndGet(lag);
+            maxLagMs.accumulateAndGet(lag, Math::max);
+        }
+        publishedEvents.addAndGet(batch.size());
+        publishedBatches.incrementAndGet();
+        lastEventId = batch.get(batch.size() - 1).getEventId();
+    }
+
+    private void fail(String stage, Exception e) {
+        consecutiveFailures++;
+        failedAttempts.incrementAndGet();
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(consecutiveFailures - 1, 20));
+        retryAtMillis = System.currentTimeMillis() + backoff;
+        lastError = stage + ": " + e.getMessage();
+        logger.warn("Outbox publishing failed at {} ({} in a row), retrying in {} ms: {}",
+                stage, consecutiveFailures, backoff, e.getMessage());
+    }
+}
@@ -0,0 +1,20 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.OutboxEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for outbox events. A batch counts as delivered only when publish
+ * returns normally; on an exception the whole batch is offered again later, so a
+ * sink may see an event more than once.
+ */
+public interface OutboxSink {
+
+    String getName();
+
+    boolean isEnabled();
+
+    void publish(List<OutboxEvent> events) throws IOException;
+}
@@ -0,0 +1,126 @@
+package com.logistics.logistics.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EXPLAINs the hot lookups against the live schema and checks that MySQL picks
+ * the index each one was designed for in the V10 migration. The statements mirror
+ * what Hibernate generates for the repository methods. A miss is only logged: on
+ * a near empty table the optimizer may rightly prefer a scan, so the row estimate
+ * is reported next to the chosen key. QueryPlanVerifierTest asserts the plans in the
+ * build; at runtime the check is on demand through /api/schema/query-plans and only
+ * runs at startup when enabled.
+ */
+@Service
+public class QueryPlanVerifier {
+    private static final Logger logger = LoggerFactory.getLogger(QueryPlanVerifier.class);
+
+    private static final List<PlanCheck> CHECKS = List.of(
+            new PlanCheck("assignments-by-truck",
+                    "SELECT * FROM InventoryAssignments WHERE truck_id = ?",
+                    "idx_assignments_truck_status", 1),
+            new PlanCheck("assignments-by-source-warehouse",
+                    "SELECT * FROM InventoryAssignments WHERE source_warehouse_id = ?",
+                    "idx_assignments_source_status", 1),
+            new PlanCheck("assignments-by-destination-warehouse",
+                    "SELECT * FROM InventoryAssignments WHERE destination_warehouse_id = ?",
+                    "idx_assignments_destination_status", 1),
+            new PlanCheck("pending-shipments-by-warehouse",
+                    "SELECT * FROM Shipments WHERE origin_warehouse_id = ? AND status = 'PENDING'",
+                    "idx_shipments_origin_status", 1),
+            new PlanCheck("shipments-by-truck",
+                    "SELECT * FROM Shipments WHERE assigned_truck_id = ?",
+                    "idx_shipments_truck_status", 1),
+            new PlanCheck("shipments-by-status-and-date",
+                    "SELECT * FROM Shipments WHERE status = ? AND created_at >= NOW() - INTERVAL 7 DAY",
+                    "idx_shipments_status_created", "IN_TRANSIT"),
+            new PlanCheck("inventory-by-warehouse",
+                    "SELECT * FROM Inventory WHERE warehouse_id = ?",
+                    "uk_inventory_warehouse_sku", 1),
+            new PlanCheck("inventory-by-sku",
+                    "SELECT * FROM Inventory WHERE sku = ?",
+                    "idx_inventory_sku", "SKU-0001"),
+            new PlanCheck("users-by-role",
+                    "SELECT * FROM Users WHERE role = ?",
+                    "idx_users_role", "delivery_driver"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean verifyPlansOnStartup;
+
+    public QueryPlanVerifier(JdbcTemplate jdbcTemplate,
+                             @Value("${logistics.schema.verify-plans-on-startup:false}") boolean verifyPlansOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.verifyPlansOnStartup = verifyPlansOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        if (!verifyPlansOnStartup) {
+            return;
+        }
+        List<Map<String, Object>> results = verify();
+        long misses = results.stream().filter(result -> !Boolean.TRUE.equals(result.get("usesExpectedIndex"))).count();
+        if (misses == 0) {
+            logger.info("All {} hot query plans use their intended index", results.size());
+        }
+    }
+
+    /**
+     * Runs every check and returns one entry per query with the chosen access type,
+     * key and row estimate
+     */
+    public List<Map<String, Object>> verify() {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (PlanCheck check : CHECKS) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("query", check.name);
+            result.put("expectedIndex", check.expectedIndex);
+            try {
+                Map<String, Object> plan = jdbcTemplate.queryForMap("EXPLAIN " + check.sql, check.parameters);
+                String key = (String) plan.get("key");
+                boolean usesExpectedIndex = key != null && Arrays.asList(key.split(",")).contains(check.expectedIndex);
+                result.put("accessType", plan.get("type"));
+                result.put("key", key);
+                result.put("estimatedRows", plan.get("rows"));
+                result.put("usesExpectedIndex", usesExpectedIndex);
+                if (!usesExpectedIndex) {
+                    logger.warn("Query {} does not use {}: access type {}, key {}, about {} rows",
+                            check.name, check.expectedIndex, plan.get("type"), key, plan.get("rows"));
+                }
+            } catch (DataAccessException e) {
+                result.put("usesExpectedIndex", false);
+                result.put("error", e.getMessage());
+                logger.warn("Could not explain query {}: {}", check.name, e.getMessage());
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    private static final class PlanCheck {
+        private final String name;
+        private final String sql;
+        private final String expectedIndex;
+        private final Object[] parameters;
+
+        private PlanCheck(String name, String sql, String expectedIndex, Object... parameters) {
+            this.name = name;
+            this.sql = sql;
+            this.expectedIndex = expectedIndex;
+            this.parameters = parameters;
+        }
+    }
+}
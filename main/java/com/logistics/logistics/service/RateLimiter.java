@@ -0,0 +1,181 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.config.RateLimitProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control with lock-free token buckets. Each bucket is a single AtomicLong
+ * holding the time at which it will next be full enough, in the style of the generic
+ * cell rate algorithm: admitting a request is one compare-and-set that pushes that
+ * time forward by one token's worth, and a request is refused when doing so would
+ * push it further ahead than the burst allows.
+ * <p>
+ * Buckets are created per caller, so anonymous callers keyed by address would grow
+ * the map without bound. A bucket that is full carries no state, so buckets that
+ * have been full for a while are swept out and simply recreated on the next request.
+ */
+@Service
+public class RateLimiter {
+    private final RateLimitProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, GroupCounters> counters = new ConcurrentHashMap<>();
+
+    public RateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Name of the first group whose paths and methods match the request, or null
+     */
+    public String findGroup(String method, String path) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        for (Map.Entry<String, RateLimitProperties.Group> entry : properties.getGroups().entrySet()) {
+            RateLimitProperties.Group group = entry.getValue();
+            if (!group.getMethods().isEmpty() && !group.getMethods().contains(method)) {
+                continue;
+            }
+            for (String pattern : group.getPaths()) {
+                if (pathMatcher.match(pattern, path)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Take a token from the caller's bucket and from each limited role bucket.
+     * Returns 0 when admitted, otherwise the nanoseconds to wait before retrying.
+     */
+    public long tryAcquire(String groupName, String caller, Collection<String> roles) {
+        RateLimitProperties.Group group = properties.getGroups().get(groupName);
+        GroupCounters groupCounters = counters.computeIfAbsent(groupName, name -> new GroupCounters());
+
+        List<TokenBucket> taken = new ArrayList<>();
+        if (group.getUser() != null) {
+            TokenBucket userBucket = bucket(groupName + "|user|" + caller, group.getUser());
+            long wait = userBucket.tryAcquire(System.nanoTime());
+            if (wait > 0) {
+                groupCounters.rejectedByUser.incrementAndGet();
+                return wait;
+            }
+            taken.add(userBucket);
+        }
+        for (String role : roles) {
+            RateLimitProperties.Limit limit = group.getRoles().get(role);
+            if (limit == null) {
+                continue;
+            }
+            TokenBucket roleBucket = bucket(groupName + "|role|" + role, limit);
+            long wait = roleBucket.tryAcquire(System.nanoTime());
+            if (wait > 0) {
+                // A refused request costs nothing, so the tokens already taken go back
+                taken.forEach(TokenBucket::release);
+                groupCounters.rejectedByRole.incrementAndGet();
+                groupCounters.rejectedRoles.computeIfAbsent(role, key -> new AtomicLong()).incrementAndGet();
+                return wait;
+            }
+            taken.add(roleBucket);
+        }
+        groupCounters.admitted.incrementAndGet();
+        return 0;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        List<Map<String, Object>> groups = new ArrayList<>();
+        counters.forEach((name, groupCounters) -> {
+            long admitted = groupCounters.admitted.get();
+            long rejected = groupCounters.rejectedByUser.get() + groupCounters.rejectedByRole.get();
+            Map<String, Object> group = new HashMap<>();
+            group.put("group", name);
+            group.put("admitted", admitted);
+            group.put("rejectedByUser", groupCounters.rejectedByUser.get());
+            group.put("rejectedByRole", groupCounters.rejectedByRole.get());
+            Map<String, Long> byRole = new HashMap<>();
+            groupCounters.rejectedRoles.forEach((role, count) -> byRole.put(role, count.get()));
+            group.put("rejectedRoles", byRole);
+            group.put("shedRate", admitted + rejected == 0 ? 0.0 : (double) rejected / (admitted + rejected));
+            groups.add(group);
+        });
+        stats.put("enabled", properties.isEnabled());
+        stats.put("buckets", buckets.size());
+        stats.put("groups", groups);
+        return stats;
+    }
+
+    /**
+     * Drop buckets that have been full for longer than the idle timeout
+     */
+    @Scheduled(fixedDelayString = "${logistics.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        evictFullBuckets(TimeUnit.MILLISECONDS.toNanos(properties.getIdleBucketEvictMs()));
+    }
+
+    private void evictFullBuckets(long fullForNanos) {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> now - bucket.fullAt.get() >= fullForNanos);
+    }
+
+    private TokenBucket bucket(String key, RateLimitProperties.Limit limit) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= properties.getMaxBuckets()) {
+            evictFullBuckets(0);
+        }
+        return buckets.computeIfAbsent(key, ignored -> new TokenBucket(limit.getRatePerSecond(), limit.getBurst()));
+    }
+
+    private static final class GroupCounters {
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong rejectedByUser = new AtomicLong();
+        private final AtomicLong rejectedByRole = new AtomicLong();
+        private final Map<String, AtomicLong> rejectedRoles = new ConcurrentHashMap<>();
+    }
+
+    static final class TokenBucket {
+        private final long nanosPerToken;
+        private final long burstNanos;
+        private final AtomicLong fullAt;
+
+        TokenBucket(double ratePerSecond, int burst) {
+            this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(ratePerSecond, 1e-9));
+            this.burstNanos = nanosPerToken * Math.max(1, burst);
+            this.fullAt = new AtomicLong(System.nanoTime() - burstNanos);
+        }
+
+        long tryAcquire(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + nanosPerToken;
+                long ahead = next - now;
+                if (ahead > burstNanos) {
+                    return ahead - burstNanos;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        void release() {
+            fullAt.addAndGet(-nanosPerToken);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.model.InventoryAssignment;
+import com.logistics.logistics.model.Shipment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes reporting exports as CSV straight from a forward-only JDBC cursor.
+ * Rows are flat column projections rather than entities and are written as they
+ * arrive, so memory use does not grow with the size of the export.
+ */
+@Service
+public class ReportExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ReportExportService.class);
+
+    private static final String SHIPMENTS_SQL =
+            "SELECT s.shipment_id, s.tracking_number, s.status, s.origin_warehouse_id, s.destination_warehouse_id, " +
+            "s.inventory_transfer_id, s.assigned_truck_id, s.total_weight, s.total_volume, " +
+            "s.scheduled_pickup_date, s.actual_pickup_date, s.estimated_delivery_date, s.actual_delivery_date, " +
+            "s.created_by, s.created_at, s.updated_at " +
+            "FROM Shipments s WHERE 1 = 1";
+
+    private static final String ASSIGNMENTS_SQL =
+            "SELECT a.assignment_id, a.truck_id, a.source_warehouse_id, a.destination_warehouse_id, a.status, " +
+            "a.assigned_by, a.assigned_at, a.completed_at, " +
+            "(SELECT COUNT(*) FROM AssignmentItems ai WHERE ai.assignment_id = a.assignment_id) AS item_count, " +
+            "(SELECT COALESCE(SUM(ai.quantity), 0) FROM AssignmentItems ai WHERE ai.assignment_id = a.assignment_id) AS total_quantity " +
+            "FROM InventoryAssignments a WHERE 1 = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    public ReportExportService(@Qualifier("reportingJdbcTemplate") JdbcTemplate jdbcTemplate,
+                               @Value("${logistics.reports.fetch-size:-2147483648}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    public void exportShipments(OutputStream out, LocalDate from, LocalDate to, Integer warehouseId,
+                                Shipment.ShipmentStatus status) {
+        StringBuilder sql = new StringBuilder(SHIPMENTS_SQL);
+        List<Object> parameters = new ArrayList<>();
+        appendFilters(sql, parameters, "s.created_at", from, to);
+        if (warehouseId != null) {
+            sql.append(" AND (s.origin_warehouse_id = ? OR s.destination_warehouse_id = ?)");
+            parameters.add(warehouseId);
+            parameters.add(warehouseId);
+        }
+        if (status != null) {
+            sql.append(" AND s.status = ?");
+            parameters.add(status.name());
+        }
+        sql.append(" ORDER BY s.shipment_id");
+        stream(out, sql.toString(), parameters, "shipments");
+    }
+
+    public void exportAssignments(OutputStream out, LocalDate from, LocalDate to, Integer warehouseId,
+                                  InventoryAssignment.AssignmentStatus status) {
+        StringBuilder sql = new StringBuilder(ASSIGNMENTS_SQL);
+        List<Object> parameters = new ArrayList<>();
+        appendFilters(sql, parameters, "a.assigned_at", from, to);
+        if (warehouseId != null) {
+            sql.append(" AND (a.source_warehouse_id = ? OR a.destination_warehouse_id = ?)");
+            parameters.add(warehouseId);
+            parameters.add(warehouseId);
+        }
+        if (status != null) {
+            sql.append(" AND a.status = ?");
+            parameters.add(status.name());
+        }
+        sql.append(" ORDER BY a.assignment_id");
+        stream(out, sql.toString(), parameters, "assignments");
+    }
+
+    private void appendFilters(StringBuilder sql, List<Object> parameters, String dateColumn, LocalDate from, LocalDate to) {
+        if (from != null) {
+            sql.append(" AND ").append(dateColumn).append(" >= ?");
+            parameters.add(Timestamp.valueOf(from.atStartOfDay()));
+        }
+        if (to != null) {
+            sql.append(" AND ").append(dateColumn).append(" < ?");
+            parameters.add(Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        }
+    }
+
+    private void stream(OutputStream out, String sql, List<Object> parameters, String report) {
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        Long rows = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // Integer.MIN_VALUE makes MySQL stream rows one at a time instead of buffering the result
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            return statement;
+        }, (ResultSetExtractor<Long>) rs -> {
+            try {
+                int columns = rs.getMetaData().getColumnCount();
+                writeHeader(writer, rs.getMetaData());
+                long count = 0;
+                while (rs.next()) {
+                    writeRow(writer, rs, columns);
+                    count++;
+                }
+                writer.flush();
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        logger.info("Exported {} {} rows in {} ms", rows, report, System.currentTimeMillis() - start);
+    }
+
+    private void writeHeader(Writer writer, ResultSetMetaData metaData) throws SQLException, IOException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (i > 1) {
+                writer.write(',');
+            }
+            writer.write(metaData.getColumnLabel(i));
+        }
+        writer.write('\n');
+    }
+
+    private void writeRow(Writer writer, ResultSet rs, int columns) throws SQLException, IOException {
+        for (int i = 1; i <= columns; i++) {
+            if (i > 1) {
+                writer.write(',');
+            }
+            Object value = rs.getObject(i);
+            if (value != null) {
+                writer.write(escape(value.toString()));
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,553 @@
+package com.logistics.logistics.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logistics.logistics.dto.PlannedRoute;
+import com.logistics.logistics.dto.RoutePlan;
+import com.logistics.logistics.dto.RoutePlanRequest;
+import com.logistics.logistics.dto.RouteStop;
+import com.logistics.logistics.dto.TruckAssignmentRequest;
+import com.logistics.logistics.dto.TruckAssignmentResponse;
+import com.logistics.logistics.model.Shipment;
+import com.logistics.logistics.model.Truck;
+import com.logistics.logistics.model.User;
+import com.logistics.logistics.model.Warehouse;
+import com.logistics.logistics.repository.WarehouseRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds multi-stop truck routes for the unassigned pending shipments of a region.
+ * Each shipment is a pickup at its origin and a drop-off at its destination, so one
+ * truck can collect several loads and deliver them in a single run instead of making
+ * a point-to-point trip per shipment. Routes are planned for the trucks actually
+ * available in the region, each with its own capacity. Plans are proposals stored
+ * until a dispatcher commits one, through any instance; recent ones are also cached
+ * in memory.
+ */
+@Service
+public class RoutePlanner {
+    private static final Logger logger = LoggerFactory.getLogger(RoutePlanner.class);
+
+    private static final int MAX_RETAINED_PLANS = 50;
+    private static final long MAX_TIME_LIMIT_MS = 30000;
+
+    private static final String SAVE_PLAN_SQL =
+            "INSERT INTO RoutePlans (plan_id, status, plan, created_at) VALUES (?, ?, ?, ?)";
+    private static final String PURGE_PLANS_SQL =
+            "DELETE FROM RoutePlans WHERE created_at < NOW() - INTERVAL ? DAY LIMIT 1000";
+    private static final String FIND_PLAN_SQL = "SELECT plan FROM RoutePlans WHERE plan_id = ?";
+    private static final String LOCK_PLAN_SQL = "SELECT status FROM RoutePlans WHERE plan_id = ? FOR UPDATE";
+    private static final String UPDATE_PLAN_SQL = "UPDATE RoutePlans SET status = ?, plan = ? WHERE plan_id = ?";
+
+    // Locked in id order before the free checks, so two commits cannot both pass them
+    private static final String LOCK_TRUCKS_SQL =
+            "SELECT truck_id, status FROM Trucks WHERE truck_id IN (%s) ORDER BY truck_id FOR UPDATE";
+    private static final String LOCK_SHIPMENTS_SQL =
+            "SELECT shipment_id, status, assigned_truck_id FROM Shipments WHERE shipment_id IN (%s) " +
+            "ORDER BY shipment_id FOR UPDATE";
+
+    private final ShipmentService shipmentService;
+    private final TruckService truckService;
+    private final TruckMaintenanceScheduler truckMaintenanceScheduler;
+    private final WarehouseRepository warehouseRepository;
+    private final WarehouseDistanceMatrix warehouseDistanceMatrix;
+    private final LaneTransitTimeService laneTransitTimeService;
+    private final DomainEventBus domainEventBus;
+    private final ShipmentScanService shipmentScanService;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final long defaultTimeLimitMs;
+    private final int planRetentionDays;
+    private final int maxStops;
+    private final double vehicleCostKm;
+    private final int workers;
+    private final ExecutorService searchPool;
+
+    private final Map<String, RoutePlan> plans = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RoutePlan> eldest) {
+            return size() > MAX_RETAINED_PLANS;
+        }
+    });
+
+    public RoutePlanner(ShipmentService shipmentService,
+                        TruckService truckService,
+                        TruckMaintenanceScheduler truckMaintenanceScheduler,
+                        WarehouseRepository warehouseRepository,
+                        WarehouseDistanceMatrix warehouseDistanceMatrix,
+                        LaneTransitTimeService laneTransitTimeService,
+                        DomainEventBus domainEventBus,
+                        ShipmentScanService shipmentScanService,
+                        PlatformTransactionManager transactionManager,
+                        JdbcTemplate jdbcTemplate,
+                        ObjectMapper objectMapper,
+                        @Value("${logistics.routing.time-limit-ms:3000}") long defaultTimeLimitMs,
+                        @Value("${logistics.routing.plan-retention-days:7}") int planRetentionDays,
+                        @Value("${logistics.routing.max-stops:40}") int maxStops,
+                        @Value("${logistics.routing.vehicle-cost-km:50}") double vehicleCostKm,
+                        @Value("${logistics.routing.workers:0}") int workers) {
+        this.shipmentService = shipmentService;
+        this.truckService = truckService;
+        this.truckMaintenanceScheduler = truckMaintenanceScheduler;
+        this.warehouseRepository = warehouseRepository;
+        this.warehouseDistanceMatrix = warehouseDistanceMatrix;
+        this.laneTransitTimeService = laneTransitTimeService;
+        this.domainEventBus = domainEventBus;
+        this.shipmentScanService = shipmentScanService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.defaultTimeLimitMs = defaultTimeLimitMs;
+        this.planRetentionDays = planRetentionDays;
+        this.maxStops = maxStops;
+        this.vehicleCostKm = vehicleCostKm;
+        this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.searchPool = Executors.newFixedThreadPool(this.workers, runnable -> {
+            Thread thread = new Thread(runnable, "route-search-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        searchPool.shutdownNow();
+    }
+
+    public RoutePlan plan(RoutePlanRequest request) {
+        if (request.getWarehouseIds() == null || request.getWarehouseIds().isEmpty()) {
+            throw new IllegalArgumentException("At least one warehouse is required");
+        }
+        long start = System.currentTimeMillis();
+        long timeLimitMs = request.getTimeLimitMs() != null
+                ? Math.max(100, Math.min(request.getTimeLimitMs(), MAX_TIME_LIMIT_MS))
+                : defaultTimeLimitMs;
+        // The limit covers loading and preparing the search, not just the restarts
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimitMs);
+
+        List<Shipment> candidates = new ArrayList<>();
+        List<Truck> trucks = new ArrayList<>();
+        for (Integer warehouseId : request.getWarehouseIds()) {
+            Warehouse warehouse = warehouseRepository.findById(warehouseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Warehouse not found with id: " + warehouseId));
+            shipmentService.getPendingShipmentsByWarehouse(warehouse).stream()
+                    .filter(shipment -> shipment.getAssignedTruck() == null)
+                    .filter(shipment -> shipment.getDestinationWarehouse() != null)
+                    .forEach(candidates::add);
+            trucks.addAll(truckMaintenanceScheduler.withoutDueTrucks(truckService.getAvailableTrucksByWarehouse(warehouse)));
+        }
+
+        double[][] fleet = trucks.stream()
+                .map(truck -> new double[]{capacity(truck.getCapacityWeight()), capacity(truck.getCapacityVolume())})
+                .toArray(double[][]::new);
+        double maxWeight = Arrays.stream(fleet).mapToDouble(capacity -> capacity[0]).max().orElse(0);
+        double maxVolume = Arrays.stream(fleet).mapToDouble(capacity -> capacity[1]).max().orElse(0);
+
+        // Shipments no truck can carry, or with no known road between their ends, stay unassigned
+        List<Shipment> shipments = new ArrayList<>();
+        List<Integer> unassigned = new ArrayList<>();
+        for (Shipment shipment : candidates) {
+            double legKm = warehouseDistanceMatrix.distanceKm(shipment.getOriginWarehouse().getWarehouseId(),
+                    shipment.getDestinationWarehouse().getWarehouseId());
+            if (amount(shipment.getTotalWeight()) > maxWeight || amount(shipment.getTotalVolume()) > maxVolume
+                    || Double.isInfinite(legKm)) {
+                unassigned.add(shipment.getShipmentId());
+            } else {
+                shipments.add(shipment);
+            }
+        }
+
+        Map<Integer, Integer> locationIndex = new HashMap<>();
+        List<Integer> locationIds = new ArrayList<>();
+        int jobs = shipments.size();
+        int[] pickup = new int[jobs];
+        int[] drop = new int[jobs];
+        double[] weight = new double[jobs];
+        double[] volume = new double[jobs];
+        double pointToPointKm = 0;
+        for (int job = 0; job < jobs; job++) {
+            Shipment shipment = shipments.get(job);
+            pickup[job] = locationIndex.computeIfAbsent(shipment.getOriginWarehouse().getWarehouseId(),
+                    id -> addLocation(locationIds, id));
+            drop[job] = locationIndex.computeIfAbsent(shipment.getDestinationWarehouse().getWarehouseId(),
+                    id -> addLocation(locationIds, id));
+            weight[job] = amount(shipment.getTotalWeight());
+            volume[job] = amount(shipment.getTotalVolume());
+            pointToPointKm += warehouseDistanceMatrix.distanceKm(shipment.getOriginWarehouse().getWarehouseId(),
+                    shipment.getDestinationWarehouse().getWarehouseId());
+        }
+
+        // Copy the distances the search needs into a small dense matrix of its own
+        int locations = locationIds.size();
+        double[] distance = new double[locations * locations];
+        for (int i = 0; i < locations; i++) {
+            for (int j = 0; j < locations; j++) {
+                distance[i * locations + j] = warehouseDistanceMatrix.distanceKm(locationIds.get(i), locationIds.get(j));
+            }
+        }
+
+        List<PlannedRoute> routes = new ArrayList<>();
+        int restarts = 0;
+        if (jobs > 0) {
+            RouteSearch search = new RouteSearch(distance, locations, pickup, drop, weight, volume,
+                    fleet, maxStops, vehicleCostKm);
+            RouteSearch.Solution solution = search.solve(deadlineNanos, workers, searchPool);
+            restarts = solution.restarts;
+            assignTrucks(solution.routes, search, shipments, locationIds, trucks, routes, unassigned);
+        }
+
+        RoutePlan plan = RoutePlan.builder()
+                .planId(UUID.randomUUID().toString())
+                .status(RoutePlan.PlanStatus.PROPOSED)
+                .createdAt(LocalDateTime.now())
+                .warehouseIds(List.copyOf(request.getWarehouseIds()))
+                .routes(routes)
+                .unassignedShipmentIds(unassigned)
+                .totalDistanceKm(routes.stream().mapToDouble(route -> route.getDistanceKm() + route.getDeadheadKm()).sum())
+                .pointToPointDistanceKm(pointToPointKm)
+                .restarts(restarts)
+                .computeMillis(System.currentTimeMillis() - start)
+                .build();
+        jdbcTemplate.update(PURGE_PLANS_SQL, planRetentionDays);
+        jdbcTemplate.update(SAVE_PLAN_SQL, plan.getPlanId(), plan.getStatus().name(), toJson(plan),
+                Timestamp.valueOf(plan.getCreatedAt()));
+        plans.put(plan.getPlanId(), plan);
+
+        logger.info("Route plan {} for warehouses {}: {} routes, {} shipments unassigned, {} restarts in {} ms",
+                plan.getPlanId(), request.getWarehouseIds(), routes.size(), unassigned.size(), restarts,
+                plan.getComputeMillis());
+        return plan;
+    }
+
+    public RoutePlan getPlan(String planId) {
+        RoutePlan cached = plans.get(planId);
+        if (cached != null) {
+            return cached;
+        }
+        // Built or committed by another instance
+        List<String> stored = jdbcTemplate.queryForList(FIND_PLAN_SQL, String.class, planId);
+        if (stored.isEmpty()) {
+            return null;
+        }
+        RoutePlan plan = fromJson(stored.get(0));
+        RoutePlan raced = plans.putIfAbsent(planId, plan);
+        return raced != null ? raced : plan;
+    }
+
+    /**
+     * Assign every routed shipment to its planned truck, all in one transaction with
+     * the plan, trucks and shipments locked. Shipments or trucks that were taken by
+     * someone else since planning are skipped and reported, not overwritten. If an
+     * assignment fails outright, nothing is committed and the plan stays proposed.
+     */
+    public RoutePlan commitPlan(String planId, User user) {
+        RoutePlan plan = getPlan(planId);
+        if (plan == null) {
+            return null;
+        }
+        synchronized (plan) {
+            if (plan.getStatus() == RoutePlan.PlanStatus.COMMITTED) {
+                throw new IllegalStateException("Route plan " + planId + " has already been committed");
+            }
+
+            List<Integer> committed = new ArrayList<>();
+            List<Integer> skipped = new ArrayList<>();
+            List<Shipment> assigned;
+            try {
+                assigned = transactionTemplate.execute(status -> {
+                    // Another instance may hold the same plan; the row decides who commits it
+                    List<String> stored = jdbcTemplate.queryForList(LOCK_PLAN_SQL, String.class, planId);
+                    if (!stored.isEmpty() && RoutePlan.PlanStatus.COMMITTED.name().equals(stored.get(0))) {
+                        throw new PlanAlreadyCommittedException(planId);
+                    }
+                    List<Shipment> result = assignPlannedTrucks(plan, user, committed, skipped);
+                    RoutePlan committedPlan = RoutePlan.builder()
+                            .planId(plan.getPlanId())
+                            .status(RoutePlan.PlanStatus.COMMITTED)
+                            .createdAt(plan.getCreatedAt())
+                            .warehouseIds(plan.getWarehouseIds())
+                            .routes(plan.getRoutes())
+                            .unassignedShipmentIds(plan.getUnassignedShipmentIds())
+                            .totalDistanceKm(plan.getTotalDistanceKm())
+                            .pointToPointDistanceKm(plan.getPointToPointDistanceKm())
+                            .restarts(plan.getRestarts())
+                            .computeMillis(plan.getComputeMillis())
+                            .committedShipmentIds(committed)
+                            .skippedShipmentIds(skipped)
+                            .build();
+                    jdbcTemplate.update(UPDATE_PLAN_SQL, RoutePlan.PlanStatus.COMMITTED.name(), toJson(committedPlan),
+                            planId);
+                    return result;
+                });
+            } catch (PlanAlreadyCommittedException e) {
+                plans.remove(planId);
+                throw new IllegalStateException(e.getMessage());
+            } catch (RuntimeException e) {
+                logger.warn("Route plan {} could not be committed", planId, e);
+                throw new IllegalStateException("Route plan " + planId + " could not be committed: " + e.getMessage(), e);
+            }
+
+            // Only once the assignments are committed do scans and listeners get to see them
+            for (Shipment shipment : assigned) {
+                shipmentScanService.onStatusChange(shipment);
+                domainEventBus.publishShipmentStatusChanged(shipment, Shipment.ShipmentStatus.PENDING);
+            }
+
+            plan.setStatus(RoutePlan.PlanStatus.COMMITTED);
+            plan.setCommittedShipmentIds(committed);
+            plan.setSkippedShipmentIds(skipped);
+            logger.info("Committed route plan {}: {} shipments assigned, {} skipped", planId, committed.size(), skipped.size());
+            return plan;
+        }
+    }
+
+    private List<Shipment> assignPlannedTrucks(RoutePlan plan, User user, List<Integer> committed, List<Integer> skipped) {
+        Map<Integer, List<Integer>> pickupsByTruck = new LinkedHashMap<>();
+        for (PlannedRoute route : plan.getRoutes()) {
+            pickupsByTruck.put(route.getTruckId(), route.getStops().stream()
+                    .filter(stop -> stop.getAction() == RouteStop.Action.PICKUP)
+                    .map(RouteStop::getShipmentId)
+                    .toList());
+        }
+        if (pickupsByTruck.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Integer, String> truckStatuses = new HashMap<>();
+        List<Integer> truckIds = new ArrayList<>(new TreeSet<>(pickupsByTruck.keySet()));
+        jdbcTemplate.query(inList(LOCK_TRUCKS_SQL, truckIds.size()),
+                rs -> { truckStatuses.put(rs.getInt(1), rs.getString(2)); }, truckIds.toArray());
+        Map<Integer, Boolean> shipmentsFree = new HashMap<>();
+        List<Integer> shipmentIds = new ArrayList<>(new TreeSet<>(pickupsByTruck.values().stream()
+                .flatMap(List::stream).toList()));
+        if (!shipmentIds.isEmpty()) {
+            jdbcTemplate.query(inList(LOCK_SHIPMENTS_SQL, shipmentIds.size()), rs -> {
+                shipmentsFree.put(rs.getInt(1), Shipment.ShipmentStatus.PENDING.name().equals(rs.getString(2))
+                        && rs.getObject(3) == null);
+            }, shipmentIds.toArray());
+        }
+
+        List<Shipment> assigned = new ArrayList<>();
+        for (Map.Entry<Integer, List<Integer>> route : pickupsByTruck.entrySet()) {
+            Integer truckId = route.getKey();
+            boolean truckFree = Truck.TruckStatus.AVAILABLE.name().equals(truckStatuses.get(truckId))
+                    && !truckMaintenanceScheduler.isDue(truckId);
+            if (!truckFree) {
+                skipped.addAll(route.getValue());
+                continue;
+            }
+            List<Integer> free = new ArrayList<>();
+            for (Integer shipmentId : route.getValue()) {
+                (shipmentsFree.getOrDefault(shipmentId, false) ? free : skipped).add(shipmentId);
+            }
+            for (Shipment shipment : assignShipmentsToTruck(truckId, free, plan.getPlanId(), user, skipped)) {
+                laneTransitTimeService.applyEstimate(shipment);
+                assigned.add(shipmentService.saveShipment(shipment));
+                committed.add(shipment.getShipmentId());
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * Assign several shipments to one truck. The first goes through
+     * ShipmentService.assignTruckToShipment, which checks the truck and marks it
+     * assigned; the others take the truck and status that assignment produced, so
+     * the truck never has to be made available again in between. Shipments the
+     * service refuses are added to skipped.
+     */
+    private List<Shipment> assignShipmentsToTruck(Integer truckId, List<Integer> shipmentIds, String planId,
+                                                  User user, List<Integer> skipped) {
+        List<Shipment> assigned = new ArrayList<>();
+        Shipment first = null;
+        for (Integer shipmentId : shipmentIds) {
+            if (first == null) {
+                TruckAssignmentResponse response = shipmentService.assignTruckToShipment(TruckAssignmentRequest.builder()
+                        .shipmentId(shipmentId)
+                        .truckId(truckId)
+                        .notes("Route plan " + planId)
+                        .build(), user);
+                if (!response.isSuccess()) {
+                    skipped.add(shipmentId);
+                    continue;
+                }
+                first = loadShipment(shipmentId);
+                assigned.add(first);
+                continue;
+            }
+            Shipment shipment = loadShipment(shipmentId);
+            shipment.setAssignedTruck(first.getAssignedTruck());
+            shipment.setStatus(first.getStatus());
+            assigned.add(shipment);
+        }
+        return assigned;
+    }
+
+    private Shipment loadShipment(Integer shipmentId) {
+        return shipmentService.getShipmentById(shipmentId)
+                .orElseThrow(() -> new IllegalStateException("Shipment " + shipmentId + " disappeared while committing"));
+    }
+
+    private String toJson(RoutePlan plan) {
+        try {
+            return objectMapper.writeValueAsString(plan);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store route plan " + plan.getPlanId(), e);
+        }
+    }
+
+    private RoutePlan fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, RoutePlan.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored route plan", e);
+        }
+    }
+
+    private static String inList(String sql, int size) {
+        return String.format(sql, String.join(", ", Collections.nCopies(size, "?")));
+    }
+
+    private static final class PlanAlreadyCommittedException extends RuntimeException {
+        private PlanAlreadyCommittedException(String planId) {
+            super("Route plan " + planId + " has already been committed");
+        }
+    }
+
+    /**
+     * Give each route, largest loads first, the closest free truck that can carry its
+     * peak load without leaving a later route with no truck that fits. Routes left
+     * without a truck have their shipments reported unassigned.
+     */
+    private void assignTrucks(List<int[]> searchRoutes, RouteSearch search, List<Shipment> shipments,
+                              List<Integer> locationIds, List<Truck> trucks,
+                              List<PlannedRoute> planned, List<Integer> unassigned) {
+        List<int[]> ordered = new ArrayList<>(searchRoutes);
+        Map<int[], double[]> peaks = new HashMap<>();
+        for (int[] route : ordered) {
+            peaks.put(route, search.peakLoad(route));
+        }
+        ordered.sort(Comparator.comparingDouble((int[] route) -> peaks.get(route)[0]).reversed());
+
+        List<Truck> freeTrucks = new ArrayList<>(trucks);
+        for (int index = 0; index < ordered.size(); index++) {
+            int[] route = ordered.get(index);
+            double[] peak = peaks.get(route);
+            int firstWarehouseId = locationIds.get(search.location(route[0]));
+            List<int[]> later = ordered.subList(index + 1, ordered.size());
+            int laterCovered = covered(later, peaks, freeTrucks, null);
+
+            Truck bestTruck = null;
+            double bestDeadhead = Double.POSITIVE_INFINITY;
+            boolean bestKeepsFleet = false;
+            for (Truck truck : freeTrucks) {
+                if (capacity(truck.getCapacityWeight()) < peak[0] || capacity(truck.getCapacityVolume()) < peak[1]) {
+                    continue;
+                }
+                double deadhead = truck.getHomeWarehouse() != null
+                        ? warehouseDistanceMatrix.distanceKm(truck.getHomeWarehouse().getWarehouseId(), firstWarehouseId)
+                        : 0;
+                if (Double.isInfinite(deadhead)) {
+                    continue;
+                }
+                boolean keepsFleet = covered(later, peaks, freeTrucks, truck) == laterCovered;
+                if (bestTruck == null || (keepsFleet && !bestKeepsFleet)
+                        || (keepsFleet == bestKeepsFleet && deadhead < bestDeadhead)) {
+                    bestTruck = truck;
+                    bestDeadhead = deadhead;
+                    bestKeepsFleet = keepsFleet;
+                }
+            }
+
+            if (bestTruck == null) {
+                for (int stop : route) {
+                    if ((stop & 1) == 0) {
+                        unassigned.add(shipments.get(stop >> 1).getShipmentId());
+                    }
+                }
+                continue;
+            }
+            freeTrucks.remove(bestTruck);
+
+            List<RouteStop> stops = new ArrayList<>();
+            for (int position = 0; position < route.length; position++) {
+                Shipment shipment = shipments.get(route[position] >> 1);
+                stops.add(RouteStop.builder()
+                        .sequence(position + 1)
+                        .warehouseId(locationIds.get(search.location(route[position])))
+                        .action((route[position] & 1) == 0 ? RouteStop.Action.PICKUP : RouteStop.Action.DROP_OFF)
+                        .shipmentId(shipment.getShipmentId())
+                        .trackingNumber(shipment.getTrackingNumber())
+                        .build());
+            }
+            planned.add(PlannedRoute.builder()
+                    .truckId(bestTruck.getTruckId())
+                    .registrationNumber(bestTruck.getRegistrationNumber())
+                    .homeWarehouseId(bestTruck.getHomeWarehouse() != null ? bestTruck.getHomeWarehouse().getWarehouseId() : null)
+                    .capacityWeight(bestTruck.getCapacityWeight())
+                    .capacityVolume(bestTruck.getCapacityVolume())
+                    .peakWeight(peak[0])
+                    .peakVolume(peak[1])
+                    .distanceKm(search.cost(route))
+                    .deadheadKm(bestDeadhead)
+                    .stops(stops)
+                    .build());
+        }
+    }
+
+    /**
+     * How many of the routes still get a truck from the free ones, without the
+     * excluded truck when one is given
+     */
+    private static int covered(List<int[]> routes, Map<int[], double[]> peaks, List<Truck> freeTrucks, Truck excluded) {
+        double[][] loads = routes.stream().map(peaks::get).toArray(double[][]::new);
+        double[][] capacities = freeTrucks.stream()
+                .filter(truck -> truck != excluded)
+                .map(truck -> new double[]{capacity(truck.getCapacityWeight()), capacity(truck.getCapacityVolume())})
+                .toArray(double[][]::new);
+        return (int) Arrays.stream(RouteSearch.matchFleet(loads, capacities)).filter(vehicle -> vehicle >= 0).count();
+    }
+
+    private static int addLocation(List<Integer> locationIds, Integer warehouseId) {
+        locationIds.add(warehouseId);
+        return locationIds.size() - 1;
+    }
+
+    /**
+     * A missing truck capacity does not constrain the plan
+     */
+    private static double capacity(BigDecimal value) {
+        return value != null ? value.doubleValue() : Double.POSITIVE_INFINITY;
+    }
+
+    private static double amount(BigDecimal value) {
+        return value != null ? value.doubleValue() : 0;
+    }
+}
@@ -0,0 +1,688 @@
+package com.logistics.logistics.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Pickup and delivery route search over a small dense distance matrix.
+ * <p>
+ * Stops are encoded as {@code 2 * job} for the pickup and {@code 2 * job + 1} for the
+ * drop-off. Routes are open paths and every route costs a fixed vehicle charge on top
+ * of its distance, so merging two routes pays off when it saves more than the extra
+ * distance. Each restart builds routes with randomised Clarke-Wright savings and then
+ * improves them with 2-opt inside routes and job relocation between routes until no
+ * move helps or the deadline passes.
+ * <p>
+ * The fleet is the actual trucks, not one large truck in unlimited supply. Routes are
+ * built against the largest capacity, then folded into each other while there are
+ * more routes than trucks, and a plan is costed by matching each route to a truck that
+ * can carry its peak load; jobs on routes left without a truck cost a penalty far
+ * above any distance, so restarts that fit the fleet always win.
+ */
+final class RouteSearch {
+    private static final double EPSILON = 1e-6;
+    private static final int NEIGHBOURS = 25;
+    private static final double NOISE = 0.3;
+    private static final double UNSERVED_PENALTY = 1e7;
+
+    private final double[] distance;
+    private final int locations;
+    private final int[] pickup;
+    private final int[] drop;
+    private final double[] weight;
+    private final double[] volume;
+    private final double[][] fleet;
+    private final double maxWeight;
+    private final double maxVolume;
+    private final int maxStops;
+    private final double vehicleCost;
+    private final int jobs;
+    private long[] candidatePairs;
+    private double[] candidateSavings;
+
+    /**
+     * @param fleet weight and volume capacity of each available truck
+     */
+    RouteSearch(double[] distance, int locations, int[] pickup, int[] drop, double[] weight, double[] volume,
+                double[][] fleet, int maxStops, double vehicleCost) {
+        this.distance = distance;
+        this.locations = locations;
+        this.pickup = pickup;
+        this.drop = drop;
+        this.weight = weight;
+        this.volume = volume;
+        this.fleet = fleet;
+        this.maxWeight = Arrays.stream(fleet).mapToDouble(capacity -> capacity[0]).max().orElse(0);
+        this.maxVolume = Arrays.stream(fleet).mapToDouble(capacity -> capacity[1]).max().orElse(0);
+        this.maxStops = maxStops;
+        this.vehicleCost = vehicleCost;
+        this.jobs = pickup.length;
+    }
+
+    static final class Solution {
+        final List<int[]> routes;
+        final double cost;
+        final int restarts;
+
+        private Solution(List<int[]> routes, double cost, int restarts) {
+            this.routes = routes;
+            this.cost = cost;
+            this.restarts = restarts;
+        }
+    }
+
+    /**
+     * Run independent restarts on the pool until the deadline and keep the cheapest plan.
+     * The first restart of the first worker is deterministic, so there is always a plan.
+     */
+    Solution solve(long deadlineNanos, int workers, ExecutorService pool) {
+        computeCandidates(deadlineNanos);
+        List<Future<Solution>> futures = new ArrayList<>();
+        for (int worker = 0; worker < workers; worker++) {
+            long seed = worker;
+            futures.add(pool.submit(() -> searchUntil(deadlineNanos, seed)));
+        }
+
+        Solution best = null;
+        int restarts = 0;
+        for (Future<Solution> future : futures) {
+            try {
+                Solution solution = future.get();
+                if (solution == null) {
+                    continue;
+                }
+                restarts += solution.restarts;
+                if (best == null || solution.cost < best.cost) {
+                    best = solution;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Route search was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Route search failed", e.getCause());
+            }
+        }
+        return new Solution(best.routes, best.cost, restarts);
+    }
+
+    private Solution searchUntil(long deadlineNanos, long seed) {
+        Random random = new Random(seed);
+        Solution best = null;
+        int restarts = 0;
+        do {
+            boolean deterministic = seed == 0 && restarts == 0;
+            List<int[]> routes = construct(random, deterministic ? 0 : NOISE, deterministic ? Long.MAX_VALUE : deadlineNanos);
+            if (routes == null) {
+                break;
+            }
+            improve(routes, deadlineNanos);
+            fitFleet(routes, deadlineNanos);
+            double cost = totalCost(routes);
+            restarts++;
+            if (best == null || cost < best.cost - EPSILON) {
+                best = new Solution(routes, cost, 0);
+            }
+        } while (System.nanoTime() < deadlineNanos);
+        return best == null ? null : new Solution(best.routes, best.cost, restarts);
+    }
+
+    // ---- construction ----
+
+    private List<int[]> construct(Random random, double noise, long deadlineNanos) {
+        int[][] routes = new int[jobs][];
+        double[] routeCost = new double[jobs];
+        int[] owner = new int[jobs];
+        for (int job = 0; job < jobs; job++) {
+            routes[job] = new int[]{2 * job, 2 * job + 1};
+            routeCost[job] = cost(routes[job]);
+            owner[job] = job;
+        }
+
+        long[] pairs = shuffledPairs(random, noise);
+        for (int index = 0; index < pairs.length; index++) {
+            if ((index & 255) == 0 && System.nanoTime() > deadlineNanos) {
+                return null;
+            }
+            int a = owner[(int) (pairs[index] >>> 32)];
+            int b = owner[(int) pairs[index]];
+            if (a == b) {
+                continue;
+            }
+            int[] merged = bestMerge(routes[a], routes[b]);
+            if (merged == null) {
+                continue;
+            }
+            double mergedCost = cost(merged);
+            if (mergedCost < routeCost[a] + routeCost[b] + vehicleCost - EPSILON) {
+                routes[a] = merged;
+                routeCost[a] = mergedCost;
+                routes[b] = null;
+                for (int stop : merged) {
+                    owner[stop >> 1] = a;
+                }
+            }
+        }
+
+        List<int[]> result = new ArrayList<>();
+        for (int[] route : routes) {
+            if (route != null) {
+                result.add(route);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Job pairs worth merging, best savings first. Each job only keeps its nearest
+     * neighbours by savings so the list stays linear in the number of jobs. The
+     * savings do not change between restarts and are computed once. This is
+     * O(n^2 log n), so it stops at the deadline and leaves the remaining jobs
+     * without candidates; construction then keeps them on routes of their own.
+     */
+    private void computeCandidates(long deadlineNanos) {
+        double[] soloCost = new double[jobs];
+        for (int job = 0; job < jobs; job++) {
+            soloCost[job] = cost(new int[]{2 * job, 2 * job + 1});
+        }
+        int keep = Math.min(NEIGHBOURS, Math.max(0, jobs - 1));
+        long[] pairs = new long[jobs * keep];
+        double[] pairSavings = new double[jobs * keep];
+        int count = 0;
+
+        double[] savings = new double[jobs];
+        Integer[] order = new Integer[jobs];
+        for (int i = 0; i < jobs && System.nanoTime() < deadlineNanos; i++) {
+            for (int j = 0; j < jobs; j++) {
+                order[j] = j;
+                savings[j] = j == i ? Double.NEGATIVE_INFINITY
+                        : soloCost[i] + soloCost[j] + vehicleCost - pairCost(i, j);
+            }
+            Arrays.sort(order, (x, y) -> Double.compare(savings[y], savings[x]));
+            for (int rank = 0; rank < keep && savings[order[rank]] > 0; rank++) {
+                pairs[count] = ((long) i << 32) | order[rank];
+                pairSavings[count] = savings[order[rank]];
+                count++;
+            }
+        }
+        candidatePairs = Arrays.copyOf(pairs, count);
+        candidateSavings = Arrays.copyOf(pairSavings, count);
+    }
+
+    private long[] shuffledPairs(Random random, double noise) {
+        int count = candidatePairs.length;
+        double[] keys = new double[count];
+        Integer[] byKey = new Integer[count];
+        for (int k = 0; k < count; k++) {
+            keys[k] = candidateSavings[k] * (1 + noise * random.nextDouble());
+            byKey[k] = k;
+        }
+        Arrays.sort(byKey, (x, y) -> Double.compare(keys[y], keys[x]));
+        long[] sorted = new long[count];
+        for (int k = 0; k < count; k++) {
+            sorted[k] = candidatePairs[byKey[k]];
+        }
+        return sorted;
+    }
+
+    private double pairCost(int i, int j) {
+        int pi = 2 * i, di = 2 * i + 1, pj = 2 * j, dj = 2 * j + 1;
+        int[][] orders = {
+                {pi, di, pj, dj}, {pj, dj, pi, di},
+                {pi, pj, di, dj}, {pi, pj, dj, di},
+                {pj, pi, di, dj}, {pj, pi, dj, di}
+        };
+        double best = Double.POSITIVE_INFINITY;
+        for (int[] order : orders) {
+            if (feasible(order)) {
+                best = Math.min(best, cost(order));
+            }
+        }
+        return best;
+    }
+
+    private int[] bestMerge(int[] a, int[] b) {
+        if (a.length + b.length > maxStops) {
+            return null;
+        }
+        int[] best = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+
+        // Back to back is always within capacity since the first route empties the truck
+        int[] ab = concat(a, b);
+        double abCost = cost(ab);
+        if (abCost < bestCost) {
+            best = ab;
+            bestCost = abCost;
+        }
+        int[] ba = concat(b, a);
+        double baCost = cost(ba);
+        if (baCost < bestCost) {
+            best = ba;
+            bestCost = baCost;
+        }
+
+        int[] interleaved = a.length >= b.length ? insertAll(a, b) : insertAll(b, a);
+        if (interleaved != null && cost(interleaved) < bestCost) {
+            best = interleaved;
+        }
+        return best;
+    }
+
+    private int[] insertAll(int[] route, int[] other) {
+        int[] result = route;
+        for (int stop : other) {
+            if ((stop & 1) == 0) {
+                result = cheapestInsertion(result, stop >> 1);
+                if (result == null) {
+                    return null;
+                }
+            }
+        }
+        return result;
+    }
+
+    // ---- improvement ----
+
+    /**
+     * While there are more routes than trucks, dissolve the shortest route into the
+     * others at their cheapest feasible positions. Stops at the first route whose jobs
+     * do not all fit elsewhere; its jobs are left for the fleet matching to price.
+     */
+    private void fitFleet(List<int[]> routes, long deadlineNanos) {
+        while (routes.size() > fleet.length && System.nanoTime() < deadlineNanos) {
+            int shortest = 0;
+            for (int r = 1; r < routes.size(); r++) {
+                if (routes.get(r).length < routes.get(shortest).length) {
+                    shortest = r;
+                }
+            }
+            List<int[]> remaining = new ArrayList<>(routes);
+            int[] dissolved = remaining.remove(shortest);
+            for (int stop : dissolved) {
+                if ((stop & 1) != 0) {
+                    continue;
+                }
+                int job = stop >> 1;
+                int bestRoute = -1;
+                int[] bestInsertion = null;
+                double bestDelta = Double.POSITIVE_INFINITY;
+                for (int target = 0; target < remaining.size(); target++) {
+                    int[] base = remaining.get(target);
+                    if (base.length + 2 > maxStops) {
+                        continue;
+                    }
+                    int[] inserted = cheapestInsertion(base, job);
+                    if (inserted != null && cost(inserted) - cost(base) < bestDelta) {
+                        bestDelta = cost(inserted) - cost(base);
+                        bestRoute = target;
+                        bestInsertion = inserted;
+                    }
+                }
+                if (bestInsertion == null) {
+                    return;
+                }
+                remaining.set(bestRoute, bestInsertion);
+            }
+            routes.clear();
+            routes.addAll(remaining);
+        }
+    }
+
+    private void improve(List<int[]> routes, long deadlineNanos) {
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadlineNanos) {
+            improved = false;
+            for (int r = 0; r < routes.size(); r++) {
+                int[] better = twoOpt(routes.get(r));
+                if (better != null) {
+                    routes.set(r, better);
+                    improved = true;
+                }
+            }
+            if (relocateJobs(routes, deadlineNanos)) {
+                improved = true;
+            }
+        }
+    }
+
+    /**
+     * First improving segment reversal. A segment may only be reversed when it holds
+     * no complete pickup and drop-off pair, otherwise the drop-off would come first.
+     */
+    private int[] twoOpt(int[] route) {
+        int length = route.length;
+        if (length < 3) {
+            return null;
+        }
+        double[] forward = new double[length];
+        double[] backward = new double[length];
+        for (int k = 1; k < length; k++) {
+            forward[k] = forward[k - 1] + arc(route[k - 1], route[k]);
+            backward[k] = backward[k - 1] + arc(route[k], route[k - 1]);
+        }
+
+        for (int i = 0; i < length - 1; i++) {
+            for (int k = i + 1; k < length; k++) {
+                double before = (i > 0 ? arc(route[i - 1], route[i]) : 0)
+                        + (k < length - 1 ? arc(route[k], route[k + 1]) : 0)
+                        + forward[k] - forward[i];
+                double after = (i > 0 ? arc(route[i - 1], route[k]) : 0)
+                        + (k < length - 1 ? arc(route[i], route[k + 1]) : 0)
+                        + backward[k] - backward[i];
+                if (after < before - EPSILON && !holdsCompleteJob(route, i, k)) {
+                    int[] candidate = route.clone();
+                    for (int left = i, right = k; left < right; left++, right--) {
+                        int swap = candidate[left];
+                        candidate[left] = candidate[right];
+                        candidate[right] = swap;
+                    }
+                    if (feasible(candidate)) {
+                        return candidate;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean holdsCompleteJob(int[] route, int from, int to) {
+        for (int k = from; k <= to; k++) {
+            if ((route[k] & 1) == 1) {
+                int pickupStop = route[k] - 1;
+                for (int m = from; m < k; m++) {
+                    if (route[m] == pickupStop) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Move single jobs to the cheapest feasible position in any route, dropping
+     * routes that become empty
+     */
+    private boolean relocateJobs(List<int[]> routes, long deadlineNanos) {
+        boolean improved = false;
+        for (int r = 0; r < routes.size(); r++) {
+            int[] route = routes.get(r);
+            for (int index = 0; index < route.length && System.nanoTime() < deadlineNanos; index++) {
+                if ((route[index] & 1) != 0) {
+                    continue;
+                }
+                int job = route[index] >> 1;
+                int[] remaining = without(route, job);
+                double removalGain = cost(route) - cost(remaining) + (remaining.length == 0 ? vehicleCost : 0);
+
+                int bestRoute = -1;
+                int[] bestInsertion = null;
+                double bestDelta = removalGain - EPSILON;
+                for (int target = 0; target < routes.size(); target++) {
+                    int[] base = target == r ? remaining : routes.get(target);
+                    if (base.length + 2 > maxStops || base.length == 0) {
+                        continue;
+                    }
+                    int[] inserted = cheapestInsertion(base, job);
+                    if (inserted == null) {
+                        continue;
+                    }
+                    double delta = cost(inserted) - cost(base);
+                    if (delta < bestDelta) {
+                        bestDelta = delta;
+                        bestRoute = target;
+                        bestInsertion = inserted;
+                    }
+                }
+                if (bestInsertion == null) {
+                    continue;
+                }
+
+                routes.set(bestRoute, bestInsertion);
+                if (bestRoute != r) {
+                    routes.set(r, remaining);
+                }
+                improved = true;
+                route = routes.get(r);
+                index = -1;
+            }
+        }
+        routes.removeIf(route -> route.length == 0);
+        return improved;
+    }
+
+    /**
+     * Cheapest feasible way to add one job to a route. Capacity only has to be checked
+     * on the stops the truck passes while carrying the job, tracked as a running
+     * maximum while the drop-off position moves right.
+     */
+    private int[] cheapestInsertion(int[] route, int job) {
+        int length = route.length;
+        int pickupStop = 2 * job;
+        int dropStop = 2 * job + 1;
+
+        double[] loadWeight = new double[length];
+        double[] loadVolume = new double[length];
+        double w = 0;
+        double v = 0;
+        for (int k = 0; k < length; k++) {
+            int stopJob = route[k] >> 1;
+            boolean isPickup = (route[k] & 1) == 0;
+            w += isPickup ? weight[stopJob] : -weight[stopJob];
+            v += isPickup ? volume[stopJob] : -volume[stopJob];
+            loadWeight[k] = w;
+            loadVolume[k] = v;
+        }
+
+        double bestDelta = Double.POSITIVE_INFINITY;
+        int bestP = -1;
+        int bestQ = -1;
+        for (int p = 0; p <= length; p++) {
+            int before = p > 0 ? route[p - 1] : -1;
+            int after = p < length ? route[p] : -1;
+            if (p > 0 && (loadWeight[p - 1] + weight[job] > maxWeight + EPSILON
+                    || loadVolume[p - 1] + volume[job] > maxVolume + EPSILON)) {
+                continue;
+            }
+
+            // Drop-off straight after the pickup
+            double adjacent = arcOrZero(before, pickupStop) + arc(pickupStop, dropStop) + arcOrZero(dropStop, after)
+                    - arcOrZero(before, after);
+            if (adjacent < bestDelta) {
+                bestDelta = adjacent;
+                bestP = p;
+                bestQ = p;
+            }
+
+            double pickupDelta = arcOrZero(before, pickupStop) + arcOrZero(pickupStop, after) - arcOrZero(before, after);
+            double carriedWeight = 0;
+            double carriedVolume = 0;
+            for (int q = p + 1; q <= length; q++) {
+                // Stop q - 1 is now visited with the job on board
+                carriedWeight = Math.max(carriedWeight, loadWeight[q - 1]);
+                carriedVolume = Math.max(carriedVolume, loadVolume[q - 1]);
+                if (carriedWeight + weight[job] > maxWeight + EPSILON
+                        || carriedVolume + volume[job] > maxVolume + EPSILON) {
+                    break;
+                }
+                int dropBefore = route[q - 1];
+                int dropAfter = q < length ? route[q] : -1;
+                double delta = pickupDelta + arc(dropBefore, dropStop) + arcOrZero(dropStop, dropAfter)
+                        - arcOrZero(dropBefore, dropAfter);
+                if (delta < bestDelta) {
+                    bestDelta = delta;
+                    bestP = p;
+                    bestQ = q;
+                }
+            }
+        }
+        if (bestP < 0 || bestDelta == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+
+        int[] result = new int[length + 2];
+        int out = 0;
+        for (int k = 0; k <= length; k++) {
+            if (k == bestP) {
+                result[out++] = pickupStop;
+                if (bestQ == bestP) {
+                    result[out++] = dropStop;
+                }
+            }
+            if (k == bestQ && bestQ != bestP) {
+                result[out++] = dropStop;
+            }
+            if (k < length) {
+                result[out++] = route[k];
+            }
+        }
+        return result;
+    }
+
+    // ---- helpers ----
+
+    double cost(int[] route) {
+        double total = 0;
+        for (int k = 1; k < route.length; k++) {
+            total += arc(route[k - 1], route[k]);
+        }
+        return total;
+    }
+
+    double totalCost(List<int[]> routes) {
+        double[][] peaks = new double[routes.size()][];
+        for (int r = 0; r < routes.size(); r++) {
+            peaks[r] = peakLoad(routes.get(r));
+        }
+        int[] trucks = matchFleet(peaks, fleet);
+        double total = 0;
+        for (int r = 0; r < routes.size(); r++) {
+            total += trucks[r] >= 0
+                    ? cost(routes.get(r)) + vehicleCost
+                    : UNSERVED_PENALTY * (routes.get(r).length / 2);
+        }
+        return total;
+    }
+
+    /**
+     * Highest weight and volume on board at any point of the route
+     */
+    double[] peakLoad(int[] route) {
+        double w = 0;
+        double v = 0;
+        double peakWeight = 0;
+        double peakVolume = 0;
+        for (int stop : route) {
+            int job = stop >> 1;
+            boolean isPickup = (stop & 1) == 0;
+            w += isPickup ? weight[job] : -weight[job];
+            v += isPickup ? volume[job] : -volume[job];
+            peakWeight = Math.max(peakWeight, w);
+            peakVolume = Math.max(peakVolume, v);
+        }
+        return new double[]{peakWeight, peakVolume};
+    }
+
+    /**
+     * Give each load a distinct vehicle that can carry it: heaviest loads first, each
+     * taking the smallest vehicle left that fits. Returns the vehicle index per load,
+     * or -1 where none is left.
+     */
+    static int[] matchFleet(double[][] loads, double[][] capacities) {
+        Integer[] byLoad = new Integer[loads.length];
+        for (int k = 0; k < loads.length; k++) {
+            byLoad[k] = k;
+        }
+        Arrays.sort(byLoad, (x, y) -> loads[x][0] != loads[y][0]
+                ? Double.compare(loads[y][0], loads[x][0])
+                : Double.compare(loads[y][1], loads[x][1]));
+        Integer[] bySize = new Integer[capacities.length];
+        for (int k = 0; k < capacities.length; k++) {
+            bySize[k] = k;
+        }
+        Arrays.sort(bySize, (x, y) -> capacities[x][0] != capacities[y][0]
+                ? Double.compare(capacities[x][0], capacities[y][0])
+                : Double.compare(capacities[x][1], capacities[y][1]));
+
+        int[] assigned = new int[loads.length];
+        Arrays.fill(assigned, -1);
+        boolean[] used = new boolean[capacities.length];
+        for (int load : byLoad) {
+            for (int vehicle : bySize) {
+                if (!used[vehicle] && capacities[vehicle][0] >= loads[load][0] - EPSILON
+                        && capacities[vehicle][1] >= loads[load][1] - EPSILON) {
+                    used[vehicle] = true;
+                    assigned[load] = vehicle;
+                    break;
+                }
+            }
+        }
+        return assigned;
+    }
+
+    int location(int stop) {
+        return (stop & 1) == 0 ? pickup[stop >> 1] : drop[stop >> 1];
+    }
+
+    private double arc(int fromStop, int toStop) {
+        return distance[location(fromStop) * locations + location(toStop)];
+    }
+
+    private double arcOrZero(int fromStop, int toStop) {
+        return fromStop < 0 || toStop < 0 ? 0 : arc(fromStop, toStop);
+    }
+
+    private boolean feasible(int[] route) {
+        double w = 0;
+        double v = 0;
+        for (int k = 0; k < route.length; k++) {
+            int job = route[k] >> 1;
+            if ((route[k] & 1) == 0) {
+                w += weight[job];
+                v += volume[job];
+                if (w > maxWeight + EPSILON || v > maxVolume + EPSILON) {
+                    return false;
+                }
+            } else {
+                if (!pickedBefore(route, k)) {
+                    return false;
+                }
+                w -= weight[job];
+                v -= volume[job];
+            }
+        }
+        return true;
+    }
+
+    private static boolean pickedBefore(int[] route, int dropIndex) {
+        int pickupStop = route[dropIndex] - 1;
+        for (int k = 0; k < dropIndex; k++) {
+            if (route[k] == pickupStop) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static int[] without(int[] route, int job) {
+        int[] result = new int[route.length - 2];
+        int out = 0;
+        for (int stop : route) {
+            if (stop >> 1 != job) {
+                result[out++] = stop;
+            }
+        }
+        return result;
+    }
+}
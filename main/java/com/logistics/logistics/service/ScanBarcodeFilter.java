@@ -0,0 +1,402 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.model.Shipment;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-warehouse Bloom filters of the barcodes on shipments that are still being
+ * processed. A scan whose (tracking number, barcode) pair is not in the filter of
+ * the shipment's origin warehouse cannot match any item and is rejected without
+ * touching the database. Closed shipments cannot be deleted from a Bloom filter,
+ * so each filter is rebuilt in the background once enough of it has gone stale.
+ * Items registered while a rebuild is reading its snapshot go into both the old
+ * and the new filter.
+ * <p>
+ * Saves made through this instance register their shipment on the request thread.
+ * Every other insert or close-out, whichever instance or code path made it, reaches
+ * the ChangeFeed through its triggers, and the feed is followed every
+ * feed-poll-interval-ms. An item added elsewhere can therefore be rejected for at
+ * most the feed's sequencing delay plus one poll interval.
+ */
+@Service
+public class ScanBarcodeFilter {
+    private static final Logger logger = LoggerFactory.getLogger(ScanBarcodeFilter.class);
+
+    private static final String ACTIVE_STATUSES = "('PENDING', 'SCHEDULED_FOR_PICKUP', 'READY_FOR_PICKUP')";
+
+    private static final String COUNT_SQL =
+            "SELECT s.origin_warehouse_id, COUNT(*) FROM ShipmentItems si " +
+            "JOIN Shipments s ON s.shipment_id = si.shipment_id " +
+            "WHERE s.status IN " + ACTIVE_STATUSES + " GROUP BY s.origin_warehouse_id";
+
+    private static final String ACTIVE_ITEMS_SQL =
+            "SELECT s.origin_warehouse_id, s.tracking_number, si.barcode FROM ShipmentItems si " +
+            "JOIN Shipments s ON s.shipment_id = si.shipment_id " +
+            "WHERE s.status IN " + ACTIVE_STATUSES;
+
+    private static final String WAREHOUSE_COUNT_SQL =
+            "SELECT COUNT(*) FROM ShipmentItems si JOIN Shipments s ON s.shipment_id = si.shipment_id " +
+            "WHERE s.status IN " + ACTIVE_STATUSES + " AND s.origin_warehouse_id = ?";
+
+    private static final String SHIPMENT_ITEMS_SQL =
+            "SELECT s.origin_warehouse_id, s.tracking_number, si.barcode FROM ShipmentItems si " +
+            "JOIN Shipments s ON s.shipment_id = si.shipment_id WHERE s.tracking_number = ?";
+
+    // Only rows below this bound have their feed_seq, and all of them are committed
+    private static final String FEED_POSITION_SQL = "SELECT last_seq FROM ChangeFeedSequence WHERE id = 1";
+
+    private static final String FEED_SQL =
+            "SELECT feed_seq, entity_type, entity_id FROM ChangeFeed " +
+            "WHERE feed_seq > ? AND feed_seq <= ? AND entity_type IN ('SHIPMENT', 'SHIPMENT_ITEM') " +
+            "ORDER BY feed_seq LIMIT ?";
+
+    private static final String ITEM_SHIPMENTS_SQL =
+            "SELECT DISTINCT shipment_id FROM ShipmentItems WHERE shipment_item_id IN (%s)";
+
+    private static final String SHIPMENTS_BY_ID_SQL =
+            "SELECT s.origin_warehouse_id, s.tracking_number, si.barcode, s.status FROM Shipments s " +
+            "LEFT JOIN ShipmentItems si ON si.shipment_id = s.shipment_id WHERE s.shipment_id IN (%s)";
+
+    private static final Set<String> ACTIVE_STATUS_NAMES = Set.of("PENDING", "SCHEDULED_FOR_PICKUP", "READY_FOR_PICKUP");
+
+    private static final int MAX_IN_LIST = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final long minimumInsertions;
+    private final double staleRebuildRatio;
+    private final int feedBatchSize;
+
+    private final Map<Integer, WarehouseFilter> filters = new ConcurrentHashMap<>();
+    private final Map<String, Integer> activeShipments = new ConcurrentHashMap<>();
+    private final Set<Integer> rebuildsInProgress = ConcurrentHashMap.newKeySet();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "scan-filter-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong rejectedScans = new AtomicLong();
+    private final AtomicLong passedScans = new AtomicLong();
+    private final AtomicLong unknownShipments = new AtomicLong();
+    private final AtomicLong feedRegistrations = new AtomicLong();
+    // Last ChangeFeed sequence applied, or -1 while the feed cannot be followed
+    private volatile long feedPosition = -1;
+
+    public ScanBarcodeFilter(JdbcTemplate jdbcTemplate,
+                             @Value("${logistics.scan-filter.enabled:true}") boolean enabled,
+                             @Value("${logistics.scan-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                             @Value("${logistics.scan-filter.minimum-insertions:10000}") long minimumInsertions,
+                             @Value("${logistics.scan-filter.stale-rebuild-ratio:0.5}") double staleRebuildRatio,
+                             @Value("${logistics.scan-filter.feed-batch-size:5000}") int feedBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minimumInsertions = minimumInsertions;
+        this.staleRebuildRatio = staleRebuildRatio;
+        this.feedBatchSize = feedBatchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        // Read before the snapshot, so changes made while it is read are replayed rather than missed
+        long position = readFeedPosition();
+
+        Map<Integer, Long> counts = new HashMap<>();
+        jdbcTemplate.query(COUNT_SQL, rs -> {
+            counts.put(rs.getInt(1), rs.getLong(2));
+        });
+
+        Map<Integer, WarehouseFilter> rebuilt = new HashMap<>();
+        counts.forEach((warehouseId, count) -> rebuilt.put(warehouseId, newFilter(count)));
+        activeShipments.clear();
+        jdbcTemplate.query(ACTIVE_ITEMS_SQL, rs -> {
+            int warehouseId = rs.getInt(1);
+            WarehouseFilter filter = rebuilt.computeIfAbsent(warehouseId, id -> newFilter(0));
+            addItem(filter, warehouseId, rs.getString(2), rs.getString(3));
+        });
+
+        filters.clear();
+        filters.putAll(rebuilt);
+        feedPosition = position;
+        logger.info("Scan barcode filters built for {} warehouses, {} active shipments in {} ms",
+                filters.size(), activeShipments.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Returns false only when the barcode is not part of an active shipment with this
+     * tracking number, as of the last change applied from the feed. Unknown tracking
+     * numbers always pass.
+     */
+    public boolean mightBeOnShipment(String trackingNumber, String barcode) {
+        if (!enabled || trackingNumber == null || barcode == null) {
+            return true;
+        }
+
+        Integer warehouseId = activeShipments.get(trackingNumber);
+        WarehouseFilter filter = warehouseId == null ? null : filters.get(warehouseId);
+        if (filter == null) {
+            unknownShipments.incrementAndGet();
+            return true;
+        }
+
+        if (filter.bloom.mightContain(key(trackingNumber, barcode))) {
+            passedScans.incrementAndGet();
+            return true;
+        }
+        rejectedScans.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Register or close the shipments that changed since the last poll, on any
+     * instance. Runs on every instance, since each has its own filters.
+     */
+    @Scheduled(fixedDelayString = "${logistics.scan-filter.feed-poll-interval-ms:500}")
+    public void followChangeFeed() {
+        long position = feedPosition;
+        if (!enabled || position < 0) {
+            return;
+        }
+        try {
+            Long upperBound = jdbcTemplate.queryForObject(FEED_POSITION_SQL, Long.class);
+            if (upperBound == null || upperBound <= position) {
+                return;
+            }
+            Set<Integer> shipmentIds = new HashSet<>();
+            Set<Integer> itemIds = new HashSet<>();
+            long[] last = {position};
+            int[] rows = {0};
+            jdbcTemplate.query(FEED_SQL, rs -> {
+                last[0] = rs.getLong(1);
+                rows[0]++;
+                ("SHIPMENT".equals(rs.getString(2)) ? shipmentIds : itemIds).add(rs.getInt(3));
+            }, position, upperBound, feedBatchSize);
+
+            for (List<Integer> chunk : chunks(itemIds)) {
+                shipmentIds.addAll(jdbcTemplate.queryForList(inList(ITEM_SHIPMENTS_SQL, chunk.size()),
+                        Integer.class, chunk.toArray()));
+            }
+            Set<String> closed = new HashSet<>();
+            for (List<Integer> chunk : chunks(shipmentIds)) {
+                jdbcTemplate.query(inList(SHIPMENTS_BY_ID_SQL, chunk.size()), rs -> {
+                    int warehouseId = rs.getInt(1);
+                    String trackingNumber = rs.getString(2);
+                    if (ACTIVE_STATUS_NAMES.contains(rs.getString(4))) {
+                        addItem(filters.computeIfAbsent(warehouseId, id -> newFilter(0)), warehouseId,
+                                trackingNumber, rs.getString(3));
+                    } else {
+                        closed.add(trackingNumber);
+                    }
+                }, chunk.toArray());
+            }
+            closed.forEach(this::closeShipment);
+            feedRegistrations.addAndGet(shipmentIds.size());
+            // A full page may have stopped short of the bound; the rest comes next poll
+            feedPosition = rows[0] >= feedBatchSize ? last[0] : upperBound;
+        } catch (DataAccessException e) {
+            logger.warn("Could not follow the change feed for the scan filter, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Add the items of a newly created or newly processable shipment, or items added
+     * to a shipment already registered. Registering a shipment again is harmless.
+     */
+    public void registerShipment(String trackingNumber) {
+        if (!enabled || trackingNumber == null) {
+            return;
+        }
+        jdbcTemplate.query(SHIPMENT_ITEMS_SQL, rs -> {
+            int warehouseId = rs.getInt(1);
+            WarehouseFilter filter = filters.computeIfAbsent(warehouseId, id -> newFilter(0));
+            addItem(filter, warehouseId, rs.getString(2), rs.getString(3));
+        }, trackingNumber);
+    }
+
+    /**
+     * Keep the filters in step with a shipment status change
+     */
+    public void onStatusChange(Shipment shipment) {
+        if (!enabled || shipment == null || shipment.getTrackingNumber() == null) {
+            return;
+        }
+
+        boolean active = shipment.getStatus() == Shipment.ShipmentStatus.PENDING
+                || shipment.getStatus() == Shipment.ShipmentStatus.SCHEDULED_FOR_PICKUP
+                || shipment.getStatus() == Shipment.ShipmentStatus.READY_FOR_PICKUP;
+        if (active) {
+            // Also for known shipments, since the save may have come with new items
+            registerShipment(shipment.getTrackingNumber());
+            return;
+        }
+        closeShipment(shipment.getTrackingNumber());
+    }
+
+    /**
+     * Forget a shipment that left processing or was deleted
+     */
+    public void closeShipment(String trackingNumber) {
+        Integer warehouseId = trackingNumber == null ? null : activeShipments.remove(trackingNumber);
+        WarehouseFilter filter = warehouseId == null ? null : filters.get(warehouseId);
+        if (filter == null) {
+            return;
+        }
+        long stale = filter.closedShipments.incrementAndGet();
+        if (stale >= Math.max(1, filter.shipments.get() * staleRebuildRatio)
+                && rebuildsInProgress.add(warehouseId)) {
+            rebuilder.execute(() -> rebuild(warehouseId));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> warehouses = new HashMap<>();
+        long totalMemory = 0;
+        for (Map.Entry<Integer, WarehouseFilter> entry : filters.entrySet()) {
+            BarcodeBloomFilter bloom = entry.getValue().bloom;
+            Map<String, Object> warehouse = new HashMap<>();
+            warehouse.put("barcodes", bloom.getInsertions());
+            warehouse.put("bits", bloom.getBitCount());
+            warehouse.put("hashFunctions", bloom.getHashFunctions());
+            warehouse.put("memoryBytes", bloom.getMemoryBytes());
+            warehouse.put("estimatedFalsePositiveRate", bloom.getEstimatedFalsePositiveRate());
+            warehouse.put("closedShipmentsSinceRebuild", entry.getValue().closedShipments.get());
+            warehouses.put(String.valueOf(entry.getKey()), warehouse);
+            totalMemory += bloom.getMemoryBytes();
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("targetFalsePositiveRate", falsePositiveRate);
+        stats.put("activeShipments", activeShipments.size());
+        stats.put("memoryBytes", totalMemory);
+        stats.put("rejectedScans", rejectedScans.get());
+        stats.put("passedScans", passedScans.get());
+        stats.put("unknownShipments", unknownShipments.get());
+        stats.put("feedRegistrations", feedRegistrations.get());
+        stats.put("feedPosition", feedPosition);
+        stats.put("warehouses", warehouses);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private void rebuild(Integer warehouseId) {
+        WarehouseFilter current = filters.get(warehouseId);
+        try {
+            Long count = jdbcTemplate.queryForObject(WAREHOUSE_COUNT_SQL, Long.class, warehouseId);
+            WarehouseFilter filter = newFilter(count == null ? 0 : count);
+            // From here on registrations reach the new filter too; anything registered
+            // before this point is already in the database and so in the snapshot below
+            if (current != null) {
+                current.successor = filter;
+            }
+            Set<String> trackingNumbers = new HashSet<>();
+            jdbcTemplate.query(ACTIVE_ITEMS_SQL + " AND s.origin_warehouse_id = ?", rs -> {
+                String trackingNumber = rs.getString(2);
+                trackingNumbers.add(trackingNumber);
+                activeShipments.put(trackingNumber, warehouseId);
+                if (rs.getString(3) != null) {
+                    filter.bloom.add(key(trackingNumber, rs.getString(3)));
+                }
+            }, warehouseId);
+            filter.shipments.set(trackingNumbers.size());
+            filters.put(warehouseId, filter);
+            logger.info("Rebuilt scan barcode filter for warehouse {} with {} barcodes",
+                    warehouseId, filter.bloom.getInsertions());
+        } catch (Exception e) {
+            logger.error("Failed to rebuild scan barcode filter for warehouse {}", warehouseId, e);
+            if (current != null) {
+                current.successor = null;
+            }
+        } finally {
+            rebuildsInProgress.remove(warehouseId);
+        }
+    }
+
+    private void addItem(WarehouseFilter filter, Integer warehouseId, String trackingNumber, String barcode) {
+        boolean newShipment = activeShipments.put(trackingNumber, warehouseId) == null;
+        for (WarehouseFilter target = filter; target != null; target = target.successor) {
+            if (newShipment) {
+                target.shipments.incrementAndGet();
+            }
+            // Re-registered items are already in, so they do not count as new insertions
+            if (barcode != null && !target.bloom.mightContain(key(trackingNumber, barcode))) {
+                target.bloom.add(key(trackingNumber, barcode));
+            }
+        }
+    }
+
+    private long readFeedPosition() {
+        try {
+            Long position = jdbcTemplate.queryForObject(FEED_POSITION_SQL, Long.class);
+            return position == null ? 0 : position;
+        } catch (DataAccessException e) {
+            logger.warn("Change feed unavailable, the scan filter only sees this instance's saves: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    private static List<List<Integer>> chunks(Set<Integer> ids) {
+        List<Integer> all = new ArrayList<>(ids);
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += MAX_IN_LIST) {
+            chunks.add(all.subList(from, Math.min(from + MAX_IN_LIST, all.size())));
+        }
+        return chunks;
+    }
+
+    private static String inList(String sql, int size) {
+        return String.format(sql, String.join(", ", Collections.nCopies(size, "?")));
+    }
+
+    private WarehouseFilter newFilter(long expectedBarcodes) {
+        // Leave headroom for shipments created before the next rebuild
+        return new WarehouseFilter(new BarcodeBloomFilter(Math.max(minimumInsertions, expectedBarcodes * 2), falsePositiveRate));
+    }
+
+    private static String key(String trackingNumber, String barcode) {
+        return trackingNumber + '\n' + barcode;
+    }
+
+    private static final class WarehouseFilter {
+        private final BarcodeBloomFilter bloom;
+        private final AtomicLong shipments = new AtomicLong();
+        private final AtomicLong closedShipments = new AtomicLong();
+        // Set while a rebuild is replacing this filter
+        private volatile WarehouseFilter successor;
+
+        private WarehouseFilter(BarcodeBloomFilter bloom) {
+            this.bloom = bloom;
+        }
+    }
+}
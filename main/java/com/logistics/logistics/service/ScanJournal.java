@@ -0,0 +1,725 @@
+package com.logistics.logistics.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-behind journal for fast path scans. A scan is appended to a memory-mapped
+ * segment file and acknowledged once the segment has been forced to disk; a sync
+ * thread forces every append that arrived since its last pass in one go, so a burst
+ * of scans shares one fsync. A drain thread then applies durable scans to
+ * ShipmentItems in batches, recording the last applied sequence number in the same
+ * transaction, so a scan replayed after a crash is applied exactly once.
+ * <p>
+ * Segments are fixed-size files named after their first sequence number. When one
+ * fills up the journal rotates to a new one, and segments whose scans have all been
+ * applied are deleted.
+ * <p>
+ * The checkpoint row belongs to the segments in one directory, so unless a name is
+ * configured the journal generates one on first open and keeps it in a
+ * {@value #NAME_FILE} file in the directory. Two instances therefore never share a
+ * checkpoint row unless they are explicitly given the same name.
+ */
+@Service
+public class ScanJournal {
+    private static final Logger logger = LoggerFactory.getLogger(ScanJournal.class);
+
+    private static final String SEGMENT_PREFIX = "scan-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    // Payload length and CRC32 of the payload
+    private static final int HEADER_BYTES = 8;
+    private static final String NAME_FILE = "journal-name";
+    // Checkpoint name used before names were generated; kept by directories that already have segments
+    private static final String LEGACY_NAME = "default";
+
+    private static final String CHECKPOINT_SQL =
+            "SELECT last_applied_seq FROM ScanJournalCheckpoints WHERE journal_name = ?";
+
+    private static final String LOCK_CHECKPOINT_SQL = CHECKPOINT_SQL + " FOR UPDATE";
+
+    private static final String WRITE_CHECKPOINT_SQL =
+            "INSERT INTO ScanJournalCheckpoints (journal_name, last_applied_seq, updated_at) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE last_applied_seq = VALUES(last_applied_seq), updated_at = VALUES(updated_at)";
+
+    private static final String APPLY_SQL =
+            "UPDATE ShipmentItems SET status = ?, verified_by = ?, verified_at = ?, notes = COALESCE(?, notes) " +
+            "WHERE shipment_item_id = ? AND status = 'PENDING'";
+
+    public record Entry(long sequence, String trackingNumber, int shipmentItemId, String status, Integer userId,
+                        LocalDateTime verifiedAt, String notes) {
+    }
+
+    /**
+     * Thrown by flush when a shipment's journaled scans did not reach the database in time
+     */
+    public static class FlushTimeoutException extends RuntimeException {
+        public FlushTimeoutException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private long lastSequence;
+
+        private Segment(long firstSequence, Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+            this.lastSequence = firstSequence - 1;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final long groupCommitNanos;
+    private final int drainBatchSize;
+    private final long flushTimeoutMs;
+    private final String configuredName;
+    private volatile String journalName;
+    private volatile Consumer<String> conflictListener = trackingNumber -> {
+    };
+
+    // Segments, sequence numbers and unsynced entries are guarded by this
+    private Segment active;
+    private final Deque<Segment> sealed = new ArrayDeque<>();
+    private final List<Entry> unsynced = new ArrayList<>();
+    private long nextSequence = 1;
+    private long writtenSequence;
+    private long durableSequence;
+    private volatile boolean accepting;
+    private volatile boolean running;
+
+    private final BlockingQueue<Entry> durable = new LinkedBlockingQueue<>();
+    private final Map<String, AtomicInteger> pendingByShipment = new ConcurrentHashMap<>();
+    // Sequences whose appender gave up and wrote the scan directly; the drainer skips them
+    private final Set<Long> abandoned = ConcurrentHashMap.newKeySet();
+    private final Object appliedMonitor = new Object();
+    private volatile long appliedSequence;
+    private Thread syncThread;
+    private Thread drainThread;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong groupCommits = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong drainFailures = new AtomicLong();
+    private final AtomicLong segmentsDeleted = new AtomicLong();
+    private volatile String lastDrainError;
+
+    public ScanJournal(JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${logistics.scan-journal.enabled:false}") boolean enabled,
+                       @Value("${logistics.scan-journal.directory:data/scan-journal}") String directory,
+                       @Value("${logistics.scan-journal.segment-bytes:67108864}") int segmentBytes,
+                       @Value("${logistics.scan-journal.group-commit-micros:500}") long groupCommitMicros,
+                       @Value("${logistics.scan-journal.drain-batch-size:500}") int drainBatchSize,
+                       @Value("${logistics.scan-journal.flush-timeout-ms:30000}") long flushTimeoutMs,
+                       @Value("${logistics.scan-journal.name:}") String journalName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+        this.drainBatchSize = drainBatchSize;
+        this.flushTimeoutMs = flushTimeoutMs;
+        this.configuredName = journalName == null ? "" : journalName.trim();
+    }
+
+    /**
+     * Called with the tracking number of a shipment whose journaled scan found its
+     * item already processed, so a cached copy of the shipment can be dropped
+     */
+    public void onConflict(Consumer<String> listener) {
+        this.conflictListener = listener;
+    }
+
+    /**
+     * Replay whatever the segments hold and start taking scans. Scans already applied
+     * before the restart are skipped by the drainer against the stored checkpoint.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int replayed;
+        try {
+            Files.createDirectories(directory);
+            journalName = resolveName();
+            replayed = replaySegments();
+        } catch (IOException e) {
+            logger.error("Scan journal could not be opened, scans will be written directly: {}", e.getMessage());
+            return;
+        }
+
+        // Keep sequence numbers moving forward even if the journal directory was wiped
+        try {
+            List<Long> checkpoint = jdbcTemplate.queryForList(CHECKPOINT_SQL, Long.class, journalName);
+            if (!checkpoint.isEmpty()) {
+                appliedSequence = checkpoint.get(0);
+                synchronized (this) {
+                    nextSequence = Math.max(nextSequence, appliedSequence + 1);
+                    writtenSequence = nextSequence - 1;
+                    durableSequence = writtenSequence;
+                }
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not read scan journal checkpoint, continuing from the segments: {}", e.getMessage());
+        }
+
+        running = true;
+        syncThread = new Thread(this::syncLoop, "scan-journal-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+        drainThread = new Thread(this::drainLoop, "scan-journal-drain");
+        drainThread.setDaemon(true);
+        drainThread.start();
+        accepting = true;
+        logger.info("Scan journal {} opened in {} with {} scans to replay, in {} ms",
+                journalName, directory.toAbsolutePath(), replayed, System.currentTimeMillis() - start);
+    }
+
+    @PreDestroy
+    public void close() {
+        accepting = false;
+        running = false;
+        synchronized (this) {
+            notifyAll();
+        }
+        joinQuietly(syncThread);
+        if (drainThread != null) {
+            drainThread.interrupt();
+        }
+        joinQuietly(drainThread);
+    }
+
+    public boolean isAccepting() {
+        return accepting;
+    }
+
+    /**
+     * Append a scan and wait until it is on disk. Returns false when the journal is
+     * off or cannot take the scan, in which case the caller writes it directly.
+     */
+    public boolean append(String trackingNumber, int shipmentItemId, String status, Integer userId,
+                          LocalDateTime verifiedAt, String notes) {
+        if (!accepting) {
+            return false;
+        }
+        increment(trackingNumber);
+
+        long sequence;
+        synchronized (this) {
+            try {
+                sequence = nextSequence;
+                Entry entry = new Entry(sequence, trackingNumber, shipmentItemId, status, userId, verifiedAt, notes);
+                byte[] payload = encode(entry);
+                if (HEADER_BYTES + payload.length > segmentBytes) {
+                    decrement(trackingNumber);
+                    return false;
+                }
+                if (active.buffer.remaining() < HEADER_BYTES + payload.length) {
+                    rotate();
+                }
+                write(active.buffer, payload);
+                active.lastSequence = sequence;
+                nextSequence++;
+                writtenSequence = sequence;
+                unsynced.add(entry);
+                notifyAll();
+            } catch (IOException e) {
+                logger.error("Scan journal append failed, falling back to direct writes: {}", e.getMessage());
+                accepting = false;
+                decrement(trackingNumber);
+                return false;
+            }
+
+            while (durableSequence < sequence && accepting) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (durableSequence < sequence) {
+                // The caller writes the scan directly, so this run must not apply it again. An entry
+                // the sync thread has not picked up yet is simply dropped; one it has is skipped by the
+                // drainer. Either way it is counted down here and only here. After a crash the copy in
+                // the segment replays against a row that is no longer PENDING and changes nothing.
+                if (!unsynced.removeIf(entry -> entry.sequence() == sequence)) {
+                    abandoned.add(sequence);
+                }
+                decrement(trackingNumber);
+                return false;
+            }
+        }
+        appended.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Wait until every journaled scan of a shipment has reached the database, so that
+     * code reading ShipmentItems directly sees them
+     */
+    public void flush(String trackingNumber) {
+        AtomicInteger pending = pendingByShipment.get(trackingNumber);
+        if (pending == null || pending.get() == 0) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + flushTimeoutMs;
+        synchronized (appliedMonitor) {
+            while (pending.get() > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new FlushTimeoutException("Scans for shipment " + trackingNumber +
+                            " are still being written to the database");
+                }
+                try {
+                    appliedMonitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new FlushTimeoutException("Interrupted while waiting for journaled scans");
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("accepting", accepting);
+        stats.put("name", journalName);
+        synchronized (this) {
+            stats.put("segments", sealed.size() + (active != null ? 1 : 0));
+            stats.put("activeSegment", active != null ? active.path.getFileName().toString() : null);
+            stats.put("writtenSequence", writtenSequence);
+            stats.put("durableSequence", durableSequence);
+            stats.put("unsynced", unsynced.size());
+        }
+        long groups = groupCommits.get();
+        stats.put("appliedSequence", appliedSequence);
+        stats.put("awaitingApply", durable.size());
+        stats.put("appended", appended.get());
+        stats.put("groupCommits", groups);
+        stats.put("averageGroupSize", groups == 0 ? 0.0 : (double) appended.get() / groups);
+        stats.put("applied", applied.get());
+        stats.put("conflicts", conflicts.get());
+        stats.put("drainFailures", drainFailures.get());
+        stats.put("segmentsDeleted", segmentsDeleted.get());
+        stats.put("lastDrainError", lastDrainError);
+        return stats;
+    }
+
+    private void syncLoop() {
+        while (true) {
+            Segment segment;
+            long target;
+            synchronized (this) {
+                while (writtenSequence == durableSequence && running) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (writtenSequence == durableSequence) {
+                    return;
+                }
+            }
+
+            // Give concurrent scans a moment to join this group
+            if (groupCommitNanos > 0) {
+                LockSupport.parkNanos(groupCommitNanos);
+            }
+
+            List<Entry> batch;
+            synchronized (this) {
+                segment = active;
+                target = writtenSequence;
+                batch = new ArrayList<>(unsynced);
+                unsynced.clear();
+            }
+            try {
+                // Earlier segments were forced when they were sealed
+                segment.buffer.force();
+            } catch (RuntimeException e) {
+                logger.error("Scan journal sync failed, falling back to direct writes: {}", e.getMessage());
+                synchronized (this) {
+                    accepting = false;
+                    notifyAll();
+                }
+                return;
+            }
+            groupCommits.incrementAndGet();
+            synchronized (this) {
+                durableSequence = Math.max(durableSequence, target);
+                notifyAll();
+            }
+            // Queued only once durable, so an appender that gave up before then has already marked its entry
+            durable.addAll(batch);
+        }
+    }
+
+    private void drainLoop() {
+        while (running || !durable.isEmpty()) {
+            List<Entry> batch = new ArrayList<>(drainBatchSize);
+            try {
+                Entry first = durable.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    compact();
+                    continue;
+                }
+                batch.add(first);
+                durable.drainTo(batch, drainBatchSize - 1);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+                continue;
+            }
+
+            long backoffMs = 100;
+            while (!applyBatch(batch)) {
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException e) {
+                    // Whatever was not applied is still in the segments and replays on restart
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, 5000);
+            }
+        }
+    }
+
+    private boolean applyBatch(List<Entry> batch) {
+        // Abandoned entries were counted down by their appender; the checkpoint still moves past them
+        List<Entry> owned = batch.stream().filter(entry -> !abandoned.contains(entry.sequence())).toList();
+        List<Entry> conflicting = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Long> checkpoint = jdbcTemplate.queryForList(LOCK_CHECKPOINT_SQL, Long.class, journalName);
+                long lastApplied = checkpoint.isEmpty() ? 0 : checkpoint.get(0);
+                long lastSequence = batch.get(batch.size() - 1).sequence();
+                if (lastSequence <= lastApplied) {
+                    return;
+                }
+                List<Entry> fresh = owned.stream().filter(entry -> entry.sequence() > lastApplied).toList();
+                if (!fresh.isEmpty()) {
+                    int[][] counts = jdbcTemplate.batchUpdate(APPLY_SQL, fresh, fresh.size(), (ps, entry) -> {
+                        ps.setString(1, entry.status());
+                        if (entry.userId() != null) {
+                            ps.setInt(2, entry.userId());
+                        } else {
+                            ps.setNull(2, Types.INTEGER);
+                        }
+                        ps.setTimestamp(3, Timestamp.valueOf(entry.verifiedAt()));
+                        ps.setString(4, entry.notes());
+                        ps.setInt(5, entry.shipmentItemId());
+                    });
+                    for (int i = 0; i < fresh.size(); i++) {
+                        // Drivers that rewrite batches report SUCCESS_NO_INFO (-2) rather than row counts
+                        if (counts[0][i] == 0) {
+                            conflicting.add(fresh.get(i));
+                        }
+                    }
+                }
+                jdbcTemplate.update(WRITE_CHECKPOINT_SQL, journalName, lastSequence,
+                        Timestamp.valueOf(LocalDateTime.now()));
+            });
+        } catch (DataAccessException e) {
+            drainFailures.incrementAndGet();
+            lastDrainError = e.getMessage();
+            logger.warn("Could not apply {} journaled scans, will retry: {}", batch.size(), e.getMessage());
+            return false;
+        }
+
+        for (Entry entry : conflicting) {
+            // The item left PENDING some other way; drop the cached copy so the next scan reloads it
+            logger.warn("Journaled scan {} of item {} found the item already processed",
+                    entry.sequence(), entry.shipmentItemId());
+            conflictListener.accept(entry.trackingNumber());
+        }
+        conflicts.addAndGet(conflicting.size());
+        applied.addAndGet(owned.size());
+        appliedSequence = batch.get(batch.size() - 1).sequence();
+        batch.forEach(entry -> abandoned.remove(entry.sequence()));
+        for (Entry entry : owned) {
+            decrement(entry.trackingNumber());
+        }
+        return true;
+    }
+
+    private void increment(String trackingNumber) {
+        // Inside compute, so it cannot race the removal of a counter that just reached zero
+        pendingByShipment.compute(trackingNumber, (key, count) -> {
+            AtomicInteger counter = count != null ? count : new AtomicInteger();
+            counter.incrementAndGet();
+            return counter;
+        });
+    }
+
+    private void decrement(String trackingNumber) {
+        pendingByShipment.computeIfPresent(trackingNumber,
+                (key, count) -> count.decrementAndGet() <= 0 ? null : count);
+        synchronized (appliedMonitor) {
+            appliedMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Delete sealed segments whose scans have all been applied
+     */
+    private void compact() {
+        List<Segment> deletable = new ArrayList<>();
+        synchronized (this) {
+            while (!sealed.isEmpty() && sealed.peekFirst().lastSequence <= appliedSequence) {
+                deletable.add(sealed.pollFirst());
+            }
+        }
+        for (Segment segment : deletable) {
+            try {
+                Files.deleteIfExists(segment.path);
+                segmentsDeleted.incrementAndGet();
+            } catch (IOException e) {
+                logger.warn("Could not delete scan journal segment {}: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Read every segment in order, queueing the scans found for the drainer. The
+     * first torn or corrupt record marks the end of the journal; it was never
+     * acknowledged because it never made it to disk whole.
+     */
+    private int replaySegments() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        int replayed = 0;
+        synchronized (this) {
+            for (Path path : paths) {
+                String name = path.getFileName().toString();
+                long firstSequence = Long.parseLong(
+                        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                Segment segment = new Segment(firstSequence, path, map(path));
+                nextSequence = Math.max(nextSequence, firstSequence);
+                if (active != null) {
+                    sealed.addLast(active);
+                }
+                active = segment;
+
+                MappedByteBuffer buffer = segment.buffer;
+                while (buffer.remaining() >= HEADER_BYTES) {
+                    int start = buffer.position();
+                    int length = buffer.getInt();
+                    int crc = buffer.getInt();
+                    if (length == 0) {
+                        buffer.position(start);
+                        break;
+                    }
+                    if (length < 0 || length > buffer.remaining() || crc != checksum(buffer, length)) {
+                        buffer.position(start);
+                        clearTail(buffer);
+                        break;
+                    }
+                    byte[] payload = new byte[length];
+                    buffer.get(payload);
+                    Entry entry = decode(payload);
+                    segment.lastSequence = entry.sequence();
+                    nextSequence = entry.sequence() + 1;
+                    durable.add(entry);
+                    increment(entry.trackingNumber());
+                    replayed++;
+                }
+            }
+            if (active == null || active.buffer.remaining() < HEADER_BYTES) {
+                if (active != null) {
+                    sealed.addLast(active);
+                }
+                active = openSegment(nextSequence);
+            }
+            writtenSequence = nextSequence - 1;
+            durableSequence = writtenSequence;
+        }
+        return replayed;
+    }
+
+    /**
+     * The configured name, or the one kept in the directory, generating it on first use
+     */
+    private String resolveName() throws IOException {
+        if (!configuredName.isEmpty()) {
+            return configuredName;
+        }
+        Path nameFile = directory.resolve(NAME_FILE);
+        if (Files.exists(nameFile)) {
+            String name = Files.readString(nameFile, StandardCharsets.UTF_8).trim();
+            if (!name.isEmpty()) {
+                return name;
+            }
+        }
+        String name;
+        try (Stream<Path> files = Files.list(directory)) {
+            name = files.anyMatch(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    ? LEGACY_NAME
+                    : InetAddress.getLocalHost().getHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        // Checkpoint names are at most 64 characters
+        if (name.length() > 64) {
+            name = name.substring(name.length() - 64);
+        }
+        Files.writeString(nameFile, name, StandardCharsets.UTF_8);
+        return name;
+    }
+
+    private void rotate() throws IOException {
+        active.buffer.force();
+        sealed.addLast(active);
+        active = openSegment(nextSequence);
+        logger.info("Scan journal rotated to {}", active.path.getFileName());
+    }
+
+    private Segment openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        return new Segment(firstSequence, path, map(path));
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        // Mapping past the end grows the file to the full segment size
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private static void write(MappedByteBuffer buffer, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        buffer.putInt(payload.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(payload);
+    }
+
+    private static int checksum(MappedByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer view = buffer.slice(buffer.position(), length);
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    private static void clearTail(MappedByteBuffer buffer) {
+        int position = buffer.position();
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) 0);
+        }
+        buffer.position(position);
+    }
+
+    private static byte[] encode(Entry entry) {
+        byte[] trackingNumber = entry.trackingNumber().getBytes(StandardCharsets.UTF_8);
+        byte[] status = entry.status().getBytes(StandardCharsets.UTF_8);
+        byte[] notes = entry.notes() != null ? entry.notes().getBytes(StandardCharsets.UTF_8) : null;
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 4 + 4 + 8 + 4 + trackingNumber.length + 4 + status.length
+                + 4 + (notes != null ? notes.length : 0));
+        buffer.putLong(entry.sequence());
+        buffer.putInt(entry.shipmentItemId());
+        buffer.putInt(entry.userId() != null ? entry.userId() : -1);
+        buffer.putLong(entry.verifiedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        buffer.putInt(trackingNumber.length).put(trackingNumber);
+        buffer.putInt(status.length).put(status);
+        buffer.putInt(notes != null ? notes.length : -1);
+        if (notes != null) {
+            buffer.put(notes);
+        }
+        return buffer.array();
+    }
+
+    private static Entry decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long sequence = buffer.getLong();
+        int shipmentItemId = buffer.getInt();
+        int userId = buffer.getInt();
+        LocalDateTime verifiedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong()), ZoneId.systemDefault());
+        String trackingNumber = readString(buffer);
+        String status = readString(buffer);
+        String notes = readString(buffer);
+        return new Entry(sequence, trackingNumber, shipmentItemId, status, userId >= 0 ? userId : null,
+                verifiedAt, notes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void joinQuietly(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.model.AssignmentItem;
+import com.logistics.logistics.model.InventoryAssignment;
+import com.logistics.logistics.model.Shipment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Moves DELIVERED and CANCELLED shipments and assignments that have been closed
+ * for longer than the configured age, together with their items, into the archive
+ * tables. Each chunk is copied and deleted in its own short transaction with the
+ * hot rows locked by primary key, so a row is never in both tables or in neither,
+ * and no chunk holds locks for long or on another shard's rows. Each run works only on the warehouse shards this instance
+ * holds a lease for, and every chunk is fenced by that lease.
+ * <p>
+ * Lookups by tracking number and assignment id fall back to the archive on a miss.
+ * Archived entities are detached and must not be saved.
+ */
+@Service
+public class ShipmentArchiver {
+    private static final Logger logger = LoggerFactory.getLogger(ShipmentArchiver.class);
+
+    // Candidates are read without locks: the shard predicate is applied after the
+    // index range scan, so locking here would also lock other shards' rows
+    private static final String CLOSED_SHIPMENTS_SQL =
+            "SELECT shipment_id FROM Shipments WHERE status IN ('DELIVERED', 'CANCELLED') AND updated_at < ? " +
+            "AND MOD(origin_warehouse_id, ?) = ? ORDER BY shipment_id LIMIT ?";
+
+    private static final String CLOSED_ASSIGNMENTS_SQL =
+            "SELECT assignment_id FROM InventoryAssignments WHERE status IN ('DELIVERED', 'CANCELLED') " +
+            "AND (completed_at < ? OR (completed_at IS NULL AND assigned_at < ?)) " +
+            "AND MOD(source_warehouse_id, ?) = ? ORDER BY assignment_id LIMIT ?";
+
+    // Then locked by primary key, re-checking that each row is still closed
+    private static final String LOCK_SHIPMENTS_SQL =
+            "SELECT shipment_id FROM Shipments WHERE shipment_id IN %s " +
+            "AND status IN ('DELIVERED', 'CANCELLED') AND updated_at < ? FOR UPDATE";
+
+    private static final String LOCK_ASSIGNMENTS_SQL =
+            "SELECT assignment_id FROM InventoryAssignments WHERE assignment_id IN %s " +
+            "AND status IN ('DELIVERED', 'CANCELLED') " +
+            "AND (completed_at < ? OR (completed_at IS NULL AND assigned_at < ?)) FOR UPDATE";
+
+    // Archive tables have the hot columns in the same order, followed by archived_at
+    private static final String ARCHIVE_SHIPMENT_ITEMS_SQL =
+            "INSERT INTO ShipmentItemsArchive SELECT si.*, NOW() FROM ShipmentItems si WHERE si.shipment_id IN ";
+    private static final String ARCHIVE_SHIPMENTS_SQL =
+            "INSERT INTO ShipmentsArchive SELECT s.*, NOW() FROM Shipments s WHERE s.shipment_id IN ";
+    private static final String DELETE_SHIPMENT_ITEMS_SQL = "DELETE FROM ShipmentItems WHERE shipment_id IN ";
+    private static final String DELETE_SHIPMENTS_SQL = "DELETE FROM Shipments WHERE shipment_id IN ";
+
+    private static final String ARCHIVE_ASSIGNMENT_ITEMS_SQL =
+            "INSERT INTO AssignmentItemsArchive SELECT ai.*, NOW() FROM AssignmentItems ai WHERE ai.assignment_id IN ";
+    private static final String ARCHIVE_ASSIGNMENTS_SQL =
+            "INSERT INTO InventoryAssignmentsArchive SELECT a.*, NOW() FROM InventoryAssignments a " +
+            "WHERE a.assignment_id IN ";
+    private static final String DELETE_ASSIGNMENT_ITEMS_SQL = "DELETE FROM AssignmentItems WHERE assignment_id IN ";
+    private static final String DELETE_ASSIGNMENTS_SQL = "DELETE FROM InventoryAssignments WHERE assignment_id IN ";
+
+    private static final String ARCHIVED_SHIPMENT_SQL = "SELECT * FROM ShipmentsArchive WHERE tracking_number = ?1";
+    private static final String ARCHIVED_ASSIGNMENT_SQL = "SELECT * FROM InventoryAssignmentsArchive WHERE assignment_id = ?1";
+    private static final String ARCHIVED_ASSIGNMENT_ITEMS_SQL =
+            "SELECT * FROM AssignmentItemsArchive WHERE assignment_id = ?1 ORDER BY assignment_item_id";
+    private static final String ARCHIVED_SHIPMENTS_SQL = "SELECT * FROM ShipmentsArchive WHERE tracking_number IN ?1";
+    private static final String ARCHIVED_ASSIGNMENTS_SQL =
+            "SELECT * FROM InventoryAssignmentsArchive WHERE assignment_id IN ?1";
+    private static final String ARCHIVED_ASSIGNMENTS_ITEMS_SQL =
+            "SELECT * FROM AssignmentItemsArchive WHERE assignment_id IN ?1 ORDER BY assignment_item_id";
+
+    private static final String COUNTS_SQL =
+            "SELECT (SELECT COUNT(*) FROM ShipmentsArchive), (SELECT COUNT(*) FROM InventoryAssignmentsArchive)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLeaseManager jobLeaseManager;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final boolean enabled;
+    private final int minAgeDays;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+    private final int shards;
+
+    private final AtomicLong archivedShipments = new AtomicLong();
+    private final AtomicLong archivedAssignments = new AtomicLong();
+    private final AtomicLong archiveLookupHits = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile String lastError;
+
+    public ShipmentArchiver(JdbcTemplate jdbcTemplate,
+                            JobLeaseManager jobLeaseManager,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${logistics.archive.enabled:true}") boolean enabled,
+                            @Value("${logistics.archive.min-age-days:90}") int minAgeDays,
+                            @Value("${logistics.archive.chunk-size:500}") int chunkSize,
+                            @Value("${logistics.archive.max-chunks-per-run:100}") int maxChunksPerRun,
+                            @Value("${logistics.archive.shards:4}") int shards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobLeaseManager = jobLeaseManager;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.minAgeDays = minAgeDays;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.shards = shards;
+    }
+
+    /**
+     * Archives the warehouse shards this instance holds leases for; shipments are
+     * sharded by origin warehouse and assignments by source warehouse, so instances
+     * work on disjoint rows in parallel
+     */
+    @Scheduled(fixedDelayString = "${logistics.archive.interval-ms:3600000}",
+               initialDelayString = "${logistics.archive.initial-delay-ms:300000}")
+    public synchronized void archiveClosed() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(minAgeDays));
+        int shipments = 0;
+        int assignments = 0;
+        List<JobLeaseManager.Lease> leases = jobLeaseManager.acquireShards("archiver", shards);
+        try {
+            for (JobLeaseManager.Lease lease : leases) {
+                for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                    int archived = jobLeaseManager.fenced(lease, () -> archiveShipmentChunk(cutoff, lease.getShard()));
+                    shipments += archived;
+                    if (archived < chunkSize) {
+                        break;
+                    }
+                }
+                for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                    int archived = jobLeaseManager.fenced(lease, () -> archiveAssignmentChunk(cutoff, lease.getShard()));
+                    assignments += archived;
+                    if (archived < chunkSize) {
+                        break;
+                    }
+                }
+            }
+            lastError = null;
+        } catch (DataAccessException | IllegalStateException e) {
+            // The failed chunk rolled back; everything before it stays archived
+            lastError = e.getMessage();
+            logger.warn("Archiving stopped after {} shipments and {} assignments: {}",
+                    shipments, assignments, e.getMessage());
+        }
+        archivedShipments.addAndGet(shipments);
+        archivedAssignments.addAndGet(assignments);
+        lastRunAt = LocalDateTime.now();
+        if (shipments > 0 || assignments > 0) {
+            logger.info("Archived {} shipments and {} assignments closed before {} in {} ms",
+                    shipments, assignments, cutoff, System.currentTimeMillis() - start);
+        }
+    }
+
+    public Optional<Shipment> findArchivedShipmentByTrackingNumber(String trackingNumber) {
+        return readOnlyTransactionTemplate.execute(status -> {
+            List<?> results = entityManager.createNativeQuery(ARCHIVED_SHIPMENT_SQL, Shipment.class)
+                    .setParameter(1, trackingNumber)
+                    .getResultList();
+            if (results.isEmpty()) {
+                return Optional.<Shipment>empty();
+            }
+            Shipment shipment = (Shipment) results.get(0);
+            entityManager.detach(shipment);
+            archiveLookupHits.incrementAndGet();
+            return Optional.of(shipment);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public Optional<InventoryAssignment> findArchivedAssignmentById(Integer assignmentId) {
+        return readOnlyTransactionTemplate.execute(status -> {
+            List<?> results = entityManager.createNativeQuery(ARCHIVED_ASSIGNMENT_SQL, InventoryAssignment.class)
+                    .setParameter(1, assignmentId)
+                    .getResultList();
+            if (results.isEmpty()) {
+                return Optional.<InventoryAssignment>empty();
+            }
+            InventoryAssignment assignment = (InventoryAssignment) results.get(0);
+            // Items resolve their assignment from this persistence context, since the hot row is gone
+            List<AssignmentItem> items = entityManager
+                    .createNativeQuery(ARCHIVED_ASSIGNMENT_ITEMS_SQL, AssignmentItem.class)
+                    .setParameter(1, assignmentId)
+                    .getResultList();
+            entityManager.clear();
+            assignment.setAssignmentItems(items);
+            archiveLookupHits.incrementAndGet();
+            return Optional.of(assignment);
+        });
+    }
+
+    /**
+     * Batch form of {@link #findArchivedShipmentByTrackingNumber}, one query for
+     * all the given tracking numbers
+     */
+    @SuppressWarnings("unchecked")
+    public List<Shipment> findArchivedShipmentsByTrackingNumbers(Collection<String> trackingNumbers) {
+        return readOnlyTransactionTemplate.execute(status -> {
+            List<Shipment> shipments = entityManager.createNativeQuery(ARCHIVED_SHIPMENTS_SQL, Shipment.class)
+                    .setParameter(1, trackingNumbers)
+                    .getResultList();
+            entityManager.clear();
+            archiveLookupHits.addAndGet(shipments.size());
+            return shipments;
+        });
+    }
+
+    /**
+     * Batch form of {@link #findArchivedAssignmentById}, one query for the
+     * assignments and one for all their items
+     */
+    @SuppressWarnings("unchecked")
+    public List<InventoryAssignment> findArchivedAssignmentsByIds(Collection<Integer> assignmentIds) {
+        return readOnlyTransactionTemplate.execute(status -> {
+            List<InventoryAssignment> assignments = entityManager
+                    .createNativeQuery(ARCHIVED_ASSIGNMENTS_SQL, InventoryAssignment.class)
+                    .setParameter(1, assignmentIds)
+                    .getResultList();
+            if (assignments.isEmpty()) {
+                return assignments;
+            }
+            List<AssignmentItem> items = entityManager
+                    .createNativeQuery(ARCHIVED_ASSIGNMENTS_ITEMS_SQL, AssignmentItem.class)
+                    .setParameter(1, assignmentIds)
+                    .getResultList();
+            entityManager.clear();
+            Map<Integer, List<AssignmentItem>> itemsByAssignment = items.stream()
+                    .collect(Collectors.groupingBy(item -> item.getAssignment().getAssignmentId()));
+            assignments.forEach(assignment -> assignment.setAssignmentItems(
+                    itemsByAssignment.getOrDefault(assignment.getAssignmentId(), new ArrayList<>())));
+            archiveLookupHits.addAndGet(assignments.size());
+            return assignments;
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        jdbcTemplate.query(COUNTS_SQL, rs -> {
+            stats.put("shipmentsInArchive", rs.getLong(1));
+            stats.put("assignmentsInArchive", rs.getLong(2));
+        });
+        stats.put("enabled", enabled);
+        stats.put("minAgeDays", minAgeDays);
+        stats.put("archivedShipments", archivedShipments.get());
+        stats.put("archivedAssignments", archivedAssignments.get());
+        stats.put("archiveLookupHits", archiveLookupHits.get());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastError", lastError);
+        return stats;
+    }
+
+    private int archiveShipmentChunk(Timestamp cutoff, int shard) {
+        List<Integer> candidates = jdbcTemplate.queryForList(CLOSED_SHIPMENTS_SQL, Integer.class, cutoff, shards,
+                shard, chunkSize);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        List<Integer> ids = jdbcTemplate.queryForList(String.format(LOCK_SHIPMENTS_SQL, idList(candidates)),
+                Integer.class, cutoff);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String idList = idList(ids);
+        jdbcTemplate.update(ARCHIVE_SHIPMENT_ITEMS_SQL + idList);
+        jdbcTemplate.update(ARCHIVE_SHIPMENTS_SQL + idList);
+        jdbcTemplate.update(DELETE_SHIPMENT_ITEMS_SQL + idList);
+        jdbcTemplate.update(DELETE_SHIPMENTS_SQL + idList);
+        return ids.size();
+    }
+
+    private int archiveAssignmentChunk(Timestamp cutoff, int shard) {
+        List<Integer> candidates = jdbcTemplate.queryForList(CLOSED_ASSIGNMENTS_SQL, Integer.class, cutoff, cutoff,
+                shards, shard, chunkSize);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        List<Integer> ids = jdbcTemplate.queryForList(String.format(LOCK_ASSIGNMENTS_SQL, idList(candidates)),
+                Integer.class, cutoff, cutoff);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String idList = idList(ids);
+        jdbcTemplate.update(ARCHIVE_ASSIGNMENT_ITEMS_SQL + idList);
+        jdbcTemplate.update(ARCHIVE_ASSIGNMENTS_SQL + idList);
+        jdbcTemplate.update(DELETE_ASSIGNMENT_ITEMS_SQL + idList);
+        jdbcTemplate.update(DELETE_ASSIGNMENTS_SQL + idList);
+        return ids.size();
+    }
+
+    private static String idList(List<Integer> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(", ", "(", ")"));
+    }
+}
@@ -0,0 +1,400 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.ShipmentEvent;
+import com.logistics.logistics.dto.ShipmentProcessingResponse;
+import com.logistics.logistics.model.Shipment;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process fan-out of shipment status and processing deltas to SSE subscribers.
+ * Idle subscribers hold no thread and no buffer; events are queued per subscriber
+ * up to a fixed bound and a subscriber that falls behind is disconnected so it
+ * can reconnect and refetch instead of slowing everyone else down. Each write is
+ * bounded by a timeout, so a client that stops reading costs the dispatchers at
+ * most that long before it is dropped.
+ */
+@Service
+public class ShipmentEventHub {
+    private static final Logger logger = LoggerFactory.getLogger(ShipmentEventHub.class);
+
+    private static final String ROUTE_SQL =
+            "SELECT s.origin_warehouse_id, s.destination_warehouse_id, t.driver_id, s.status FROM Shipments s " +
+            "LEFT JOIN Trucks t ON t.truck_id = s.assigned_truck_id WHERE s.tracking_number = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, ShipmentRoute> routes = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher;
+    // Writes run here so a blocked socket holds a sender thread, not a dispatcher
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeat;
+    private final int bufferSize;
+    private final long emitterTimeoutMs;
+    private final long sendTimeoutMs;
+
+    private final AtomicLong publishedEvents = new AtomicLong();
+    private final AtomicLong deliveredEvents = new AtomicLong();
+    private final AtomicLong droppedSubscribers = new AtomicLong();
+
+    public ShipmentEventHub(
+            JdbcTemplate jdbcTemplate,
+            @Value("${logistics.events.subscriber-buffer-size:64}") int bufferSize,
+            @Value("${logistics.events.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+            @Value("${logistics.events.dispatcher-threads:4}") int dispatcherThreads,
+            @Value("${logistics.events.heartbeat-interval-seconds:25}") long heartbeatIntervalSeconds,
+            @Value("${logistics.events.send-timeout-ms:2000}") long sendTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bufferSize = bufferSize;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.dispatcher = Executors.newFixedThreadPool(dispatcherThreads, runnable -> {
+            Thread thread = new Thread(runnable, "shipment-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.senders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "shipment-events-send");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shipment-events-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat.scheduleAtFixedRate(this::sendHeartbeats,
+                heartbeatIntervalSeconds, heartbeatIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public SseEmitter subscribeToTrackingNumber(String trackingNumber) {
+        return subscribe(trackingTopic(trackingNumber));
+    }
+
+    public SseEmitter subscribeToWarehouse(Integer warehouseId) {
+        return subscribe(warehouseTopic(warehouseId));
+    }
+
+    public SseEmitter subscribeToDriver(Integer driverId) {
+        return subscribe(driverTopic(driverId));
+    }
+
+    /**
+     * Publish the current status of a shipment to its tracking number, both
+     * warehouses and the assigned driver
+     */
+    public void publishStatus(Shipment shipment) {
+        if (shipment == null || shipment.getTrackingNumber() == null) {
+            return;
+        }
+
+        ShipmentRoute route = ShipmentRoute.of(shipment);
+        if (shipment.getStatus() == Shipment.ShipmentStatus.DELIVERED
+                || shipment.getStatus() == Shipment.ShipmentStatus.CANCELLED) {
+            routes.remove(shipment.getTrackingNumber());
+        } else {
+            routes.put(shipment.getTrackingNumber(), route);
+        }
+
+        publish(ShipmentEvent.builder()
+                .type(ShipmentEvent.EventType.STATUS)
+                .shipmentId(shipment.getShipmentId())
+                .trackingNumber(shipment.getTrackingNumber())
+                .status(shipment.getStatus())
+                .originWarehouseId(route.originWarehouseId())
+                .destinationWarehouseId(route.destinationWarehouseId())
+                .driverId(route.driverId())
+                .occurredAt(LocalDateTime.now())
+                .build(), route);
+    }
+
+    /**
+     * Publish the processing progress carried by a scan or exception report
+     */
+    public void publishProcessing(ShipmentProcessingResponse response) {
+        if (response == null || response.getTrackingNumber() == null) {
+            return;
+        }
+
+        ShipmentRoute route = routeOf(response.getTrackingNumber());
+        publish(ShipmentEvent.builder()
+                .type(ShipmentEvent.EventType.PROCESSING)
+                .trackingNumber(response.getTrackingNumber())
+                .status(response.getShipmentStatus())
+                .originWarehouseId(route.originWarehouseId())
+                .destinationWarehouseId(route.destinationWarehouseId())
+                .driverId(route.driverId())
+                .processedItems(response.getProcessedItemsCount())
+                .totalItems(response.getTotalItemsCount())
+                .processedWeight(response.getTotalProcessedWeight())
+                .expectedWeight(response.getTotalExpectedWeight())
+                .readyForLoading(response.isReadyForLoading())
+                .occurredAt(LocalDateTime.now())
+                .build(), route);
+    }
+
+    public Map<String, Object> getStats() {
+        int subscriberCount = subscribers.values().stream().mapToInt(Set::size).sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("topics", subscribers.size());
+        stats.put("subscribers", subscriberCount);
+        stats.put("trackedShipments", routes.size());
+        stats.put("publishedEvents", publishedEvents.get());
+        stats.put("deliveredEvents", deliveredEvents.get());
+        stats.put("droppedSubscribers", droppedSubscribers.get());
+        stats.put("subscriberBufferSize", bufferSize);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+
+    private SseEmitter subscribe(String topic) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(topic, emitter, bufferSize);
+
+        subscribers.computeIfAbsent(topic, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+
+        try {
+            // Flush the response headers so the client sees the stream open right away
+            emitter.send(SseEmitter.event().comment("subscribed " + topic));
+        } catch (Exception e) {
+            unsubscribe(subscriber);
+            emitter.completeWithError(e);
+        }
+
+        logger.debug("New subscriber on topic {}", topic);
+        return emitter;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.topic, (topic, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private void publish(ShipmentEvent event, ShipmentRoute route) {
+        publishedEvents.incrementAndGet();
+        deliver(trackingTopic(event.getTrackingNumber()), event);
+        if (route.originWarehouseId() != null) {
+            deliver(warehouseTopic(route.originWarehouseId()), event);
+        }
+        if (route.destinationWarehouseId() != null
+                && !route.destinationWarehouseId().equals(route.originWarehouseId())) {
+            deliver(warehouseTopic(route.destinationWarehouseId()), event);
+        }
+        if (route.driverId() != null) {
+            deliver(driverTopic(route.driverId()), event);
+        }
+    }
+
+    private void deliver(String topic, ShipmentEvent event) {
+        Set<Subscriber> topicSubscribers = subscribers.get(topic);
+        if (topicSubscribers == null) {
+            return;
+        }
+
+        for (Subscriber subscriber : topicSubscribers) {
+            switch (subscriber.offer(event)) {
+                case SCHEDULE -> dispatcher.execute(() -> drain(subscriber));
+                case OVERFLOW -> dropSlowConsumer(subscriber);
+                case QUEUED -> {
+                    // A drain is already running for this subscriber and will pick it up
+                }
+            }
+        }
+    }
+
+    /**
+     * The route of a shipment whose status was not published since startup is
+     * read once and then cached like a published one
+     */
+    private ShipmentRoute routeOf(String trackingNumber) {
+        ShipmentRoute cached = routes.get(trackingNumber);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            List<ShipmentRoute> found = jdbcTemplate.query(ROUTE_SQL, (rs, rowNum) -> {
+                ShipmentRoute route = new ShipmentRoute(rs.getObject(1, Integer.class), rs.getObject(2, Integer.class),
+                        rs.getObject(3, Integer.class));
+                String status = rs.getString(4);
+                if (!Shipment.ShipmentStatus.DELIVERED.name().equals(status)
+                        && !Shipment.ShipmentStatus.CANCELLED.name().equals(status)) {
+                    routes.putIfAbsent(trackingNumber, route);
+                }
+                return route;
+            }, trackingNumber);
+            return found.isEmpty() ? ShipmentRoute.NONE : found.get(0);
+        } catch (DataAccessException e) {
+            logger.debug("Could not load the route of {}: {}", trackingNumber, e.getMessage());
+            return ShipmentRoute.NONE;
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        ShipmentEvent event;
+        while ((event = subscriber.poll()) != null) {
+            if (!send(subscriber, SseEmitter.event().name(event.getType().name()).data(event))) {
+                return;
+            }
+            deliveredEvents.incrementAndGet();
+        }
+    }
+
+    /**
+     * Write to one subscriber, waiting at most the send timeout. A subscriber that
+     * fails or times out is dropped; returns whether the write went through.
+     */
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        Future<?> write;
+        try {
+            write = senders.submit(() -> {
+                subscriber.emitter.send(event);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        try {
+            write.get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            write.cancel(true);
+            droppedSubscribers.incrementAndGet();
+            logger.warn("Dropping subscriber on topic {}: a write took longer than {} ms", subscriber.topic,
+                    sendTimeoutMs);
+            unsubscribe(subscriber);
+            subscriber.emitter.complete();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.debug("Subscriber on topic {} went away: {}", subscriber.topic, e.getMessage());
+            unsubscribe(subscriber);
+            subscriber.emitter.completeWithError(e.getCause() != null ? e.getCause() : e);
+        }
+        return false;
+    }
+
+    private void dropSlowConsumer(Subscriber subscriber) {
+        droppedSubscribers.incrementAndGet();
+        logger.warn("Dropping slow subscriber on topic {}: more than {} events pending", subscriber.topic, bufferSize);
+        unsubscribe(subscriber);
+        subscriber.emitter.complete();
+    }
+
+    private void sendHeartbeats() {
+        for (Set<Subscriber> topicSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : topicSubscribers) {
+                send(subscriber, SseEmitter.event().comment("keep-alive"));
+            }
+        }
+    }
+
+    private static String trackingTopic(String trackingNumber) {
+        return "tracking:" + trackingNumber;
+    }
+
+    private static String warehouseTopic(Integer warehouseId) {
+        return "warehouse:" + warehouseId;
+    }
+
+    private static String driverTopic(Integer driverId) {
+        return "driver:" + driverId;
+    }
+
+    private enum OfferResult {
+        QUEUED,
+        SCHEDULE,
+        OVERFLOW
+    }
+
+    /**
+     * A connected client. The pending queue is only allocated once an event is
+     * actually waiting, so thousands of idle connections cost just the emitter.
+     */
+    private static final class Subscriber {
+        private final String topic;
+        private final SseEmitter emitter;
+        private final int capacity;
+        private ArrayDeque<ShipmentEvent> pending;
+        private boolean draining;
+
+        private Subscriber(String topic, SseEmitter emitter, int capacity) {
+            this.topic = topic;
+            this.emitter = emitter;
+            this.capacity = capacity;
+        }
+
+        private synchronized OfferResult offer(ShipmentEvent event) {
+            if (pending == null) {
+                pending = new ArrayDeque<>();
+            }
+            if (pending.size() >= capacity) {
+                return OfferResult.OVERFLOW;
+            }
+            pending.add(event);
+            if (draining) {
+                return OfferResult.QUEUED;
+            }
+            draining = true;
+            return OfferResult.SCHEDULE;
+        }
+
+        private synchronized ShipmentEvent poll() {
+            ShipmentEvent event = pending == null ? null : pending.poll();
+            if (event == null) {
+                draining = false;
+                pending = null;
+            }
+            return event;
+        }
+    }
+
+    private record ShipmentRoute(Integer originWarehouseId, Integer destinationWarehouseId, Integer driverId) {
+        private static final ShipmentRoute NONE = new ShipmentRoute(null, null, null);
+
+        private static ShipmentRoute of(Shipment shipment) {
+            Integer driverId = null;
+            if (shipment.getAssignedTruck() != null && shipment.getAssignedTruck().getDriver() != null) {
+                driverId = shipment.getAssignedTruck().getDriver().getUserId();
+            }
+            return new ShipmentRoute(
+                    shipment.getOriginWarehouse() != null ? shipment.getOriginWarehouse().getWarehouseId() : null,
+                    shipment.getDestinationWarehouse() != null ? shipment.getDestinationWarehouse().getWarehouseId() : null,
+                    driverId);
+        }
+    }
+}
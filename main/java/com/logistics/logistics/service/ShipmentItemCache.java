@@ -0,0 +1,350 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.model.Shipment;
+import com.logistics.logistics.model.ShipmentItem;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-shipment barcode to ShipmentItem map for shipments that are being processed.
+ * The whole item set is read with one query when processing starts and kept in
+ * step with each scan, so a scan resolves its item without going to the database.
+ * Shipments that turn out not to be processable are remembered for negative-ttl-ms,
+ * so scans against them do not repeat the load query.
+ * <p>
+ * A shipment is only loaded once none of its scans are waiting in the scan journal,
+ * since ShipmentItems does not show them yet. An evicted entry is marked under its
+ * lock, so a scan still holding it falls back to the slow path instead of updating
+ * a copy nobody will load from again.
+ */
+@Service
+public class ShipmentItemCache {
+    private static final Logger logger = LoggerFactory.getLogger(ShipmentItemCache.class);
+
+    private static final String LOAD_SQL =
+            "SELECT s.shipment_id, s.status AS shipment_status, s.total_weight, " +
+            "si.shipment_item_id, si.barcode, si.weight, si.status AS item_status " +
+            "FROM Shipments s JOIN ShipmentItems si ON si.shipment_id = s.shipment_id " +
+            "WHERE s.tracking_number = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScanJournal scanJournal;
+    private final int maxShipments;
+    private final long negativeTtlMs;
+    private final Map<String, CachedShipment> shipments = new ConcurrentHashMap<>();
+    // Tracking number to the time until which it is known not to be processable
+    private final Map<String, Long> unprocessable = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+
+    public ShipmentItemCache(JdbcTemplate jdbcTemplate,
+                             ScanJournal scanJournal,
+                             @Value("${logistics.scan-cache.max-shipments:10000}") int maxShipments,
+                             @Value("${logistics.scan-cache.negative-ttl-ms:30000}") long negativeTtlMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.scanJournal = scanJournal;
+        this.maxShipments = maxShipments;
+        this.negativeTtlMs = negativeTtlMs;
+    }
+
+    @PostConstruct
+    public void listenForJournalConflicts() {
+        scanJournal.onConflict(this::evict);
+    }
+
+    /**
+     * Return the cached item set for a shipment, loading it on first use.
+     * Returns null when the shipment is unknown, has no items, is no longer
+     * being processed, or the cache is full.
+     */
+    public CachedShipment get(String trackingNumber) {
+        CachedShipment cached = shipments.get(trackingNumber);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        Long unprocessableUntil = trackingNumber == null ? null : unprocessable.get(trackingNumber);
+        if (unprocessableUntil != null) {
+            if (unprocessableUntil > System.currentTimeMillis()) {
+                negativeHits.incrementAndGet();
+                return null;
+            }
+            unprocessable.remove(trackingNumber, unprocessableUntil);
+        }
+        return preload(trackingNumber);
+    }
+
+    /**
+     * Load a shipment's item set, typically as it becomes ready for pickup
+     */
+    public CachedShipment preload(String trackingNumber) {
+        if (trackingNumber == null || shipments.size() >= maxShipments) {
+            return null;
+        }
+
+        try {
+            scanJournal.flush(trackingNumber);
+        } catch (IllegalStateException e) {
+            logger.warn("Not caching shipment {}: {}", trackingNumber, e.getMessage());
+            return null;
+        }
+        CachedShipment loaded = load(trackingNumber);
+        if (loaded == null || !isProcessable(loaded.shipmentStatus)) {
+            markUnprocessable(trackingNumber);
+            return null;
+        }
+
+        CachedShipment existing = shipments.putIfAbsent(trackingNumber, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    public void evict(String trackingNumber) {
+        CachedShipment cached = trackingNumber == null ? null : shipments.get(trackingNumber);
+        if (cached == null) {
+            return;
+        }
+        // Waits for a scan in progress on it, whose journal entry a reload then flushes first
+        synchronized (cached) {
+            cached.evicted = true;
+        }
+        if (shipments.remove(trackingNumber, cached)) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Keep the cache in step with a shipment status change
+     */
+    public void onStatusChange(Shipment shipment) {
+        if (shipment == null || shipment.getTrackingNumber() == null) {
+            return;
+        }
+        if (!isProcessable(shipment.getStatus())) {
+            evict(shipment.getTrackingNumber());
+            markUnprocessable(shipment.getTrackingNumber());
+            return;
+        }
+        unprocessable.remove(shipment.getTrackingNumber());
+        if (shipment.getStatus() == Shipment.ShipmentStatus.READY_FOR_PICKUP) {
+            preload(shipment.getTrackingNumber());
+        } else {
+            CachedShipment cached = shipments.get(shipment.getTrackingNumber());
+            if (cached != null) {
+                cached.shipmentStatus = shipment.getStatus();
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("cachedShipments", shipments.size());
+        stats.put("maxShipments", maxShipments);
+        stats.put("hits", hits.get());
+        stats.put("loads", loads.get());
+        stats.put("evictions", evictions.get());
+        stats.put("unprocessableShipments", unprocessable.size());
+        stats.put("negativeHits", negativeHits.get());
+        return stats;
+    }
+
+    private void markUnprocessable(String trackingNumber) {
+        if (negativeTtlMs <= 0) {
+            return;
+        }
+        if (unprocessable.size() >= maxShipments) {
+            long now = System.currentTimeMillis();
+            unprocessable.values().removeIf(until -> until <= now);
+        }
+        if (unprocessable.size() < maxShipments) {
+            unprocessable.put(trackingNumber, System.currentTimeMillis() + negativeTtlMs);
+        }
+    }
+
+    private CachedShipment load(String trackingNumber) {
+        loads.incrementAndGet();
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(LOAD_SQL, trackingNumber);
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Object> first = rows.get(0);
+        CachedShipment cached = new CachedShipment(
+                trackingNumber,
+                ((Number) first.get("shipment_id")).intValue(),
+                Shipment.ShipmentStatus.valueOf((String) first.get("shipment_status")),
+                (BigDecimal) first.get("total_weight"),
+                rows.size());
+        for (Map<String, Object> row : rows) {
+            cached.add(
+                    ((Number) row.get("shipment_item_id")).intValue(),
+                    (String) row.get("barcode"),
+                    (BigDecimal) row.get("weight"),
+                    ShipmentItem.ShipmentItemStatus.valueOf((String) row.get("item_status")));
+        }
+        logger.debug("Cached {} items for shipment {}", rows.size(), trackingNumber);
+        return cached;
+    }
+
+    private static boolean isProcessable(Shipment.ShipmentStatus status) {
+        return status == Shipment.ShipmentStatus.PENDING
+                || status == Shipment.ShipmentStatus.SCHEDULED_FOR_PICKUP
+                || status == Shipment.ShipmentStatus.READY_FOR_PICKUP;
+    }
+
+    /**
+     * Item set of one shipment held in parallel arrays indexed through a barcode map.
+     * Callers synchronize on the instance while reading and updating it.
+     */
+    public static final class CachedShipment {
+        private final String trackingNumber;
+        private final Integer shipmentId;
+        private final BigDecimal totalWeight;
+        private final Map<String, Integer> slots;
+        private final int[] itemIds;
+        private final String[] barcodes;
+        private final BigDecimal[] weights;
+        private final ShipmentItem.ShipmentItemStatus[] statuses;
+        private volatile Shipment.ShipmentStatus shipmentStatus;
+        private boolean evicted;
+        private int size;
+        private int pendingCount;
+
+        private CachedShipment(String trackingNumber, Integer shipmentId, Shipment.ShipmentStatus shipmentStatus,
+                               BigDecimal totalWeight, int capacity) {
+            this.trackingNumber = trackingNumber;
+            this.shipmentId = shipmentId;
+            this.shipmentStatus = shipmentStatus;
+            this.totalWeight = totalWeight;
+            this.slots = new HashMap<>(capacity * 2);
+            this.itemIds = new int[capacity];
+            this.barcodes = new String[capacity];
+            this.weights = new BigDecimal[capacity];
+            this.statuses = new ShipmentItem.ShipmentItemStatus[capacity];
+        }
+
+        private void add(int itemId, String barcode, BigDecimal weight, ShipmentItem.ShipmentItemStatus status) {
+            if (barcode != null) {
+                slots.put(barcode, size);
+            }
+            itemIds[size] = itemId;
+            barcodes[size] = barcode;
+            weights[size] = weight;
+            statuses[size] = status;
+            if (status == ShipmentItem.ShipmentItemStatus.PENDING) {
+                pendingCount++;
+            }
+            size++;
+        }
+
+        /**
+         * Slot of the item with this barcode, or -1 when the barcode is not part of the shipment
+         */
+        public int slotOf(String barcode) {
+            Integer slot = barcode == null ? null : slots.get(barcode);
+            return slot == null ? -1 : slot;
+        }
+
+        public int itemId(int slot) {
+            return itemIds[slot];
+        }
+
+        public BigDecimal weight(int slot) {
+            return weights[slot];
+        }
+
+        public ShipmentItem.ShipmentItemStatus status(int slot) {
+            return statuses[slot];
+        }
+
+        public void updateStatus(int slot, ShipmentItem.ShipmentItemStatus status) {
+            if (statuses[slot] == ShipmentItem.ShipmentItemStatus.PENDING
+                    && status != ShipmentItem.ShipmentItemStatus.PENDING) {
+                pendingCount--;
+            } else if (statuses[slot] != ShipmentItem.ShipmentItemStatus.PENDING
+                    && status == ShipmentItem.ShipmentItemStatus.PENDING) {
+                pendingCount++;
+            }
+            statuses[slot] = status;
+        }
+
+        /**
+         * True once this copy was dropped from the cache; it must no longer be updated
+         */
+        public boolean isEvicted() {
+            return evicted;
+        }
+
+        public String getTrackingNumber() {
+            return trackingNumber;
+        }
+
+        public Integer getShipmentId() {
+            return shipmentId;
+        }
+
+        public Shipment.ShipmentStatus getShipmentStatus() {
+            return shipmentStatus;
+        }
+
+        public int getItemCount() {
+            return size;
+        }
+
+        public int getPendingCount() {
+            return pendingCount;
+        }
+
+        public int getProcessedCount() {
+            return size - pendingCount;
+        }
+
+        public BigDecimal getExpectedWeight() {
+            if (totalWeight != null) {
+                return totalWeight;
+            }
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < size; i++) {
+                if (weights[i] != null) {
+                    total = total.add(weights[i]);
+                }
+            }
+            return total;
+        }
+
+        public BigDecimal getProcessedWeight() {
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < size; i++) {
+                if (weights[i] != null && (statuses[i] == ShipmentItem.ShipmentItemStatus.VERIFIED
+                        || statuses[i] == ShipmentItem.ShipmentItemStatus.LOADED)) {
+                    total = total.add(weights[i]);
+                }
+            }
+            return total;
+        }
+
+        public List<String> getMissingBarcodes() {
+            List<String> missing = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (statuses[i] == ShipmentItem.ShipmentItemStatus.MISSING) {
+                    missing.add(barcodes[i]);
+                }
+            }
+            return missing;
+        }
+    }
+}
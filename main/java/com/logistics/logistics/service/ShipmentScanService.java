@@ -0,0 +1,161 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.ShipmentProcessingRequest;
+import com.logistics.logistics.dto.ShipmentProcessingResponse;
+import com.logistics.logistics.model.Shipment;
+import com.logistics.logistics.model.ShipmentItem;
+import com.logistics.logistics.model.User;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Front door for barcode scans. Scans against a cached shipment are resolved
+ * in memory and written with a single UPDATE; anything the cache cannot decide
+ * on its own (re-scans, the scan that completes a shipment, scans that report a
+ * weight, uncached shipments) goes through ShipmentProcessingService unchanged.
+ * <p>
+ * With the scan journal enabled, fast path scans are acknowledged once they are in
+ * the journal and reach ShipmentItems shortly after. Before any other path reads a
+ * shipment's items, its journaled scans are flushed.
+ */
+@Service
+@RequiredArgsConstructor
+public class ShipmentScanService {
+    private static final Logger logger = LoggerFactory.getLogger(ShipmentScanService.class);
+
+    private static final String UPDATE_ITEM_SQL =
+            "UPDATE ShipmentItems SET status = ?, verified_by = ?, verified_at = ?, notes = COALESCE(?, notes) " +
+            "WHERE shipment_item_id = ? AND status = 'PENDING'";
+
+    private final ShipmentProcessingService shipmentProcessingService;
+    private final ShipmentItemCache shipmentItemCache;
+    private final ScanBarcodeFilter scanBarcodeFilter;
+    private final ScanJournal scanJournal;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShipmentProcessingResponse processShipmentItem(ShipmentProcessingRequest request, User user) {
+        ShipmentItem.ShipmentItemStatus status = request.getStatus() != null
+                ? request.getStatus()
+                : ShipmentItem.ShipmentItemStatus.VERIFIED;
+
+        // A reported weight is validated and recorded by the service, so only weightless scans take the fast path
+        ShipmentProcessingResponse response = request.getWeight() != null ? null
+                : tryFastPath(request.getTrackingNumber(), request.getBarcode(), status, request.getNotes(), user);
+        if (response != null) {
+            return response;
+        }
+
+        scanJournal.flush(request.getTrackingNumber());
+        response = shipmentProcessingService.processShipmentItem(request, user);
+        shipmentItemCache.evict(request.getTrackingNumber());
+        return response;
+    }
+
+    public ShipmentProcessingResponse handleMissingItem(String trackingNumber, String barcode, User user) {
+        ShipmentProcessingResponse response = tryFastPath(trackingNumber, barcode,
+                ShipmentItem.ShipmentItemStatus.MISSING, "Reported missing", user);
+        if (response != null) {
+            return response;
+        }
+
+        scanJournal.flush(trackingNumber);
+        response = shipmentProcessingService.handleMissingItem(trackingNumber, barcode, user);
+        shipmentItemCache.evict(trackingNumber);
+        return response;
+    }
+
+    public ShipmentProcessingResponse handleWeightMismatch(String trackingNumber, BigDecimal actualWeight, User user) {
+        scanJournal.flush(trackingNumber);
+        ShipmentProcessingResponse response = shipmentProcessingService.handleWeightMismatch(trackingNumber, actualWeight, user);
+        shipmentItemCache.evict(trackingNumber);
+        return response;
+    }
+
+    /**
+     * Bring the item cache and the barcode filter in line with a shipment's new status.
+     * Called on the request thread before the change is published, so the next scan
+     * already sees it; a shipment that left processing takes no more fast path scans.
+     */
+    public void onStatusChange(Shipment shipment) {
+        shipmentItemCache.onStatusChange(shipment);
+        scanBarcodeFilter.onStatusChange(shipment);
+    }
+
+    private ShipmentProcessingResponse tryFastPath(String trackingNumber, String barcode,
+                                                   ShipmentItem.ShipmentItemStatus status, String notes,
+                                                   User user) {
+        if (!scanBarcodeFilter.mightBeOnShipment(trackingNumber, barcode)) {
+            return notOnShipment(trackingNumber, barcode);
+        }
+
+        ShipmentItemCache.CachedShipment shipment = shipmentItemCache.get(trackingNumber);
+        if (shipment == null) {
+            return null;
+        }
+
+        synchronized (shipment) {
+            if (shipment.isEvicted()) {
+                return null;
+            }
+            int slot = shipment.slotOf(barcode);
+            if (slot < 0) {
+                // The item may have been added after the shipment was cached
+                shipmentItemCache.evict(trackingNumber);
+                return null;
+            }
+
+            // Re-scans, the first scan and the final scan carry the service's own rules, such as
+            // a shipment status transition, so leave them to it
+            if (shipment.status(slot) != ShipmentItem.ShipmentItemStatus.PENDING
+                    || shipment.getProcessedCount() == 0 || shipment.getPendingCount() <= 1) {
+                return null;
+            }
+
+            LocalDateTime verifiedAt = LocalDateTime.now();
+            if (!scanJournal.append(trackingNumber, shipment.itemId(slot), status.name(), user.getUserId(),
+                    verifiedAt, notes)) {
+                int updated = jdbcTemplate.update(UPDATE_ITEM_SQL, status.name(), user.getUserId(),
+                        Timestamp.valueOf(verifiedAt), notes, shipment.itemId(slot));
+                if (updated == 0) {
+                    logger.warn("Cached item {} of shipment {} was changed elsewhere, reloading", barcode, trackingNumber);
+                    shipmentItemCache.evict(trackingNumber);
+                    return null;
+                }
+            }
+            shipment.updateStatus(slot, status);
+
+            return ShipmentProcessingResponse.builder()
+                    .success(true)
+                    .message("Item " + barcode + " marked as " + status)
+                    .trackingNumber(trackingNumber)
+                    .shipmentStatus(shipment.getShipmentStatus())
+                    .itemBarcode(barcode)
+                    .itemStatus(status)
+                    .itemWeight(shipment.weight(slot))
+                    .totalProcessedWeight(shipment.getProcessedWeight())
+                    .totalExpectedWeight(shipment.getExpectedWeight())
+                    .processedItemsCount(shipment.getProcessedCount())
+                    .totalItemsCount(shipment.getItemCount())
+                    .allItemsProcessed(false)
+                    .readyForLoading(false)
+                    .missingItems(shipment.getMissingBarcodes())
+                    .build();
+        }
+    }
+
+    private ShipmentProcessingResponse notOnShipment(String trackingNumber, String barcode) {
+        return ShipmentProcessingResponse.builder()
+                .success(false)
+                .message("Item with barcode " + barcode + " not found in shipment " + trackingNumber)
+                .trackingNumber(trackingNumber)
+                .itemBarcode(barcode)
+                .build();
+    }
+}
@@ -0,0 +1,274 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.InventoryResponse;
+import com.logistics.logistics.dto.SkuStockTotal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Stock of each SKU summed across warehouses, with the per-warehouse rows behind
+ * it. It is loaded once at startup and then kept current from the ChangeFeed, so
+ * quantity changes made on other instances, or by assignments, shipment processing
+ * and warehouse-delete cascades rather than the inventory endpoints, are seen too.
+ * A changed row is re-read and recomputes only its SKUs; a row gone from Inventory
+ * is dropped, and a row older than the one already held, by updatedAt, is ignored.
+ * SKUs at or below their summed reorder point are also kept sorted by shortage, so
+ * the worst shortages are read off the front without scanning inventory.
+ */
+@Service
+public class SkuStockTotals {
+    private static final Logger logger = LoggerFactory.getLogger(SkuStockTotals.class);
+
+    // Only rows below this bound have their feed_seq, and all of them are committed
+    private static final String FEED_POSITION_SQL = "SELECT last_seq FROM ChangeFeedSequence WHERE id = 1";
+
+    private static final String FEED_SQL =
+            "SELECT feed_seq, entity_id FROM ChangeFeed " +
+            "WHERE feed_seq > ? AND feed_seq <= ? AND entity_type = 'INVENTORY' " +
+            "ORDER BY feed_seq LIMIT ?";
+
+    private static final int MAX_IN_LIST = 1000;
+
+    private final InventoryService inventoryService;
+    private final InventoryKeyLookup inventoryKeyLookup;
+    private final JdbcTemplate jdbcTemplate;
+    private final int feedBatchSize;
+
+    // Written only under this object's lock
+    private final Map<Integer, InventoryResponse> rows = new HashMap<>();
+    private final Map<String, Map<Integer, InventoryResponse>> rowsBySku = new HashMap<>();
+
+    private final Map<String, SkuStockTotal> totals = new ConcurrentHashMap<>();
+    private final Map<String, ShortageKey> shortageKeys = new ConcurrentHashMap<>();
+    private final NavigableSet<ShortageKey> byShortage = new ConcurrentSkipListSet<>();
+    // Last ChangeFeed sequence applied, or -1 while the feed cannot be followed
+    private volatile long feedPosition = -1;
+
+    public SkuStockTotals(InventoryService inventoryService, InventoryKeyLookup inventoryKeyLookup,
+                          JdbcTemplate jdbcTemplate,
+                          @Value("${logistics.stock-totals.feed-batch-size:5000}") int feedBatchSize) {
+        this.inventoryService = inventoryService;
+        this.inventoryKeyLookup = inventoryKeyLookup;
+        this.jdbcTemplate = jdbcTemplate;
+        this.feedBatchSize = feedBatchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        // Read before the snapshot, so changes made while it is read are replayed rather than missed
+        long position = readFeedPosition();
+        rows.clear();
+        rowsBySku.clear();
+        totals.clear();
+        shortageKeys.clear();
+        byShortage.clear();
+        inventoryService.getAllInventory().forEach(this::apply);
+        feedPosition = position;
+        logger.info("SKU stock totals built for {} SKUs from {} inventory rows in {} ms",
+                totals.size(), rows.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Re-read the inventory rows that changed since the last poll, on any instance.
+     * Runs on every instance, since each keeps its own totals.
+     */
+    @Scheduled(fixedDelayString = "${logistics.stock-totals.feed-poll-interval-ms:1000}")
+    public void followChangeFeed() {
+        long position = feedPosition;
+        if (position < 0) {
+            return;
+        }
+        try {
+            Long upperBound = jdbcTemplate.queryForObject(FEED_POSITION_SQL, Long.class);
+            if (upperBound == null || upperBound <= position) {
+                return;
+            }
+            Set<Integer> inventoryIds = new HashSet<>();
+            long[] last = {position};
+            int[] rows = {0};
+            jdbcTemplate.query(FEED_SQL, rs -> {
+                last[0] = rs.getLong(1);
+                rows[0]++;
+                inventoryIds.add(rs.getInt(2));
+            }, position, upperBound, feedBatchSize);
+
+            List<Integer> ids = new ArrayList<>(inventoryIds);
+            for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+                List<Integer> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+                Set<Integer> gone = new HashSet<>(chunk);
+                for (InventoryResponse inventory : inventoryKeyLookup.findByIds(chunk)) {
+                    gone.remove(inventory.getInventoryId());
+                    apply(inventory);
+                }
+                gone.forEach(this::remove);
+            }
+            // A full page may have stopped short of the bound; the rest comes next poll
+            feedPosition = rows[0] >= feedBatchSize ? last[0] : upperBound;
+        } catch (DataAccessException e) {
+            logger.warn("Could not follow the change feed for SKU stock totals, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Add or replace an inventory row, moving it between SKUs if its SKU changed
+     */
+    public synchronized void apply(InventoryResponse inventory) {
+        if (inventory == null || inventory.getInventoryId() == null) {
+            return;
+        }
+        // A row read before the last rebuild, or by an earlier poll, may be older than the one held
+        InventoryResponse held = rows.get(inventory.getInventoryId());
+        if (held != null && inventory.getUpdatedAt() != null && held.getUpdatedAt() != null
+                && inventory.getUpdatedAt().isBefore(held.getUpdatedAt())) {
+            return;
+        }
+        String sku = normalize(inventory.getSku());
+        InventoryResponse previous = sku.isEmpty()
+                ? rows.remove(inventory.getInventoryId())
+                : rows.put(inventory.getInventoryId(), inventory);
+        String previousSku = previous == null ? "" : normalize(previous.getSku());
+        if (!previousSku.isEmpty() && !previousSku.equals(sku)) {
+            unlink(previousSku, inventory.getInventoryId());
+        }
+        if (!sku.isEmpty()) {
+            rowsBySku.computeIfAbsent(sku, key -> new HashMap<>()).put(inventory.getInventoryId(), inventory);
+            recompute(sku);
+        }
+    }
+
+    public synchronized void remove(Integer inventoryId) {
+        InventoryResponse previous = rows.remove(inventoryId);
+        if (previous != null) {
+            unlink(normalize(previous.getSku()), inventoryId);
+        }
+    }
+
+    public SkuStockTotal getTotal(String sku) {
+        return totals.get(normalize(sku));
+    }
+
+    /**
+     * SKUs at or below their reorder point, largest shortage first
+     */
+    public List<SkuStockTotal> getTopShortages(int limit) {
+        List<SkuStockTotal> result = new ArrayList<>(Math.min(limit, byShortage.size()));
+        for (ShortageKey key : byShortage) {
+            if (result.size() >= limit) {
+                break;
+            }
+            SkuStockTotal total = totals.get(key.sku());
+            if (total != null) {
+                result.add(total);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return totals.size();
+    }
+
+    private long readFeedPosition() {
+        try {
+            Long position = jdbcTemplate.queryForObject(FEED_POSITION_SQL, Long.class);
+            return position == null ? 0 : position;
+        } catch (DataAccessException e) {
+            logger.warn("Change feed unavailable, SKU stock totals stay as loaded: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    private void unlink(String sku, Integer inventoryId) {
+        Map<Integer, InventoryResponse> skuRows = rowsBySku.get(sku);
+        if (skuRows == null) {
+            return;
+        }
+        skuRows.remove(inventoryId);
+        if (skuRows.isEmpty()) {
+            rowsBySku.remove(sku);
+        }
+        recompute(sku);
+    }
+
+    private void recompute(String sku) {
+        Map<Integer, InventoryResponse> skuRows = rowsBySku.get(sku);
+        ShortageKey previousKey = shortageKeys.remove(sku);
+        if (previousKey != null) {
+            byShortage.remove(previousKey);
+        }
+        if (skuRows == null) {
+            totals.remove(sku);
+            return;
+        }
+
+        long totalQuantity = 0;
+        long totalReorderPoint = 0;
+        List<SkuStockTotal.WarehouseStock> warehouses = new ArrayList<>(skuRows.size());
+        for (InventoryResponse row : new TreeMap<>(skuRows).values()) {
+            int quantity = Objects.requireNonNullElse(row.getQuantity(), 0);
+            int reorderPoint = Objects.requireNonNullElse(row.getReorderPoint(), 0);
+            totalQuantity += quantity;
+            totalReorderPoint += reorderPoint;
+            warehouses.add(SkuStockTotal.WarehouseStock.builder()
+                    .inventoryId(row.getInventoryId())
+                    .warehouseId(row.getWarehouseId())
+                    .warehouseName(row.getWarehouseName())
+                    .quantity(quantity)
+                    .reorderPoint(reorderPoint)
+                    .belowReorderPoint(quantity <= reorderPoint)
+                    .build());
+        }
+        // Same rule as a single row's needsRestock, applied to the sums
+        boolean belowReorderPoint = totalQuantity <= totalReorderPoint;
+        long shortage = totalReorderPoint - totalQuantity;
+        totals.put(sku, SkuStockTotal.builder()
+                .sku(sku)
+                .totalQuantity(totalQuantity)
+                .totalReorderPoint(totalReorderPoint)
+                .shortage(Math.max(shortage, 0))
+                .belowReorderPoint(belowReorderPoint)
+                .warehouses(warehouses)
+                .build());
+        if (belowReorderPoint) {
+            ShortageKey key = new ShortageKey(shortage, sku);
+            shortageKeys.put(sku, key);
+            byShortage.add(key);
+        }
+    }
+
+    private static String normalize(String sku) {
+        return sku == null ? "" : sku.trim();
+    }
+
+    private record ShortageKey(long shortage, String sku) implements Comparable<ShortageKey> {
+        private static final Comparator<ShortageKey> ORDER = Comparator
+                .comparingLong(ShortageKey::shortage).reversed()
+                .thenComparing(ShortageKey::sku);
+
+        @Override
+        public int compareTo(ShortageKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
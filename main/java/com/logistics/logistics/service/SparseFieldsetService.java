@@ -0,0 +1,53 @@
+package com.logistics.logistics.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Answers {@code fields=} requests with a JPQL projection of just the requested
+ * columns, so neither the query nor the response carries the rest of the entity
+ * graph. Each row comes back as a map holding exactly the requested fields in
+ * request order.
+ */
+@Service
+public class SparseFieldsetService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Rows matching the condition, a JPQL boolean expression over the projection's
+     * alias with named parameters, ordered by id
+     */
+    public List<Map<String, Object>> find(FieldProjection projection, String fields, String condition,
+                                          Map<String, Object> parameters) {
+        List<String> names = projection.parse(fields);
+        TypedQuery<Tuple> query = entityManager.createQuery(projection.toJpql(names, condition), Tuple.class);
+        parameters.forEach(query::setParameter);
+        return query.getResultList().stream().map(tuple -> toMap(names, tuple)).toList();
+    }
+
+    public List<Map<String, Object>> findAll(FieldProjection projection, String fields) {
+        return find(projection, fields, null, Map.of());
+    }
+
+    public Optional<Map<String, Object>> findById(FieldProjection projection, String fields, Object id) {
+        return find(projection, fields, projection.getIdPath() + " = :id", Map.of("id", id)).stream().findFirst();
+    }
+
+    private static Map<String, Object> toMap(List<String> names, Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            row.put(names.get(i), tuple.get(i));
+        }
+        return row;
+    }
+}
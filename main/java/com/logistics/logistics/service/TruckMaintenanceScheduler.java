@@ -0,0 +1,293 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.model.Truck;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Day-granularity timer wheel keyed by Truck.nextMaintenanceDate. Each slot holds
+ * the trucks due on one day of the coming {@value #WHEEL_DAYS} days; dates further
+ * out wait in an overflow heap and move onto the wheel as the horizon reaches them.
+ * A tick only touches the slot for the day that just started, so its cost depends
+ * on how many trucks come due that day and not on the size of the fleet.
+ * <p>
+ * Due trucks that are AVAILABLE are moved to MAINTENANCE; trucks that are out on a
+ * job are moved when they next report AVAILABLE. Until their next maintenance date
+ * is pushed forward, due trucks are dropped from availability results.
+ */
+@Service
+public class TruckMaintenanceScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(TruckMaintenanceScheduler.class);
+
+    private static final int WHEEL_DAYS = 512;
+    private static final int WHEEL_MASK = WHEEL_DAYS - 1;
+
+    private static final String MAINTENANCE_LEASE = "truck-maintenance";
+
+    private static final String SCHEDULE_SQL =
+            "SELECT truck_id, next_maintenance_date, status FROM Trucks WHERE next_maintenance_date IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TruckService truckService;
+    private final JobLeaseManager jobLeaseManager;
+
+    // Wheel, overflow and currentDay are guarded by this
+    @SuppressWarnings("unchecked")
+    private final Set<Integer>[] wheel = new Set[WHEEL_DAYS];
+    private final PriorityQueue<long[]> overflow = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+    private final Map<Integer, Long> dueDays = new ConcurrentHashMap<>();
+    private final Set<Integer> dueTrucks = ConcurrentHashMap.newKeySet();
+    private final AtomicLong movedToMaintenance = new AtomicLong();
+    private long currentDay;
+    // Fencing token of the maintenance lease as of the last tick; a new one means this instance just took over
+    private volatile long leaseToken = -1;
+
+    public TruckMaintenanceScheduler(JdbcTemplate jdbcTemplate, TruckService truckService,
+                                     JobLeaseManager jobLeaseManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.truckService = truckService;
+        this.jobLeaseManager = jobLeaseManager;
+        for (int slot = 0; slot < WHEEL_DAYS; slot++) {
+            wheel[slot] = new HashSet<>();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Integer> dueNow = new ArrayList<>();
+        Map<Integer, String> statuses = new HashMap<>();
+        synchronized (this) {
+            for (Set<Integer> slot : wheel) {
+                slot.clear();
+            }
+            overflow.clear();
+            dueDays.clear();
+            dueTrucks.clear();
+            currentDay = today();
+            jdbcTemplate.query(SCHEDULE_SQL, rs -> {
+                int truckId = rs.getInt(1);
+                long dueDay = rs.getDate(2).toLocalDate().toEpochDay();
+                if (place(truckId, dueDay)) {
+                    dueNow.add(truckId);
+                    statuses.put(truckId, rs.getString(3));
+                }
+            });
+        }
+
+        // Only idle trucks are touched here; busy ones are caught when they return. Every
+        // instance keeps the wheel, but only the lease holder flips trucks in the background.
+        jobLeaseManager.acquire(MAINTENANCE_LEASE).ifPresent(lease -> {
+            leaseToken = lease.getToken();
+            dueNow.stream()
+                    .filter(truckId -> Truck.TruckStatus.AVAILABLE.name().equals(statuses.get(truckId)))
+                    .forEach(this::moveToMaintenance);
+        });
+        logger.info("Maintenance schedule built for {} trucks, {} already due, in {} ms",
+                dueDays.size(), dueNow.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Advance the wheel to today. Runs every minute but does nothing until the date changes.
+     * The wheel advances on every instance; due trucks are flipped by the lease holder,
+     * which on taking over also flips whatever came due while no one held the lease.
+     */
+    @Scheduled(fixedDelayString = "${logistics.maintenance.tick-interval-ms:60000}",
+               initialDelayString = "${logistics.maintenance.tick-interval-ms:60000}")
+    public void tick() {
+        List<Integer> due = new ArrayList<>();
+        synchronized (this) {
+            long today = today();
+            while (currentDay < today) {
+                currentDay++;
+                while (!overflow.isEmpty() && overflow.peek()[0] < currentDay + WHEEL_DAYS) {
+                    long[] entry = overflow.poll();
+                    if (Long.valueOf(entry[0]).equals(dueDays.get((int) entry[1]))) {
+                        wheel[(int) (entry[0] & WHEEL_MASK)].add((int) entry[1]);
+                    }
+                }
+                Set<Integer> slot = wheel[(int) (currentDay & WHEEL_MASK)];
+                for (Integer truckId : slot) {
+                    if (Long.valueOf(currentDay).equals(dueDays.get(truckId))) {
+                        due.add(truckId);
+                        dueTrucks.add(truckId);
+                    }
+                }
+                slot.clear();
+            }
+        }
+
+        Optional<JobLeaseManager.Lease> lease = jobLeaseManager.acquire(MAINTENANCE_LEASE);
+        if (lease.isEmpty()) {
+            return;
+        }
+        if (lease.get().getToken() != leaseToken) {
+            leaseToken = lease.get().getToken();
+            due = new ArrayList<>(dueTrucks);
+        }
+        LocalDate today = LocalDate.now();
+        for (Integer truckId : due) {
+            truckService.getTruckById(truckId)
+                    .filter(truck -> stillDue(truck, today))
+                    .filter(truck -> truck.getStatus() == Truck.TruckStatus.AVAILABLE)
+                    .ifPresent(truck -> moveToMaintenance(truck.getTruckId()));
+        }
+        if (!due.isEmpty()) {
+            logger.info("{} trucks came due for maintenance", due.size());
+        }
+    }
+
+    /**
+     * Reschedule a truck after it was created or edited. A due truck that is
+     * AVAILABLE goes straight to MAINTENANCE.
+     */
+    public void onTruckSaved(Truck truck) {
+        if (truck == null || truck.getTruckId() == null) {
+            return;
+        }
+        boolean due;
+        synchronized (this) {
+            unschedule(truck.getTruckId());
+            due = truck.getNextMaintenanceDate() != null
+                    && place(truck.getTruckId(), truck.getNextMaintenanceDate().toEpochDay());
+        }
+        if (due && truck.getStatus() == Truck.TruckStatus.AVAILABLE) {
+            moveToMaintenance(truck.getTruckId());
+            truck.setStatus(Truck.TruckStatus.MAINTENANCE);
+        }
+    }
+
+    /**
+     * Catch a due truck that reports back as AVAILABLE
+     */
+    public void onTruckStatusChanged(Integer truckId, Truck.TruckStatus status) {
+        if (status == Truck.TruckStatus.AVAILABLE && isDue(truckId)) {
+            moveToMaintenance(truckId);
+        }
+    }
+
+    public synchronized void onTruckDeleted(Integer truckId) {
+        unschedule(truckId);
+    }
+
+    public boolean isDue(Integer truckId) {
+        Long dueDay = dueDays.get(truckId);
+        return dueDay != null && dueDay <= today();
+    }
+
+    /**
+     * Availability results without the trucks that are due for maintenance
+     */
+    public List<Truck> withoutDueTrucks(List<Truck> trucks) {
+        return trucks.stream().filter(truck -> !isDue(truck.getTruckId())).toList();
+    }
+
+    /**
+     * Trucks due within the given number of days, read from the wheel slots
+     * rather than by scanning the fleet
+     */
+    public synchronized Map<Integer, LocalDate> getDueWithin(int days) {
+        Map<Integer, LocalDate> due = new HashMap<>();
+        long today = today();
+        for (Integer truckId : dueTrucks) {
+            Long dueDay = dueDays.get(truckId);
+            if (dueDay != null) {
+                due.put(truckId, LocalDate.ofEpochDay(dueDay));
+            }
+        }
+        int horizon = Math.min(days, WHEEL_DAYS - 1);
+        for (long day = currentDay + 1; day <= today + horizon; day++) {
+            for (Integer truckId : wheel[(int) (day & WHEEL_MASK)]) {
+                if (Long.valueOf(day).equals(dueDays.get(truckId))) {
+                    due.put(truckId, LocalDate.ofEpochDay(day));
+                }
+            }
+        }
+        return due;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("scheduledTrucks", dueDays.size());
+        stats.put("dueTrucks", dueTrucks.size());
+        synchronized (this) {
+            stats.put("overflowEntries", overflow.size());
+            stats.put("currentDay", LocalDate.ofEpochDay(currentDay));
+        }
+        stats.put("movedToMaintenance", movedToMaintenance.get());
+        return stats;
+    }
+
+    /**
+     * Put a truck on the wheel or the overflow heap. Returns true when the date has
+     * already been reached, in which case nothing is queued.
+     */
+    private boolean place(int truckId, long dueDay) {
+        dueDays.put(truckId, dueDay);
+        if (dueDay <= currentDay) {
+            dueTrucks.add(truckId);
+            return true;
+        }
+        if (dueDay - currentDay < WHEEL_DAYS) {
+            wheel[(int) (dueDay & WHEEL_MASK)].add(truckId);
+        } else {
+            overflow.add(new long[]{dueDay, truckId});
+        }
+        return false;
+    }
+
+    private void unschedule(int truckId) {
+        Long previous = dueDays.remove(truckId);
+        dueTrucks.remove(truckId);
+        if (previous != null && previous > currentDay && previous - currentDay < WHEEL_DAYS) {
+            wheel[(int) (previous & WHEEL_MASK)].remove(truckId);
+        }
+        // Overflow entries are dropped lazily when they no longer match dueDays
+    }
+
+    /**
+     * The wheel only hears about saves made through this instance, so a date pushed
+     * forward elsewhere is caught here from the loaded row and rescheduled from it.
+     */
+    private boolean stillDue(Truck truck, LocalDate today) {
+        LocalDate nextMaintenance = truck.getNextMaintenanceDate();
+        if (nextMaintenance != null && !nextMaintenance.isAfter(today)) {
+            return true;
+        }
+        synchronized (this) {
+            unschedule(truck.getTruckId());
+            if (nextMaintenance != null) {
+                place(truck.getTruckId(), nextMaintenance.toEpochDay());
+            }
+        }
+        return false;
+    }
+
+    private void moveToMaintenance(Integer truckId) {
+        if (truckService.updateTruckStatus(truckId, Truck.TruckStatus.MAINTENANCE)) {
+            movedToMaintenance.incrementAndGet();
+            logger.info("Truck {} is due for maintenance and was moved to MAINTENANCE", truckId);
+        }
+    }
+
+    private static long today() {
+        return LocalDate.now().toEpochDay();
+    }
+}
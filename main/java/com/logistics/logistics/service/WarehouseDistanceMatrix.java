@@ -0,0 +1,636 @@
+package com.logistics.logistics.service;
+
+import com.logistics.logistics.dto.WarehouseDistance;
+import com.logistics.logistics.dto.WarehouseLink;
+import com.logistics.logistics.model.Warehouse;
+import com.logistics.logistics.repository.WarehouseRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * All-pairs road distance and travel time between warehouses, held in two flat
+ * row-major float arrays so a lookup is one map get and one array read. A published
+ * matrix is never written: updates are made to a copy that is then swapped in, so
+ * a lookup never sees a distance and a travel time from different versions.
+ * <p>
+ * Direct costs come from imported WarehouseLinks where present, otherwise from the
+ * great-circle distance between "lat,lng" coordinates found in the warehouse location
+ * times a road factor. Links are one-way, like their (from, to) key, so a distance
+ * and its reverse can differ. When links exist, shortest paths are closed over the
+ * graph. Adding a warehouse, a moved warehouse when all costs are coordinate based,
+ * or a link no longer than the cost it replaces is folded in incrementally in O(n^2).
+ * Anything that can make a path longer, including a deleted warehouse, queues a full
+ * rebuild on a background thread, which swaps the new matrix in when done.
+ */
+@Service
+public class WarehouseDistanceMatrix {
+    private static final Logger logger = LoggerFactory.getLogger(WarehouseDistanceMatrix.class);
+
+    private static final String LINKS_SQL =
+            "SELECT from_warehouse_id, to_warehouse_id, distance_km, travel_minutes FROM WarehouseLinks";
+
+    private static final String UPSERT_LINK_SQL =
+            "INSERT INTO WarehouseLinks (from_warehouse_id, to_warehouse_id, distance_km, travel_minutes) " +
+            "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE distance_km = VALUES(distance_km), " +
+            "travel_minutes = VALUES(travel_minutes)";
+
+    private static final Pattern COORDINATES =
+            Pattern.compile("(-?\\d{1,2}(?:\\.\\d+)?)\\s*,\\s*(-?\\d{1,3}(?:\\.\\d+)?)");
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final int MIN_CAPACITY = 64;
+    private static final int PARALLEL_THRESHOLD = 256;
+    private static final float UNREACHABLE = Float.POSITIVE_INFINITY;
+
+    private final WarehouseRepository warehouseRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final double roadFactor;
+    private final double averageSpeedKmh;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "distance-matrix-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    // One-way link costs keyed by (from, to) warehouse id; mutated and replaced under this
+    private volatile Map<Long, float[]> links = new HashMap<>();
+    private volatile Matrix matrix = new Matrix(MIN_CAPACITY);
+    // Bumped under this by every change made in place, so a rebuild that started
+    // before one knows its result is already stale
+    private long version;
+    private volatile long lastRebuildMillis;
+    private volatile long fullRebuilds;
+    private volatile long incrementalUpdates;
+
+    public WarehouseDistanceMatrix(WarehouseRepository warehouseRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   @Value("${logistics.distance.road-factor:1.3}") double roadFactor,
+                                   @Value("${logistics.distance.average-speed-kmh:60}") double averageSpeedKmh) {
+        this.warehouseRepository = warehouseRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.roadFactor = roadFactor;
+        this.averageSpeedKmh = averageSpeedKmh;
+    }
+
+    /**
+     * Build the matrix from the database and swap it in. The O(n^3) path closure runs
+     * without holding the monitor; if anything changed the matrix in place meanwhile,
+     * the result is dropped and another rebuild is queued.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long startVersion;
+        synchronized (this) {
+            startVersion = version;
+        }
+        Map<Long, float[]> nextLinks = new HashMap<>();
+        jdbcTemplate.query(LINKS_SQL, rs -> {
+            nextLinks.put(linkKey(rs.getInt(1), rs.getInt(2)), new float[]{rs.getFloat(3), rs.getFloat(4)});
+        });
+
+        List<Warehouse> warehouses = warehouseRepository.findAll();
+        Matrix next = new Matrix(Math.max(MIN_CAPACITY, warehouses.size() + warehouses.size() / 4));
+        for (Warehouse warehouse : warehouses) {
+            int slot = next.size++;
+            next.warehouseIds[slot] = warehouse.getWarehouseId();
+            setCoordinates(next, slot, warehouse.getLocation());
+        }
+        for (int i = 0; i < next.size; i++) {
+            for (int j = 0; j < next.size; j++) {
+                writeDirect(next, nextLinks, i, j);
+            }
+        }
+        if (!nextLinks.isEmpty()) {
+            closePaths(next);
+        }
+        for (int slot = 0; slot < next.size; slot++) {
+            next.slots.put(next.warehouseIds[slot], slot);
+        }
+
+        synchronized (this) {
+            if (version != startVersion) {
+                logger.debug("Distance matrix changed during a rebuild; rebuilding again");
+                requestRebuild();
+                return;
+            }
+            links = nextLinks;
+            matrix = next;
+            version++;
+        }
+        fullRebuilds++;
+        lastRebuildMillis = System.currentTimeMillis() - start;
+        logger.info("Distance matrix built for {} warehouses and {} links in {} ms",
+                next.size, nextLinks.size(), lastRebuildMillis);
+    }
+
+    /**
+     * Queue a rebuild on the background thread; requests made while one is queued
+     * are folded into it
+     */
+    public void requestRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    logger.error("Distance matrix rebuild failed", e);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Fold a created or updated warehouse into the matrix
+     */
+    public synchronized void onWarehouseSaved(Integer warehouseId, String location) {
+        if (warehouseId == null) {
+            return;
+        }
+        Matrix current = matrix;
+        Integer slot = current.slots.get(warehouseId);
+        if (slot == null) {
+            addWarehouse(current, warehouseId, location);
+            return;
+        }
+
+        double[] coordinates = parseCoordinates(location);
+        if (Double.compare(coordinates[0], current.latitudes[slot]) == 0
+                && Double.compare(coordinates[1], current.longitudes[slot]) == 0) {
+            return;
+        }
+        if (!links.isEmpty()) {
+            // Paths through the old position may have become longer, which cannot be patched in place
+            version++;
+            requestRebuild();
+            return;
+        }
+        Matrix next = current.copy();
+        next.latitudes[slot] = coordinates[0];
+        next.longitudes[slot] = coordinates[1];
+        for (int other = 0; other < next.size; other++) {
+            writeDirect(next, links, slot, other);
+            writeDirect(next, links, other, slot);
+        }
+        matrix = next;
+        version++;
+        incrementalUpdates++;
+    }
+
+    /**
+     * Take a deleted warehouse out of lookups at once. Paths that went through it can
+     * only get longer, so the rest of the matrix is rebuilt in the background; its
+     * links are already gone from the database by cascade.
+     */
+    public synchronized void onWarehouseDeleted(Integer warehouseId) {
+        if (warehouseId == null || matrix.slots.remove(warehouseId) == null) {
+            return;
+        }
+        links.keySet().removeIf(key -> (int) (key >>> 32) == warehouseId || key.intValue() == warehouseId);
+        version++;
+        requestRebuild();
+    }
+
+    /**
+     * Store road links and fold them into the matrix. A link is one-way unless
+     * twoWay is set, in which case the reverse direction is stored with the same
+     * costs; travel time defaults to distance at the configured average speed.
+     * Returns the number of one-way links stored.
+     */
+    public synchronized int importLinks(List<WarehouseLink> requested) {
+        List<WarehouseLink> imported = new ArrayList<>(requested.size());
+        for (WarehouseLink link : requested) {
+            imported.add(link);
+            if (Boolean.TRUE.equals(link.getTwoWay()) && link.getFromWarehouseId() != null
+                    && link.getToWarehouseId() != null) {
+                imported.add(WarehouseLink.builder()
+                        .fromWarehouseId(link.getToWarehouseId())
+                        .toWarehouseId(link.getFromWarehouseId())
+                        .distanceKm(link.getDistanceKm())
+                        .travelMinutes(link.getTravelMinutes())
+                        .build());
+            }
+        }
+        for (WarehouseLink link : imported) {
+            if (link.getFromWarehouseId() == null || link.getToWarehouseId() == null) {
+                throw new IllegalArgumentException("Both warehouse ids are required for a link");
+            }
+            if (link.getFromWarehouseId().equals(link.getToWarehouseId())) {
+                throw new IllegalArgumentException("A link must connect two different warehouses");
+            }
+            if (link.getDistanceKm() == null || link.getDistanceKm() <= 0) {
+                throw new IllegalArgumentException("Link distance must be positive");
+            }
+        }
+
+        jdbcTemplate.batchUpdate(UPSERT_LINK_SQL, imported, imported.size(), (statement, link) -> {
+            statement.setInt(1, link.getFromWarehouseId());
+            statement.setInt(2, link.getToWarehouseId());
+            statement.setDouble(3, link.getDistanceKm());
+            statement.setDouble(4, travelMinutesOf(link));
+        });
+
+        Matrix current = matrix;
+        Matrix next = null;
+        boolean needsRebuild = false;
+        for (WarehouseLink link : imported) {
+            float distance = link.getDistanceKm().floatValue();
+            float minutes = (float) travelMinutesOf(link);
+            // A new link replaces the coordinate-based cost of its pair, which may have been shorter
+            float[] replaced = coordinateCost(current, link.getFromWarehouseId(), link.getToWarehouseId());
+            float[] previous = putLink(link.getFromWarehouseId(), link.getToWarehouseId(), distance, minutes);
+            if (previous != null) {
+                replaced = previous;
+            }
+            if (replaced != null && (distance > replaced[0] || minutes > replaced[1])) {
+                needsRebuild = true;
+            } else if (!needsRebuild) {
+                if (next == null) {
+                    next = current.copy();
+                }
+                relaxLink(next, link.getFromWarehouseId(), link.getToWarehouseId(), distance, minutes);
+            }
+        }
+        if (next != null) {
+            matrix = next;
+        }
+        version++;
+        if (needsRebuild) {
+            requestRebuild();
+        } else {
+            incrementalUpdates++;
+        }
+        return imported.size();
+    }
+
+    /**
+     * Road distance in km, or positive infinity when either warehouse is unknown or
+     * no route exists
+     */
+    public double distanceKm(int fromWarehouseId, int toWarehouseId) {
+        Matrix current = matrix;
+        Integer from = current.slots.get(fromWarehouseId);
+        Integer to = current.slots.get(toWarehouseId);
+        if (from == null || to == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return current.distanceKm[from * current.capacity + to];
+    }
+
+    /**
+     * Travel time in minutes along the shortest route, or positive infinity when
+     * there is none
+     */
+    public double travelMinutes(int fromWarehouseId, int toWarehouseId) {
+        Matrix current = matrix;
+        Integer from = current.slots.get(fromWarehouseId);
+        Integer to = current.slots.get(toWarehouseId);
+        if (from == null || to == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return current.travelMinutes[from * current.capacity + to];
+    }
+
+    public Optional<WarehouseDistance> getDistance(Integer fromWarehouseId, Integer toWarehouseId) {
+        Matrix current = matrix;
+        Integer from = current.slots.get(fromWarehouseId);
+        Integer to = current.slots.get(toWarehouseId);
+        if (from == null || to == null) {
+            return Optional.empty();
+        }
+        return Optional.of(toDistance(current, from, to));
+    }
+
+    /**
+     * Reachable warehouses ordered by road distance from the given one
+     */
+    public List<WarehouseDistance> getNearest(Integer fromWarehouseId, int limit) {
+        Matrix current = matrix;
+        Integer from = current.slots.get(fromWarehouseId);
+        if (from == null) {
+            return List.of();
+        }
+        int row = from * current.capacity;
+        List<Integer> candidates = new ArrayList<>();
+        for (Integer slot : current.slots.values()) {
+            if (slot.intValue() != from && current.distanceKm[row + slot] != UNREACHABLE) {
+                candidates.add(slot);
+            }
+        }
+        return candidates.stream()
+                .sorted(Comparator.comparingDouble(slot -> current.distanceKm[row + slot]))
+                .limit(limit)
+                .map(slot -> toDistance(current, from, slot))
+                .toList();
+    }
+
+    public Map<String, Object> getStats() {
+        Matrix current = matrix;
+        long withCoordinates = IntStream.range(0, current.size)
+                .filter(slot -> !Double.isNaN(current.latitudes[slot]))
+                .count();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("warehouses", current.slots.size());
+        stats.put("warehousesWithCoordinates", withCoordinates);
+        stats.put("links", links.size());
+        stats.put("capacity", current.capacity);
+        stats.put("matrixBytes", 2L * current.capacity * current.capacity * Float.BYTES);
+        stats.put("fullRebuilds", fullRebuilds);
+        stats.put("incrementalUpdates", incrementalUpdates);
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        return stats;
+    }
+
+    private void addWarehouse(Matrix current, int warehouseId, String location) {
+        Matrix target = current.size == current.capacity
+                ? current.grow(current.capacity + current.capacity / 2)
+                : current.copy();
+        int slot = target.size;
+        target.warehouseIds[slot] = warehouseId;
+        setCoordinates(target, slot, location);
+        for (int other = 0; other <= slot; other++) {
+            writeDirect(target, links, slot, other);
+            writeDirect(target, links, other, slot);
+        }
+
+        if (!links.isEmpty()) {
+            int capacity = target.capacity;
+            float[] distance = target.distanceKm;
+            float[] minutes = target.travelMinutes;
+            int newRow = slot * capacity;
+            // Shortest paths out of and into the new warehouse via its direct neighbours
+            for (int k = 0; k < slot; k++) {
+                float out = distance[newRow + k];
+                if (out != UNREACHABLE) {
+                    int kRow = k * capacity;
+                    for (int j = 0; j < slot; j++) {
+                        float candidate = out + distance[kRow + j];
+                        if (candidate < distance[newRow + j]) {
+                            distance[newRow + j] = candidate;
+                            minutes[newRow + j] = minutes[newRow + k] + minutes[kRow + j];
+                        }
+                    }
+                }
+                float in = distance[k * capacity + slot];
+                if (in != UNREACHABLE) {
+                    for (int i = 0; i < slot; i++) {
+                        float candidate = distance[i * capacity + k] + in;
+                        if (candidate < distance[i * capacity + slot]) {
+                            distance[i * capacity + slot] = candidate;
+                            minutes[i * capacity + slot] = minutes[i * capacity + k] + minutes[k * capacity + slot];
+                        }
+                    }
+                }
+            }
+            // Existing pairs that are now shorter through the new warehouse
+            for (int i = 0; i < slot; i++) {
+                float toNew = distance[i * capacity + slot];
+                if (toNew == UNREACHABLE) {
+                    continue;
+                }
+                int iRow = i * capacity;
+                for (int j = 0; j < slot; j++) {
+                    float candidate = toNew + distance[newRow + j];
+                    if (candidate < distance[iRow + j]) {
+                        distance[iRow + j] = candidate;
+                        minutes[iRow + j] = minutes[iRow + slot] + minutes[newRow + j];
+                    }
+                }
+            }
+        }
+
+        target.size++;
+        target.slots.put(warehouseId, slot);
+        matrix = target;
+        version++;
+        incrementalUpdates++;
+    }
+
+    /**
+     * Relax every pair against a new or shortened one-way link in O(n^2)
+     */
+    private void relaxLink(Matrix current, int fromWarehouseId, int toWarehouseId, float distanceKm, float minutes) {
+        Integer a = current.slots.get(fromWarehouseId);
+        Integer b = current.slots.get(toWarehouseId);
+        if (a == null || b == null) {
+            return;
+        }
+        int capacity = current.capacity;
+        float[] distance = current.distanceKm;
+        float[] time = current.travelMinutes;
+        int bRow = b * capacity;
+        for (int i = 0; i < current.size; i++) {
+            int iRow = i * capacity;
+            float toA = distance[iRow + a];
+            if (toA == UNREACHABLE) {
+                continue;
+            }
+            float minutesToA = time[iRow + a];
+            for (int j = 0; j < current.size; j++) {
+                float viaAB = toA + distanceKm + distance[bRow + j];
+                if (viaAB < distance[iRow + j]) {
+                    distance[iRow + j] = viaAB;
+                    time[iRow + j] = minutesToA + minutes + time[bRow + j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Floyd-Warshall over the direct costs. Row k and column k do not change while k
+     * is the intermediate, so the rows can be relaxed in parallel.
+     */
+    private void closePaths(Matrix target) {
+        int n = target.size;
+        int capacity = target.capacity;
+        float[] distance = target.distanceKm;
+        float[] minutes = target.travelMinutes;
+        for (int k = 0; k < n; k++) {
+            int kRow = k * capacity;
+            int intermediate = k;
+            IntStream rows = IntStream.range(0, n);
+            if (n >= PARALLEL_THRESHOLD) {
+                rows = rows.parallel();
+            }
+            rows.forEach(i -> {
+                int iRow = i * capacity;
+                float toK = distance[iRow + intermediate];
+                if (toK == UNREACHABLE) {
+                    return;
+                }
+                float minutesToK = minutes[iRow + intermediate];
+                for (int j = 0; j < n; j++) {
+                    float candidate = toK + distance[kRow + j];
+                    if (candidate < distance[iRow + j]) {
+                        distance[iRow + j] = candidate;
+                        minutes[iRow + j] = minutesToK + minutes[kRow + j];
+                    }
+                }
+            });
+        }
+    }
+
+    private void writeDirect(Matrix target, Map<Long, float[]> links, int i, int j) {
+        int cell = i * target.capacity + j;
+        if (i == j) {
+            target.distanceKm[cell] = 0;
+            target.travelMinutes[cell] = 0;
+            return;
+        }
+        float[] link = links.get(linkKey(target.warehouseIds[i], target.warehouseIds[j]));
+        if (link != null) {
+            target.distanceKm[cell] = link[0];
+            target.travelMinutes[cell] = link[1];
+            return;
+        }
+        if (Double.isNaN(target.latitudes[i]) || Double.isNaN(target.latitudes[j])) {
+            target.distanceKm[cell] = UNREACHABLE;
+            target.travelMinutes[cell] = UNREACHABLE;
+            return;
+        }
+        double km = greatCircleKm(target.latitudes[i], target.longitudes[i], target.latitudes[j], target.longitudes[j])
+                * roadFactor;
+        target.distanceKm[cell] = (float) km;
+        target.travelMinutes[cell] = (float) (km / averageSpeedKmh * 60);
+    }
+
+    /**
+     * The great-circle cost writeDirect gives a pair without a link, or null when
+     * either end is not in the matrix or has no coordinates
+     */
+    private float[] coordinateCost(Matrix current, int fromWarehouseId, int toWarehouseId) {
+        Integer from = current.slots.get(fromWarehouseId);
+        Integer to = current.slots.get(toWarehouseId);
+        if (from == null || to == null || Double.isNaN(current.latitudes[from]) || Double.isNaN(current.latitudes[to])) {
+            return null;
+        }
+        double km = greatCircleKm(current.latitudes[from], current.longitudes[from],
+                current.latitudes[to], current.longitudes[to]) * roadFactor;
+        return new float[]{(float) km, (float) (km / averageSpeedKmh * 60)};
+    }
+
+    private float[] putLink(int fromWarehouseId, int toWarehouseId, float distanceKm, float minutes) {
+        return links.put(linkKey(fromWarehouseId, toWarehouseId), new float[]{distanceKm, minutes});
+    }
+
+    private double travelMinutesOf(WarehouseLink link) {
+        return link.getTravelMinutes() != null
+                ? link.getTravelMinutes()
+                : link.getDistanceKm() / averageSpeedKmh * 60;
+    }
+
+    private WarehouseDistance toDistance(Matrix current, int from, int to) {
+        float distance = current.distanceKm[from * current.capacity + to];
+        boolean reachable = distance != UNREACHABLE;
+        return WarehouseDistance.builder()
+                .fromWarehouseId(current.warehouseIds[from])
+                .toWarehouseId(current.warehouseIds[to])
+                .reachable(reachable)
+                .distanceKm(reachable ? (double) distance : null)
+                .travelMinutes(reachable ? (double) current.travelMinutes[from * current.capacity + to] : null)
+                .build();
+    }
+
+    private static void setCoordinates(Matrix target, int slot, String location) {
+        double[] coordinates = parseCoordinates(location);
+        target.latitudes[slot] = coordinates[0];
+        target.longitudes[slot] = coordinates[1];
+    }
+
+    private static double[] parseCoordinates(String location) {
+        if (location != null) {
+            Matcher matcher = COORDINATES.matcher(location);
+            if (matcher.find()) {
+                double latitude = Double.parseDouble(matcher.group(1));
+                double longitude = Double.parseDouble(matcher.group(2));
+                if (Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180) {
+                    return new double[]{latitude, longitude};
+                }
+            }
+        }
+        return new double[]{Double.NaN, Double.NaN};
+    }
+
+    private static double greatCircleKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static long linkKey(int fromWarehouseId, int toWarehouseId) {
+        return ((long) fromWarehouseId << 32) | (toWarehouseId & 0xffffffffL);
+    }
+
+    private static final class Matrix {
+        private final int capacity;
+        private final Map<Integer, Integer> slots = new ConcurrentHashMap<>();
+        private final int[] warehouseIds;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final float[] distanceKm;
+        private final float[] travelMinutes;
+        private int size;
+
+        private Matrix(int capacity) {
+            this.capacity = capacity;
+            this.warehouseIds = new int[capacity];
+            this.latitudes = new double[capacity];
+            this.longitudes = new double[capacity];
+            this.distanceKm = new float[capacity * capacity];
+            this.travelMinutes = new float[capacity * capacity];
+            Arrays.fill(latitudes, Double.NaN);
+            Arrays.fill(longitudes, Double.NaN);
+            Arrays.fill(distanceKm, UNREACHABLE);
+            Arrays.fill(travelMinutes, UNREACHABLE);
+        }
+
+        private Matrix copy() {
+            return grow(capacity);
+        }
+
+        private Matrix grow(int newCapacity) {
+            Matrix grown = new Matrix(newCapacity);
+            grown.size = size;
+            grown.slots.putAll(slots);
+            System.arraycopy(warehouseIds, 0, grown.warehouseIds, 0, size);
+            System.arraycopy(latitudes, 0, grown.latitudes, 0, size);
+            System.arraycopy(longitudes, 0, grown.longitudes, 0, size);
+            for (int row = 0; row < size; row++) {
+                System.arraycopy(distanceKm, row * capacity, grown.distanceKm, row * newCapacity, size);
+                System.arraycopy(travelMinutes, row * capacity, grown.travelMinutes, row * newCapacity, size);
+            }
+            return grown;
+        }
+    }
+}
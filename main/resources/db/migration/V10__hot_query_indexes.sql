@@ -0,0 +1,29 @@
+-- Composite indexes for the repository and report queries that used to scan.
+-- Equality columns come first and the range or sort column last, so one index
+-- serves both the plain lookup and its status or date filtered variants.
+-- QueryPlanVerifierTest checks in the build that MySQL actually picks them.
+
+-- ShipmentService.getPendingShipmentsByWarehouse, the shipments report per warehouse
+-- (an OR of both sides becomes an index merge of these two)
+CREATE INDEX idx_shipments_origin_status ON Shipments(origin_warehouse_id, status, created_at);
+CREATE INDEX idx_shipments_destination_status ON Shipments(destination_warehouse_id, status, created_at);
+
+-- Shipments on a truck, optionally by status
+CREATE INDEX idx_shipments_truck_status ON Shipments(assigned_truck_id, status);
+
+-- Shipments report filtered by status over a date range
+CREATE INDEX idx_shipments_status_created ON Shipments(status, created_at);
+
+-- InventoryAssignmentRepository.findByTruckId
+CREATE INDEX idx_assignments_truck_status ON InventoryAssignments(truck_id, status);
+
+-- InventoryAssignmentRepository.findBySourceWarehouseId / findByDestinationWarehouseId
+-- and the assignments report per warehouse
+CREATE INDEX idx_assignments_source_status ON InventoryAssignments(source_warehouse_id, status, assigned_at);
+CREATE INDEX idx_assignments_destination_status ON InventoryAssignments(destination_warehouse_id, status, assigned_at);
+
+-- Inventory of one SKU across warehouses; (warehouse_id, sku) is covered by uk_inventory_warehouse_sku
+CREATE INDEX idx_inventory_sku ON Inventory(sku, warehouse_id);
+
+-- Users by role, e.g. listing delivery drivers
+CREATE INDEX idx_users_role ON Users(role);
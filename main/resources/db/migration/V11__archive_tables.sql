@@ -0,0 +1,20 @@
+-- Cold storage for closed shipments and assignments. The archive tables copy the
+-- hot table's columns and indexes (not its foreign keys or triggers) with an
+-- archived_at column appended; ShipmentArchiver copies rows positionally, so a
+-- column added to a hot table must be added to its archive table in the same
+-- position, ahead of archived_at.
+CREATE TABLE IF NOT EXISTS ShipmentsArchive LIKE Shipments;
+ALTER TABLE ShipmentsArchive ADD COLUMN archived_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+CREATE TABLE IF NOT EXISTS ShipmentItemsArchive LIKE ShipmentItems;
+ALTER TABLE ShipmentItemsArchive ADD COLUMN archived_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+CREATE TABLE IF NOT EXISTS InventoryAssignmentsArchive LIKE InventoryAssignments;
+ALTER TABLE InventoryAssignmentsArchive ADD COLUMN archived_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+CREATE TABLE IF NOT EXISTS AssignmentItemsArchive LIKE AssignmentItems;
+ALTER TABLE AssignmentItemsArchive ADD COLUMN archived_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+-- Lets the archiver find closed rows past the cutoff without a scan
+CREATE INDEX idx_shipments_status_updated ON Shipments(status, updated_at);
+CREATE INDEX idx_assignments_status_completed ON InventoryAssignments(status, completed_at);
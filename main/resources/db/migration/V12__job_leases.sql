@@ -0,0 +1,18 @@
+-- Leases that give each background job, or each shard of a sharded job, a single
+-- owner across instances. fencing_token goes up on every change of owner, so work
+-- checked against it can tell a current owner from one whose lease already expired.
+CREATE TABLE IF NOT EXISTS JobLeases (
+    lease_name VARCHAR(128) PRIMARY KEY,
+    owner VARCHAR(128) NULL,
+    fencing_token BIGINT NOT NULL DEFAULT 0,
+    acquired_at TIMESTAMP(3) NULL,
+    expires_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
+
+-- Live instances, used to split shards of a job evenly between them
+CREATE TABLE IF NOT EXISTS JobInstances (
+    instance_id VARCHAR(128) PRIMARY KEY,
+    started_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    heartbeat_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_job_instances_heartbeat (heartbeat_at)
+);
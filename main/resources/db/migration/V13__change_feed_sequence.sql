@@ -0,0 +1,21 @@
+-- The auto-increment seq is taken when a change is written but becomes visible when
+-- its transaction commits, so a long transaction can commit a seq below one a sync
+-- has already passed. feed_seq is handed out instead by ChangeFeedService once the
+-- row is committed, in one serialised step, so feed_seq order is commit order.
+-- Existing rows keep their seq, so sync positions held by clients stay valid.
+ALTER TABLE ChangeFeed
+    ADD COLUMN feed_seq BIGINT NULL,
+    ADD UNIQUE INDEX uq_change_feed_feed_seq (feed_seq),
+    ADD INDEX idx_change_feed_warehouse_feed_seq (warehouse_id, feed_seq),
+    DROP INDEX idx_change_feed_warehouse_seq;
+
+UPDATE ChangeFeed SET feed_seq = seq;
+
+-- Last feed_seq handed out; its single row is locked while the next batch is sequenced
+CREATE TABLE IF NOT EXISTS ChangeFeedSequence (
+    id TINYINT PRIMARY KEY,
+    last_seq BIGINT NOT NULL
+);
+
+INSERT INTO ChangeFeedSequence (id, last_seq)
+SELECT 1, COALESCE(MAX(seq), 0) FROM ChangeFeed;
@@ -0,0 +1,29 @@
+-- WarehouseLinks rows are one-way from now on, matching the (from, to) primary key.
+-- Links stored so far were read as two-way, so each gets its reverse unless that
+-- direction was imported separately.
+INSERT IGNORE INTO WarehouseLinks (from_warehouse_id, to_warehouse_id, distance_km, travel_minutes)
+SELECT to_warehouse_id, from_warehouse_id, distance_km, travel_minutes FROM WarehouseLinks;
+
+-- Deleting a warehouse takes its links with it. The foreign keys were created
+-- unnamed, so their generated names are looked up first.
+SET @fk = (SELECT constraint_name FROM information_schema.key_column_usage
+           WHERE table_schema = DATABASE() AND table_name = 'WarehouseLinks'
+             AND column_name = 'from_warehouse_id' AND referenced_table_name IS NOT NULL LIMIT 1);
+SET @ddl = IF(@fk IS NULL, 'DO 0', CONCAT('ALTER TABLE WarehouseLinks DROP FOREIGN KEY ', @fk));
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @fk = (SELECT constraint_name FROM information_schema.key_column_usage
+           WHERE table_schema = DATABASE() AND table_name = 'WarehouseLinks'
+             AND column_name = 'to_warehouse_id' AND referenced_table_name IS NOT NULL LIMIT 1);
+SET @ddl = IF(@fk IS NULL, 'DO 0', CONCAT('ALTER TABLE WarehouseLinks DROP FOREIGN KEY ', @fk));
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+ALTER TABLE WarehouseLinks
+    ADD CONSTRAINT fk_warehouse_links_from FOREIGN KEY (from_warehouse_id)
+        REFERENCES Warehouses(warehouse_id) ON DELETE CASCADE,
+    ADD CONSTRAINT fk_warehouse_links_to FOREIGN KEY (to_warehouse_id)
+        REFERENCES Warehouses(warehouse_id) ON DELETE CASCADE;
@@ -0,0 +1,13 @@
+-- The KPI rollup follows committed ChangeFeed rows by feed_seq instead of reading
+-- Shipments.updated_at, which is set before commit and so can land behind a time
+-- watermark that has already moved on. An existing job resumes from the first
+-- change made within an hour of its old watermark; recomputing a day twice is
+-- harmless, missing one is not.
+ALTER TABLE RollupWatermarks
+    ADD COLUMN last_feed_seq BIGINT NULL;
+
+UPDATE RollupWatermarks w
+SET w.last_feed_seq = COALESCE(
+        (SELECT MIN(c.feed_seq) - 1 FROM ChangeFeed c
+         WHERE c.feed_seq IS NOT NULL AND c.changed_at > w.last_processed_at - INTERVAL 1 HOUR),
+        (SELECT s.last_seq FROM ChangeFeedSequence s WHERE s.id = 1));
@@ -0,0 +1,10 @@
+-- Route plans are proposals that a dispatcher commits later, possibly through another
+-- instance than the one that built them, so they are stored rather than kept in the
+-- memory of one JVM. The row is locked while a plan commits, so it commits once.
+CREATE TABLE IF NOT EXISTS RoutePlans (
+    plan_id CHAR(36) PRIMARY KEY,
+    status VARCHAR(16) NOT NULL,
+    plan JSON NOT NULL,
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_route_plans_created_at (created_at)
+);
@@ -0,0 +1,65 @@
+-- Formerly shipment_processing_migration.sql, which existing databases already had
+-- applied by hand; those are baselined at V2 and never run this. Every statement is
+-- still guarded so that a database where only part of it was applied migrates cleanly.
+
+-- Add READY_FOR_PICKUP status to the shipment_status enum if it doesn't exist
+-- This is database-specific, for MySQL:
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'Shipments' AND column_name = 'status'
+                 AND column_type LIKE '%READY_FOR_PICKUP%') = 0,
+    'ALTER TABLE Shipments MODIFY COLUMN status ENUM(''PENDING'', ''SCHEDULED_FOR_PICKUP'', ''READY_FOR_PICKUP'', ''IN_TRANSIT'', ''DELIVERED'', ''CANCELLED'') NOT NULL',
+    'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Create ShipmentItems table
+CREATE TABLE IF NOT EXISTS ShipmentItems (
+    shipment_item_id INT AUTO_INCREMENT PRIMARY KEY,
+    shipment_id INT NOT NULL,
+    inventory_id INT NOT NULL,
+    quantity INT NOT NULL DEFAULT 1,
+    weight DECIMAL(10, 2),
+    volume DECIMAL(10, 2),
+    barcode VARCHAR(50),
+    status ENUM('PENDING', 'VERIFIED', 'MISSING', 'DAMAGED', 'LOADED') NOT NULL DEFAULT 'PENDING',
+    verified_by INT,
+    verified_at DATETIME,
+    notes VARCHAR(500),
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (shipment_id) REFERENCES Shipments(shipment_id) ON DELETE CASCADE,
+    FOREIGN KEY (inventory_id) REFERENCES Inventory(inventory_id),
+    FOREIGN KEY (verified_by) REFERENCES Users(user_id)
+);
+
+-- Create index for faster lookups (MySQL has no CREATE INDEX IF NOT EXISTS)
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'ShipmentItems'
+                 AND index_name = 'idx_shipment_items_shipment_id') = 0,
+    'CREATE INDEX idx_shipment_items_shipment_id ON ShipmentItems(shipment_id)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'ShipmentItems'
+                 AND index_name = 'idx_shipment_items_barcode') = 0,
+    'CREATE INDEX idx_shipment_items_barcode ON ShipmentItems(barcode)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'ShipmentItems'
+                 AND index_name = 'idx_shipment_items_status') = 0,
+    'CREATE INDEX idx_shipment_items_status ON ShipmentItems(status)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Add WAREHOUSE_MANAGER role to users table if needed
+-- Insert a warehouse manager user for testing, unless one (or this username) already exists
+INSERT INTO Users (username, email, password_hash, role, created_at, updated_at)
+SELECT 'warehousemanager', 'warehouse.manager@logistics.com', '$2a$10$hKDVYxLefVHV/vtuPhWD3OigtRyOykRLDdUAp80Z1crSoS1lFqaFS', 'warehouse_manager', NOW(), NOW()
+WHERE NOT EXISTS (SELECT 1 FROM Users WHERE role = 'warehouse_manager' OR username = 'warehousemanager' LIMIT 1);
@@ -0,0 +1,7 @@
+-- Bulk inventory import upserts on (warehouse_id, sku).
+-- Existing duplicates make this migration fail; find them with
+--   SELECT warehouse_id, sku, COUNT(*) FROM Inventory GROUP BY warehouse_id, sku HAVING COUNT(*) > 1;
+-- and merge them by hand before migrating.
+
+-- Unique key used by INSERT ... ON DUPLICATE KEY UPDATE
+CREATE UNIQUE INDEX uk_inventory_warehouse_sku ON Inventory(warehouse_id, sku);
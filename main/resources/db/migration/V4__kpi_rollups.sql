@@ -0,0 +1,24 @@
+-- Daily per-lane shipment rollups, bucketed by the day the shipment was created
+CREATE TABLE IF NOT EXISTS ShipmentLaneDailyRollups (
+    rollup_day DATE NOT NULL,
+    origin_warehouse_id INT NOT NULL,
+    destination_warehouse_id INT NOT NULL,
+    shipment_count INT NOT NULL DEFAULT 0,
+    total_weight DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    delivered_count INT NOT NULL DEFAULT 0,
+    on_time_count INT NOT NULL DEFAULT 0,
+    dwell_seconds_total BIGINT NOT NULL DEFAULT 0,
+    dwell_count INT NOT NULL DEFAULT 0,
+    refreshed_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (rollup_day, origin_warehouse_id, destination_warehouse_id)
+);
+
+-- Watermarks of incremental background jobs
+CREATE TABLE IF NOT EXISTS RollupWatermarks (
+    job_name VARCHAR(100) PRIMARY KEY,
+    last_processed_at DATETIME NOT NULL
+);
+
+-- Lets the rollup job find rows changed since its watermark without a full scan
+CREATE INDEX idx_shipments_updated_at ON Shipments(updated_at);
+CREATE INDEX idx_shipments_created_at ON Shipments(created_at);
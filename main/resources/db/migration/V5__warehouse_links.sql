@@ -0,0 +1,11 @@
+-- Road links between warehouses used by the distance matrix. Links are two-way;
+-- pairs without a link fall back to the coordinates in Warehouses.location
+CREATE TABLE IF NOT EXISTS WarehouseLinks (
+    from_warehouse_id INT NOT NULL,
+    to_warehouse_id INT NOT NULL,
+    distance_km DECIMAL(10, 2) NOT NULL,
+    travel_minutes DECIMAL(10, 2) NOT NULL,
+    PRIMARY KEY (from_warehouse_id, to_warehouse_id),
+    FOREIGN KEY (from_warehouse_id) REFERENCES Warehouses(warehouse_id),
+    FOREIGN KEY (to_warehouse_id) REFERENCES Warehouses(warehouse_id)
+);
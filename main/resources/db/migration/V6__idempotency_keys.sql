@@ -0,0 +1,12 @@
+-- Responses stored under Idempotency-Key headers. A row with a NULL status_code is
+-- a claim by a request that is still running
+CREATE TABLE IF NOT EXISTS IdempotencyKeys (
+    key_hash CHAR(64) PRIMARY KEY,
+    request_hash CHAR(64) NOT NULL,
+    status_code INT NULL,
+    content_type VARCHAR(255) NULL,
+    response_body MEDIUMBLOB NULL,
+    created_at DATETIME NOT NULL,
+    expires_at DATETIME NOT NULL,
+    INDEX idx_idempotency_expires_at (expires_at)
+);
@@ -0,0 +1,7 @@
+-- Last scan journal sequence number applied to ShipmentItems, written in the same
+-- transaction as the scans so a replay after a crash skips what is already applied
+CREATE TABLE IF NOT EXISTS ScanJournalCheckpoints (
+    journal_name VARCHAR(64) PRIMARY KEY,
+    last_applied_seq BIGINT NOT NULL,
+    updated_at DATETIME NOT NULL
+);
@@ -0,0 +1,80 @@
+-- Change feed for warehouse-scoped delta sync. Triggers stamp every insert, update
+-- and delete of the synced tables with a global sequence number, once per warehouse
+-- the row belongs to before and after the change. Deleting a shipment cascades to
+-- its items without firing their triggers; clients drop a shipment's items along
+-- with its tombstone.
+CREATE TABLE IF NOT EXISTS ChangeFeed (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity_type VARCHAR(32) NOT NULL,
+    entity_id INT NOT NULL,
+    warehouse_id INT NOT NULL,
+    changed_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_change_feed_warehouse_seq (warehouse_id, seq),
+    INDEX idx_change_feed_changed_at (changed_at)
+);
+
+CREATE TRIGGER trg_shipments_feed_insert AFTER INSERT ON Shipments FOR EACH ROW
+    INSERT INTO ChangeFeed (entity_type, entity_id, warehouse_id)
+    SELECT 'SHIPMENT', NEW.shipment_id, w FROM (
+        SELECT NEW.origin_warehouse_id AS w UNION SELECT NEW.destination_warehouse_id) AS scopes
+    WHERE w IS NOT NULL;
+
+CREATE TRIGGER trg_shipments_feed_update AFTER UPDATE ON Shipments FOR EACH ROW
+    INSERT INTO ChangeFeed (entity_type, entity_id, warehouse_id)
+    SELECT 'SHIPMENT', NEW.shipment_id, w FROM (
+        SELECT OLD.origin_warehouse_id AS w UNION SELECT OLD.destination_warehouse_id
+        UNION SELECT NEW.origin_warehouse_id UNION SELECT NEW.destination_warehouse_id) AS scopes
+    WHERE w IS NOT NULL;
+
+CREATE TRIGGER trg_shipments_feed_delete AFTER DELETE ON Shipments FOR EACH ROW
+    INSERT INTO ChangeFeed (entity_type, entity_id, warehouse_id)
+    SELECT 'SHIPMENT', OLD.shipment_id, w FROM (
+        SELECT OLD.origin_warehouse_id AS w UNION SELECT OLD.destination_warehouse_id) AS scopes
+    WHERE w IS NOT NULL;
+
+CREATE TRIGGER trg_shipment_items_feed_insert AFTER INSERT ON ShipmentItems FOR EACH ROW
+    INSERT INTO ChangeFeed (entity_type, entity_id, warehouse_id)
+    SELECT 'SHIPMENT_ITEM', NEW.shipment_item_id, origin_warehouse_id FROM Shipments WHERE shipment_id = NEW.shipment_id
+    UNION SELECT 'SHIPMENT_ITEM', NEW.shipment_item_id, destination_warehouse_id FROM Shipments WHERE shipment_id = NEW.shipment_id;
+
+CREATE TRIGGER trg_shipment_items_feed_update AFTER UPDATE ON ShipmentItems FOR EACH ROW
+    INSERT INTO ChangeFeed (entity_type, entity_id, warehouse_id)
+    SELECT 'SHIPMENT_ITEM', NEW.shipment_item_id, origin_warehouse_id FROM Shipments WHERE shipment_id = NEW.shipment_id
+    UNION SELECT 'SHIPMENT_ITEM', NEW.shipment_item_id, destination_warehouse_id FROM Shipments WHERE shipment_id = NEW.shipment_id;
+
+CREATE TRIGGER trg_shipment_items_feed_delete AFTER DELETE ON ShipmentItems FOR EACH ROW
+    INSERT INTO ChangeFeed (entity_type, entity_id, warehouse_id)
+    SELECT 'SHIPMENT_ITEM', OLD.shipment_item_id, origin_warehouse_id FROM Shipments WHERE shipment_id = OLD.shipment_id
+    UNION SELECT 'SHIPMENT_ITEM', OLD.shipment_item_id, destination_warehouse_id FROM Shipments WHERE shipment_id = OLD.shipment_id;
+
+CREATE TRIGGER trg_inventory_feed_insert AFTER INSERT ON Inventory FOR EACH ROW
+    INSERT INTO ChangeFeed (entity_type, entity_id, warehouse_id)
+    VALUES ('INVENTORY', NEW.inventory_id, NEW.warehouse_id);
+
+CREATE TRIGGER trg_inventory_feed_update AFTER UPDATE ON Inventory FOR EACH ROW
+    INSERT INTO ChangeFeed (entity_type, entity_id, warehouse_id)
+    SELECT 'INVENTORY', NEW.inventory_id, w FROM (
+        SELECT OLD.warehouse_id AS w UNION SELECT NEW.warehouse_id) AS scopes;
+
+CREATE TRIGGER trg_inventory_feed_delete AFTER DELETE ON Inventory FOR EACH ROW
+    INSERT INTO ChangeFeed (entity_type, entity_id, warehouse_id)
+    VALUES ('INVENTORY', OLD.inventory_id, OLD.warehouse_id);
+
+CREATE TRIGGER trg_assignments_feed_insert AFTER INSERT ON InventoryAssignments FOR EACH ROW
+    INSERT INTO ChangeFeed (entity_type, entity_id, warehouse_id)
+    SELECT 'INVENTORY_ASSIGNMENT', NEW.assignment_id, w FROM (
+        SELECT NEW.source_warehouse_id AS w UNION SELECT NEW.destination_warehouse_id) AS scopes
+    WHERE w IS NOT NULL;
+
+CREATE TRIGGER trg_assignments_feed_update AFTER UPDATE ON InventoryAssignments FOR EACH ROW
+    INSERT INTO ChangeFeed (entity_type, entity_id, warehouse_id)
+    SELECT 'INVENTORY_ASSIGNMENT', NEW.assignment_id, w FROM (
+        SELECT OLD.source_warehouse_id AS w UNION SELECT OLD.destination_warehouse_id
+        UNION SELECT NEW.source_warehouse_id UNION SELECT NEW.destination_warehouse_id) AS scopes
+    WHERE w IS NOT NULL;
+
+CREATE TRIGGER trg_assignments_feed_delete AFTER DELETE ON InventoryAssignments FOR EACH ROW
+    INSERT INTO ChangeFeed (entity_type, entity_id, warehouse_id)
+    SELECT 'INVENTORY_ASSIGNMENT', OLD.assignment_id, w FROM (
+        SELECT OLD.source_warehouse_id AS w UNION SELECT OLD.destination_warehouse_id) AS scopes
+    WHERE w IS NOT NULL;
@@ -0,0 +1,62 @@
+-- Transactional outbox for integration events. Triggers write each event in the
+-- same transaction as the change that caused it, whichever service or query made
+-- the change; OutboxPublisher delivers them in event_id order and stamps published_at.
+CREATE TABLE IF NOT EXISTS OutboxEvents (
+    event_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    aggregate_type VARCHAR(32) NOT NULL,
+    aggregate_id INT NOT NULL,
+    event_type VARCHAR(64) NOT NULL,
+    payload JSON NOT NULL,
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    published_at TIMESTAMP(3) NULL,
+    INDEX idx_outbox_unpublished (published_at, event_id)
+);
+
+CREATE TRIGGER trg_shipments_outbox_insert AFTER INSERT ON Shipments FOR EACH ROW
+    INSERT INTO OutboxEvents (aggregate_type, aggregate_id, event_type, payload)
+    VALUES ('SHIPMENT', NEW.shipment_id, 'SHIPMENT_CREATED', JSON_OBJECT(
+        'shipmentId', NEW.shipment_id, 'trackingNumber', NEW.tracking_number, 'status', NEW.status,
+        'originWarehouseId', NEW.origin_warehouse_id, 'destinationWarehouseId', NEW.destination_warehouse_id,
+        'estimatedDeliveryDate', NEW.estimated_delivery_date));
+
+CREATE TRIGGER trg_shipments_outbox_update AFTER UPDATE ON Shipments FOR EACH ROW
+    INSERT INTO OutboxEvents (aggregate_type, aggregate_id, event_type, payload)
+    SELECT 'SHIPMENT', NEW.shipment_id, 'SHIPMENT_STATUS_CHANGED', JSON_OBJECT(
+        'shipmentId', NEW.shipment_id, 'trackingNumber', NEW.tracking_number,
+        'previousStatus', OLD.status, 'status', NEW.status,
+        'originWarehouseId', NEW.origin_warehouse_id, 'destinationWarehouseId', NEW.destination_warehouse_id,
+        'assignedTruckId', NEW.assigned_truck_id, 'estimatedDeliveryDate', NEW.estimated_delivery_date,
+        'actualPickupDate', NEW.actual_pickup_date, 'actualDeliveryDate', NEW.actual_delivery_date)
+    FROM DUAL WHERE NOT (OLD.status <=> NEW.status);
+
+CREATE TRIGGER trg_transfers_outbox_insert AFTER INSERT ON InventoryTransfers FOR EACH ROW
+    INSERT INTO OutboxEvents (aggregate_type, aggregate_id, event_type, payload)
+    VALUES ('INVENTORY_TRANSFER', NEW.transfer_id, 'INVENTORY_TRANSFER_CREATED', JSON_OBJECT(
+        'transferId', NEW.transfer_id, 'inventoryId', NEW.inventory_id, 'quantity', NEW.quantity,
+        'sourceWarehouseId', NEW.source_warehouse_id, 'destinationWarehouseId', NEW.destination_warehouse_id,
+        'status', NEW.status));
+
+CREATE TRIGGER trg_transfers_outbox_update AFTER UPDATE ON InventoryTransfers FOR EACH ROW
+    INSERT INTO OutboxEvents (aggregate_type, aggregate_id, event_type, payload)
+    SELECT 'INVENTORY_TRANSFER', NEW.transfer_id,
+        CASE WHEN NEW.status = 'COMPLETED' THEN 'INVENTORY_TRANSFER_COMPLETED' ELSE 'INVENTORY_TRANSFER_STATUS_CHANGED' END,
+        JSON_OBJECT(
+        'transferId', NEW.transfer_id, 'inventoryId', NEW.inventory_id, 'quantity', NEW.quantity,
+        'sourceWarehouseId', NEW.source_warehouse_id, 'destinationWarehouseId', NEW.destination_warehouse_id,
+        'previousStatus', OLD.status, 'status', NEW.status, 'completedAt', NEW.completed_at)
+    FROM DUAL WHERE NOT (OLD.status <=> NEW.status);
+
+CREATE TRIGGER trg_assignments_outbox_insert AFTER INSERT ON InventoryAssignments FOR EACH ROW
+    INSERT INTO OutboxEvents (aggregate_type, aggregate_id, event_type, payload)
+    VALUES ('INVENTORY_ASSIGNMENT', NEW.assignment_id, 'INVENTORY_ASSIGNMENT_CREATED', JSON_OBJECT(
+        'assignmentId', NEW.assignment_id, 'truckId', NEW.truck_id,
+        'sourceWarehouseId', NEW.source_warehouse_id, 'destinationWarehouseId', NEW.destination_warehouse_id,
+        'status', NEW.status));
+
+CREATE TRIGGER trg_assignments_outbox_update AFTER UPDATE ON InventoryAssignments FOR EACH ROW
+    INSERT INTO OutboxEvents (aggregate_type, aggregate_id, event_type, payload)
+    SELECT 'INVENTORY_ASSIGNMENT', NEW.assignment_id, 'INVENTORY_ASSIGNMENT_STATUS_CHANGED', JSON_OBJECT(
+        'assignmentId', NEW.assignment_id, 'truckId', NEW.truck_id,
+        'sourceWarehouseId', NEW.source_warehouse_id, 'destinationWarehouseId', NEW.destination_warehouse_id,
+        'previousStatus', OLD.status, 'status', NEW.status, 'completedAt', NEW.completed_at)
+    FROM DUAL WHERE NOT (OLD.status <=> NEW.status);
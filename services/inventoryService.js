@@ -16,6 +16,13 @@ class InventoryService {
     return axios.get(`${API_URL}/warehouse/${warehouseId}`, { headers: AuthService.authHeader() });
   }
 
+  searchInventory(query, warehouseId, limit = 20) {
+    return axios.get(`${API_URL}/search`, {
+      headers: AuthService.authHeader(),
+      params: { q: query, warehouseId, limit }
+    });
+  }
+
   createInventory(inventoryData) {
     return axios.post(API_URL, inventoryData, { headers: AuthService.authHeader() });
   }
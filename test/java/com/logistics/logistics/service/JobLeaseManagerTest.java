@@ -0,0 +1,235 @@
+package com.logistics.logistics.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Two instances, each its own application context with its own JobLeaseManager,
+ * sharing one MySQL: a lease moves to the other instance when its owner stops
+ * renewing or shuts down, a stale owner's fenced write is rejected, and shards are
+ * split evenly as instances come and go.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class JobLeaseManagerTest {
+
+	@Container
+	static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+	private static final long TTL_MS = 2000;
+	// Longer than the TTL, so an instance's leases lapse as if it had stalled
+	private static final long STALLED_HEARTBEAT_MS = 60000;
+	private static final long HEARTBEAT_MS = 200;
+
+	private static JdbcTemplate jdbcTemplate;
+
+	private final List<AnnotationConfigApplicationContext> contexts = new ArrayList<>();
+
+	@BeforeAll
+	static void createSchema() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword());
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		new ResourceDatabasePopulator(new ClassPathResource("db/migration/V12__job_leases.sql")).execute(dataSource);
+		jdbcTemplate.execute("CREATE TABLE FencedWrites (writer VARCHAR(16) NOT NULL)");
+	}
+
+	@BeforeEach
+	void clearTables() {
+		jdbcTemplate.execute("DELETE FROM JobLeases");
+		jdbcTemplate.execute("DELETE FROM JobInstances");
+		jdbcTemplate.execute("DELETE FROM FencedWrites");
+	}
+
+	@AfterEach
+	void closeContexts() {
+		contexts.forEach(AnnotationConfigApplicationContext::close);
+	}
+
+	@Test
+	void takesOverLeaseWhenOwnerStopsRenewing() throws Exception {
+		JobLeaseManager first = start(STALLED_HEARTBEAT_MS);
+		JobLeaseManager second = start(STALLED_HEARTBEAT_MS);
+
+		JobLeaseManager.Lease firstLease = first.acquire("outbox-relay").orElseThrow();
+		assertThat(second.acquire("outbox-relay")).isEmpty();
+
+		Thread.sleep(TTL_MS + 500);
+		JobLeaseManager.Lease secondLease = second.acquire("outbox-relay").orElseThrow();
+		assertThat(secondLease.getToken()).isGreaterThan(firstLease.getToken());
+		assertThat(first.acquire("outbox-relay")).isEmpty();
+	}
+
+	@Test
+	void handsLeaseOverOnShutdown() {
+		AnnotationConfigApplicationContext firstContext = startContext(HEARTBEAT_MS);
+		JobLeaseManager first = firstContext.getBean(JobLeaseManager.class);
+		JobLeaseManager second = start(HEARTBEAT_MS);
+
+		JobLeaseManager.Lease firstLease = first.acquire("kpi-rollup").orElseThrow();
+		assertThat(second.acquire("kpi-rollup")).isEmpty();
+
+		firstContext.close();
+		JobLeaseManager.Lease secondLease = second.acquire("kpi-rollup").orElseThrow();
+		assertThat(secondLease.getToken()).isGreaterThan(firstLease.getToken());
+	}
+
+	@Test
+	void rejectsFencedWriteOfStaleOwner() throws Exception {
+		AnnotationConfigApplicationContext firstContext = startContext(STALLED_HEARTBEAT_MS);
+		AnnotationConfigApplicationContext secondContext = startContext(STALLED_HEARTBEAT_MS);
+		JobLeaseManager first = firstContext.getBean(JobLeaseManager.class);
+		JobLeaseManager second = secondContext.getBean(JobLeaseManager.class);
+		// Writes go through each instance's own template so they join its fenced transaction
+		JdbcTemplate firstJdbc = firstContext.getBean(JdbcTemplate.class);
+		JdbcTemplate secondJdbc = secondContext.getBean(JdbcTemplate.class);
+
+		JobLeaseManager.Lease staleLease = first.acquire("archive").orElseThrow();
+		first.runFenced(staleLease, () -> firstJdbc.update("INSERT INTO FencedWrites VALUES ('first')"));
+
+		Thread.sleep(TTL_MS + 500);
+		JobLeaseManager.Lease currentLease = second.acquire("archive").orElseThrow();
+
+		// The stale owner still has its lease object and tries to write with it
+		assertThatThrownBy(() -> first.runFenced(staleLease,
+				() -> firstJdbc.update("INSERT INTO FencedWrites VALUES ('stale')")))
+				.isInstanceOf(IllegalStateException.class);
+		second.runFenced(currentLease, () -> secondJdbc.update("INSERT INTO FencedWrites VALUES ('second')"));
+
+		assertThat(jdbcTemplate.queryForList("SELECT writer FROM FencedWrites ORDER BY writer", String.class))
+				.containsExactly("first", "second");
+		assertThat(first.getStats().get("fenceRejections")).isEqualTo(1L);
+	}
+
+	@Test
+	void longFencedJobDoesNotHoldUpOtherRenewals() throws Exception {
+		AnnotationConfigApplicationContext firstContext = startContext(HEARTBEAT_MS);
+		JobLeaseManager first = firstContext.getBean(JobLeaseManager.class);
+		JobLeaseManager second = start(HEARTBEAT_MS);
+		JdbcTemplate firstJdbc = firstContext.getBean(JdbcTemplate.class);
+
+		JobLeaseManager.Lease archive = first.acquire("archive").orElseThrow();
+		first.acquire("outbox-relay").orElseThrow();
+
+		// One fenced transaction that outlives the TTL while the heartbeat keeps running
+		Thread job = new Thread(() -> first.runFenced(archive, () -> {
+			firstJdbc.update("INSERT INTO FencedWrites VALUES ('long')");
+			sleep(TTL_MS + 1000);
+		}));
+		job.start();
+		Thread.sleep(TTL_MS + 500);
+
+		assertThat(second.acquire("outbox-relay")).isEmpty();
+		assertThat(second.acquire("archive")).isEmpty();
+		job.join();
+		assertThat(jdbcTemplate.queryForList("SELECT writer FROM FencedWrites", String.class)).containsExactly("long");
+	}
+
+	@Test
+	void rebalancesShardsAsInstancesComeAndGo() {
+		JobLeaseManager first = start(HEARTBEAT_MS);
+		awaitLiveInstances(1);
+		assertThat(shards(first.acquireShards("archive", 4))).containsExactly(0, 1, 2, 3);
+
+		AnnotationConfigApplicationContext secondContext = startContext(HEARTBEAT_MS);
+		JobLeaseManager second = secondContext.getBean(JobLeaseManager.class);
+		awaitLiveInstances(2);
+
+		// The newcomer finds every shard taken; the first instance gives up its surplus on its next run
+		assertThat(second.acquireShards("archive", 4)).isEmpty();
+		assertThat(first.acquireShards("archive", 4)).hasSize(2);
+		Set<Integer> secondShards = shards(second.acquireShards("archive", 4));
+		assertThat(secondShards).hasSize(2);
+		Set<Integer> firstShards = shards(first.acquireShards("archive", 4));
+		assertThat(firstShards).hasSize(2).doesNotContainAnyElementsOf(secondShards);
+
+		// The second instance leaves and hands its shards back
+		secondContext.close();
+		awaitLiveInstances(1);
+		assertThat(shards(first.acquireShards("archive", 4))).containsExactly(0, 1, 2, 3);
+	}
+
+	private JobLeaseManager start(long heartbeatMs) {
+		return startContext(heartbeatMs).getBean(JobLeaseManager.class);
+	}
+
+	private AnnotationConfigApplicationContext startContext(long heartbeatMs) {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("lease-test", Map.of(
+				"logistics.leases.ttl-ms", String.valueOf(TTL_MS),
+				"logistics.leases.heartbeat-interval-ms", String.valueOf(heartbeatMs))));
+		context.register(InstanceConfig.class);
+		context.refresh();
+		contexts.add(context);
+		return context;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void awaitLiveInstances(int count) {
+		await().atMost(Duration.ofSeconds(10)).until(() -> jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM JobInstances", Integer.class) == count);
+	}
+
+	private static Set<Integer> shards(List<JobLeaseManager.Lease> leases) {
+		Set<Integer> shards = new TreeSet<>();
+		leases.forEach(lease -> shards.add(lease.getShard()));
+		return shards;
+	}
+
+	/**
+	 * What one instance needs to run JobLeaseManager against the shared database
+	 */
+	@Configuration
+	@Import(JobLeaseManager.class)
+	static class InstanceConfig {
+
+		@Bean
+		DataSource dataSource() {
+			return new DriverManagerDataSource(mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword());
+		}
+
+		@Bean
+		JdbcTemplate jdbcTemplate(DataSource dataSource) {
+			return new JdbcTemplate(dataSource);
+		}
+
+		@Bean
+		PlatformTransactionManager transactionManager(DataSource dataSource) {
+			return new DataSourceTransactionManager(dataSource);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.logistics.logistics.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * EXPLAINs every hot query against a real MySQL with the V3 and V10 indexes and a
+ * realistic spread of data, and checks that the optimizer picks the index each one
+ * was designed for. The core tables predate the migrations, so only the columns the
+ * queries and indexes touch are created here.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanVerifierTest {
+
+	@Container
+	static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+	private static final int WAREHOUSES = 50;
+	private static final int TRUCKS = 100;
+	private static final int SHIPMENTS = 20000;
+	private static final int ASSIGNMENTS = 10000;
+	private static final int SKUS = 200;
+	private static final int USERS = 1000;
+	private static final String[] SHIPMENT_STATUSES =
+			{"PENDING", "SCHEDULED_FOR_PICKUP", "READY_FOR_PICKUP", "IN_TRANSIT", "DELIVERED", "CANCELLED"};
+	private static final String[] ASSIGNMENT_STATUSES = {"PENDING", "IN_TRANSIT", "DELIVERED", "CANCELLED"};
+
+	private static JdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	static void createSchema() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				mysql.getJdbcUrl() + "?rewriteBatchedStatements=true", mysql.getUsername(), mysql.getPassword());
+		jdbcTemplate = new JdbcTemplate(dataSource);
+
+		jdbcTemplate.execute("CREATE TABLE Shipments (shipment_id INT AUTO_INCREMENT PRIMARY KEY, "
+				+ "tracking_number VARCHAR(50) NOT NULL, status " + enumOf(SHIPMENT_STATUSES) + " NOT NULL, origin_warehouse_id INT, "
+				+ "destination_warehouse_id INT, assigned_truck_id INT, notes VARCHAR(500), "
+				+ "created_at DATETIME NOT NULL)");
+		jdbcTemplate.execute("CREATE TABLE InventoryAssignments (assignment_id INT AUTO_INCREMENT PRIMARY KEY, "
+				+ "truck_id INT, source_warehouse_id INT, destination_warehouse_id INT, "
+				+ "status " + enumOf(ASSIGNMENT_STATUSES) + " NOT NULL, notes VARCHAR(500), assigned_at DATETIME NOT NULL)");
+		jdbcTemplate.execute("CREATE TABLE Inventory (inventory_id INT AUTO_INCREMENT PRIMARY KEY, "
+				+ "sku VARCHAR(50) NOT NULL, item_name VARCHAR(100), quantity INT NOT NULL, warehouse_id INT NOT NULL)");
+		jdbcTemplate.execute("CREATE TABLE Users (user_id INT AUTO_INCREMENT PRIMARY KEY, "
+				+ "username VARCHAR(50) NOT NULL, email VARCHAR(100), role VARCHAR(30) NOT NULL)");
+		new ResourceDatabasePopulator(
+				new ClassPathResource("db/migration/V3__inventory_import_key.sql"),
+				new ClassPathResource("db/migration/V10__hot_query_indexes.sql"))
+				.execute(dataSource);
+
+		seed();
+		jdbcTemplate.execute("ANALYZE TABLE Shipments, InventoryAssignments, Inventory, Users");
+	}
+
+	// Status columns are ENUMs in the real schema, which changes how the optimizer estimates them
+	private static String enumOf(String[] values) {
+		return "ENUM('" + String.join("', '", values) + "')";
+	}
+
+	private static void seed() {
+		LocalDateTime now = LocalDateTime.now();
+		String filler = "x".repeat(200);
+
+		List<Object[]> shipments = new ArrayList<>();
+		for (int i = 0; i < SHIPMENTS; i++) {
+			shipments.add(new Object[]{"TRK-" + i, SHIPMENT_STATUSES[i % SHIPMENT_STATUSES.length],
+					1 + i % WAREHOUSES, 1 + (i / WAREHOUSES) % WAREHOUSES,
+					i % 3 == 0 ? null : 1 + i % TRUCKS, filler, Timestamp.valueOf(now.minusHours(i % (365 * 24)))});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO Shipments (tracking_number, status, origin_warehouse_id, "
+				+ "destination_warehouse_id, assigned_truck_id, notes, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", shipments);
+
+		List<Object[]> assignments = new ArrayList<>();
+		for (int i = 0; i < ASSIGNMENTS; i++) {
+			assignments.add(new Object[]{1 + i % TRUCKS, 1 + i % WAREHOUSES, 1 + (i / WAREHOUSES) % WAREHOUSES,
+					ASSIGNMENT_STATUSES[i % ASSIGNMENT_STATUSES.length], filler, Timestamp.valueOf(now.minusHours(i))});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO InventoryAssignments (truck_id, source_warehouse_id, "
+				+ "destination_warehouse_id, status, notes, assigned_at) VALUES (?, ?, ?, ?, ?, ?)", assignments);
+
+		List<Object[]> inventory = new ArrayList<>();
+		for (int warehouse = 1; warehouse <= WAREHOUSES; warehouse++) {
+			for (int sku = 1; sku <= SKUS; sku++) {
+				inventory.add(new Object[]{String.format("SKU-%04d", sku), "Item " + sku, sku * 3, warehouse});
+			}
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO Inventory (sku, item_name, quantity, warehouse_id) VALUES (?, ?, ?, ?)",
+				inventory);
+
+		List<Object[]> users = new ArrayList<>();
+		for (int i = 0; i < USERS; i++) {
+			// Drivers are a small share of the users, as in production
+			String role = i % 20 == 0 ? "delivery_driver" : i % 2 == 0 ? "warehouse_staff" : "logistics_manager";
+			users.add(new Object[]{"user" + i, "user" + i + "@example.com", role});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO Users (username, email, role) VALUES (?, ?, ?)", users);
+	}
+
+	@Test
+	void everyHotQueryUsesItsIndex() {
+		List<Map<String, Object>> results = new QueryPlanVerifier(jdbcTemplate, false).verify();
+
+		assertThat(results).hasSize(9);
+		assertThat(results).allSatisfy(result -> assertThat(result.get("usesExpectedIndex"))
+				.as("plan of %s", result)
+				.isEqualTo(true));
+	}
+}
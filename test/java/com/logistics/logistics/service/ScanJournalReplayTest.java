@@ -0,0 +1,146 @@
+package com.logistics.logistics.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Crash and restart of the scan journal against a real MySQL: scans that were
+ * acknowledged but not applied are applied by the next start, and scans already
+ * applied are not applied again when their segments are replayed.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ScanJournalReplayTest {
+
+	@Container
+	static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+	private static final String TRACKING_NUMBER = "TRK-REPLAY";
+	private static final int SCANS = 60;
+	// Small segments so a run spans several of them and rotates
+	private static final int SEGMENT_BYTES = 1024;
+
+	@TempDir
+	Path directory;
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword());
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+		jdbcTemplate.execute("DROP TABLE IF EXISTS ShipmentItems");
+		jdbcTemplate.execute("DROP TABLE IF EXISTS ShipmentItemsOffline");
+		jdbcTemplate.execute("DROP TABLE IF EXISTS ScanJournalCheckpoints");
+		new ResourceDatabasePopulator(new ClassPathResource("db/migration/V7__scan_journal_checkpoints.sql"))
+				.execute(dataSource);
+		// Only the columns the journal writes
+		jdbcTemplate.execute("CREATE TABLE ShipmentItems (shipment_item_id INT PRIMARY KEY, "
+				+ "status VARCHAR(20) NOT NULL, verified_by INT, verified_at DATETIME, notes VARCHAR(500))");
+		for (int item = 1; item <= 2 * SCANS; item++) {
+			jdbcTemplate.update("INSERT INTO ShipmentItems (shipment_item_id, status) VALUES (?, 'PENDING')", item);
+		}
+	}
+
+	@Test
+	void replaysAcknowledgedScansExactlyOnce() throws Exception {
+		// The database is unreachable for ShipmentItems while the scans are acknowledged
+		jdbcTemplate.execute("RENAME TABLE ShipmentItems TO ShipmentItemsOffline");
+		ScanJournal crashed = open(directory, "");
+		for (int item = 1; item <= SCANS; item++) {
+			assertThat(crashed.append(TRACKING_NUMBER, item, "VERIFIED", 7, LocalDateTime.now(), null)).isTrue();
+		}
+		crashed.close();
+		jdbcTemplate.execute("RENAME TABLE ShipmentItemsOffline TO ShipmentItems");
+		assertThat(countItems("VERIFIED")).isZero();
+
+		String name = Files.readString(directory.resolve("journal-name")).trim();
+		assertThat(name).isNotEmpty().isNotEqualTo("default");
+
+		ScanJournal restarted = open(directory, "");
+		restarted.flush(TRACKING_NUMBER);
+		assertThat(countItems("VERIFIED")).isEqualTo(SCANS);
+		assertThat(checkpoint(name)).isEqualTo(SCANS);
+		restarted.close();
+
+		// Anything applied a second time would turn these back to VERIFIED
+		jdbcTemplate.update("UPDATE ShipmentItems SET status = 'PENDING'");
+		ScanJournal replayedAgain = open(directory, "");
+		replayedAgain.flush(TRACKING_NUMBER);
+		assertThat(countItems("VERIFIED")).isZero();
+		assertThat(checkpoint(name)).isEqualTo(SCANS);
+		assertThat(replayedAgain.getStats().get("conflicts")).isEqualTo(0L);
+
+		// New scans continue after the replayed sequence numbers
+		assertThat(replayedAgain.append(TRACKING_NUMBER, SCANS + 1, "VERIFIED", 7, LocalDateTime.now(), null)).isTrue();
+		replayedAgain.flush(TRACKING_NUMBER);
+		assertThat(countItems("VERIFIED")).isEqualTo(1);
+		assertThat(checkpoint(name)).isEqualTo(SCANS + 1);
+		replayedAgain.close();
+	}
+
+	@Test
+	void journalsWithoutConfiguredNameKeepSeparateCheckpoints() throws Exception {
+		Path first = Files.createDirectories(directory.resolve("first"));
+		Path second = Files.createDirectories(directory.resolve("second"));
+		ScanJournal firstJournal = open(first, "");
+		ScanJournal secondJournal = open(second, "");
+		String firstName = (String) firstJournal.getStats().get("name");
+		String secondName = (String) secondJournal.getStats().get("name");
+		assertThat(firstName).isNotEqualTo(secondName);
+
+		// Both number their scans from 1; with a shared checkpoint one would skip the other's
+		for (int item = 1; item <= SCANS; item++) {
+			assertThat(firstJournal.append(TRACKING_NUMBER, item, "VERIFIED", 7, LocalDateTime.now(), null)).isTrue();
+			assertThat(secondJournal.append(TRACKING_NUMBER, SCANS + item, "VERIFIED", 7, LocalDateTime.now(), null))
+					.isTrue();
+		}
+		firstJournal.flush(TRACKING_NUMBER);
+		secondJournal.flush(TRACKING_NUMBER);
+		assertThat(countItems("VERIFIED")).isEqualTo(2 * SCANS);
+		assertThat(checkpoint(firstName)).isEqualTo(SCANS);
+		assertThat(checkpoint(secondName)).isEqualTo(SCANS);
+		firstJournal.close();
+		secondJournal.close();
+
+		ScanJournal reopened = open(first, "");
+		assertThat(reopened.getStats().get("name")).isEqualTo(firstName);
+		reopened.close();
+	}
+
+	private ScanJournal open(Path journalDirectory, String name) {
+		ScanJournal journal = new ScanJournal(jdbcTemplate, transactionTemplate, true, journalDirectory.toString(),
+				SEGMENT_BYTES, 0, 50, 30000, name);
+		journal.recover();
+		assertThat(journal.isAccepting()).isTrue();
+		return journal;
+	}
+
+	private int countItems(String status) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ShipmentItems WHERE status = ?", Integer.class, status);
+	}
+
+	private long checkpoint(String name) {
+		return jdbcTemplate.queryForObject(
+				"SELECT last_applied_seq FROM ScanJournalCheckpoints WHERE journal_name = ?", Long.class, name);
+	}
+}